@@ -32,6 +32,7 @@ import java.io.Serializable;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.GZIPOutputStream;
@@ -92,44 +93,49 @@ class BackgroundWriter {
 				logger.finer("DEBUG: BackgroundWriter: Updating existing in queue");
 			}
 			if(!running) {
-				RootNodeImpl.executors.getUnbounded().submit(() -> {
-					int counter = 0;
-					while (true) {
-						// Get the next file from the queue until done
-						File persistenceFile1;
-						QueueEntry queueEntry1;
-						synchronized (queue) {
-							Iterator<Map.Entry<File, QueueEntry>> iter = queue.entrySet().iterator();
-							if(!iter.hasNext()) {
-								running = false;
-								logger.finer("DEBUG: BackgroundWriter: Total burst from queue: "+counter);
-								return;
+				try {
+					Bulkhead.PERSISTENCE.submit(() -> {
+						int counter = 0;
+						while (true) {
+							// Get the next file from the queue until done
+							File persistenceFile1;
+							QueueEntry queueEntry1;
+							synchronized (queue) {
+								Iterator<Map.Entry<File, QueueEntry>> iter = queue.entrySet().iterator();
+								if(!iter.hasNext()) {
+									running = false;
+									logger.finer("DEBUG: BackgroundWriter: Total burst from queue: "+counter);
+									return;
+								}
+								Map.Entry<File, QueueEntry> first = iter.next();
+								persistenceFile1 = first.getKey();
+								queueEntry1 = first.getValue();
+								iter.remove();
+								counter++;
 							}
-							Map.Entry<File, QueueEntry> first = iter.next();
-							persistenceFile1 = first.getKey();
-							queueEntry1 = first.getValue();
-							iter.remove();
-							counter++;
-						}
-						try {
-							try (
-								ObjectOutputStream oout = new ObjectOutputStream(
-									queueEntry1.gzip
-									? new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(queueEntry1.newPersistenceFile)))
-									: new BufferedOutputStream(new FileOutputStream(queueEntry1.newPersistenceFile))
-								)
-							) {
-								oout.writeObject(queueEntry1.object);
+							try {
+								try (
+									ObjectOutputStream oout = new ObjectOutputStream(
+										queueEntry1.gzip
+										? new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(queueEntry1.newPersistenceFile)))
+										: new BufferedOutputStream(new FileOutputStream(queueEntry1.newPersistenceFile))
+									)
+								) {
+									oout.writeObject(queueEntry1.object);
+								}
+								FileUtils.renameAllowNonAtomic(queueEntry1.newPersistenceFile, persistenceFile1);
+							} catch(ThreadDeath td) {
+								throw td;
+							} catch(Throwable t) {
+								logger.log(Level.SEVERE, null, t);
 							}
-							FileUtils.renameAllowNonAtomic(queueEntry1.newPersistenceFile, persistenceFile1);
-						} catch(ThreadDeath td) {
-							throw td;
-						} catch(Throwable t) {
-							logger.log(Level.SEVERE, null, t);
 						}
-					}
-				});
-				running = true;
+					});
+					running = true;
+				} catch(RejectedExecutionException e) {
+					// Leave queued, will be retried on the next enqueue
+					logger.log(Level.SEVERE, null, e);
+				}
 			}
 		}
 	}
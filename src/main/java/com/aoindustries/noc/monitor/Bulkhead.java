@@ -0,0 +1,244 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Each category of background work runs in its own bounded pool so that one
+ * class of slow checks cannot starve the others.  During an outage, slow checks
+ * fill only their own pool, and further checks of that category are rejected
+ * at admission instead of creating more threads.
+ * <p>
+ * The number of threads and the queue size of each pool may be configured with
+ * the system properties <code>com.aoindustries.noc.monitor.Bulkhead.<i>NAME</i>.maxThreads</code>
+ * and <code>com.aoindustries.noc.monitor.Bulkhead.<i>NAME</i>.maxQueue</code>.
+ * </p>
+ * <p>
+ * When {@linkplain VirtualThreads virtual threads} are enabled, each task runs on
+ * its own virtual thread, with the same limits on the number running and waiting.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public enum Bulkhead {
+
+	/**
+	 * Checks made directly from the monitor over the network, such as pings, port checks, and DNS.
+	 */
+	NETWORK(128, 4096),
+
+	/**
+	 * Reports requested from the AOServ daemons and master.
+	 */
+	DAEMON(64, 4096),
+
+	/**
+	 * MySQL checks, which can be very slow on large databases.
+	 */
+	MYSQL(16, 1024),
+
+	/**
+	 * Writes to the local persistence directory.
+	 */
+	PERSISTENCE(2, 64),
+
+	/**
+	 * Calls back to remote listeners.
+	 */
+	RMI_CALLBACK(64, 4096);
+
+	private static final Logger logger = Logger.getLogger(Bulkhead.class.getName());
+
+	private final int maxThreads;
+	private final int maxQueue;
+	private final String threadName;
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	// Created on first use, read without locking by the metrics
+	private volatile ExecutorService executor;
+	// Only used for platform threads
+	private volatile ThreadPoolExecutor threadPoolExecutor;
+	// Only used for virtual threads
+	private volatile Semaphore admitted;
+	private volatile Semaphore running;
+	private final AtomicLong completedCount = new AtomicLong();
+
+	private Bulkhead(int defaultMaxThreads, int defaultMaxQueue) {
+		String prefix = Bulkhead.class.getName() + '.' + name() + '.';
+		this.maxThreads = Integer.getInteger(prefix + "maxThreads", defaultMaxThreads);
+		this.maxQueue = Integer.getInteger(prefix + "maxQueue", defaultMaxQueue);
+		this.threadName = Bulkhead.class.getName() + '.' + name();
+	}
+
+	private RejectedExecutionException reject() {
+		long rejected = rejectedCount.incrementAndGet();
+		if(logger.isLoggable(Level.WARNING)) {
+			logger.log(
+				Level.WARNING,
+				"{0} full, rejected {1} in total",
+				new Object[] {threadName, rejected}
+			);
+		}
+		return new RejectedExecutionException(threadName + " full: maxThreads = " + maxThreads + ", maxQueue = " + maxQueue);
+	}
+
+	private ExecutorService getExecutor() {
+		ExecutorService e = executor;
+		if(e == null) {
+			synchronized(this) {
+				e = executor;
+				if(e == null) {
+					if(VirtualThreads.isEnabled()) {
+						admitted = new Semaphore(maxThreads + maxQueue);
+						running = new Semaphore(maxThreads);
+						e = VirtualThreads.newVirtualThreadPerTaskExecutor();
+					} else {
+						AtomicInteger threadCounter = new AtomicInteger();
+						ThreadFactory threadFactory = (Runnable r) -> {
+							Thread thread = new Thread(r, threadName + '-' + threadCounter.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						};
+						ThreadPoolExecutor tpe = new ThreadPoolExecutor(
+							maxThreads,
+							maxThreads,
+							60,
+							TimeUnit.SECONDS,
+							new ArrayBlockingQueue<>(maxQueue),
+							threadFactory,
+							(Runnable r, ThreadPoolExecutor executor) -> {
+								throw reject();
+							}
+						);
+						tpe.allowCoreThreadTimeOut(true);
+						threadPoolExecutor = tpe;
+						e = tpe;
+					}
+					executor = e;
+				}
+			}
+		}
+		return e;
+	}
+
+	/**
+	 * Submits a task to this pool.
+	 *
+	 * @throws  RejectedExecutionException  when this pool and its queue are full
+	 */
+	public <T> Future<T> submit(Callable<T> task) throws RejectedExecutionException {
+		ExecutorService e = getExecutor();
+		if(admitted == null) return e.submit(task);
+		// Virtual threads: limited to the same number running and waiting as the platform threads
+		if(!admitted.tryAcquire()) throw reject();
+		try {
+			return e.submit(() -> {
+				try {
+					running.acquire();
+					try {
+						return task.call();
+					} finally {
+						running.release();
+						completedCount.incrementAndGet();
+					}
+				} finally {
+					admitted.release();
+				}
+			});
+		} catch(RejectedExecutionException ex) {
+			admitted.release();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Submits a task to this pool.
+	 *
+	 * @throws  RejectedExecutionException  when this pool and its queue are full
+	 */
+	public Future<?> submit(Runnable task) throws RejectedExecutionException {
+		return submit(Executors.callable(task));
+	}
+
+	/**
+	 * Gets the maximum number of concurrent tasks.
+	 */
+	public int getMaxThreads() {
+		return maxThreads;
+	}
+
+	/**
+	 * Gets the maximum number of tasks waiting for a thread.
+	 */
+	public int getMaxQueue() {
+		return maxQueue;
+	}
+
+	/**
+	 * Gets the number of tasks currently running.
+	 */
+	public int getActiveCount() {
+		if(executor == null) return 0;
+		if(running != null) return maxThreads - running.availablePermits();
+		return threadPoolExecutor.getActiveCount();
+	}
+
+	/**
+	 * Gets the number of tasks currently waiting for a thread.
+	 */
+	public int getQueueSize() {
+		if(executor == null) return 0;
+		if(admitted != null) return Math.max(0, maxThreads + maxQueue - admitted.availablePermits() - getActiveCount());
+		return threadPoolExecutor.getQueue().size();
+	}
+
+	/**
+	 * Gets the total number of tasks completed.
+	 */
+	public long getCompletedCount() {
+		if(executor == null) return 0;
+		if(threadPoolExecutor != null) return threadPoolExecutor.getCompletedTaskCount();
+		return completedCount.get();
+	}
+
+	/**
+	 * Gets the total number of tasks rejected because this pool was full.
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * Subscribes to the changes of a {@link TableResultNodeImpl} instead of receiving
+ * the entire {@link com.aoindustries.noc.monitor.common.TableResult} on every update.
+ * <p>
+ * Each delta is against the version last delivered to the same listener.  A client
+ * applies a delta only when its version matches the {@link TableResultDelta#getBaseSequence() base},
+ * otherwise it resyncs.
+ * </p>
+ * <p>
+ * Every {@link TableResultNodeImpl} implements this, so a client may cast a
+ * {@link com.aoindustries.noc.monitor.common.TableResultNode} to it and fall back
+ * to full results when the cast fails against an older monitor.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public interface DeltaTableResultNode extends Remote {
+
+	/**
+	 * Adds a listener, which is sent a full delta once a result is available.
+	 */
+	void addTableResultDeltaListener(TableResultDeltaListener listener) throws RemoteException;
+
+	void removeTableResultDeltaListener(TableResultDeltaListener listener) throws RemoteException;
+
+	/**
+	 * Gets a full delta of the current version, from which the following deltas
+	 * to the listener will be computed.
+	 *
+	 * @return  the full delta or {@code null} when no result is available yet
+	 */
+	TableResultDelta resyncTableResultDeltaListener(TableResultDeltaListener listener) throws RemoteException;
+}
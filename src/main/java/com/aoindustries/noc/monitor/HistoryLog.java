@@ -0,0 +1,348 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import com.aoapps.lang.io.FileUtils;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * A write-ahead log shared by all {@link ResultHistory}, so that adding a result
+ * costs a sequential append instead of a random write forced to disk per history.
+ * <p>
+ * Appends are buffered and written to the current log segment with a single
+ * <code>fsync</code> per group commit, every {@link #COMMIT_INTERVAL} milliseconds.
+ * Every {@link #CHECKPOINT_INTERVAL} milliseconds, a checkpoint starts a new
+ * segment, forces the memory-mapped history files in the background, and then
+ * deletes the older segments.
+ * </p>
+ * <p>
+ * On startup, any segments remaining from an unexpected shutdown are replayed
+ * into their history files before any history is opened.
+ * </p>
+ * <p>
+ * The intervals may be set with the system properties <code>com.aoindustries.noc.monitor.HistoryLog.commitInterval</code>
+ * and <code>com.aoindustries.noc.monitor.HistoryLog.checkpointInterval</code>.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class HistoryLog {
+
+	private static final Logger logger = Logger.getLogger(HistoryLog.class.getName());
+
+	private static final String PROPERTY_PREFIX = HistoryLog.class.getName() + ".";
+
+	/**
+	 * The maximum time between appending a result and forcing it to disk.
+	 */
+	private static final long COMMIT_INTERVAL = Long.getLong(PROPERTY_PREFIX + "commitInterval", 1000);
+
+	/**
+	 * The time between checkpoints.
+	 */
+	private static final long CHECKPOINT_INTERVAL = Long.getLong(PROPERTY_PREFIX + "checkpointInterval", 5L * 60000);
+
+	private static final String SEGMENT_SUFFIX = ".log";
+
+	private static HistoryLog instance;
+
+	/**
+	 * Gets the shared log, replaying any previous segments on first use.
+	 */
+	static HistoryLog getInstance() throws IOException {
+		synchronized(HistoryLog.class) {
+			if(instance == null) {
+				instance = new HistoryLog(new File(RootNodeImpl.PERSISTENCE_DIRECTORY, "history-log"));
+				instance.scheduleCheckpoint();
+			}
+			return instance;
+		}
+	}
+
+	/**
+	 * One result, as logged.
+	 */
+	static final class Record {
+
+		final long seq;
+		final long time;
+		final long latency;
+		final byte alertLevel;
+		final byte[] payload;
+
+		private Record(long seq, long time, long latency, byte alertLevel, byte[] payload) {
+			this.seq = seq;
+			this.time = time;
+			this.latency = latency;
+			this.alertLevel = alertLevel;
+			this.payload = payload;
+		}
+	}
+
+	private final File directory;
+
+	/**
+	 * The histories and rollups forced on checkpoint.
+	 */
+	private final Set<Flushable> histories = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Held while writing to and switching segments.
+	 */
+	private final Object commitLock = new Object();
+
+	// All guarded by lock
+	private final Object lock = new Object();
+	private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+	private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream();
+	private final DataOutputStream recordOut = new DataOutputStream(recordBuffer);
+	private final CRC32 crc = new CRC32();
+	private boolean commitScheduled;
+	private long segmentNumber;
+	private FileChannel segment;
+
+	HistoryLog(File directory) throws IOException {
+		this.directory = directory;
+		if(!directory.exists() && !directory.mkdirs()) throw new IOException("Unable to create directory: " + directory);
+		SortedMap<Long, File> segments = getSegments();
+		if(!segments.isEmpty()) replay(segments.values());
+		segmentNumber = segments.isEmpty() ? 1 : (segments.lastKey() + 1);
+		segment = openSegment(segmentNumber);
+		for(File file : segments.values()) FileUtils.delete(file);
+	}
+
+	private SortedMap<Long, File> getSegments() throws IOException {
+		SortedMap<Long, File> segments = new TreeMap<>();
+		String[] list = directory.list();
+		if(list == null) throw new IOException("Unable to list directory: " + directory);
+		for(String filename : list) {
+			if(filename.endsWith(SEGMENT_SUFFIX)) {
+				try {
+					segments.put(Long.parseLong(filename.substring(0, filename.length() - SEGMENT_SUFFIX.length())), new File(directory, filename));
+				} catch(NumberFormatException e) {
+					logger.log(Level.WARNING, "Skipping unexpected file: " + filename, e);
+				}
+			}
+		}
+		return segments;
+	}
+
+	private FileChannel openSegment(long number) throws IOException {
+		return FileChannel.open(
+			new File(directory, String.format("%016d", number) + SEGMENT_SUFFIX).toPath(),
+			StandardOpenOption.CREATE,
+			StandardOpenOption.WRITE,
+			StandardOpenOption.APPEND
+		);
+	}
+
+	/**
+	 * Reads the records of all segments, then applies them to each history.
+	 * A segment ends at the first incomplete or corrupt record.
+	 */
+	private void replay(Iterable<File> segments) throws IOException {
+		Map<String, List<Record>> byPath = new LinkedHashMap<>();
+		int total = 0;
+		for(File file : segments) {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+				while(true) {
+					byte[] bytes;
+					int expectedCrc;
+					try {
+						int length = in.readInt();
+						expectedCrc = in.readInt();
+						if(length < 0) throw new EOFException();
+						bytes = new byte[length];
+						in.readFully(bytes);
+					} catch(EOFException e) {
+						break;
+					}
+					CRC32 recordCrc = new CRC32();
+					recordCrc.update(bytes);
+					if((int)recordCrc.getValue() != expectedCrc) {
+						logger.log(Level.WARNING, "Discarding corrupt end of log segment: " + file);
+						break;
+					}
+					DataInputStream recordIn = new DataInputStream(new ByteArrayInputStream(bytes));
+					String path = recordIn.readUTF();
+					long seq = recordIn.readLong();
+					long time = recordIn.readLong();
+					long latency = recordIn.readLong();
+					byte alertLevel = recordIn.readByte();
+					byte[] payload = new byte[recordIn.readInt()];
+					recordIn.readFully(payload);
+					byPath.computeIfAbsent(path, p -> new ArrayList<>()).add(new Record(seq, time, latency, alertLevel, payload));
+					total++;
+				}
+			}
+		}
+		for(Map.Entry<String, List<Record>> entry : byPath.entrySet()) {
+			ResultHistory.replay(new File(entry.getKey()), entry.getValue());
+		}
+		if(logger.isLoggable(Level.INFO)) logger.log(Level.INFO, "Replayed " + total + " records into " + byPath.size() + " histories from " + directory);
+	}
+
+	/**
+	 * Registers a history or its rollups to be forced on checkpoint.
+	 */
+	void register(Flushable history) {
+		histories.add(history);
+	}
+
+	/**
+	 * Appends a record, to be forced to disk by the next group commit.
+	 * Must be called after the record has been written to its history.
+	 */
+	void append(String path, long seq, long time, long latency, byte alertLevel, ByteBuffer payload) {
+		synchronized(lock) {
+			try {
+				recordBuffer.reset();
+				recordOut.writeUTF(path);
+				recordOut.writeLong(seq);
+				recordOut.writeLong(time);
+				recordOut.writeLong(latency);
+				recordOut.writeByte(alertLevel);
+				recordOut.writeInt(payload.remaining());
+				while(payload.hasRemaining()) recordOut.writeByte(payload.get());
+				recordOut.flush();
+				crc.reset();
+				crc.update(recordBuffer.toByteArray());
+				DataOutputStream pendingOut = new DataOutputStream(pending);
+				pendingOut.writeInt(recordBuffer.size());
+				pendingOut.writeInt((int)crc.getValue());
+				recordBuffer.writeTo(pendingOut);
+				pendingOut.flush();
+			} catch(IOException e) {
+				throw new AssertionError("IOException should not occur on ByteArrayOutputStream", e);
+			}
+			if(!commitScheduled) {
+				commitScheduled = true;
+				RootNodeImpl.schedule(this::submitCommit, COMMIT_INTERVAL);
+			}
+		}
+	}
+
+	private void submitCommit() {
+		try {
+			Bulkhead.PERSISTENCE.submit(() -> {
+				try {
+					commit();
+				} catch(IOException e) {
+					logger.log(Level.SEVERE, null, e);
+				}
+			});
+		} catch(RejectedExecutionException e) {
+			logger.log(Level.WARNING, null, e);
+			RootNodeImpl.schedule(this::submitCommit, COMMIT_INTERVAL);
+		}
+	}
+
+	/**
+	 * Writes all pending records to the current segment with a single <code>fsync</code>.
+	 */
+	void commit() throws IOException {
+		synchronized(commitLock) {
+			byte[] bytes;
+			FileChannel channel;
+			synchronized(lock) {
+				commitScheduled = false;
+				if(pending.size() == 0) return;
+				bytes = pending.toByteArray();
+				pending.reset();
+				channel = segment;
+			}
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			while(buffer.hasRemaining()) channel.write(buffer);
+			channel.force(false);
+		}
+	}
+
+	/**
+	 * Starts a new segment, forces all histories, then deletes the older segments.
+	 * Every record in the older segments was written to its history before being
+	 * appended, so is on disk once the histories are forced.
+	 */
+	void checkpoint() throws IOException {
+		long oldSegmentNumber;
+		synchronized(commitLock) {
+			commit();
+			FileChannel oldSegment;
+			synchronized(lock) {
+				oldSegment = segment;
+				oldSegmentNumber = segmentNumber;
+				segment = openSegment(++segmentNumber);
+			}
+			oldSegment.close();
+		}
+		for(Flushable history : histories) history.flush();
+		for(Map.Entry<Long, File> entry : getSegments().entrySet()) {
+			if(entry.getKey() <= oldSegmentNumber) FileUtils.delete(entry.getValue());
+		}
+	}
+
+	private void scheduleCheckpoint() {
+		RootNodeImpl.schedule(
+			() -> {
+				try {
+					Bulkhead.PERSISTENCE.submit(() -> {
+						try {
+							checkpoint();
+						} catch(IOException e) {
+							logger.log(Level.SEVERE, null, e);
+						} finally {
+							scheduleCheckpoint();
+						}
+					});
+				} catch(RejectedExecutionException e) {
+					logger.log(Level.WARNING, null, e);
+					scheduleCheckpoint();
+				}
+			},
+			CHECKPOINT_INTERVAL
+		);
+	}
+}
@@ -0,0 +1,258 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A registry of remote listeners, each with its own delivery queue.
+ * <p>
+ * Listeners are held in a copy-on-write list, so events are fired and listeners
+ * added or removed without a shared lock.  Firing an event only queues it; each
+ * listener's events are delivered in order by a task in the {@link Bulkhead#RMI_CALLBACK}
+ * bulkhead, so a slow or hung client never blocks the caller or the other listeners.
+ * </p>
+ * <p>
+ * A listener is removed when a call throws {@link RemoteException}, when a call
+ * takes longer than {@link #TIMEOUT}, or when more than {@link #MAX_QUEUED} events
+ * are pending.  Each call is made directly on the thread of the bulkhead.  A call
+ * still running after {@link #TIMEOUT} has its listener removed and its thread
+ * interrupted by a task on the {@link RootNodeImpl#timingWheel timing wheel}.
+ * A call blocked reading its response ends when the RMI response timeout expires,
+ * which defaults to {@link #TIMEOUT} unless the system property
+ * <code>sun.rmi.transport.tcp.responseTimeout</code> is set.  A hung client
+ * therefore holds one thread of the bulkhead for a bounded time.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class ListenerRegistry<L> {
+
+	private static final Logger logger = Logger.getLogger(ListenerRegistry.class.getName());
+
+	private static final String PROPERTY_PREFIX = ListenerRegistry.class.getName() + ".";
+
+	/**
+	 * The maximum time for a single call to a listener, in milliseconds.
+	 */
+	private static final long TIMEOUT = Long.getLong(PROPERTY_PREFIX + "timeout", 60000);
+
+	/**
+	 * The maximum number of events pending per listener.
+	 */
+	private static final int MAX_QUEUED = Integer.getInteger(PROPERTY_PREFIX + "maxQueued", 1000);
+
+	/**
+	 * The time to wait before trying again when the bulkhead is full.
+	 */
+	private static final long RETRY_DELAY = 1000;
+
+	/**
+	 * The system property for the time RMI waits for the response to a call, in milliseconds.
+	 */
+	private static final String RESPONSE_TIMEOUT_PROPERTY = "sun.rmi.transport.tcp.responseTimeout";
+
+	static {
+		// Read by RMI on its first outgoing connection, otherwise must be set on the command line
+		if(System.getProperty(RESPONSE_TIMEOUT_PROPERTY) == null) {
+			System.setProperty(RESPONSE_TIMEOUT_PROPERTY, Long.toString(TIMEOUT));
+		}
+	}
+
+	/**
+	 * Delivers one event to a listener.
+	 */
+	@FunctionalInterface
+	public static interface Event<L> {
+		void deliver(L listener) throws RemoteException;
+	}
+
+	private final class Delivery implements Runnable {
+
+		private final L listener;
+		private final Queue<Event<? super L>> events = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger queued = new AtomicInteger();
+
+		/**
+		 * Set while a delivery is scheduled or running.
+		 */
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		private volatile boolean closed;
+
+		/**
+		 * One call to the listener, synchronized on itself.
+		 */
+		private final class Call {
+
+			private final Thread thread = Thread.currentThread();
+			private boolean done;
+			private boolean timedOut;
+
+			/**
+			 * Called by the timing wheel when the call exceeds {@link #TIMEOUT}.
+			 */
+			private void timeout() {
+				synchronized(this) {
+					if(done) return;
+					timedOut = true;
+				}
+				if(logger.isLoggable(Level.WARNING)) logger.log(Level.WARNING, "Removing listener after call exceeded " + TIMEOUT + " ms: " + listener);
+				unregister(Delivery.this);
+				thread.interrupt();
+			}
+
+			private void done() {
+				synchronized(this) {
+					done = true;
+					// Clear any interrupt meant for this call only
+					if(timedOut) Thread.interrupted();
+				}
+			}
+		}
+
+		private Delivery(L listener) {
+			this.listener = listener;
+		}
+
+		private void enqueue(Event<? super L> event) {
+			if(closed) return;
+			if(queued.incrementAndGet() > MAX_QUEUED) {
+				if(logger.isLoggable(Level.WARNING)) logger.log(Level.WARNING, "Removing listener with more than " + MAX_QUEUED + " events pending: " + listener);
+				unregister(this);
+				return;
+			}
+			events.add(event);
+			if(scheduled.compareAndSet(false, true)) submit();
+		}
+
+		private void submit() {
+			try {
+				Bulkhead.RMI_CALLBACK.submit(this);
+			} catch(RejectedExecutionException e) {
+				logger.log(Level.WARNING, null, e);
+				RootNodeImpl.schedule(this::submit, RETRY_DELAY);
+			}
+		}
+
+		private void close() {
+			closed = true;
+			events.clear();
+		}
+
+		@Override
+		@SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+		public void run() {
+			try {
+				Event<? super L> event;
+				while(!closed && (event = events.poll()) != null) {
+					queued.decrementAndGet();
+					Call call = new Call();
+					Future<?> timeout = RootNodeImpl.schedule(call::timeout, TIMEOUT);
+					try {
+						event.deliver(listener);
+					} catch(RemoteException e) {
+						unregister(this);
+						logger.log(Level.SEVERE, null, e);
+					} finally {
+						call.done();
+						timeout.cancel(false);
+					}
+				}
+			} catch(ThreadDeath td) {
+				throw td;
+			} catch(Throwable t) {
+				logger.log(Level.SEVERE, null, t);
+			} finally {
+				scheduled.set(false);
+				if(!closed && !events.isEmpty() && scheduled.compareAndSet(false, true)) submit();
+			}
+		}
+	}
+
+	private final List<Delivery> deliveries = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Adds a listener.  The same listener may be added more than once.
+	 */
+	public void add(L listener) {
+		deliveries.add(new Delivery(listener));
+	}
+
+	/**
+	 * Removes the most recent registration of a listener.  Remove only once, in case
+	 * add and remove come in out of order with quick GUI changes.
+	 *
+	 * @return  {@code true} when found
+	 */
+	public boolean remove(L listener) {
+		List<Delivery> snapshot = new ArrayList<>(deliveries);
+		for(int i = snapshot.size() - 1; i >= 0; i--) {
+			Delivery delivery = snapshot.get(i);
+			if(delivery.listener.equals(listener) && unregister(delivery)) return true;
+		}
+		return false;
+	}
+
+	private boolean unregister(Delivery delivery) {
+		boolean removed = deliveries.remove(delivery);
+		delivery.close();
+		return removed;
+	}
+
+	/**
+	 * Gets a snapshot of the listeners.
+	 */
+	public List<L> getListeners() {
+		List<L> listeners = new ArrayList<>(deliveries.size());
+		for(Delivery delivery : deliveries) listeners.add(delivery.listener);
+		return listeners;
+	}
+
+	/**
+	 * Checks if there are no listeners.
+	 */
+	public boolean isEmpty() {
+		return deliveries.isEmpty();
+	}
+
+	/**
+	 * Queues an event for every listener, without blocking.
+	 */
+	public void fire(Event<? super L> event) {
+		for(Delivery delivery : deliveries) {
+			delivery.enqueue(event);
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Maps the history files into memory.  Each mapping counts against the
+ * per-process limit of the operating system (<code>vm.max_map_count</code> on Linux),
+ * and is otherwise only released when garbage collected, so a mapping that is
+ * replaced is released explicitly.
+ *
+ * @author  AO Industries, Inc.
+ */
+final class MappedFiles {
+
+	private static final Logger logger = Logger.getLogger(MappedFiles.class.getName());
+
+	/**
+	 * The <code>sun.misc.Unsafe</code> instance and its <code>invokeCleaner</code> method,
+	 * or {@code null} when not available.
+	 */
+	private static final Object unsafe;
+	private static final Method invokeCleaner;
+	static {
+		Object u = null;
+		Method m = null;
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			u = theUnsafe.get(null);
+			m = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+		} catch(ReflectiveOperationException | RuntimeException e) {
+			logger.log(Level.INFO, "Unable to release mappings explicitly, released when garbage collected", e);
+			u = null;
+			m = null;
+		}
+		unsafe = u;
+		invokeCleaner = m;
+	}
+
+	private MappedFiles() {
+	}
+
+	/**
+	 * Maps the file, creating it when missing.  The mapping remains valid after the channel is closed.
+	 */
+	static MappedByteBuffer map(File file, long size) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		}
+	}
+
+	/**
+	 * Releases a mapping without waiting for garbage collection.  The buffer, and any
+	 * buffer derived from it, must not be used again.
+	 */
+	static void unmap(MappedByteBuffer buffer) {
+		if(invokeCleaner != null) {
+			try {
+				invokeCleaner.invoke(unsafe, buffer);
+			} catch(ReflectiveOperationException | RuntimeException e) {
+				logger.log(Level.WARNING, null, e);
+			}
+		}
+	}
+}
@@ -33,9 +33,16 @@ import java.rmi.server.RMIServerSocketFactory;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Stack;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * One in the list of nodes that form the systems tree.
@@ -46,6 +53,57 @@ public abstract class NodeImpl extends UnicastRemoteObject implements Node {
 
 	private static final long serialVersionUID = 1L;
 
+	private static final Logger logger = Logger.getLogger(NodeImpl.class.getName());
+
+	private static final AlertLevel[] alertLevels = AlertLevel.values();
+
+	/**
+	 * The nodes whose alert level changed, waiting to be propagated to their ancestors.
+	 */
+	private static final BlockingQueue<NodeImpl> alertLevelChanges = new LinkedBlockingQueue<>();
+
+	/**
+	 * Propagates the changes in the alert levels one at a time, on its own thread so
+	 * that the propagation is never rejected or delayed by the checks.
+	 */
+	static {
+		Thread thread = new Thread(NodeImpl::propagateAlertLevelChanges, NodeImpl.class.getName() + ".propagateAlertLevelChanges");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Called when the alert level of a node changes.  The change is propagated to the
+	 * counts of its ancestors in the background, since the caller may hold locks that
+	 * would otherwise be acquired out of order.
+	 */
+	static void alertLevelChanged(NodeImpl node) {
+		alertLevelChanges.add(node);
+	}
+
+	@SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+	private static void propagateAlertLevelChanges() {
+		while(true) {
+			try {
+				NodeImpl child = alertLevelChanges.take();
+				NodeImpl parent;
+				// Stop at the first ancestor that is unchanged
+				while((parent = child.getParent()) != null && parent.childAlertLevelChanged(child)) {
+					child = parent;
+				}
+			} catch(ThreadDeath td) {
+				throw td;
+			} catch(InterruptedException e) {
+				logger.log(Level.WARNING, null, e);
+				// Restore the interrupted status
+				Thread.currentThread().interrupt();
+				return;
+			} catch(Throwable t) {
+				logger.log(Level.SEVERE, null, t);
+			}
+		}
+	}
+
 	final protected int port;
 	final protected RMIClientSocketFactory csf;
 	final protected RMIServerSocketFactory ssf;
@@ -151,6 +209,110 @@ public abstract class NodeImpl extends UnicastRemoteObject implements Node {
 		return AoCollections.optimalUnmodifiableList(list);
 	}
 
+	/**
+	 * Incremented whenever the counts below may no longer match the children, without
+	 * locking, so that it may be called while holding the locks of the tree.
+	 */
+	private final AtomicInteger childrenVersion = new AtomicInteger();
+
+	/**
+	 * The alert level counted for each child and the number of children at each level.
+	 * Counted on first use and recounted after a child is added to or removed from this node.
+	 * The children are visited before acquiring the lock, so it is never held while
+	 * acquiring any other lock.
+	 */
+	private final Object childAlertLevelsLock = new Object();
+	// All below synchronized on childAlertLevelsLock
+	private Map<NodeImpl, AlertLevel> childAlertLevels;
+	private int childAlertLevelsVersion;
+	private final int[] childAlertLevelCounts = new int[alertLevels.length];
+
+	/**
+	 * Called by {@link RootNodeImpl} when a child is added to or removed from this node.
+	 * Only the children of this node are recounted, on next use, and the resulting
+	 * alert level of this node is propagated to its ancestors as any other change.
+	 */
+	final void childrenChanged() {
+		childrenVersion.incrementAndGet();
+		alertLevelChanged(this);
+	}
+
+	/**
+	 * Called when the {@linkplain #getMaxAlertLevel() maximum alert level} of this node may
+	 * have changed.  The counts of this node and all of its descendants hold constrained
+	 * alert levels, so are all recounted on next use.
+	 */
+	protected final void maxAlertLevelChanged() {
+		invalidateChildAlertLevels(this);
+		alertLevelChanged(this);
+	}
+
+	private static void invalidateChildAlertLevels(NodeImpl node) {
+		node.childrenVersion.incrementAndGet();
+		for(NodeImpl child : node.getChildren()) invalidateChildAlertLevels(child);
+	}
+
+	/**
+	 * Gets the greatest alert level of the {@linkplain #getChildren() children} in
+	 * constant time.  The per-level counts are updated as each child changes, so
+	 * only the first call after a child is added or removed visits the children.
+	 */
+	protected final AlertLevel getChildrenAlertLevel() {
+		int version = childrenVersion.get();
+		synchronized(childAlertLevelsLock) {
+			if(childAlertLevels != null && childAlertLevelsVersion == version) return getMaxChildAlertLevel(childAlertLevelCounts);
+		}
+		// Count outside the lock
+		Map<NodeImpl, AlertLevel> levels = new IdentityHashMap<>();
+		int[] counts = new int[alertLevels.length];
+		for(NodeImpl child : getChildren()) {
+			AlertLevel level = child.getAlertLevel();
+			if(levels.put(child, level) == null) counts[level.ordinal()]++;
+		}
+		synchronized(childAlertLevelsLock) {
+			// Only kept when nothing changed while counting, otherwise recounted on next use
+			if(childrenVersion.get() == version) {
+				childAlertLevels = levels;
+				childAlertLevelsVersion = version;
+				System.arraycopy(counts, 0, childAlertLevelCounts, 0, counts.length);
+			}
+		}
+		return getMaxChildAlertLevel(counts);
+	}
+
+	private static AlertLevel getMaxChildAlertLevel(int[] counts) {
+		for(int i = counts.length - 1; i >= 0; i--) {
+			if(counts[i] > 0) return alertLevels[i];
+		}
+		return AlertLevel.NONE;
+	}
+
+	/**
+	 * Recounts a child after its alert level may have changed.
+	 *
+	 * @return  {@code true} when the alert level of this node may have changed as a result
+	 */
+	private boolean childAlertLevelChanged(NodeImpl child) {
+		AlertLevel newLevel = child.getAlertLevel();
+		synchronized(childAlertLevelsLock) {
+			if(childAlertLevels == null || childAlertLevelsVersion != childrenVersion.get()) {
+				// Not counted: computed on each call, so its parent must be updated.
+				// A count in progress may have seen the old level, so is not kept.
+				childrenVersion.incrementAndGet();
+				return true;
+			}
+			AlertLevel oldLevel = childAlertLevels.get(child);
+			// Removed child
+			if(oldLevel == null) return false;
+			if(newLevel == oldLevel) return false;
+			AlertLevel oldMax = getMaxChildAlertLevel(childAlertLevelCounts);
+			childAlertLevels.put(child, newLevel);
+			childAlertLevelCounts[oldLevel.ordinal()]--;
+			childAlertLevelCounts[newLevel.ordinal()]++;
+			return getMaxChildAlertLevel(childAlertLevelCounts) != oldMax;
+		}
+	}
+
 	/**
 	 * Every node may optionally constrain the maximum alert level for itself and all of
 	 * its children.
@@ -217,21 +379,62 @@ public abstract class NodeImpl extends UnicastRemoteObject implements Node {
 	}
 
 	/**
-	 * Gets the full path to the node.
+	 * The localized path separator, by locale.
 	 */
-	String getFullPath(Locale locale) throws RemoteException {
-		String pathSeparator = PACKAGE_RESOURCES.getMessage(locale, "Node.nodeAlertLevelChanged.alertMessage.pathSeparator");
-		final StringBuilder fullPath = new StringBuilder();
-		Stack<Node> path = new Stack<>();
-		Node parent = this;
-		while(parent.getParent()!=null) {
-			path.push(parent);
-			parent = parent.getParent();
+	private static final Map<Locale, String> pathSeparators = new ConcurrentHashMap<>();
+
+	private static String getPathSeparator(Locale locale) {
+		return pathSeparators.computeIfAbsent(
+			locale,
+			l -> PACKAGE_RESOURCES.getMessage(l, "Node.nodeAlertLevelChanged.alertMessage.pathSeparator").intern()
+		);
+	}
+
+	/**
+	 * A full path for one locale.
+	 */
+	private static final class FullPath {
+
+		private final Locale locale;
+		private final String path;
+
+		private FullPath(Locale locale, String path) {
+			this.locale = locale;
+			this.path = path;
 		}
-		while(!path.isEmpty()) {
-			if(fullPath.length()>0) fullPath.append(pathSeparator);
-			fullPath.append(path.pop().getLabel());
+	}
+
+	/**
+	 * The most recently built full path.  The tree is built for a single locale, so
+	 * only the last locale is kept.
+	 */
+	private volatile FullPath fullPath;
+
+	/**
+	 * Gets the full path to the node.  The path is cached per locale and built from the
+	 * parent's cached path.  A node keeps its parent and label while in the tree, and
+	 * changes are made by replacing nodes, so adding or removing other nodes never
+	 * affects a cached path.
+	 */
+	String getFullPath(Locale locale) throws RemoteException {
+		FullPath cached = fullPath;
+		if(
+			cached != null
+			&& cached.locale.equals(locale)
+		) return cached.path;
+		NodeImpl parent = getParent();
+		String path;
+		if(parent == null) {
+			path = "";
+		} else {
+			String parentPath = parent.getFullPath(locale);
+			path = (
+				parentPath.isEmpty()
+				? getLabel()
+				: parentPath + getPathSeparator(locale) + getLabel()
+			).intern();
 		}
-		return fullPath.toString();
+		fullPath = new FullPath(locale, path);
+		return path;
 	}
 }
@@ -0,0 +1,64 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import com.aoindustries.noc.monitor.common.TableMultiResult;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.List;
+
+/**
+ * Paged access to the results of a {@link TableMultiResultNodeImpl}, so that a
+ * client does not need to transfer the entire history with
+ * {@link com.aoindustries.noc.monitor.common.TableMultiResultNode#getResults()}.
+ * <p>
+ * Implemented by every {@link TableMultiResultNodeImpl}, along with
+ * {@link RollupTableMultiResultNode} for ranges beyond the retained history.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public interface PagedTableMultiResultNode<R extends TableMultiResult> extends Remote {
+
+	/**
+	 * Gets the number of results currently available.
+	 */
+	int getResultCount() throws RemoteException;
+
+	/**
+	 * Gets one page of the results, newest first.
+	 *
+	 * @param  offset  zero is the newest
+	 *
+	 * @throws  IllegalArgumentException  when <code>offset</code> or <code>limit</code> is negative
+	 */
+	List<? extends R> getResults(int offset, int limit) throws RemoteException;
+
+	/**
+	 * Gets up to <code>limit</code> of the results immediately after the given time, newest first.
+	 * Pass the time of the first result returned to continue from where this left off.
+	 *
+	 * @throws  IllegalArgumentException  when <code>limit</code> is negative
+	 */
+	List<? extends R> getResultsSince(long time, int limit) throws RemoteException;
+}
@@ -0,0 +1,303 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A map persisted to a single file in the persistence directory, shared by the
+ * small indexes that are saved on each {@link HistoryLog} checkpoint.
+ * <p>
+ * The file is a log: each save appends only the entries changed since the last,
+ * and the file is compacted, by writing the current entries to a new file moved
+ * over the old, once it holds more than {@link #COMPACT_RATIO} records per entry.
+ * A record truncated by a crash is discarded when loaded.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class PersistedMap<V> implements Flushable {
+
+	private static final Logger logger = Logger.getLogger(PersistedMap.class.getName());
+
+	/**
+	 * The file is compacted once it holds this many records per entry.
+	 */
+	private static final int COMPACT_RATIO = 4;
+
+	/**
+	 * Small files are not compacted until they hold this many stale records.
+	 */
+	private static final int COMPACT_MIN = 64;
+
+	private static final byte PUT = 1;
+	private static final byte REMOVE = 0;
+
+	/**
+	 * Reads and writes the values.
+	 */
+	public interface Codec<V> {
+		void write(DataOutputStream out, V value) throws IOException;
+		V read(DataInputStream in) throws IOException;
+	}
+
+	/**
+	 * Strings are written with an int length, since they may exceed the limit of
+	 * {@link DataOutputStream#writeUTF(java.lang.String)}.
+	 */
+	public static void writeString(DataOutputStream out, String str) throws IOException {
+		byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	public static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Gets the path of a persistence file relative to the persistence directory,
+	 * or {@code null} when not within it.
+	 */
+	public static String getKey(Path persistenceDirectory, File persistenceFile) {
+		if(persistenceFile == null) return null;
+		Path path = persistenceFile.toPath().normalize();
+		if(!path.startsWith(persistenceDirectory)) return null;
+		return persistenceDirectory.relativize(path).toString().replace(File.separatorChar, '/');
+	}
+
+	/**
+	 * Flushes the given map, or the object owning one, on each {@link HistoryLog} checkpoint.
+	 */
+	public static void saveOnCheckpoint(Flushable flushable) {
+		try {
+			HistoryLog.getInstance().register(flushable);
+		} catch(IOException e) {
+			logger.log(Level.WARNING, "Will not be saved: " + flushable, e);
+		}
+	}
+
+	private final Path file;
+	private final Path tempFile;
+	private final int magic;
+	private final int version;
+	private final Codec<V> codec;
+	private final Predicate<? super V> retain;
+
+	private final Map<String, V> map = new ConcurrentHashMap<>();
+
+	/**
+	 * The keys put or removed since last saved.
+	 */
+	private final Set<String> changed = ConcurrentHashMap.newKeySet();
+
+	// All below synchronized on flushLock
+	private final Object flushLock = new Object();
+	private long records;
+	private boolean compact;
+
+	/**
+	 * Loads the map, starting empty when the file does not exist or is unreadable.
+	 *
+	 * @param  retain  Entries not retained are skipped when loaded and removed when saved
+	 */
+	public PersistedMap(Path persistenceDirectory, String filename, int magic, int version, Codec<V> codec, Predicate<? super V> retain) {
+		this.file = persistenceDirectory.resolve(filename);
+		this.tempFile = persistenceDirectory.resolve(filename + ".new");
+		this.magic = magic;
+		this.version = version;
+		this.codec = codec;
+		this.retain = retain;
+		synchronized(flushLock) {
+			try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+				if(in.readInt() != magic || in.readInt() != version) throw new IOException("Unsupported file format: " + file);
+				while(true) {
+					int op = in.read();
+					if(op == -1) break;
+					String key = readString(in);
+					if(op == PUT) {
+						V value = codec.read(in);
+						if(retain.test(value)) map.put(key, value);
+						else map.remove(key);
+					} else if(op == REMOVE) {
+						map.remove(key);
+					} else {
+						throw new IOException("Unexpected record type: " + op);
+					}
+					records++;
+				}
+			} catch(NoSuchFileException e) {
+				// First start
+			} catch(EOFException e) {
+				logger.log(Level.WARNING, "Truncated " + file + ", loaded " + map.size() + " entries", e);
+				compact = true;
+			} catch(IOException | RuntimeException e) {
+				logger.log(Level.WARNING, "Unable to load " + file, e);
+				map.clear();
+				compact = true;
+			}
+		}
+	}
+
+	public PersistedMap(Path persistenceDirectory, String filename, int magic, int version, Codec<V> codec) {
+		this(persistenceDirectory, filename, magic, version, codec, value -> true);
+	}
+
+	public V get(String key) {
+		return map.get(key);
+	}
+
+	/**
+	 * Puts a value, to be saved on the next flush.
+	 */
+	public void put(String key, V value) {
+		map.put(key, value);
+		changed.add(key);
+	}
+
+	/**
+	 * Removes a value, to be saved on the next flush.
+	 */
+	public V remove(String key) {
+		V value = map.remove(key);
+		if(value != null) changed.add(key);
+		return value;
+	}
+
+	/**
+	 * Removes the entries matching the given filter.
+	 */
+	public void removeIf(BiPredicate<? super String, ? super V> filter) {
+		for(Map.Entry<String, V> entry : map.entrySet()) {
+			String key = entry.getKey();
+			if(filter.test(key, entry.getValue()) && map.remove(key, entry.getValue())) changed.add(key);
+		}
+	}
+
+	/**
+	 * Gets the keys, which may change while iterated.
+	 */
+	public Set<String> keySet() {
+		return Collections.unmodifiableSet(map.keySet());
+	}
+
+	public int size() {
+		return map.size();
+	}
+
+	/**
+	 * Saves the changed entries.
+	 */
+	@Override
+	public void flush() throws IOException {
+		removeIf((key, value) -> !retain.test(value));
+		synchronized(flushLock) {
+			if(!compact) {
+				compact = records > COMPACT_MIN && records > (long)COMPACT_RATIO * map.size();
+			}
+			try {
+				if(compact) {
+					// Changes from here on are saved by the next flush
+					changed.clear();
+					List<Map.Entry<String, V>> entries = new ArrayList<>(map.entrySet());
+					try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+						out.writeInt(magic);
+						out.writeInt(version);
+						for(Map.Entry<String, V> entry : entries) {
+							out.writeByte(PUT);
+							writeString(out, entry.getKey());
+							codec.write(out, entry.getValue());
+						}
+					}
+					Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+					records = entries.size();
+					compact = false;
+				} else if(!changed.isEmpty()) {
+					boolean isNew = records == 0 && !Files.exists(file);
+					long appended = 0;
+					try(
+						DataOutputStream out = new DataOutputStream(
+							new BufferedOutputStream(
+								Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)
+							)
+						)
+					) {
+						if(isNew) {
+							out.writeInt(magic);
+							out.writeInt(version);
+						}
+						for(String key : changed) {
+							// Removed first, so a change made while writing is saved by the next flush
+							changed.remove(key);
+							V value = map.get(key);
+							if(value == null) {
+								out.writeByte(REMOVE);
+								writeString(out, key);
+							} else {
+								out.writeByte(PUT);
+								writeString(out, key);
+								codec.write(out, value);
+							}
+							appended++;
+						}
+					}
+					records += appended;
+				}
+			} catch(IOException | RuntimeException e) {
+				// The file may end with a partial record, rewrite all entries on the next flush
+				compact = true;
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return file.toString();
+	}
+}
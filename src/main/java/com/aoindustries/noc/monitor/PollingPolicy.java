@@ -0,0 +1,209 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adapts the sleep delay of one worker to its recent behavior.  The base delay is
+ * still provided by the worker's <code>getSleepDelay</code>, then:
+ * <ol>
+ * <li>Healthy results that have been stable for {@link Budget#stableRuns} runs
+ *     back off, doubling the delay up to {@link Budget#maxBackoff} times the base.
+ *     Workers that detect outages, such as pings, port checks, and replication, are never backed off.</li>
+ * <li>While the alert level is rising or flapping, the delay is divided by
+ *     {@link Budget#tighten}, but not below {@link Budget#minDelay}.</li>
+ * <li>A deterministic jitter of up to &plusmn;{@link Budget#jitterPercent} percent,
+ *     derived from the worker's persistence file, spreads workers with the same
+ *     delay so their checks do not synchronize into load spikes.</li>
+ * </ol>
+ * <p>
+ * Budgets are configured per subsystem, which is the last part of the worker's
+ * package name, such as <code>net</code> or <code>email</code>.  Each setting is read from
+ * the system property <code>com.aoindustries.noc.monitor.PollingPolicy.&lt;subsystem&gt;.&lt;name&gt;</code>,
+ * falling back to <code>com.aoindustries.noc.monitor.PollingPolicy.&lt;name&gt;</code>.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class PollingPolicy {
+
+	private static final String PROPERTY_PREFIX = PollingPolicy.class.getName() + ".";
+
+	/**
+	 * The number of recent runs considered when detecting flapping.
+	 */
+	private static final int FLAP_WINDOW = 8;
+
+	/**
+	 * The number of alert level changes within {@link #FLAP_WINDOW} runs that is considered flapping.
+	 */
+	private static final int FLAP_CHANGES = 2;
+
+	/**
+	 * The scheduling budget of one subsystem.
+	 */
+	static final class Budget {
+
+		private static long getLong(String subsystem, String name, long defaultValue) {
+			return Long.getLong(PROPERTY_PREFIX + subsystem + "." + name, Long.getLong(PROPERTY_PREFIX + name, defaultValue));
+		}
+
+		private static int getInt(String subsystem, String name, int defaultValue) {
+			return Integer.getInteger(PROPERTY_PREFIX + subsystem + "." + name, Integer.getInteger(PROPERTY_PREFIX + name, defaultValue));
+		}
+
+		/**
+		 * The number of consecutive healthy, unchanged runs before each back off step.
+		 */
+		final int stableRuns;
+
+		/**
+		 * The greatest multiple of the base delay when backed off.  One disables back off.
+		 */
+		final int maxBackoff;
+
+		/**
+		 * The divisor applied to the base delay while rising or flapping.  One disables tightening.
+		 */
+		final int tighten;
+
+		/**
+		 * The smallest delay tightening will produce, in milliseconds.
+		 */
+		final long minDelay;
+
+		/**
+		 * The maximum jitter, as a percentage of the delay.
+		 */
+		final int jitterPercent;
+
+		Budget(String subsystem) {
+			stableRuns = Math.max(1, getInt(subsystem, "stableRuns", 3));
+			maxBackoff = Math.max(1, getInt(subsystem, "maxBackoff", 4));
+			tighten = Math.max(1, getInt(subsystem, "tighten", 2));
+			minDelay = Math.max(0, getLong(subsystem, "minDelay", 15000));
+			jitterPercent = Math.min(50, Math.max(0, getInt(subsystem, "jitterPercent", 10)));
+		}
+	}
+
+	private static final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+
+	static Budget getBudget(String subsystem) {
+		return budgets.computeIfAbsent(subsystem, Budget::new);
+	}
+
+	/**
+	 * Gets the subsystem of a worker class, which is the last part of its package name.
+	 */
+	static String getSubsystem(Class<?> workerClass) {
+		String name = workerClass.getName();
+		int end = name.lastIndexOf('.');
+		if(end == -1) return "";
+		int start = name.lastIndexOf('.', end - 1);
+		return name.substring(start + 1, end);
+	}
+
+	/**
+	 * Creates the policy for a worker.
+	 *
+	 * @param  persistenceFile  Identifies the worker for jitter, may be {@code null}
+	 */
+	public static PollingPolicy forWorker(Object worker, File persistenceFile) {
+		Class<?> workerClass = worker.getClass();
+		String id = workerClass.getName();
+		if(persistenceFile != null) id += ":" + persistenceFile.getPath();
+		return new PollingPolicy(getBudget(getSubsystem(workerClass)), id.hashCode());
+	}
+
+	private final Budget budget;
+
+	/**
+	 * The jitter factor of this worker, in the range [-1, 1).
+	 */
+	private final double jitter;
+
+	// All below synchronized on this
+	private AlertLevel lastAlertLevel;
+	private int stableCount;
+	private int backoff = 1;
+	/**
+	 * One bit per recent run, set when the alert level changed on that run.
+	 */
+	private int changes;
+
+	PollingPolicy(Budget budget, int seed) {
+		this.budget = budget;
+		// Spread the seed bits, then map to [-1, 1)
+		long mixed = (seed & 0xffffffffL) * 0x9E3779B97F4A7C15L;
+		this.jitter = ((mixed >>> 11) * 0x1.0p-53) * 2 - 1;
+	}
+
+	/**
+	 * Records the outcome of a run and gets the delay until the next run.
+	 *
+	 * @param  baseDelay  The worker's <code>getSleepDelay</code>
+	 * @param  alertLevel  When {@code null}, treated as {@link AlertLevel#UNKNOWN}
+	 */
+	public long getDelay(long baseDelay, boolean lastSuccessful, AlertLevel alertLevel) {
+		return getDelay(baseDelay, true, lastSuccessful, alertLevel);
+	}
+
+	/**
+	 * Records the outcome of a run and gets the delay until the next run.
+	 *
+	 * @param  baseDelay  The worker's <code>getSleepDelay</code>
+	 * @param  backoffAllowed  When {@code false}, never backed off, such as for workers that
+	 *                         detect outages, which must be noticed within the base delay
+	 * @param  alertLevel  When {@code null}, treated as {@link AlertLevel#UNKNOWN}
+	 */
+	public synchronized long getDelay(long baseDelay, boolean backoffAllowed, boolean lastSuccessful, AlertLevel alertLevel) {
+		if(alertLevel == null) alertLevel = AlertLevel.UNKNOWN;
+		boolean changed = lastAlertLevel != null && alertLevel != lastAlertLevel;
+		boolean rising = changed && alertLevel.compareTo(lastAlertLevel) > 0;
+		lastAlertLevel = alertLevel;
+		changes = ((changes << 1) | (changed ? 1 : 0)) & ((1 << FLAP_WINDOW) - 1);
+		boolean flapping = Integer.bitCount(changes) >= FLAP_CHANGES;
+
+		long delay;
+		if(rising || flapping) {
+			stableCount = 0;
+			backoff = 1;
+			delay = Math.max(Math.min(budget.minDelay, baseDelay), baseDelay / budget.tighten);
+		} else if(lastSuccessful && alertLevel == AlertLevel.NONE && !changed) {
+			if(++stableCount >= budget.stableRuns) {
+				stableCount = 0;
+				backoff = backoffAllowed ? Math.min(backoff * 2, budget.maxBackoff) : 1;
+			}
+			delay = baseDelay * backoff;
+		} else {
+			stableCount = 0;
+			backoff = 1;
+			delay = baseDelay;
+		}
+		return delay + Math.round(delay * jitter * budget.jitterPercent / 100);
+	}
+}
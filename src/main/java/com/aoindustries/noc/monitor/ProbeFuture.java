@@ -0,0 +1,113 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Runs a probe in a {@link Bulkhead}, completing this future when done.  Instead
+ * of a second thread blocking on the result, a deadline is scheduled on the shared
+ * {@link RootNodeImpl#timingWheel}.  When the deadline is reached first, this
+ * future is completed with a {@link TimeoutException} and the probe is cancelled.
+ * <p>
+ * Continuations run in the thread that completes this future: the probe thread
+ * normally, or a thread dispatched by the timing wheel on timeout.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class ProbeFuture<T> extends CompletableFuture<T> {
+
+	/**
+	 * Submits a probe.  Never throws, any failure to submit completes the future exceptionally.
+	 *
+	 * @param  canceller  Cancels the probe on a best-effort basis.  Must not block.
+	 */
+	static <T> ProbeFuture<T> submit(Bulkhead bulkhead, Callable<T> probe, long timeout, TimeUnit unit, Consumer<? super Future<T>> canceller) {
+		ProbeFuture<T> future = new ProbeFuture<>(probe, canceller);
+		try {
+			bulkhead.submit(future.task);
+		} catch(RejectedExecutionException e) {
+			future.completeExceptionally(e);
+			return future;
+		}
+		Future<?> deadline = RootNodeImpl.timingWheel.schedule(
+			() -> {
+				if(future.completeExceptionally(new TimeoutException())) future.cancelTask();
+			},
+			unit.toMillis(timeout)
+		);
+		future.whenComplete((result, throwable) -> deadline.cancel(false));
+		return future;
+	}
+
+	private final FutureTask<T> task;
+	private final Consumer<? super Future<T>> canceller;
+
+	private ProbeFuture(Callable<T> probe, Consumer<? super Future<T>> canceller) {
+		this.task = new FutureTask<T>(probe) {
+			@Override
+			protected void done() {
+				if(isCancelled()) {
+					ProbeFuture.this.completeExceptionally(new CancellationException());
+				} else {
+					try {
+						ProbeFuture.this.complete(get());
+					} catch(ExecutionException e) {
+						// Unwrap exception here
+						Throwable cause = e.getCause();
+						ProbeFuture.this.completeExceptionally((cause instanceof Exception) ? cause : e);
+					} catch(InterruptedException e) {
+						// Not expected since done
+						ProbeFuture.this.completeExceptionally(e);
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+		};
+		this.canceller = canceller;
+	}
+
+	private void cancelTask() {
+		canceller.accept(task);
+	}
+
+	/**
+	 * Also cancels the probe.
+	 */
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		boolean cancelled = super.cancel(mayInterruptIfRunning);
+		if(cancelled) cancelTask();
+		return cancelled;
+	}
+}
@@ -0,0 +1,626 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import com.aoapps.lang.exception.WrappedException;
+import com.aoapps.lang.io.FileUtils;
+import com.aoapps.persistence.PersistentCollections;
+import com.aoapps.persistence.PersistentLinkedList;
+import com.aoapps.persistence.ProtectionLevel;
+import com.aoapps.persistence.Serializer;
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import com.aoindustries.noc.monitor.common.TableMultiResult;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * A fixed-capacity ring buffer of results in a memory-mapped file, newest first.
+ * <p>
+ * The file is a versioned header followed by one column per field:
+ * sequence, time, latency, checksum, payload length, alert level, and a fixed-size
+ * payload slot holding the result as written by its {@link Serializer}.  Time,
+ * latency, and alert level are read directly from the mapping without deserializing
+ * the result.  When a result does not fit its slot, the file is rebuilt with larger
+ * slots.
+ * </p>
+ * <p>
+ * Each record is checksummed and its sequence is written last.  On open, the
+ * newest run of consecutive valid records is recovered, so a record torn by an
+ * unexpected shutdown is discarded.  Each record is also appended to the shared
+ * {@link HistoryLog}, which makes it durable by group commit and replays it after
+ * an unexpected shutdown.  The mapping itself is only forced on checkpoint.
+ * </p>
+ * <p>
+ * A file from the previous {@link PersistentLinkedList} format is migrated on open.
+ * </p>
+ * <p>
+ * This class is not thread-safe, callers synchronize on the instance.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class ResultHistory<R extends TableMultiResult> implements Iterable<R>, Flushable {
+
+	private static final Logger logger = Logger.getLogger(ResultHistory.class.getName());
+
+	/**
+	 * Identifies the file format: "AOHR".
+	 */
+	private static final int MAGIC = 0x414f4852;
+
+	private static final int VERSION = 1;
+
+	/**
+	 * The header is one page, followed by the columns.
+	 */
+	private static final int HEADER_SIZE = 4096;
+
+	private static final int INITIAL_SLOT_SIZE = 128;
+
+	/**
+	 * Opens the history, creating or migrating the file as needed.
+	 * When the capacity differs from the file, the newest results are kept.
+	 */
+	static <R extends TableMultiResult> ResultHistory<R> open(File file, Serializer<R> serializer, int capacity) throws IOException {
+		// Replays any log before opening
+		HistoryLog log = HistoryLog.getInstance();
+		ResultHistory<R> history = openFile(file, serializer, capacity);
+		history.log = log;
+		history.logPath = file.getCanonicalPath();
+		log.register(history);
+		return history;
+	}
+
+	/**
+	 * Opens the history without logging, for tests.
+	 */
+	static <R extends TableMultiResult> ResultHistory<R> openFile(File file, Serializer<R> serializer, int capacity) throws IOException {
+		if(capacity < 1) throw new IllegalArgumentException("capacity < 1: " + capacity);
+		if(file.length() > 0) {
+			if(isHistoryFile(file)) {
+				ResultHistory<R> history = new ResultHistory<>(file, serializer);
+				if(history.capacity != capacity) {
+					if(logger.isLoggable(Level.INFO)) logger.log(Level.INFO, "Resizing " + file + " from " + history.capacity + " to " + capacity);
+					ResultHistory<R> resized = history.rebuild(capacity, history.slotSize);
+					// Not yet registered, so no other reference to the old mapping
+					MappedFiles.unmap(history.buffer);
+					history = resized;
+				}
+				return history;
+			} else {
+				return migrate(file, serializer, capacity);
+			}
+		} else {
+			return create(file, serializer, capacity, INITIAL_SLOT_SIZE);
+		}
+	}
+
+	private static boolean isHistoryFile(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+			return file.length() >= HEADER_SIZE && in.readInt() == MAGIC;
+		}
+	}
+
+	/**
+	 * Applies the records logged since the history was last forced, skipping
+	 * those already present.
+	 */
+	static void replay(File file, List<HistoryLog.Record> records) throws IOException {
+		if(!file.exists() || !isHistoryFile(file)) {
+			logger.log(Level.WARNING, "Skipping log records for missing history: " + file);
+			return;
+		}
+		ResultHistory<?> history = new ResultHistory<>(file, null);
+		try {
+			int applied = 0;
+			for(HistoryLog.Record record : records) {
+				if(record.seq > history.lastSeq) {
+					if(record.seq != history.lastSeq + 1) {
+						logger.log(Level.WARNING, "Gap in history " + file + ": expected sequence " + (history.lastSeq + 1) + ", got " + record.seq);
+						history.size = 0;
+					}
+					history.ensureSlotSize(record.payload.length);
+					history.write(record.seq, record.time, record.latency, record.alertLevel, ByteBuffer.wrap(record.payload));
+					applied++;
+				}
+			}
+			if(applied > 0) {
+				history.flush();
+				if(logger.isLoggable(Level.INFO)) logger.log(Level.INFO, "Replayed " + applied + " results into " + file);
+			}
+		} finally {
+			// Opened again once replayed
+			history.unmap();
+		}
+	}
+
+	private static <R extends TableMultiResult> ResultHistory<R> create(File file, Serializer<R> serializer, int capacity, int slotSize) throws IOException {
+		if(file.exists()) FileUtils.delete(file);
+		MappedByteBuffer buffer = MappedFiles.map(file, getFileSize(capacity, slotSize));
+		buffer.putInt(0, MAGIC);
+		buffer.putInt(4, VERSION);
+		buffer.putInt(8, capacity);
+		buffer.putInt(12, slotSize);
+		buffer.force();
+		return new ResultHistory<>(file, serializer, buffer);
+	}
+
+	/**
+	 * Migrates from a {@link PersistentLinkedList}, which is stored newest first.
+	 */
+	private static <R extends TableMultiResult> ResultHistory<R> migrate(File file, Serializer<R> serializer, int capacity) throws IOException {
+		List<R> legacy;
+		PersistentLinkedList<R> list = new PersistentLinkedList<>(
+			PersistentCollections.getPersistentBuffer(new RandomAccessFile(file, "r"), ProtectionLevel.READ_ONLY, Long.MAX_VALUE),
+			serializer
+		);
+		try {
+			legacy = new ArrayList<>(list);
+		} finally {
+			list.close();
+		}
+		File newFile = new File(file.getPath() + ".new");
+		ResultHistory<R> history = create(newFile, serializer, capacity, INITIAL_SLOT_SIZE);
+		for(int index = Math.min(legacy.size(), capacity) - 1; index >= 0; index--) {
+			history.add(legacy.get(index));
+		}
+		history.buffer.force();
+		FileUtils.renameAllowNonAtomic(newFile, file);
+		history.file = file;
+		if(logger.isLoggable(Level.INFO)) logger.log(Level.INFO, "Migrated " + history.size + " results in " + file);
+		return history;
+	}
+
+	private static long getFileSize(int capacity, int slotSize) throws IOException {
+		long size = getPayloadOffset(capacity) + (long)capacity * slotSize;
+		if(size > Integer.MAX_VALUE) throw new IOException("History too large: capacity = " + capacity + ", slotSize = " + slotSize);
+		return size;
+	}
+
+	private static long getPayloadOffset(int capacity) {
+		// Sequence, time, and latency longs; checksum and length ints; alert level bytes; aligned to 8 bytes
+		long end = HEADER_SIZE + capacity * (3L * Long.BYTES + 2L * Integer.BYTES + 1L);
+		return (end + 7) & ~7L;
+	}
+
+	/**
+	 * Exposes its buffer for zero-copy writes into the mapping.
+	 */
+	private static class SerializeBuffer extends ByteArrayOutputStream {
+		private ByteBuffer asByteBuffer() {
+			return ByteBuffer.wrap(buf, 0, count);
+		}
+	}
+
+	/**
+	 * Reads a payload directly from the mapping.
+	 */
+	private static class ByteBufferInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		private ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? (buffer.get() & 0xff) : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if(len == 0) return 0;
+			if(!buffer.hasRemaining()) return -1;
+			len = Math.min(len, buffer.remaining());
+			buffer.get(b, off, len);
+			return len;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+
+	/**
+	 * Changes when the file is rebuilt.
+	 */
+	private File file;
+	private final Serializer<R> serializer;
+	private MappedByteBuffer buffer;
+
+	/**
+	 * The mappings replaced by a rebuild, released on the next flush since a flush
+	 * in progress may still be forcing them.
+	 */
+	private List<MappedByteBuffer> replaced = new ArrayList<>();
+
+	/**
+	 * Serializes flushes, so a mapping is not released while being forced.
+	 */
+	private final Object flushLock = new Object();
+	private int capacity;
+	private int slotSize;
+	private int timeOffset;
+	private int latencyOffset;
+	private int crcOffset;
+	private int lengthOffset;
+	private int alertLevelOffset;
+	private int payloadOffset;
+
+	/**
+	 * The sequence of the newest result, sequences start at one.
+	 */
+	private long lastSeq;
+	private int size;
+
+	private final SerializeBuffer serializeBuffer = new SerializeBuffer();
+	private final ByteBuffer crcBuffer = ByteBuffer.allocate(3 * Long.BYTES + 1 + Integer.BYTES);
+	private final CRC32 crc = new CRC32();
+
+	/**
+	 * Set once opened, not used while migrating or replaying.
+	 */
+	private HistoryLog log;
+	private String logPath;
+
+	private ResultHistory(File file, Serializer<R> serializer) throws IOException {
+		this(file, serializer, mapFile(file));
+	}
+
+	/**
+	 * Maps the whole file once, the header read from the same mapping.
+	 */
+	private static MappedByteBuffer mapFile(File file) throws IOException {
+		long length = file.length();
+		if(length < HEADER_SIZE) throw new IOException("History file truncated: " + file);
+		if(length > Integer.MAX_VALUE) throw new IOException("History file too large: " + file);
+		return MappedFiles.map(file, length);
+	}
+
+	/**
+	 * @param  buffer  the mapping of the whole file
+	 */
+	private ResultHistory(File file, Serializer<R> serializer, MappedByteBuffer buffer) throws IOException {
+		this.file = file;
+		this.serializer = serializer;
+		this.buffer = buffer;
+		if(buffer.getInt(0) != MAGIC) throw new IOException("Not a history file: " + file);
+		int version = buffer.getInt(4);
+		if(version != VERSION) throw new IOException("Unsupported history version: " + version + ": " + file);
+		capacity = buffer.getInt(8);
+		slotSize = buffer.getInt(12);
+		if(buffer.capacity() < getFileSize(capacity, slotSize)) throw new IOException("History file truncated: " + file);
+		timeOffset = HEADER_SIZE + capacity * Long.BYTES;
+		latencyOffset = timeOffset + capacity * Long.BYTES;
+		crcOffset = latencyOffset + capacity * Long.BYTES;
+		lengthOffset = crcOffset + capacity * Integer.BYTES;
+		alertLevelOffset = lengthOffset + capacity * Integer.BYTES;
+		payloadOffset = (int)getPayloadOffset(capacity);
+		recover();
+	}
+
+	/**
+	 * Finds the newest run of consecutive valid records.
+	 */
+	private void recover() {
+		long maxSeq = 0;
+		for(int slot = 0; slot < capacity; slot++) {
+			long seq = getSeq(slot);
+			if(seq > maxSeq && getSlot(seq) == slot && isValid(slot, seq)) maxSeq = seq;
+		}
+		int count = 0;
+		for(long seq = maxSeq; seq > 0 && count < capacity; seq--) {
+			int slot = getSlot(seq);
+			if(getSeq(slot) != seq || !isValid(slot, seq)) break;
+			count++;
+		}
+		lastSeq = maxSeq;
+		size = count;
+	}
+
+	private int getSlot(long seq) {
+		return (int)((seq - 1) % capacity);
+	}
+
+	private long getSeq(int slot) {
+		return buffer.getLong(HEADER_SIZE + slot * Long.BYTES);
+	}
+
+	private ByteBuffer getPayload(int slot) {
+		ByteBuffer payload = buffer.duplicate();
+		int position = payloadOffset + slot * slotSize;
+		payload.position(position).limit(position + buffer.getInt(lengthOffset + slot * Integer.BYTES));
+		return payload;
+	}
+
+	private int computeCrc(int slot, long seq) {
+		crcBuffer.clear();
+		crcBuffer
+			.putLong(seq)
+			.putLong(buffer.getLong(timeOffset + slot * Long.BYTES))
+			.putLong(buffer.getLong(latencyOffset + slot * Long.BYTES))
+			.put(buffer.get(alertLevelOffset + slot))
+			.putInt(buffer.getInt(lengthOffset + slot * Integer.BYTES))
+			.flip();
+		crc.reset();
+		crc.update(crcBuffer);
+		crc.update(getPayload(slot));
+		return (int)crc.getValue();
+	}
+
+	private boolean isValid(int slot, long seq) {
+		int length = buffer.getInt(lengthOffset + slot * Integer.BYTES);
+		return
+			length >= 0
+			&& length <= slotSize
+			&& buffer.getInt(crcOffset + slot * Integer.BYTES) == computeCrc(slot, seq);
+	}
+
+	int getCapacity() {
+		return capacity;
+	}
+
+	int size() {
+		return size;
+	}
+
+	private int getSlotForIndex(int index) {
+		if(index < 0 || index >= size) throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+		return getSlot(lastSeq - index);
+	}
+
+	/**
+	 * Gets the time of a result without deserializing it.
+	 *
+	 * @param  index  zero is the newest
+	 */
+	long getTime(int index) {
+		return buffer.getLong(timeOffset + getSlotForIndex(index) * Long.BYTES);
+	}
+
+	/**
+	 * Gets the latency of a result without deserializing it.
+	 *
+	 * @param  index  zero is the newest
+	 */
+	long getLatency(int index) {
+		return buffer.getLong(latencyOffset + getSlotForIndex(index) * Long.BYTES);
+	}
+
+	/**
+	 * Gets the alert level of a result without deserializing it.
+	 *
+	 * @param  index  zero is the newest
+	 */
+	AlertLevel getAlertLevel(int index) {
+		return AlertLevel.fromOrdinal(buffer.get(alertLevelOffset + getSlotForIndex(index)));
+	}
+
+	/**
+	 * Deserializes a result directly from the mapping.
+	 *
+	 * @param  index  zero is the newest
+	 */
+	R get(int index) throws IOException {
+		return serializer.deserialize(new ByteBufferInputStream(getPayload(getSlotForIndex(index))));
+	}
+
+	/**
+	 * Deserializes a range of results, newest first.
+	 *
+	 * @param  fromIndex  zero is the newest
+	 */
+	List<R> get(int fromIndex, int count) throws IOException {
+		if(fromIndex < 0 || count < 0) throw new IndexOutOfBoundsException("fromIndex=" + fromIndex + ", count=" + count);
+		// Not fromIndex + count, which may overflow
+		int toIndex = fromIndex + Math.min(Math.max(0, size - fromIndex), count);
+		List<R> results = new ArrayList<>(toIndex - fromIndex);
+		for(int index = fromIndex; index < toIndex; index++) {
+			results.add(get(index));
+		}
+		return results;
+	}
+
+	/**
+	 * Counts the results newer than the given time by binary search of the time column.
+	 * The results are added in time order, so times do not increase from newest to oldest,
+	 * except when the system clock is set back.
+	 */
+	int countNewerThan(long time) {
+		int low = 0;
+		int high = size;
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			if(getTime(mid) > time) low = mid + 1;
+			else high = mid;
+		}
+		return low;
+	}
+
+	/**
+	 * Iterates the results, newest first.
+	 */
+	@Override
+	public Iterator<R> iterator() {
+		return new Iterator<R>() {
+			private int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				return index < size;
+			}
+
+			@Override
+			public R next() {
+				if(index >= size) throw new NoSuchElementException();
+				try {
+					return get(index++);
+				} catch(IOException e) {
+					throw new WrappedException(e);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Adds a new result, removing the oldest when full.
+	 *
+	 * @return  the result removed or {@code null} when not yet full
+	 */
+	R add(R value) throws IOException {
+		serializeBuffer.reset();
+		serializer.serialize(value, serializeBuffer);
+		ensureSlotSize(serializeBuffer.size());
+		R removed = (size == capacity) ? get(capacity - 1) : null;
+		long seq = lastSeq + 1;
+		long time = value.getTime();
+		long latency = value.getLatency();
+		byte alertLevel = (byte)value.getAlertLevel().ordinal();
+		write(seq, time, latency, alertLevel, serializeBuffer.asByteBuffer());
+		if(log != null) log.append(logPath, seq, time, latency, alertLevel, getPayload(getSlot(seq)));
+		return removed;
+	}
+
+	/**
+	 * Rebuilds with larger slots when needed.
+	 */
+	private void ensureSlotSize(int length) throws IOException {
+		if(length > slotSize) {
+			int newSlotSize = slotSize;
+			while(newSlotSize < length) newSlotSize *= 2;
+			if(logger.isLoggable(Level.INFO)) logger.log(Level.INFO, "Growing slots of " + file + " from " + slotSize + " to " + newSlotSize + " bytes");
+			adopt(rebuild(capacity, newSlotSize));
+		}
+	}
+
+	/**
+	 * Writes the record following the newest, or the first record after a gap when size is zero.
+	 */
+	private void write(long seq, long time, long latency, byte alertLevel, ByteBuffer payload) {
+		assert seq == lastSeq + 1 || size == 0;
+		int slot = getSlot(seq);
+		// Invalidate the slot while it is being written
+		buffer.putLong(HEADER_SIZE + slot * Long.BYTES, 0);
+		ByteBuffer dest = buffer.duplicate();
+		dest.position(payloadOffset + slot * slotSize);
+		int length = payload.remaining();
+		dest.put(payload);
+		buffer.putInt(lengthOffset + slot * Integer.BYTES, length);
+		buffer.put(alertLevelOffset + slot, alertLevel);
+		buffer.putLong(latencyOffset + slot * Long.BYTES, latency);
+		buffer.putLong(timeOffset + slot * Long.BYTES, time);
+		buffer.putInt(crcOffset + slot * Integer.BYTES, computeCrc(slot, seq));
+		buffer.putLong(HEADER_SIZE + slot * Long.BYTES, seq);
+		lastSeq = seq;
+		if(size < capacity) size++;
+	}
+
+	/**
+	 * Rebuilds into a new file, keeping the newest results that fit, then replaces this file.
+	 * The sequences are kept, so records in the log still match.
+	 */
+	private ResultHistory<R> rebuild(int newCapacity, int newSlotSize) throws IOException {
+		File newFile = new File(file.getPath() + ".new");
+		ResultHistory<R> rebuilt = create(newFile, serializer, newCapacity, newSlotSize);
+		for(int index = Math.min(size, newCapacity) - 1; index >= 0; index--) {
+			int slot = getSlotForIndex(index);
+			rebuilt.write(
+				lastSeq - index,
+				buffer.getLong(timeOffset + slot * Long.BYTES),
+				buffer.getLong(latencyOffset + slot * Long.BYTES),
+				buffer.get(alertLevelOffset + slot),
+				getPayload(slot)
+			);
+		}
+		rebuilt.buffer.force();
+		FileUtils.renameAllowNonAtomic(newFile, file);
+		rebuilt.file = file;
+		return rebuilt;
+	}
+
+	private void adopt(ResultHistory<R> other) {
+		assert other.file.equals(file);
+		replaced.add(buffer);
+		buffer = other.buffer;
+		capacity = other.capacity;
+		slotSize = other.slotSize;
+		timeOffset = other.timeOffset;
+		latencyOffset = other.latencyOffset;
+		crcOffset = other.crcOffset;
+		lengthOffset = other.lengthOffset;
+		alertLevelOffset = other.alertLevelOffset;
+		payloadOffset = other.payloadOffset;
+		lastSeq = other.lastSeq;
+		size = other.size;
+	}
+
+	/**
+	 * Forces all writes to disk.
+	 */
+	@Override
+	public void flush() {
+		synchronized(flushLock) {
+			MappedByteBuffer toForce;
+			List<MappedByteBuffer> toUnmap;
+			synchronized(this) {
+				toForce = buffer;
+				toUnmap = replaced;
+				replaced = new ArrayList<>();
+			}
+			toForce.force();
+			// The files of the replaced mappings have been replaced, nothing left to force
+			for(MappedByteBuffer old : toUnmap) MappedFiles.unmap(old);
+		}
+	}
+
+	/**
+	 * Releases the mappings once no longer used.
+	 */
+	private void unmap() {
+		synchronized(flushLock) {
+			synchronized(this) {
+				for(MappedByteBuffer old : replaced) MappedFiles.unmap(old);
+				replaced.clear();
+				MappedFiles.unmap(buffer);
+				buffer = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import java.io.Serializable;
+
+/**
+ * The results of one interval of a {@link RollupTier}.  Column zero is the
+ * latency, followed by any columns from {@link TableMultiResultNodeWorker#getRollupColumns()}.
+ * Only successful results are included in the column statistics.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class Rollup implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long startTime;
+	private final int count;
+	private final int errorCount;
+	private final AlertLevel maxAlertLevel;
+	private final double[] min;
+	private final double[] max;
+	private final double[] sum;
+
+	Rollup(long startTime, int count, int errorCount, AlertLevel maxAlertLevel, double[] min, double[] max, double[] sum) {
+		this.startTime = startTime;
+		this.count = count;
+		this.errorCount = errorCount;
+		this.maxAlertLevel = maxAlertLevel;
+		this.min = min;
+		this.max = max;
+		this.sum = sum;
+	}
+
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * Gets the number of results, including errors.
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	public int getErrorCount() {
+		return errorCount;
+	}
+
+	public AlertLevel getMaxAlertLevel() {
+		return maxAlertLevel;
+	}
+
+	public int getColumnCount() {
+		return sum.length;
+	}
+
+	/**
+	 * @return  the minimum or {@link Double#NaN} when there were no successful results
+	 */
+	public double getMin(int column) {
+		return count > errorCount ? min[column] : Double.NaN;
+	}
+
+	/**
+	 * @return  the maximum or {@link Double#NaN} when there were no successful results
+	 */
+	public double getMax(int column) {
+		return count > errorCount ? max[column] : Double.NaN;
+	}
+
+	/**
+	 * @return  the average or {@link Double#NaN} when there were no successful results
+	 */
+	public double getAvg(int column) {
+		return count > errorCount ? sum[column] / (count - errorCount) : Double.NaN;
+	}
+}
@@ -0,0 +1,334 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import com.aoapps.lang.io.FileUtils;
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The downsampled history of a {@link TableMultiResultNodeWorker}, one ring of
+ * {@link Rollup} per {@link RollupTier}, stored in a memory-mapped file.
+ * <p>
+ * The newest rollup of each tier is updated in-place until a result falls into
+ * a later interval.  The time of the newest result included is kept in the header,
+ * and any result not newer is ignored.  This allows the rollups to be caught-up
+ * from the raw {@link ResultHistory} after it is replayed, or back-filled when
+ * first created, without counting a result twice.
+ * </p>
+ * <p>
+ * Rollups are derived data and are not checksummed.  When the columns or tiers
+ * change, the file is recreated and back-filled from the raw history.
+ * </p>
+ * <p>
+ * This class is not thread-safe, callers synchronize on the instance.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class RollupHistory implements Flushable {
+
+	private static final Logger logger = Logger.getLogger(RollupHistory.class.getName());
+
+	/**
+	 * Identifies the file format: "AORR".
+	 */
+	private static final int MAGIC = 0x414f5252;
+
+	private static final int VERSION = 1;
+
+	/**
+	 * The header is one page, followed by the tiers.
+	 */
+	private static final int HEADER_SIZE = 4096;
+
+	private static final int TIERS_OFFSET = 24;
+
+	/**
+	 * Capacity, head, and size ints per tier.
+	 */
+	private static final int TIER_HEADER_SIZE = 3 * Integer.BYTES;
+
+	private static final RollupTier[] tiers = RollupTier.values();
+
+	/**
+	 * Opens the rollups, creating the file when missing or when its layout does not match.
+	 *
+	 * @param  columns  the number of columns, including latency
+	 */
+	static RollupHistory open(File file, int columns) throws IOException {
+		RollupHistory rollups = openFile(file, columns);
+		HistoryLog.getInstance().register(rollups);
+		return rollups;
+	}
+
+	/**
+	 * Opens the rollups without registering for checkpoints, for tests.
+	 */
+	static RollupHistory openFile(File file, int columns) throws IOException {
+		if(columns < 1) throw new IllegalArgumentException("columns < 1: " + columns);
+		RollupHistory rollups = null;
+		long length = file.length();
+		if(length >= HEADER_SIZE && length <= Integer.MAX_VALUE) {
+			rollups = new RollupHistory(file, MappedFiles.map(file, length));
+			if(!rollups.matches(columns)) {
+				if(logger.isLoggable(Level.INFO)) logger.log(Level.INFO, "Recreating " + file + " for new layout");
+				MappedFiles.unmap(rollups.buffer);
+				rollups = null;
+			}
+		}
+		if(rollups == null) rollups = create(file, columns);
+		return rollups;
+	}
+
+	private static RollupHistory create(File file, int columns) throws IOException {
+		if(file.exists()) FileUtils.delete(file);
+		MappedByteBuffer buffer = MappedFiles.map(file, getFileSize(columns));
+		buffer.putInt(0, MAGIC);
+		buffer.putInt(4, VERSION);
+		buffer.putInt(8, columns);
+		buffer.putInt(12, tiers.length);
+		buffer.putLong(16, Long.MIN_VALUE);
+		for(RollupTier tier : tiers) {
+			int pos = TIERS_OFFSET + tier.ordinal() * TIER_HEADER_SIZE;
+			buffer.putInt(pos, tier.getCapacity());
+			buffer.putInt(pos + 4, tier.getCapacity() - 1);
+			buffer.putInt(pos + 8, 0);
+		}
+		buffer.force();
+		return new RollupHistory(file, buffer);
+	}
+
+	/**
+	 * Start time long; count, error count, and alert level ints; padding; then min, max, and sum per column.
+	 */
+	private static int getRecordSize(int columns) {
+		return 3 * Long.BYTES + columns * 3 * Double.BYTES;
+	}
+
+	private static long getFileSize(int columns) throws IOException {
+		long size = HEADER_SIZE;
+		for(RollupTier tier : tiers) size += (long)tier.getCapacity() * getRecordSize(columns);
+		if(size > Integer.MAX_VALUE) throw new IOException("Rollups too large: columns = " + columns);
+		return size;
+	}
+
+	private final File file;
+	private final MappedByteBuffer buffer;
+	private final int columns;
+	private final int recordSize;
+	private final int[] tierOffsets = new int[tiers.length];
+
+	/**
+	 * @param  buffer  the mapping of the whole file, the header read from its start
+	 */
+	private RollupHistory(File file, MappedByteBuffer buffer) throws IOException {
+		this.file = file;
+		this.buffer = buffer;
+		int length = buffer.capacity();
+		if(length < HEADER_SIZE) throw new IOException("Rollups file too short: " + file);
+		int fileColumns = buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION ? buffer.getInt(8) : 0;
+		// A layout that does not match has no columns and is recreated
+		columns = fileColumns > 0 && length == getFileSize(fileColumns) ? fileColumns : 0;
+		recordSize = getRecordSize(columns);
+		int offset = HEADER_SIZE;
+		for(RollupTier tier : tiers) {
+			tierOffsets[tier.ordinal()] = offset;
+			offset += tier.getCapacity() * recordSize;
+		}
+	}
+
+	private boolean matches(int columns) {
+		if(this.columns != columns || buffer.getInt(12) != tiers.length) return false;
+		for(RollupTier tier : tiers) {
+			int pos = TIERS_OFFSET + tier.ordinal() * TIER_HEADER_SIZE;
+			int head = buffer.getInt(pos + 4);
+			int size = buffer.getInt(pos + 8);
+			if(
+				buffer.getInt(pos) != tier.getCapacity()
+				|| head < 0 || head >= tier.getCapacity()
+				|| size < 0 || size > tier.getCapacity()
+			) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the number of columns, including latency.
+	 */
+	int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Gets the time of the newest result included or {@link Long#MIN_VALUE} when none.
+	 */
+	long getLastTime() {
+		return buffer.getLong(16);
+	}
+
+	private int getHead(RollupTier tier) {
+		return buffer.getInt(TIERS_OFFSET + tier.ordinal() * TIER_HEADER_SIZE + 4);
+	}
+
+	/**
+	 * Gets the number of rollups in the tier.
+	 */
+	int size(RollupTier tier) {
+		return buffer.getInt(TIERS_OFFSET + tier.ordinal() * TIER_HEADER_SIZE + 8);
+	}
+
+	/**
+	 * Gets the position of a rollup.
+	 *
+	 * @param  index  zero is the newest
+	 */
+	private int getPosition(RollupTier tier, int index) {
+		int capacity = tier.getCapacity();
+		int slot = getHead(tier) - index;
+		if(slot < 0) slot += capacity;
+		return tierOffsets[tier.ordinal()] + slot * recordSize;
+	}
+
+	/**
+	 * Includes a result in each tier.
+	 *
+	 * @param  values  the columns, including latency, or {@code null} for an error
+	 *
+	 * @return  {@code false} when not newer than the last result included
+	 */
+	boolean add(long time, AlertLevel alertLevel, double[] values) {
+		if(values != null && values.length != columns) throw new IllegalArgumentException("values.length != columns: " + values.length + " != " + columns);
+		if(time <= getLastTime()) return false;
+		for(RollupTier tier : tiers) {
+			long startTime = tier.getStartTime(time);
+			int size = size(tier);
+			int pos;
+			if(size > 0 && buffer.getLong(pos = getPosition(tier, 0)) == startTime) {
+				buffer.putInt(pos + 8, buffer.getInt(pos + 8) + 1);
+				if(values == null) buffer.putInt(pos + 12, buffer.getInt(pos + 12) + 1);
+				if(alertLevel.ordinal() > buffer.getInt(pos + 16)) buffer.putInt(pos + 16, alertLevel.ordinal());
+				if(values != null) {
+					for(int column = 0; column < columns; column++) {
+						double value = values[column];
+						int colPos = pos + 3 * Long.BYTES + column * 3 * Double.BYTES;
+						if(value < buffer.getDouble(colPos)) buffer.putDouble(colPos, value);
+						if(value > buffer.getDouble(colPos + 8)) buffer.putDouble(colPos + 8, value);
+						buffer.putDouble(colPos + 16, buffer.getDouble(colPos + 16) + value);
+					}
+				}
+			} else {
+				int headerPos = TIERS_OFFSET + tier.ordinal() * TIER_HEADER_SIZE;
+				int capacity = tier.getCapacity();
+				int head = getHead(tier) + 1;
+				if(head == capacity) head = 0;
+				pos = tierOffsets[tier.ordinal()] + head * recordSize;
+				buffer.putLong(pos, startTime);
+				buffer.putInt(pos + 8, 1);
+				buffer.putInt(pos + 12, values == null ? 1 : 0);
+				buffer.putInt(pos + 16, alertLevel.ordinal());
+				for(int column = 0; column < columns; column++) {
+					double value = values == null ? Double.NaN : values[column];
+					int colPos = pos + 3 * Long.BYTES + column * 3 * Double.BYTES;
+					buffer.putDouble(colPos, values == null ? Double.POSITIVE_INFINITY : value);
+					buffer.putDouble(colPos + 8, values == null ? Double.NEGATIVE_INFINITY : value);
+					buffer.putDouble(colPos + 16, values == null ? 0 : value);
+				}
+				// Header last, so a partial write only loses this rollup
+				buffer.putInt(headerPos + 4, head);
+				if(size < capacity) buffer.putInt(headerPos + 8, size + 1);
+			}
+		}
+		buffer.putLong(16, time);
+		return true;
+	}
+
+	/**
+	 * Gets a rollup.
+	 *
+	 * @param  index  zero is the newest
+	 */
+	Rollup get(RollupTier tier, int index) {
+		if(index < 0 || index >= size(tier)) throw new IndexOutOfBoundsException(index + " not in [0, " + size(tier) + ")");
+		int pos = getPosition(tier, index);
+		double[] min = new double[columns];
+		double[] max = new double[columns];
+		double[] sum = new double[columns];
+		for(int column = 0; column < columns; column++) {
+			int colPos = pos + 3 * Long.BYTES + column * 3 * Double.BYTES;
+			min[column] = buffer.getDouble(colPos);
+			max[column] = buffer.getDouble(colPos + 8);
+			sum[column] = buffer.getDouble(colPos + 16);
+		}
+		return new Rollup(
+			buffer.getLong(pos),
+			buffer.getInt(pos + 8),
+			buffer.getInt(pos + 12),
+			AlertLevel.fromOrdinal(buffer.getInt(pos + 16)),
+			min,
+			max,
+			sum
+		);
+	}
+
+	/**
+	 * Gets up to <code>limit</code> of the rollups starting at or after the given time, newest first.
+	 * The newest rollup may still be in progress, so its start time may be used as the next cursor.
+	 */
+	List<Rollup> getSince(RollupTier tier, long time, int limit) {
+		if(limit < 0) throw new IllegalArgumentException("limit < 0: " + limit);
+		// Binary search, start times are increasing from oldest to newest
+		int low = 0;
+		int high = size(tier);
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			if(buffer.getLong(getPosition(tier, mid)) >= time) low = mid + 1;
+			else high = mid;
+		}
+		int count = low;
+		int offset = Math.max(0, count - limit);
+		List<Rollup> list = new ArrayList<>(count - offset);
+		for(int index = offset; index < count; index++) list.add(get(tier, index));
+		return list;
+	}
+
+	/**
+	 * Forces all writes to disk.
+	 */
+	@Override
+	public void flush() {
+		buffer.force();
+	}
+
+	@Override
+	public String toString() {
+		return file.toString();
+	}
+}
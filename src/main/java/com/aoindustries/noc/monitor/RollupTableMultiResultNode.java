@@ -0,0 +1,53 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.List;
+
+/**
+ * Long-range access to the results of a {@link TableMultiResultNodeImpl}, downsampled
+ * into the intervals of each {@link RollupTier}.
+ * <p>
+ * The rollups continue past the history available from {@link PagedTableMultiResultNode},
+ * with statistics over the successful results of each interval.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public interface RollupTableMultiResultNode extends Remote {
+
+	/**
+	 * Gets the names of the columns of each {@link Rollup}.  The first column is
+	 * always the latency, in nanoseconds.
+	 */
+	List<String> getRollupColumns() throws RemoteException;
+
+	/**
+	 * Gets up to <code>limit</code> of the rollups starting at or after the given time, newest first.
+	 * The newest rollup may still be in progress, so pass its start time to continue
+	 * from where this left off.
+	 */
+	List<Rollup> getRollups(RollupTier tier, long time, int limit) throws RemoteException;
+}
@@ -0,0 +1,76 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+/**
+ * The tiers of downsampled history kept in addition to the raw results.
+ * Each tier is a fixed number of intervals, aligned to UTC.
+ *
+ * @author  AO Industries, Inc.
+ */
+public enum RollupTier {
+
+	/**
+	 * 15 minutes for 30 days.
+	 */
+	FIFTEEN_MINUTES(15L * 60 * 1000, 30 * 24 * 4),
+
+	/**
+	 * One hour for 90 days.
+	 */
+	HOUR(60L * 60 * 1000, 90 * 24),
+
+	/**
+	 * One day for five years.
+	 */
+	DAY(24L * 60 * 60 * 1000, 5 * 366);
+
+	private final long interval;
+	private final int capacity;
+
+	private RollupTier(long interval, int capacity) {
+		this.interval = interval;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Gets the length of each interval, in milliseconds.
+	 */
+	public long getInterval() {
+		return interval;
+	}
+
+	/**
+	 * Gets the number of intervals kept.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Gets the start of the interval containing the given time.
+	 */
+	public long getStartTime(long time) {
+		return Math.floorDiv(time, interval) * interval;
+	}
+}
@@ -26,7 +26,6 @@ import com.aoapps.concurrent.Executors;
 import com.aoindustries.aoserv.client.AOServConnector;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.common.AlertCategory;
-import com.aoindustries.noc.monitor.common.AlertChange;
 import com.aoindustries.noc.monitor.common.AlertLevel;
 import com.aoindustries.noc.monitor.common.NodeSnapshot;
 import com.aoindustries.noc.monitor.common.RootNode;
@@ -42,13 +41,14 @@ import java.rmi.RemoteException;
 import java.rmi.server.RMIClientSocketFactory;
 import java.rmi.server.RMIServerSocketFactory;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.SwingUtilities;
@@ -61,7 +61,7 @@ import javax.swing.SwingUtilities;
  *
  * @author  AO Industries, Inc.
  */
-public class RootNodeImpl extends NodeImpl implements RootNode {
+public class RootNodeImpl extends NodeImpl implements RootNode, VersionedTreeNode {
 
 	private static final Logger logger = Logger.getLogger(RootNodeImpl.class.getName());
 
@@ -77,11 +77,29 @@ public class RootNodeImpl extends NodeImpl implements RootNode {
 	 */
 	public final static Executors executors = new Executors();
 
+	/**
+	 * All delayed tasks are held in a single timing wheel, which dispatches them to
+	 * the unbounded executor when due.  This avoids one delayed task per worker in
+	 * the executor.
+	 * <p>
+	 * When {@linkplain VirtualThreads virtual threads} are enabled, tasks are dispatched
+	 * to virtual threads instead.
+	 * </p>
+	 */
+	public final static TimingWheel timingWheel = new TimingWheel(
+		VirtualThreads.isEnabled() ? VirtualThreads.newVirtualThreadPerTaskExecutor() : executors.getUnbounded(),
+		100,
+		TimeUnit.MILLISECONDS,
+		1024 // One rotation every 102.4 seconds covers the common one and five minute delays in few rounds
+	);
+
 	/**
 	 * Schedules a task to be performed in the future.  It will be performed in a background thread via the ExecutorService.
+	 *
+	 * @see  #timingWheel
 	 */
 	public static Future<?> schedule(Runnable task, long delay) {
-		return executors.getUnbounded().submit(task, delay);
+		return timingWheel.schedule(task, delay);
 	}
 
 	/**
@@ -206,15 +224,7 @@ public class RootNodeImpl extends NodeImpl implements RootNode {
 	 */
 	@Override
 	public AlertLevel getAlertLevel() {
-		return constrainAlertLevel(
-			AlertLevelUtils.getMaxAlertLevel(
-				this.otherDevicesNode,
-				this.physicalServersNode,
-				this.virtualServersNode,
-				this.unallocatedNode,
-				this.signupsNode
-			)
-		);
+		return constrainAlertLevel(getChildrenAlertLevel());
 	}
 
 	/**
@@ -236,282 +246,140 @@ public class RootNodeImpl extends NodeImpl implements RootNode {
 	}
 
 	/**
-	 * Starts the rootNode.
+	 * The time taken by {@link #start()}, in nanoseconds, or {@code -1} until started.
 	 */
-	synchronized private void start() throws IOException, SQLException {
-		assert !SwingUtilities.isEventDispatchThread() : "Running in Swing event dispatch thread";
-
-		if(otherDevicesNode==null) {
-			logger.fine("new OtherDevicesNode");
-			otherDevicesNode = new OtherDevicesNode(this, port, csf, ssf);
-			otherDevicesNode.start();
-			nodeAdded();
-		}
-
-		if(physicalServersNode==null) {
-			logger.fine("new PhysicalServersNode");
-			physicalServersNode = new PhysicalServersNode(this, port, csf, ssf);
-			physicalServersNode.start();
-			nodeAdded();
-		}
-
-		if(virtualServersNode==null) {
-			logger.fine("new VirtualServersNode");
-			virtualServersNode = new VirtualServersNode(this, port, csf, ssf);
-			virtualServersNode.start();
-			nodeAdded();
-		}
-
-		if(unallocatedNode==null) {
-			logger.fine("new UnallocatedNode");
-			unallocatedNode = new UnallocatedNode(this, port, csf, ssf);
-			unallocatedNode.start();
-			nodeAdded();
-		}
+	volatile private long startupNanos = -1;
 
-		if(signupsNode==null) {
-			logger.fine("new SignupsNode");
-			signupsNode = new SignupsNode(this, port, csf, ssf);
-			signupsNode.start();
-			nodeAdded();
-		}
+	/**
+	 * Gets the time taken to build the tree, in milliseconds, or {@code -1} until built.
+	 * This includes creating every node and starting its workers, but not their first runs.
+	 */
+	public long getStartupTime() {
+		long nanos = startupNanos;
+		return nanos == -1 ? -1 : (nanos / 1000000);
 	}
 
-	final private List<TreeListener> treeListeners = new ArrayList<>();
-	// Synchronized on treeListeners
-	final private Map<TreeListener, NodeAddedSignaler> nodeAddedSignalers = new HashMap<>();
-	final private Map<TreeListener, NodeRemovedSignaler> nodeRemovedSignalers = new HashMap<>();
-	final private Map<TreeListener, NodeAlertLevelChangedSignaler> nodeAlertLevelChangedSignalers = new HashMap<>();
-
-	@Override
-	public void addTreeListener(TreeListener treeListener) {
-		synchronized(treeListeners) {
-			treeListeners.add(treeListener);
-		}
-	}
+	/**
+	 * Starts the rootNode.  The top-level nodes are built in parallel, each building
+	 * its own children in parallel with {@link TreeBuilder}.
+	 */
+	synchronized private void start() throws IOException, SQLException {
+		assert !SwingUtilities.isEventDispatchThread() : "Running in Swing event dispatch thread";
 
-	@Override
-	public void removeTreeListener(TreeListener treeListener) {
-		synchronized(treeListeners) {
-			for(int c=treeListeners.size()-1;c>=0;c--) {
-				if(treeListeners.get(c)==treeListener) {
-					treeListeners.remove(c);
-					// Remove only once, in case add and remove come in out of order with quick GUI changes
-					return;
+		long startNanos = System.nanoTime();
+		TreeBuilder.parallel(
+			() -> {
+				if(otherDevicesNode==null) {
+					logger.fine("new OtherDevicesNode");
+					otherDevicesNode = new OtherDevicesNode(this, port, csf, ssf);
+					otherDevicesNode.start();
+					nodeAdded(this);
 				}
-			}
-		}
-		logger.log(Level.WARNING, null, new AssertionError("Listener not found: " + treeListener));
-	}
-
-	private class NodeAddedSignaler implements Runnable {
-
-		final private TreeListener treeListener;
-
-		private long lastCounterSent = 0;
-		private long currentCounter = 0;
-
-		NodeAddedSignaler(TreeListener treeListener) {
-			this.treeListener = treeListener;
-		}
-
-		void nodeAdded() {
-			synchronized(treeListeners) {
-				currentCounter++;
-			}
-		}
-
-		@Override
-		@SuppressWarnings("SleepWhileInLoop")
-		public void run() {
-			boolean removed = false;
-			try {
-				while(true) {
-					long sendingCounter;
-					synchronized(treeListeners) {
-						if(lastCounterSent<currentCounter) {
-							nodeAddedSignalers.remove(treeListener);
-							removed = true;
-							break;
-						}
-						sendingCounter = currentCounter;
-					}
-					treeListener.nodeAdded();
-					synchronized(treeListeners) {
-						lastCounterSent = sendingCounter;
-					}
-					try {
-						Thread.sleep(250);
-					} catch(InterruptedException err) {
-						logger.log(Level.WARNING, null, err);
-					}
+			},
+			() -> {
+				if(physicalServersNode==null) {
+					logger.fine("new PhysicalServersNode");
+					physicalServersNode = new PhysicalServersNode(this, port, csf, ssf);
+					physicalServersNode.start();
+					nodeAdded(this);
 				}
-			} catch(RemoteException err) {
-				removeTreeListener(treeListener);
-				logger.log(Level.SEVERE, null, err);
-			} finally {
-				synchronized(treeListeners) {
-					if(!removed) nodeAddedSignalers.remove(treeListener);
+			},
+			() -> {
+				if(virtualServersNode==null) {
+					logger.fine("new VirtualServersNode");
+					virtualServersNode = new VirtualServersNode(this, port, csf, ssf);
+					virtualServersNode.start();
+					nodeAdded(this);
 				}
-			}
-		}
-	}
-
-	private class NodeRemovedSignaler implements Runnable {
-
-		final private TreeListener treeListener;
-
-		private long lastCounterSent = 0;
-		private long currentCounter = 0;
-
-		NodeRemovedSignaler(TreeListener treeListener) {
-			this.treeListener = treeListener;
-		}
-
-		void nodeRemoved() {
-			synchronized(treeListeners) {
-				currentCounter++;
-			}
-		}
-
-		@Override
-		@SuppressWarnings("SleepWhileInLoop")
-		public void run() {
-			boolean removed = false;
-			try {
-				while(true) {
-					long sendingCounter;
-					synchronized(treeListeners) {
-						if(lastCounterSent<currentCounter) {
-							nodeRemovedSignalers.remove(treeListener);
-							removed = true;
-							break;
-						}
-						sendingCounter = currentCounter;
-					}
-					treeListener.nodeRemoved();
-					synchronized(treeListeners) {
-						lastCounterSent = sendingCounter;
-					}
-					try {
-						Thread.sleep(250);
-					} catch(InterruptedException err) {
-						logger.log(Level.WARNING, null, err);
-					}
+			},
+			() -> {
+				if(unallocatedNode==null) {
+					logger.fine("new UnallocatedNode");
+					unallocatedNode = new UnallocatedNode(this, port, csf, ssf);
+					unallocatedNode.start();
+					nodeAdded(this);
 				}
-			} catch(RemoteException err) {
-				removeTreeListener(treeListener);
-				logger.log(Level.SEVERE, null, err);
-			} finally {
-				synchronized(treeListeners) {
-					if(!removed) nodeRemovedSignalers.remove(treeListener);
+			},
+			() -> {
+				if(signupsNode==null) {
+					logger.fine("new SignupsNode");
+					signupsNode = new SignupsNode(this, port, csf, ssf);
+					signupsNode.start();
+					nodeAdded(this);
 				}
 			}
-		}
+		);
+		long nanos = System.nanoTime() - startNanos;
+		startupNanos = nanos;
+		WorkerStateIndex.getInstance().treeBuilt(locale);
+		StartupPlanner.getInstance().treeBuilt();
+		if(logger.isLoggable(Level.INFO)) logger.log(Level.INFO, "Tree built in " + (nanos / 1000000) + " ms");
 	}
 
-	private class NodeAlertLevelChangedSignaler implements Runnable {
-
-		final private TreeListener treeListener;
-
-		private List<AlertChange> queuedChanges;
+	/**
+	 * One event pipeline per listener, iterated without locking by the producers.
+	 */
+	final private List<TreeEventPipeline> treeEventPipelines = new CopyOnWriteArrayList<>();
 
-		NodeAlertLevelChangedSignaler(TreeListener treeListener) {
-			this.treeListener = treeListener;
-		}
+	final private TreeChangeLog treeChangeLog = new TreeChangeLog();
 
-		void nodeAlertLevelChanged(AlertChange change) {
-			synchronized(treeListeners) {
-				if(queuedChanges==null) queuedChanges = new ArrayList<>();
-				queuedChanges.add(change);
-			}
-		}
+	@Override
+	public void addTreeListener(TreeListener treeListener) {
+		treeEventPipelines.add(new TreeEventPipeline(this, treeListener));
+	}
 
-		@Override
-		@SuppressWarnings("SleepWhileInLoop")
-		public void run() {
-			boolean removed = false;
-			try {
-				while(true) {
-					List<AlertChange> changes;
-					synchronized(treeListeners) {
-						if(queuedChanges==null) {
-							nodeAlertLevelChangedSignalers.remove(treeListener);
-							removed = true;
-							break;
-						}
-						changes = queuedChanges;
-						queuedChanges = null;
-					}
-					treeListener.nodeAlertChanged(changes);
-					try {
-						Thread.sleep(250);
-					} catch(InterruptedException err) {
-						logger.log(Level.WARNING, null, err);
-					}
-				}
-			} catch(RemoteException err) {
-				removeTreeListener(treeListener);
-				logger.log(Level.SEVERE, null, err);
-			} finally {
-				synchronized(treeListeners) {
-					if(!removed) nodeAlertLevelChangedSignalers.remove(treeListener);
-				}
+	@Override
+	public void removeTreeListener(TreeListener treeListener) {
+		for(TreeEventPipeline pipeline : treeEventPipelines) {
+			// Remove only once, in case add and remove come in out of order with quick GUI changes
+			if(pipeline.getTreeListener()==treeListener && treeEventPipelines.remove(pipeline)) {
+				pipeline.close();
+				return;
 			}
 		}
+		logger.log(Level.WARNING, null, new AssertionError("Listener not found: " + treeListener));
 	}
 
 	/**
-	 * Notifies all of the listeners.  Batches the calls into a per-listener background task.  Each of the background tasks may
-	 * send one event representing any number of changes.  Each background task will wait 250 ms between each send.
+	 * Notifies all of the listeners.  Each listener has its own {@link TreeEventPipeline}, which coalesces
+	 * any number of changes into one event, sent at most once per its maximum latency.
+	 *
+	 * @param  parent  The node the child was added to
 	 */
-	public void nodeAdded() {
+	public void nodeAdded(NodeImpl parent) {
 		assert !SwingUtilities.isEventDispatchThread() : "Running in Swing event dispatch thread";
 
-		synchronized(treeListeners) {
-			for(TreeListener treeListener : treeListeners) {
-				NodeAddedSignaler nodeAddedSignaler = nodeAddedSignalers.get(treeListener);
-				if(nodeAddedSignaler==null) {
-					nodeAddedSignaler = new NodeAddedSignaler(treeListener);
-					nodeAddedSignalers.put(treeListener, nodeAddedSignaler);
-					nodeAddedSignaler.nodeAdded();
-					executors.getUnbounded().submit(nodeAddedSignaler);
-				} else {
-					nodeAddedSignaler.nodeAdded();
-				}
-			}
+		parent.childrenChanged();
+		treeChangeLog.structureChanged(TreeChange.Type.NODE_ADDED);
+		for(TreeEventPipeline pipeline : treeEventPipelines) {
+			pipeline.nodeAdded();
 		}
 	}
 
 	/**
-	 * Notifies all of the listeners.  Batches the calls into a per-listener background task.  Each of the background tasks may
-	 * send one event representing any number of changes.  Each background task will wait 250 ms between each send.
+	 * Notifies all of the listeners.  Each listener has its own {@link TreeEventPipeline}, which coalesces
+	 * any number of changes into one event, sent at most once per its maximum latency.
+	 *
+	 * @param  parent  The node the child was removed from
 	 */
-	public void nodeRemoved() {
-		synchronized(treeListeners) {
-			for(TreeListener treeListener : treeListeners) {
-				NodeRemovedSignaler nodeRemovedSignaler = nodeRemovedSignalers.get(treeListener);
-				if(nodeRemovedSignaler==null) {
-					nodeRemovedSignaler = new NodeRemovedSignaler(treeListener);
-					nodeRemovedSignalers.put(treeListener, nodeRemovedSignaler);
-					nodeRemovedSignaler.nodeRemoved();
-					executors.getUnbounded().submit(nodeRemovedSignaler);
-				} else {
-					nodeRemovedSignaler.nodeRemoved();
-				}
-			}
+	public void nodeRemoved(NodeImpl parent) {
+		parent.childrenChanged();
+		treeChangeLog.structureChanged(TreeChange.Type.NODE_REMOVED);
+		for(TreeEventPipeline pipeline : treeEventPipelines) {
+			pipeline.nodeRemoved();
 		}
 	}
 
 	/**
-	 * Notifies all of the listeners.  Batches the calls into a per-listener background task.  Each of the background tasks may
-	 * send one event representing any number of changes.  Each background task will wait 250 ms between each send.
+	 * Notifies all of the listeners.  Each listener has its own {@link TreeEventPipeline}, which batches
+	 * the changes into one event, sent at most once per its maximum latency.
 	 */
 	void nodeAlertLevelChanged(NodeImpl node, AlertLevel oldAlertLevel, AlertLevel newAlertLevel, String alertMessage, AlertCategory oldAlertCategory, AlertCategory newAlertCategory) throws RemoteException {
 		assert !SwingUtilities.isEventDispatchThread() : "Running in Swing event dispatch thread";
 
 		if(oldAlertLevel != newAlertLevel) {
-			AlertChange change = new AlertChange(
+			NodeImpl.alertLevelChanged(node);
+			TreeEventPipeline.Change change = new TreeEventPipeline.Change(
 				node,
 				node.getFullPath(locale),
 				oldAlertLevel,
@@ -520,18 +388,9 @@ public class RootNodeImpl extends NodeImpl implements RootNode {
 				oldAlertCategory,
 				newAlertCategory
 			);
-			synchronized(treeListeners) {
-				for(TreeListener treeListener : treeListeners) {
-					NodeAlertLevelChangedSignaler nodeAlertLevelChangedSignaler = nodeAlertLevelChangedSignalers.get(treeListener);
-					if(nodeAlertLevelChangedSignaler==null) {
-						nodeAlertLevelChangedSignaler = new NodeAlertLevelChangedSignaler(treeListener);
-						nodeAlertLevelChangedSignalers.put(treeListener, nodeAlertLevelChangedSignaler);
-						nodeAlertLevelChangedSignaler.nodeAlertLevelChanged(change);
-						executors.getUnbounded().submit(nodeAlertLevelChangedSignaler);
-					} else {
-						nodeAlertLevelChangedSignaler.nodeAlertLevelChanged(change);
-					}
-				}
+			treeChangeLog.alertChanged(change.toAlertChange());
+			for(TreeEventPipeline pipeline : treeEventPipelines) {
+				pipeline.nodeAlertLevelChanged(change);
 			}
 		}
 	}
@@ -552,13 +411,37 @@ public class RootNodeImpl extends NodeImpl implements RootNode {
 		return new NodeSnapshot(null, this);
 	}
 
+	/**
+	 * Gets the changes from the log, or a full snapshot when the version is from another
+	 * epoch or has been trimmed from the log.
+	 */
+	@Override
+	public TreeDelta getTreeChangesSince(long epoch, long version) throws RemoteException {
+		long currentEpoch = treeChangeLog.getEpoch();
+		if(epoch == currentEpoch) {
+			List<TreeChange> changes = treeChangeLog.getChangesSince(version);
+			if(changes != null) {
+				long currentVersion = changes.isEmpty() ? version : changes.get(changes.size() - 1).getVersion();
+				return new TreeDelta(currentEpoch, currentVersion, changes, null);
+			}
+		}
+		// Read version first, so any change during the snapshot is sent again
+		long currentVersion = treeChangeLog.getVersion();
+		return new TreeDelta(currentEpoch, currentVersion, null, getSnapshot());
+	}
+
+	/**
+	 * The top-level persistence directory, relative to the working directory.
+	 */
+	public static final String PERSISTENCE_DIRECTORY = "persistence";
+
 	/**
 	 * Gets the top-level persistence directory.
 	 */
 	public File getPersistenceDirectory() throws IOException {
-		File dir = new File("persistence");
+		File dir = new File(PERSISTENCE_DIRECTORY);
 		if(!dir.exists()) {
-			if(!dir.mkdir()) {
+			if(!dir.mkdir() && !dir.isDirectory()) {
 				throw new IOException(
 					PACKAGE_RESOURCES.getMessage(
 						locale,
@@ -571,21 +454,13 @@ public class RootNodeImpl extends NodeImpl implements RootNode {
 		return dir;
 	}
 
-	private static int lastStartupDelay5;
-	private static final Object lastStartupDelay5Lock = new Object();
-	static int getNextStartupDelayFiveMinutes() {
-		synchronized(lastStartupDelay5Lock) {
-			lastStartupDelay5 = (lastStartupDelay5+5037)%(5*60000);
-			return lastStartupDelay5;
-		}
-	}
-
-	private static int lastStartupDelay15;
-	private static final Object lastStartupDelay15Lock = new Object();
+	/**
+	 * Gets a delay spread over fifteen minutes.
+	 *
+	 * @deprecated  Workers are planned by their cost and target host with {@link StartupPlanner}.
+	 */
+	@Deprecated
 	public static int getNextStartupDelayFifteenMinutes() {
-		synchronized(lastStartupDelay15Lock) {
-			lastStartupDelay15= (lastStartupDelay15+15037)%(15*60000);
-			return lastStartupDelay15;
-		}
+		return (int)StartupPlanner.getInstance().getStartupDelay(StartupPlanner.CostClass.HEAVY, null);
 	}
 }
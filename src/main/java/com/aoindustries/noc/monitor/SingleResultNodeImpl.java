@@ -29,9 +29,7 @@ import com.aoindustries.noc.monitor.common.SingleResultNode;
 import java.rmi.RemoteException;
 import java.rmi.server.RMIClientSocketFactory;
 import java.rmi.server.RMIServerSocketFactory;
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.function.Function;
@@ -54,7 +52,7 @@ abstract public class SingleResultNodeImpl extends NodeImpl implements SingleRes
 	protected final NodeImpl parent;
 	private final SingleResultNodeWorker worker;
 
-	final private List<SingleResultListener> singleResultListeners = new ArrayList<>();
+	final private ListenerRegistry<SingleResultListener> singleResultListeners = new ListenerRegistry<>();
 
 	protected SingleResultNodeImpl(RootNodeImpl rootNode, NodeImpl parent, SingleResultNodeWorker worker, int port, RMIClientSocketFactory csf, RMIServerSocketFactory ssf) throws RemoteException {
 		super(port, csf, ssf);
@@ -119,42 +117,22 @@ abstract public class SingleResultNodeImpl extends NodeImpl implements SingleRes
 
 	@Override
 	final public void addSingleResultListener(SingleResultListener singleResultListener) {
-		synchronized(singleResultListeners) {
-			singleResultListeners.add(singleResultListener);
-		}
+		singleResultListeners.add(singleResultListener);
 	}
 
 	@Override
 	final public void removeSingleResultListener(SingleResultListener singleResultListener) {
-		synchronized(singleResultListeners) {
-			for(int c=singleResultListeners.size()-1;c>=0;c--) {
-				if(singleResultListeners.get(c).equals(singleResultListener)) {
-					singleResultListeners.remove(c);
-					// Remove only once, in case add and remove come in out of order with quick GUI changes?
-					return;
-				}
-			}
+		if(!singleResultListeners.remove(singleResultListener)) {
+			logger.log(Level.WARNING, null, new AssertionError("Listener not found: " + singleResultListener));
 		}
-		logger.log(Level.WARNING, null, new AssertionError("Listener not found: " + singleResultListener));
 	}
 
 	/**
-	 * Notifies all of the listeners.
+	 * Notifies all of the listeners.  Only queues the event, never blocking on a remote call.
 	 */
 	final void singleResultUpdated(SingleResult singleResult) {
 		assert !SwingUtilities.isEventDispatchThread() : "Running in Swing event dispatch thread";
 
-		synchronized(singleResultListeners) {
-			Iterator<SingleResultListener> I = singleResultListeners.iterator();
-			while(I.hasNext()) {
-				SingleResultListener singleResultListener = I.next();
-				try {
-					singleResultListener.singleResultUpdated(singleResult);
-				} catch(RemoteException err) {
-					I.remove();
-					logger.log(Level.SEVERE, null, err);
-				}
-			}
-		}
+		singleResultListeners.fire(listener -> listener.singleResultUpdated(singleResult));
 	}
 }
@@ -32,7 +32,6 @@ import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -41,8 +40,6 @@ import javax.swing.SwingUtilities;
 /**
  * The workers for single results node.
  *
- * TODO: Add persistence of the last report
- *
  * @author  AO Industries, Inc.
  */
 public abstract class SingleResultNodeWorker implements Runnable {
@@ -55,6 +52,11 @@ public abstract class SingleResultNodeWorker implements Runnable {
 	private final Object timerTaskLock = new Object();
 	private Future<?> timerTask;
 
+	/**
+	 * The probe currently in progress, if any
+	 */
+	private ProbeFuture<String> probe;
+
 	volatile private SingleResult lastResult;
 	volatile private AlertLevel alertLevel;
 	volatile private Function<Locale, String> alertMessage = null;
@@ -63,8 +65,21 @@ public abstract class SingleResultNodeWorker implements Runnable {
 
 	final protected File persistenceFile;
 
+	/**
+	 * Adapts {@link #getSleepDelay(boolean, AlertLevel)} to recent results.
+	 */
+	final private PollingPolicy pollingPolicy;
+
 	protected SingleResultNodeWorker(File persistenceFile) {
 		this.persistenceFile = persistenceFile;
+		this.pollingPolicy = PollingPolicy.forWorker(this, persistenceFile);
+		// Report the last known state until the first run
+		WorkerStateIndex.State state = WorkerStateIndex.getInstance().get(persistenceFile);
+		if(state != null) {
+			lastResult = state.getResult(SingleResult.class);
+			alertLevel = state.getAlertLevel();
+			alertMessage = state.getAlertMessage();
+		}
 	}
 
 	final SingleResult getLastResult() {
@@ -80,36 +95,40 @@ public abstract class SingleResultNodeWorker implements Runnable {
 	}
 
 	/**
-	 * The default startup delay is within five minutes.
+	 * The cost of the first run, which determines the window first runs are spread over.
+	 * Defaults to {@link StartupPlanner.CostClass#LIGHT}.
 	 */
-	protected int getNextStartupDelay() {
-		return RootNodeImpl.getNextStartupDelayFiveMinutes();
+	protected StartupPlanner.CostClass getStartupCostClass() {
+		return StartupPlanner.CostClass.LIGHT;
 	}
 
 	private void start() {
 		synchronized(timerTaskLock) {
 			assert timerTask==null : "thread already started";
-			timerTask = RootNodeImpl.schedule(this, getNextStartupDelay());
+			timerTask = RootNodeImpl.schedule(this, StartupPlanner.getInstance().getStartupDelay(getStartupCostClass(), persistenceFile));
 		}
 	}
 
 	private void stop() {
+		Future<?> stoppedTask;
+		ProbeFuture<String> stoppedProbe;
 		synchronized(timerTaskLock) {
-			if(timerTask!=null) {
-				timerTask.cancel(true);
-				timerTask = null;
-			}
+			stoppedTask = timerTask;
+			timerTask = null;
+			stoppedProbe = probe;
+			probe = null;
 		}
+		// Cancelled outside the lock, since cancelling a probe runs its completion
+		if(stoppedTask!=null) stoppedTask.cancel(true);
+		if(stoppedProbe!=null) stoppedProbe.cancel(true);
 	}
 
-	private String getReportWithTimeout() throws Exception {
-		Future<String> future = RootNodeImpl.executors.getUnbounded().submit(this::getReport);
-		try {
-			return future.get(5, TimeUnit.MINUTES);
-		} catch(InterruptedException | TimeoutException err) {
-			cancel(future);
-			throw err;
-		}
+	/**
+	 * The bulkhead that runs <code>getReport</code>.
+	 * Defaults to {@link Bulkhead#DAEMON}.
+	 */
+	protected Bulkhead getBulkhead() {
+		return Bulkhead.DAEMON;
 	}
 
 	/**
@@ -129,24 +148,40 @@ public abstract class SingleResultNodeWorker implements Runnable {
 		return true;
 	}
 
+	/**
+	 * Starts the probe in its bulkhead.  The result is handled by {@link #completed(long, long, java.lang.String, java.lang.Throwable)}
+	 * once the report is available or the probe has timed-out.
+	 */
 	@Override
-	@SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
 	final public void run() {
 		assert !SwingUtilities.isEventDispatchThread() : "Running in Swing event dispatch thread";
 
+		long startMillis;
+		long startNanos;
+		ProbeFuture<String> future;
+		synchronized(timerTaskLock) {
+			if(timerTask==null) return;
+			startMillis = System.currentTimeMillis();
+			startNanos = System.nanoTime();
+			future = probe = ProbeFuture.submit(getBulkhead(), this::getReport, 5, TimeUnit.MINUTES, this::cancel);
+		}
+		future.whenComplete((report, throwable) -> {
+			synchronized(timerTaskLock) {
+				// Cancelled by stop
+				if(probe!=future) return;
+			}
+			completed(startMillis, startNanos, report, throwable);
+		});
+	}
+
+	@SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+	private void completed(long startMillis, long startNanos, String report, Throwable throwable) {
 		boolean lastSuccessful = false;
-		synchronized(timerTaskLock) {if(timerTask==null) return;}
 		try {
-			long startMillis = System.currentTimeMillis();
-			long startNanos = System.nanoTime();
-
-			lastSuccessful = false;
-
 			SerializableFunction<Locale, String> error;
-			String report;
 			try {
+				if(throwable!=null) throw throwable;
 				error = null;
-				report = getReportWithTimeout();
 				if(report==null) throw new NullPointerException("report is null");
 				lastSuccessful = true;
 			} catch(Exception err) {
@@ -193,9 +228,11 @@ public abstract class SingleResultNodeWorker implements Runnable {
 			if(oldAlertLevel == null) oldAlertLevel = AlertLevel.UNKNOWN;
 			alertLevel = newAlertLevel;
 			alertMessage = alertLevelAndMessage.getAlertMessage();
+			WorkerStateIndex.getInstance().update(persistenceFile, newAlertLevel, alertMessage, result);
 
 			singleResultUpdated(result);
 			if(oldAlertLevel!=newAlertLevel) {
+				StartupPlanner.getInstance().alertLevelChanged(persistenceFile, newAlertLevel);
 				synchronized(singleResultNodeImpls) {
 					for(SingleResultNodeImpl singleResultNodeImpl : singleResultNodeImpls) {
 						singleResultNodeImpl.nodeAlertLevelChanged(
@@ -214,10 +251,15 @@ public abstract class SingleResultNodeWorker implements Runnable {
 		} finally {
 			// Reschedule next timer task if still running
 			synchronized(timerTaskLock) {
+				probe = null;
 				if(timerTask!=null) {
 					timerTask = RootNodeImpl.schedule(
 						this,
-						getSleepDelay(lastSuccessful, alertLevel)
+						pollingPolicy.getDelay(
+							getSleepDelay(lastSuccessful, alertLevel),
+							lastSuccessful,
+							alertLevel
+						)
 					);
 				}
 			}
@@ -268,6 +310,7 @@ public abstract class SingleResultNodeWorker implements Runnable {
 	/**
 	 * The default sleep delay is five minutes when successful
 	 * or one minute when unsuccessful.
+	 * This is the base delay, which is adapted to recent results by {@link PollingPolicy}.
 	 *
 	 * @param  alertLevel  When {@code null}, treated as {@link AlertLevel#UNKNOWN}
 	 */
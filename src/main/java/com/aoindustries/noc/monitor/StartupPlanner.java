@@ -0,0 +1,259 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Plans the first run of each worker, so a restart does not burst against the
+ * AOServ master and daemons.
+ * <ul>
+ * <li>Each {@link CostClass} spreads first runs over its own window.  Offsets follow
+ *     a golden ratio sequence, so the first runs are evenly spread however many
+ *     workers there turn out to be.</li>
+ * <li>First runs against the same target host are at least {@link #HOST_INTERVAL}
+ *     apart, limiting the rate against each daemon.  Workers without a persistence
+ *     file have no known host, and are only spread over their window.</li>
+ * <li>Workers that were at an alert level other than {@link AlertLevel#NONE} before
+ *     shutdown are spread over the much shorter {@link #PRIORITY_WINDOW} instead.
+ *     These workers are persisted to the file <code>startup-priority</code> in the
+ *     persistence directory on each {@link HistoryLog} checkpoint.  Workers not
+ *     started by the time the tree is built no longer exist, and are removed.</li>
+ * </ul>
+ * <p>
+ * Workers are identified by their persistence file.  The target host is the
+ * <code>servers/&lt;pack&gt;/&lt;server&gt;</code> or <code>unallocated/&lt;ip&gt;</code>
+ * directory the persistence file is within.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class StartupPlanner implements Flushable {
+
+	private static final String PROPERTY_PREFIX = StartupPlanner.class.getName() + ".";
+
+	/**
+	 * The minimum time between the first runs against a single target host.
+	 */
+	private static final long HOST_INTERVAL = Long.getLong(PROPERTY_PREFIX + "hostInterval", 2000);
+
+	/**
+	 * The window for workers that were alerting before shutdown.
+	 */
+	private static final long PRIORITY_WINDOW = Long.getLong(PROPERTY_PREFIX + "priorityWindow", 30000);
+
+	private static final String PRIORITY_FILENAME = "startup-priority";
+
+	/**
+	 * "AOSP"
+	 */
+	private static final int PRIORITY_MAGIC = 0x414f5350;
+
+	private static final int PRIORITY_VERSION = 1;
+
+	/**
+	 * 2<sup>32</sup> divided by the golden ratio.
+	 */
+	private static final int GOLDEN_STEP = 0x9E3779B9;
+
+	/**
+	 * The cost of a worker's first run, which determines the window it is spread over.
+	 */
+	public enum CostClass {
+		/**
+		 * Checks answered from the AOServ master or a quick daemon call.
+		 */
+		LIGHT(Long.getLong(PROPERTY_PREFIX + "lightWindow", 5L * 60000)),
+
+		/**
+		 * Checks that are slow or make many external requests, such as DNS and blacklists.
+		 */
+		HEAVY(Long.getLong(PROPERTY_PREFIX + "heavyWindow", 15L * 60000));
+
+		private final long window;
+
+		private CostClass(long window) {
+			this.window = window;
+		}
+	}
+
+	private static StartupPlanner instance;
+
+	/**
+	 * Gets the planner, loading the persisted priorities on first use.
+	 */
+	static StartupPlanner getInstance() {
+		synchronized(StartupPlanner.class) {
+			if(instance == null) {
+				instance = new StartupPlanner(Paths.get(RootNodeImpl.PERSISTENCE_DIRECTORY));
+				PersistedMap.saveOnCheckpoint(instance);
+			}
+			return instance;
+		}
+	}
+
+	private final Path persistenceDirectory;
+
+	/**
+	 * The workers alerting before shutdown, by path relative to the persistence directory.
+	 */
+	private final Set<String> priority;
+
+	/**
+	 * The alert level of the workers currently alerting, by path relative to the persistence directory.
+	 */
+	private final PersistedMap<AlertLevel> alerting;
+
+	// All below synchronized on lock
+	private final Object lock = new Object();
+	private final int[] sequences = new int[CostClass.values().length + 1];
+	private final Map<String, NavigableSet<Long>> hostSlots = new HashMap<>();
+
+	StartupPlanner(Path persistenceDirectory) {
+		this.persistenceDirectory = persistenceDirectory;
+		this.alerting = new PersistedMap<>(
+			persistenceDirectory,
+			PRIORITY_FILENAME,
+			PRIORITY_MAGIC,
+			PRIORITY_VERSION,
+			new PersistedMap.Codec<AlertLevel>() {
+				@Override
+				public void write(DataOutputStream out, AlertLevel alertLevel) throws IOException {
+					out.writeByte(alertLevel.ordinal());
+				}
+
+				@Override
+				public AlertLevel read(DataInputStream in) throws IOException {
+					return AlertLevel.fromOrdinal(in.readByte());
+				}
+			}
+		);
+		this.priority = ConcurrentHashMap.newKeySet();
+		priority.addAll(alerting.keySet());
+	}
+
+	/**
+	 * Gets the target host of a key: the first three components under <code>servers</code>,
+	 * otherwise the first two.
+	 */
+	static String getHost(String key) {
+		int components = key.startsWith("servers/") ? 3 : 2;
+		int end = -1;
+		for(int i = 0; i < components; i++) {
+			end = key.indexOf('/', end + 1);
+			if(end == -1) return key;
+		}
+		return key.substring(0, end);
+	}
+
+	/**
+	 * Plans the first run of a worker.
+	 *
+	 * @param  persistenceFile  Identifies the worker, may be {@code null}
+	 *
+	 * @return  The delay until the first run
+	 */
+	long getStartupDelay(CostClass costClass, File persistenceFile) {
+		String key = PersistedMap.getKey(persistenceDirectory, persistenceFile);
+		boolean isPriority = key != null && priority.remove(key);
+		long window = isPriority ? PRIORITY_WINDOW : costClass.window;
+		long now = System.currentTimeMillis();
+		synchronized(lock) {
+			int sequenceIndex = isPriority ? sequences.length - 1 : costClass.ordinal();
+			int sequence = sequences[sequenceIndex];
+			sequences[sequenceIndex] = sequence + GOLDEN_STEP;
+			long slot = now + (long)((sequence & 0xffffffffL) * 0x1.0p-32 * window);
+			// The target host of a worker without a persistence file is unknown
+			if(key == null) return slot - now;
+			// Move later until no other first run against the host is within the interval
+			NavigableSet<Long> slots = hostSlots.computeIfAbsent(getHost(key), h -> new TreeSet<>());
+			slots.headSet(now - HOST_INTERVAL).clear();
+			boolean moved;
+			do {
+				moved = false;
+				Long lower = slots.floor(slot);
+				if(lower != null && slot - lower < HOST_INTERVAL) {
+					slot = lower + HOST_INTERVAL;
+					moved = true;
+				}
+				Long higher = slots.ceiling(slot);
+				if(higher != null && higher - slot < HOST_INTERVAL) {
+					slot = higher + HOST_INTERVAL;
+					moved = true;
+				}
+			} while(moved);
+			slots.add(slot);
+			return slot - now;
+		}
+	}
+
+	/**
+	 * Records the alert level of a worker, to be prioritized on the next startup when
+	 * not {@link AlertLevel#NONE}.
+	 *
+	 * @param  persistenceFile  Identifies the worker, may be {@code null}
+	 */
+	void alertLevelChanged(File persistenceFile, AlertLevel alertLevel) {
+		String key = PersistedMap.getKey(persistenceDirectory, persistenceFile);
+		if(key != null) {
+			if(alertLevel == AlertLevel.NONE) alerting.remove(key);
+			else if(alerting.get(key) != alertLevel) alerting.put(key, alertLevel);
+		}
+	}
+
+	/**
+	 * Removes the workers alerting before shutdown that were not started while the
+	 * tree was built, which no longer exist.
+	 */
+	void treeBuilt() {
+		for(String key : priority) {
+			if(priority.remove(key)) alerting.remove(key);
+		}
+	}
+
+	/**
+	 * Saves the workers currently alerting, when changed.
+	 */
+	@Override
+	public void flush() throws IOException {
+		alerting.flush();
+	}
+
+	@Override
+	public String toString() {
+		return alerting.toString();
+	}
+}
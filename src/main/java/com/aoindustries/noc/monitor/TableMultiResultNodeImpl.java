@@ -29,9 +29,7 @@ import com.aoindustries.noc.monitor.common.TableMultiResultNode;
 import java.rmi.RemoteException;
 import java.rmi.server.RMIClientSocketFactory;
 import java.rmi.server.RMIServerSocketFactory;
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.function.Function;
@@ -44,7 +42,7 @@ import javax.swing.SwingUtilities;
  *
  * @author  AO Industries, Inc.
  */
-abstract public class TableMultiResultNodeImpl<R extends TableMultiResult> extends NodeImpl implements TableMultiResultNode<R> {
+abstract public class TableMultiResultNodeImpl<R extends TableMultiResult> extends NodeImpl implements TableMultiResultNode<R>, PagedTableMultiResultNode<R>, RollupTableMultiResultNode {
 
 	private static final Logger logger = Logger.getLogger(TableMultiResultNodeImpl.class.getName());
 
@@ -54,7 +52,7 @@ abstract public class TableMultiResultNodeImpl<R extends TableMultiResult> exten
 	final NodeImpl parent;
 	final TableMultiResultNodeWorker<?, R> worker;
 
-	final private List<TableMultiResultListener<? super R>> tableMultiResultListeners = new ArrayList<>();
+	final private ListenerRegistry<TableMultiResultListener<? super R>> tableMultiResultListeners = new ListenerRegistry<>();
 
 	protected TableMultiResultNodeImpl(RootNodeImpl rootNode, NodeImpl parent, TableMultiResultNodeWorker<?, R> worker, int port, RMIClientSocketFactory csf, RMIServerSocketFactory ssf) throws RemoteException {
 		super(port, csf, ssf);
@@ -103,6 +101,31 @@ abstract public class TableMultiResultNodeImpl<R extends TableMultiResult> exten
 		return worker.getResults();
 	}
 
+	@Override
+	final public int getResultCount() {
+		return worker.getResultCount();
+	}
+
+	@Override
+	final public List<? extends R> getResults(int offset, int limit) {
+		return worker.getResults(offset, limit);
+	}
+
+	@Override
+	final public List<? extends R> getResultsSince(long time, int limit) {
+		return worker.getResultsSince(time, limit);
+	}
+
+	@Override
+	final public List<String> getRollupColumns() {
+		return worker.getRollupColumnNames();
+	}
+
+	@Override
+	final public List<Rollup> getRollups(RollupTier tier, long time, int limit) {
+		return worker.getRollups(tier, time, limit);
+	}
+
 	/**
 	 * Called by the worker when the alert level changes.
 	 */
@@ -119,62 +142,31 @@ abstract public class TableMultiResultNodeImpl<R extends TableMultiResult> exten
 
 	@Override
 	final public void addTableMultiResultListener(TableMultiResultListener<? super R> tableMultiResultListener) {
-		synchronized(tableMultiResultListeners) {
-			tableMultiResultListeners.add(tableMultiResultListener);
-		}
+		tableMultiResultListeners.add(tableMultiResultListener);
 	}
 
 	@Override
 	final public void removeTableMultiResultListener(TableMultiResultListener<? super R> tableMultiResultListener) {
-		synchronized(tableMultiResultListeners) {
-			for(int c=tableMultiResultListeners.size()-1;c>=0;c--) {
-				if(tableMultiResultListeners.get(c).equals(tableMultiResultListener)) {
-					tableMultiResultListeners.remove(c);
-					// Remove only once, in case add and remove come in out of order with quick GUI changes
-					return;
-				}
-			}
+		if(!tableMultiResultListeners.remove(tableMultiResultListener)) {
+			logger.log(Level.WARNING, null, new AssertionError("Listener not found: " + tableMultiResultListener));
 		}
-		logger.log(Level.WARNING, null, new AssertionError("Listener not found: " + tableMultiResultListener));
 	}
 
 	/**
-	 * Notifies all of the listeners.
+	 * Notifies all of the listeners.  Only queues the event, never blocking on a remote call.
 	 */
 	final void tableMultiResultAdded(R tableMultiResult) {
 		assert !SwingUtilities.isEventDispatchThread() : "Running in Swing event dispatch thread";
 
-		synchronized(tableMultiResultListeners) {
-			Iterator<TableMultiResultListener<? super R>> I = tableMultiResultListeners.iterator();
-			while(I.hasNext()) {
-				TableMultiResultListener<? super R> tableMultiResultListener = I.next();
-				try {
-					tableMultiResultListener.tableMultiResultAdded(tableMultiResult);
-				} catch(RemoteException err) {
-					I.remove();
-					logger.log(Level.SEVERE, null, err);
-				}
-			}
-		}
+		tableMultiResultListeners.fire(listener -> listener.tableMultiResultAdded(tableMultiResult));
 	}
 
 	/**
-	 * Notifies all of the listeners.
+	 * Notifies all of the listeners.  Only queues the event, never blocking on a remote call.
 	 */
 	final void tableMultiResultRemoved(R tableMultiResult) {
 		assert !SwingUtilities.isEventDispatchThread() : "Running in Swing event dispatch thread";
 
-		synchronized(tableMultiResultListeners) {
-			Iterator<TableMultiResultListener<? super R>> I = tableMultiResultListeners.iterator();
-			while(I.hasNext()) {
-				TableMultiResultListener<? super R> tableMultiResultListener = I.next();
-				try {
-					tableMultiResultListener.tableMultiResultRemoved(tableMultiResult);
-				} catch(RemoteException err) {
-					I.remove();
-					logger.log(Level.SEVERE, null, err);
-				}
-			}
-		}
+		tableMultiResultListeners.fire(listener -> listener.tableMultiResultRemoved(tableMultiResult));
 	}
 }
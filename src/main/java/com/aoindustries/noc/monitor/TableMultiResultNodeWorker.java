@@ -23,25 +23,22 @@
 package com.aoindustries.noc.monitor;
 
 import com.aoapps.lang.EnumUtils;
+import com.aoapps.lang.exception.WrappedException;
 import com.aoapps.lang.i18n.ThreadLocale;
-import com.aoapps.persistence.PersistentCollections;
-import com.aoapps.persistence.PersistentLinkedList;
-import com.aoapps.persistence.ProtectionLevel;
 import com.aoapps.persistence.Serializer;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.common.AlertLevel;
 import com.aoindustries.noc.monitor.common.TableMultiResult;
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -49,25 +46,12 @@ import javax.swing.SwingUtilities;
 
 /**
  * The workers for table multi-results node.
- *
- * TODO: Instead of a fixed history size, aggregate data into larger time ranges and keep
- * track of mean, min, max, and standard deviation (or perhaps 5th/95th percentile?).  Keep
- * the following time ranges:
- * <pre>
- * 1 minute for 2 days = 2880 samples
- * 5 minutes for 5 days = 1440 samples
- * 15 minutes for 7 days = 672 samples
- * 30 minutes for 14 days = 672 samples
- * 1 hour for 28 days = 672 samples
- * 2 hours for 56 days = 672 samples
- * 4 hours for 112 days = 672 samples
- * 1 day forever beyond this
- * ==================================
- * total: 7680 samples + one per day beyond 224 days
- * </pre>
- * Update in a single background thread across all workers, and handle recovery from unexpected
- * shutdown gracefully by inserting aggregate before removing samples, and detect on next aggregation.
- * Also, the linked list should always be sorted by time descending, confirm this on aggregation pass.
+ * <p>
+ * A fixed number of raw results are kept, along with {@link Rollup rollups} of
+ * the latency and any {@link #getRollupColumns() numeric columns} for each
+ * {@link RollupTier}.  The rollups are updated incrementally as each result is
+ * added.
+ * </p>
  *
  * @author  AO Industries, Inc.
  */
@@ -75,13 +59,33 @@ public abstract class TableMultiResultNodeWorker<S, R extends TableMultiResult>
 
 	private static final Logger logger = Logger.getLogger(TableMultiResultNodeWorker.class.getName());
 
+	private static final double[] EMPTY_DOUBLE_ARRAY = new double[0];
+
 	/**
 	 * The most recent timer task
 	 */
 	private final Object timerTaskLock = new Object();
 	private Future<?> timerTask;
 
-	final private PersistentLinkedList<R> results;
+	/**
+	 * The probe currently in progress, if any
+	 */
+	private CompletableFuture<S> probe;
+
+	final private File persistenceFile;
+	final private Serializer<R> serializer;
+
+	/**
+	 * Adapts {@link #getSleepDelay(boolean, AlertLevel)} to recent results.
+	 */
+	final private PollingPolicy pollingPolicy;
+
+	/**
+	 * Opened on first use, since its capacity is from {@link #getHistorySize()}.
+	 */
+	private final Object historyLock = new Object();
+	private ResultHistory<R> history;
+	private RollupHistory rollups;
 
 	volatile private AlertLevel alertLevel = null;
 	volatile private Function<Locale, String> alertMessage = null;
@@ -89,37 +93,157 @@ public abstract class TableMultiResultNodeWorker<S, R extends TableMultiResult>
 	final private List<TableMultiResultNodeImpl<R>> tableMultiResultNodeImpls = new ArrayList<>();
 
 	protected TableMultiResultNodeWorker(File persistenceFile, Serializer<R> serializer) throws IOException {
-		this.results = new PersistentLinkedList<>(
-			PersistentCollections.getPersistentBuffer(new RandomAccessFile(persistenceFile, "rw"), ProtectionLevel.BARRIER, Long.MAX_VALUE),
-			//new RandomAccessFileBuffer(new RandomAccessFile(persistenceFile, "rw"), ProtectionLevel.NONE),
-			/*
-			new TwoCopyBarrierBuffer(
-				persistenceFile,
-				ProtectionLevel.BARRIER,
-				4096, // Matches the block size of the underlying ext2 filesystem - hopefully matches the flash page size??? Can't find specs.
-				60L*1000L, // TODO: Flash: 60L*60L*1000L, // Only commit once per 60 minutes in the single asynchronous writer thread
-				5L*60L*1000L // TODO: Flash: 24L*60L*60L*1000L  // Only commit synchronously (concurrently) once per 24 hours to save flash writes
-			),
-			 */
-			serializer
-		);
+		this.persistenceFile = persistenceFile;
+		this.pollingPolicy = PollingPolicy.forWorker(this, persistenceFile);
+		this.serializer = serializer;
+		// Report the last known state until the first run
+		WorkerStateIndex.State state = WorkerStateIndex.getInstance().get(persistenceFile);
+		if(state != null) {
+			alertLevel = state.getAlertLevel();
+			alertMessage = state.getAlertMessage();
+		}
+	}
+
+	/**
+	 * Gets the history, opening or migrating its file on first use.
+	 */
+	final ResultHistory<R> getHistory() throws IOException {
+		synchronized(historyLock) {
+			if(history == null) history = ResultHistory.open(persistenceFile, serializer, getHistorySize());
+			return history;
+		}
+	}
+
+	/**
+	 * Gets the rollups, opening their file on first use.  Any results not yet
+	 * included, such as those replayed into the history after an unexpected
+	 * shutdown, or all results when the file is first created, are included before
+	 * returning.
+	 */
+	final RollupHistory getRollups() throws IOException {
+		synchronized(historyLock) {
+			if(rollups == null) {
+				ResultHistory<R> results = getHistory();
+				RollupHistory newRollups = RollupHistory.open(
+					new File(persistenceFile.getPath() + ".rollups"),
+					1 + getRollupColumns().size()
+				);
+				synchronized(results) {
+					synchronized(newRollups) {
+						// Oldest first
+						for(int index = results.countNewerThan(newRollups.getLastTime()) - 1; index >= 0; index--) {
+							addRollup(newRollups, results.get(index));
+						}
+					}
+				}
+				rollups = newRollups;
+			}
+			return rollups;
+		}
+	}
+
+	private void addRollup(RollupHistory rollups, R result) {
+		double[] values = getRollupValues(result);
+		double[] columns;
+		if(values == null) {
+			columns = null;
+		} else {
+			columns = new double[1 + values.length];
+			columns[0] = result.getLatency();
+			System.arraycopy(values, 0, columns, 1, values.length);
+		}
+		rollups.add(result.getTime(), result.getAlertLevel(), columns);
+	}
+
+	/**
+	 * Gets the names of all rollup columns, starting with latency.
+	 */
+	final List<String> getRollupColumnNames() {
+		List<String> columns = getRollupColumns();
+		List<String> names = new ArrayList<>(1 + columns.size());
+		names.add("latency");
+		names.addAll(columns);
+		return Collections.unmodifiableList(names);
+	}
+
+	/**
+	 * Gets up to <code>limit</code> of the rollups starting at or after the given time, newest first.
+	 */
+	final List<Rollup> getRollups(RollupTier tier, long time, int limit) {
+		try {
+			RollupHistory rollupHistory = getRollups();
+			synchronized(rollupHistory) {
+				return Collections.unmodifiableList(rollupHistory.getSince(tier, time, limit));
+			}
+		} catch(IOException e) {
+			throw new WrappedException(e);
+		}
 	}
 
 	/**
 	 * Gets an unmodifiable copy of the results.
 	 */
 	final List<R> getResults() {
-		//System.out.println("DEBUG: getResults");
-		//try {
+		try {
+			ResultHistory<R> results = getHistory();
 			synchronized(results) {
-				return Collections.unmodifiableList(new ArrayList<>(results));
+				List<R> list = new ArrayList<>(results.size());
+				for(R result : results) list.add(result);
+				return Collections.unmodifiableList(list);
 			}
-		//} catch(ThreadDeath td) {
-		//    throw td;
-		//} catch(Throwable t) {
-		//    ErrorPrinter.printStackTraces(t);
-		//    throw t;
-		//}
+		} catch(IOException e) {
+			throw new WrappedException(e);
+		}
+	}
+
+	/**
+	 * Gets the number of results.
+	 */
+	final int getResultCount() {
+		try {
+			ResultHistory<R> results = getHistory();
+			synchronized(results) {
+				return results.size();
+			}
+		} catch(IOException e) {
+			throw new WrappedException(e);
+		}
+	}
+
+	/**
+	 * Gets one page of the results, newest first.
+	 *
+	 * @param  offset  zero is the newest
+	 */
+	final List<R> getResults(int offset, int limit) {
+		if(offset < 0) throw new IllegalArgumentException("offset < 0: " + offset);
+		if(limit < 0) throw new IllegalArgumentException("limit < 0: " + limit);
+		try {
+			ResultHistory<R> results = getHistory();
+			synchronized(results) {
+				return Collections.unmodifiableList(results.get(offset, limit));
+			}
+		} catch(IOException e) {
+			throw new WrappedException(e);
+		}
+	}
+
+	/**
+	 * Gets up to <code>limit</code> of the results immediately after the given time, newest first.
+	 * The time of the first result may be used as the next cursor.
+	 */
+	final List<R> getResultsSince(long time, int limit) {
+		if(limit < 0) throw new IllegalArgumentException("limit < 0: " + limit);
+		try {
+			ResultHistory<R> results = getHistory();
+			synchronized(results) {
+				int count = results.countNewerThan(time);
+				int offset = Math.max(0, count - limit);
+				return Collections.unmodifiableList(results.get(offset, count - offset));
+			}
+		} catch(IOException e) {
+			throw new WrappedException(e);
+		}
 	}
 
 	final AlertLevel getAlertLevel() {
@@ -131,41 +255,33 @@ public abstract class TableMultiResultNodeWorker<S, R extends TableMultiResult>
 	}
 
 	/**
-	 * The default startup delay is within five minutes.
+	 * The cost of the first run, which determines the window first runs are spread over.
+	 * Defaults to {@link StartupPlanner.CostClass#LIGHT}.
 	 */
-	protected int getNextStartupDelay() {
-		return RootNodeImpl.getNextStartupDelayFiveMinutes();
+	protected StartupPlanner.CostClass getStartupCostClass() {
+		return StartupPlanner.CostClass.LIGHT;
 	}
 
 	@SuppressWarnings("unchecked")
 	private void start() {
 		synchronized(timerTaskLock) {
 			assert timerTask==null : "thread already started";
-			timerTask = RootNodeImpl.schedule(this, getNextStartupDelay());
+			timerTask = RootNodeImpl.schedule(this, StartupPlanner.getInstance().getStartupDelay(getStartupCostClass(), persistenceFile));
 		}
 	}
 
 	private void stop() {
+		Future<?> stoppedTask;
+		CompletableFuture<S> stoppedProbe;
 		synchronized(timerTaskLock) {
-			if(timerTask!=null) {
-				timerTask.cancel(true);
-				timerTask = null;
-			}
-		}
-	}
-
-	private S getSampleWithTimeout() throws Exception {
-		Future<S> future = RootNodeImpl.executors.getUnbounded().submit(() -> getSample());
-		try {
-			return future.get(getFutureTimeout(), getFutureTimeoutUnit());
-		} catch(InterruptedException | TimeoutException err) {
-			cancel(future);
-			throw err;
-		} catch(ExecutionException err) {
-			// Unwrap exception here
-			Throwable cause = err.getCause();
-			throw (cause instanceof Exception) ? (Exception)cause : err;
+			stoppedTask = timerTask;
+			timerTask = null;
+			stoppedProbe = probe;
+			probe = null;
 		}
+		// Cancelled outside the lock, since cancelling a probe runs its completion
+		if(stoppedTask!=null) stoppedTask.cancel(true);
+		if(stoppedProbe!=null) stoppedProbe.cancel(true);
 	}
 
 	/**
@@ -185,30 +301,73 @@ public abstract class TableMultiResultNodeWorker<S, R extends TableMultiResult>
 		return true;
 	}
 
+	/**
+	 * Starts the probe.  The result is handled by {@link #completed(long, long, java.lang.Object, java.lang.Throwable)}
+	 * once the sample is available or the probe has timed-out.
+	 *
+	 * @see  #getSampleAsync()
+	 * @see  #useFutureTimeout()
+	 */
 	@Override
 	@SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
 	final public void run() {
 		assert !SwingUtilities.isEventDispatchThread() : "Running in Swing event dispatch thread";
 
+		long startMillis;
+		long startNanos;
+		CompletableFuture<S> future;
+		synchronized(timerTaskLock) {
+			if(timerTask==null) return;
+			startMillis = System.currentTimeMillis();
+			startNanos = System.nanoTime();
+			try {
+				future = getSampleAsync();
+			} catch(Throwable t) {
+				future = CompletableFuture.failedFuture(t);
+			}
+			if(future==null && useFutureTimeout()) {
+				future = ProbeFuture.submit(getBulkhead(), this::getSample, getFutureTimeout(), getFutureTimeoutUnit(), this::cancel);
+			}
+			probe = future;
+		}
+		if(future!=null) {
+			CompletableFuture<S> started = future;
+			started.whenComplete((sample, throwable) -> {
+				synchronized(timerTaskLock) {
+					// Cancelled by stop
+					if(probe!=started) return;
+				}
+				// Unwrap exception from dependent stages
+				if(throwable instanceof CompletionException && throwable.getCause()!=null) throwable = throwable.getCause();
+				completed(startMillis, startNanos, sample, throwable);
+			});
+		} else {
+			S sample;
+			Throwable throwable;
+			try {
+				sample = getSample();
+				throwable = null;
+			} catch(Throwable t) {
+				sample = null;
+				throwable = t;
+			}
+			completed(startMillis, startNanos, sample, throwable);
+		}
+	}
+
+	@SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+	private void completed(long startMillis, long startNanos, S sample, Throwable throwable) {
 		boolean lastSuccessful = false;
-		synchronized(timerTaskLock) {if(timerTask==null) return;}
 		try {
-			long startMillis = System.currentTimeMillis();
-			long startNanos = System.nanoTime();
-
 			AlertLevel curAlertLevel = alertLevel;
 			if(curAlertLevel == null) curAlertLevel = AlertLevel.NONE;
 
 			String error;
-			S sample;
 			AlertLevelAndMessage alertLevelAndMessage;
 			try {
+				if(throwable!=null) throw throwable;
 				error = null;
-				if(useFutureTimeout()) {
-					sample = getSampleWithTimeout();
-				} else {
-					sample = getSample();
-				}
+				ResultHistory<R> results = getHistory();
 				synchronized(results) {
 					alertLevelAndMessage = getAlertLevelAndMessage(sample, results);
 				}
@@ -256,10 +415,22 @@ public abstract class TableMultiResultNodeWorker<S, R extends TableMultiResult>
 			}
 
 			// Update the results
-			R removed = null;
+			R removed;
+			ResultHistory<R> results = getHistory();
 			synchronized(results) {
-				results.addFirst(added);
-				if(results.size()>getHistorySize()) removed = results.removeLast();
+				removed = results.add(added);
+			}
+
+			// Update the rollups, which are derived so do not fail the result
+			try {
+				RollupHistory rollupHistory = getRollups();
+				synchronized(rollupHistory) {
+					addRollup(rollupHistory, added);
+				}
+			} catch(ThreadDeath td) {
+				throw td;
+			} catch(Throwable t) {
+				logger.log(Level.WARNING, "Unable to update rollups: " + persistenceFile, t);
 			}
 
 			tableMultiResultAdded(added);
@@ -283,8 +454,10 @@ public abstract class TableMultiResultNodeWorker<S, R extends TableMultiResult>
 			if(oldAlertLevel == null) oldAlertLevel = AlertLevel.UNKNOWN;
 			alertLevel = newAlertLevel;
 			alertMessage = alertLevelAndMessage.getAlertMessage();
+			WorkerStateIndex.getInstance().update(persistenceFile, newAlertLevel, alertMessage, null);
 
 			if(oldAlertLevel!=newAlertLevel) {
+				StartupPlanner.getInstance().alertLevelChanged(persistenceFile, newAlertLevel);
 				synchronized(tableMultiResultNodeImpls) {
 					for(TableMultiResultNodeImpl<R> tableMultiResultNodeImpl : tableMultiResultNodeImpls) {
 						tableMultiResultNodeImpl.nodeAlertLevelChanged(
@@ -303,10 +476,16 @@ public abstract class TableMultiResultNodeWorker<S, R extends TableMultiResult>
 		} finally {
 			// Reschedule next timer task if still running
 			synchronized(timerTaskLock) {
+				probe = null;
 				if(timerTask!=null) {
 					timerTask = RootNodeImpl.schedule(
 						this,
-						getSleepDelay(lastSuccessful, alertLevel)
+						pollingPolicy.getDelay(
+							getSleepDelay(lastSuccessful, alertLevel),
+							isBackoffAllowed(),
+							lastSuccessful,
+							alertLevel
+						)
 					);
 				}
 			}
@@ -370,6 +549,7 @@ public abstract class TableMultiResultNodeWorker<S, R extends TableMultiResult>
 	/**
 	 * The default sleep delay is five minutes when successful
 	 * or one minute when unsuccessful.
+	 * This is the base delay, which is adapted to recent results by {@link PollingPolicy}.
 	 *
 	 * @param  alertLevel  When {@code null}, treated as {@link AlertLevel#UNKNOWN}
 	 */
@@ -377,11 +557,40 @@ public abstract class TableMultiResultNodeWorker<S, R extends TableMultiResult>
 		return lastSuccessful && alertLevel==AlertLevel.NONE ? 5*60000 : 60000;
 	}
 
+	/**
+	 * Whether {@link PollingPolicy} may back off the sleep delay while healthy.
+	 * Defaults to {@code true}.
+	 */
+	protected boolean isBackoffAllowed() {
+		return true;
+	}
+
 	/**
 	 * The number of history items to store.
 	 */
 	protected abstract int getHistorySize();
 
+	/**
+	 * The names of the numeric columns to roll up, in addition to latency.
+	 * This default implementation has no additional columns.
+	 *
+	 * @see  #getRollupValues(com.aoindustries.noc.monitor.common.TableMultiResult)
+	 */
+	protected List<String> getRollupColumns() {
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Gets the values of the {@link #getRollupColumns() rollup columns} for a result.
+	 * Only successful results are included in the column statistics.
+	 * This default implementation excludes error results and has no additional columns.
+	 *
+	 * @return  the values, in the same order as the columns, or {@code null} when the result is an error
+	 */
+	protected double[] getRollupValues(R result) {
+		return result.getError() != null ? null : EMPTY_DOUBLE_ARRAY;
+	}
+
 	/**
 	 * This is the main monitor routine.
 	 * Gets the current sample for this worker, any error should result in an exception.
@@ -409,6 +618,19 @@ public abstract class TableMultiResultNodeWorker<S, R extends TableMultiResult>
 		future.cancel(true);
 	}
 
+	/**
+	 * Starts a sample that completes without blocking a thread, such as one
+	 * multiplexed over a shared selector.  When provided, the returned future
+	 * must complete on its own, including its own timeout, and <code>getSample</code>
+	 * is not called.  The future is cancelled when the worker is stopped.
+	 * This default implementation returns {@code null} to use <code>getSample</code>.
+	 *
+	 * @return  the future sample or {@code null} to use {@link #getSample()}
+	 */
+	protected CompletableFuture<S> getSampleAsync() throws Exception {
+		return null;
+	}
+
 	/**
 	 * Determines the alert level and message for the provided result.
 	 * If unable to parse, may throw an exception to report the error.  This
@@ -425,6 +647,16 @@ public abstract class TableMultiResultNodeWorker<S, R extends TableMultiResult>
 		return true;
 	}
 
+	/**
+	 * The bulkhead that runs <code>getSample</code> when using a <code>Future</code>.
+	 * Defaults to {@link Bulkhead#DAEMON}.
+	 *
+	 * @see  #useFutureTimeout()
+	 */
+	protected Bulkhead getBulkhead() {
+		return Bulkhead.DAEMON;
+	}
+
 	/**
 	 * The default future timeout is 5 minutes.
 	 */
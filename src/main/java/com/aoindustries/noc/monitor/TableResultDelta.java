@@ -0,0 +1,210 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The changes to a {@link com.aoindustries.noc.monitor.common.TableResult} since the
+ * version last delivered to a {@link TableResultDeltaListener}.
+ * <p>
+ * A delta applies only to the version numbered {@link #getBaseSequence()}.  When the
+ * client has any other version, it has missed an update and should call
+ * {@link DeltaTableResultNode#resyncTableResultDeltaListener(com.aoindustries.noc.monitor.TableResultDeltaListener)}.
+ * A full delta replaces everything and has no base.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public class TableResultDelta implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The base sequence of a full delta.
+	 */
+	public static final long NO_BASE = 0;
+
+	/**
+	 * Gets a full delta containing the entire snapshot.
+	 */
+	static TableResultDelta full(TableResultSnapshot current) {
+		return new TableResultDelta(
+			current,
+			NO_BASE,
+			current.columnHeaders,
+			current.alertLevels,
+			null,
+			current.tableData
+		);
+	}
+
+	/**
+	 * Gets the changes from one snapshot to another.  When the columns change,
+	 * or when more than half the cells change, a full delta is smaller and is
+	 * returned instead.
+	 *
+	 * @param  base  the last version delivered or {@code null} for a full delta
+	 */
+	static TableResultDelta between(TableResultSnapshot base, TableResultSnapshot current) {
+		if(
+			base == null
+			|| base.columns != current.columns
+			|| !base.columnHeaders.equals(current.columnHeaders)
+		) {
+			return full(current);
+		}
+		int total = current.rows * current.columns;
+		int common = Math.min(base.rows, current.rows) * current.columns;
+		int[] cellIndexes = new int[total];
+		List<Object> cellValues = new ArrayList<>();
+		int count = 0;
+		for(int index = 0; index < total; index++) {
+			Object value = current.tableData.get(index);
+			if(index >= common || !Objects.equals(base.tableData.get(index), value)) {
+				if(count * 2 >= total) return full(current);
+				cellIndexes[count++] = index;
+				cellValues.add(value);
+			}
+		}
+		return new TableResultDelta(
+			current,
+			base.sequence,
+			null,
+			base.alertLevels.equals(current.alertLevels) ? null : current.alertLevels,
+			Arrays.copyOf(cellIndexes, count),
+			Collections.unmodifiableList(cellValues)
+		);
+	}
+
+	private final long sequence;
+	private final long baseSequence;
+	private final long time;
+	private final long latency;
+	private final boolean error;
+	private final int columns;
+	private final int rows;
+	private final List<String> columnHeaders;
+	private final List<AlertLevel> alertLevels;
+	private final int[] cellIndexes;
+	private final List<?> cellValues;
+
+	private TableResultDelta(
+		TableResultSnapshot current,
+		long baseSequence,
+		List<String> columnHeaders,
+		List<AlertLevel> alertLevels,
+		int[] cellIndexes,
+		List<?> cellValues
+	) {
+		this.sequence = current.sequence;
+		this.baseSequence = baseSequence;
+		this.time = current.result.getTime();
+		this.latency = current.result.getLatency();
+		this.error = current.result.isError();
+		this.columns = current.columns;
+		this.rows = current.rows;
+		this.columnHeaders = columnHeaders;
+		this.alertLevels = alertLevels;
+		this.cellIndexes = cellIndexes;
+		this.cellValues = cellValues;
+	}
+
+	/**
+	 * Gets the version after applying this delta.
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Gets the version this delta applies to or {@link #NO_BASE} for a full delta.
+	 */
+	public long getBaseSequence() {
+		return baseSequence;
+	}
+
+	public boolean isFull() {
+		return cellIndexes == null;
+	}
+
+	public long getTime() {
+		return time;
+	}
+
+	public long getLatency() {
+		return latency;
+	}
+
+	public boolean isError() {
+		return error;
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * @return  the column headers or {@code null} when unchanged
+	 */
+	public List<String> getColumnHeaders() {
+		return columnHeaders;
+	}
+
+	/**
+	 * @return  the alert levels of each row or {@code null} when unchanged
+	 */
+	public List<AlertLevel> getAlertLevels() {
+		return alertLevels;
+	}
+
+	/**
+	 * Applies the cell changes to the table data of the base version.
+	 *
+	 * @param  tableData  the table data of the base version, ignored for a full delta
+	 *
+	 * @return  the new table data
+	 */
+	public List<Object> apply(List<?> tableData) {
+		if(isFull()) return new ArrayList<>(cellValues);
+		int total = rows * columns;
+		List<Object> applied = new ArrayList<>(total);
+		for(int index = 0; index < total; index++) {
+			applied.add(index < tableData.size() ? tableData.get(index) : null);
+		}
+		for(int i = 0; i < cellIndexes.length; i++) {
+			applied.set(cellIndexes[i], cellValues.get(i));
+		}
+		return applied;
+	}
+}
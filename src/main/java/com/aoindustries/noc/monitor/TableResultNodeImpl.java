@@ -30,9 +30,7 @@ import java.io.IOException;
 import java.rmi.RemoteException;
 import java.rmi.server.RMIClientSocketFactory;
 import java.rmi.server.RMIServerSocketFactory;
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.function.Function;
@@ -45,7 +43,7 @@ import javax.swing.SwingUtilities;
  *
  * @author  AO Industries, Inc.
  */
-abstract public class TableResultNodeImpl extends NodeImpl implements TableResultNode {
+abstract public class TableResultNodeImpl extends NodeImpl implements TableResultNode, DeltaTableResultNode {
 
 	private static final Logger logger = Logger.getLogger(TableResultNodeImpl.class.getName());
 
@@ -55,7 +53,62 @@ abstract public class TableResultNodeImpl extends NodeImpl implements TableResul
 	final NodeImpl parent;
 	protected final TableResultNodeWorker<?, ?> worker;
 
-	final private List<TableResultListener> tableResultListeners = new ArrayList<>();
+	final private ListenerRegistry<TableResultListener> tableResultListeners = new ListenerRegistry<>();
+
+	/**
+	 * A delta listener and the version last delivered to it.  Equal by listener
+	 * so that it may be removed from the registry.
+	 */
+	private final class DeltaSubscription {
+
+		private final TableResultDeltaListener listener;
+
+		// Synchronized on this
+		private TableResultSnapshot delivered;
+
+		private DeltaSubscription(TableResultDeltaListener listener) {
+			this.listener = listener;
+		}
+
+		/**
+		 * Sends the changes since the last delivered version, if any.  When several
+		 * updates are queued, the first sends the latest and the rest do nothing.
+		 */
+		private synchronized void deliver() throws RemoteException {
+			TableResultSnapshot current = getSnapshot();
+			if(current != null && current != delivered) {
+				listener.tableResultDelta(TableResultDelta.between(delivered, current));
+				delivered = current;
+			}
+		}
+
+		private synchronized TableResultDelta resync() {
+			TableResultSnapshot current = getSnapshot();
+			delivered = current;
+			return current == null ? null : TableResultDelta.full(current);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return
+				obj instanceof DeltaSubscription
+				&& listener.equals(((DeltaSubscription)obj).listener);
+		}
+
+		@Override
+		public int hashCode() {
+			return listener.hashCode();
+		}
+	}
+
+	final private ListenerRegistry<DeltaSubscription> deltaSubscriptions = new ListenerRegistry<>();
+
+	/**
+	 * The current result in this node's locale, resolved on first use after each update.
+	 */
+	private final Object snapshotLock = new Object();
+	private long snapshotSequence;
+	private TableResultSnapshot snapshot;
 
 	protected TableResultNodeImpl(RootNodeImpl rootNode, NodeImpl parent, TableResultNodeWorker<?, ?> worker, int port, RMIClientSocketFactory csf, RMIServerSocketFactory ssf) throws RemoteException {
 		super(port, csf, ssf);
@@ -120,42 +173,62 @@ abstract public class TableResultNodeImpl extends NodeImpl implements TableResul
 
 	@Override
 	final public void addTableResultListener(TableResultListener tableResultListener) {
-		synchronized(tableResultListeners) {
-			tableResultListeners.add(tableResultListener);
-		}
+		tableResultListeners.add(tableResultListener);
 	}
 
 	@Override
 	final public void removeTableResultListener(TableResultListener tableResultListener) {
-		synchronized(tableResultListeners) {
-			for(int c=tableResultListeners.size()-1;c>=0;c--) {
-				if(tableResultListeners.get(c).equals(tableResultListener)) {
-					tableResultListeners.remove(c);
-					// Remove only once, in case add and remove come in out of order with quick GUI changes
-					return;
-				}
+		if(!tableResultListeners.remove(tableResultListener)) {
+			logger.log(Level.WARNING, null, new AssertionError("Listener not found: " + tableResultListener));
+		}
+	}
+
+	@Override
+	final public void addTableResultDeltaListener(TableResultDeltaListener listener) {
+		DeltaSubscription subscription = new DeltaSubscription(listener);
+		deltaSubscriptions.add(subscription);
+		deltaSubscriptions.fire(DeltaSubscription::deliver);
+	}
+
+	@Override
+	final public void removeTableResultDeltaListener(TableResultDeltaListener listener) {
+		if(!deltaSubscriptions.remove(new DeltaSubscription(listener))) {
+			logger.log(Level.WARNING, null, new AssertionError("Listener not found: " + listener));
+		}
+	}
+
+	@Override
+	final public TableResultDelta resyncTableResultDeltaListener(TableResultDeltaListener listener) {
+		DeltaSubscription key = new DeltaSubscription(listener);
+		for(DeltaSubscription subscription : deltaSubscriptions.getListeners()) {
+			if(subscription.equals(key)) return subscription.resync();
+		}
+		throw new IllegalStateException("Listener not found: " + listener);
+	}
+
+	/**
+	 * Gets the last result resolved in this node's locale.
+	 *
+	 * @return  the snapshot or {@code null} when no result is available yet
+	 */
+	private TableResultSnapshot getSnapshot() {
+		TableResult result = worker.getLastResult();
+		if(result == null) return null;
+		synchronized(snapshotLock) {
+			if(snapshot == null || snapshot.result != result) {
+				snapshot = new TableResultSnapshot(++snapshotSequence, result, rootNode.locale);
 			}
+			return snapshot;
 		}
-		logger.log(Level.WARNING, null, new AssertionError("Listener not found: " + tableResultListener));
 	}
 
 	/**
-	 * Notifies all of the listeners.
+	 * Notifies all of the listeners.  Only queues the event, never blocking on a remote call.
 	 */
 	final void tableResultUpdated(TableResult tableResult) {
 		assert !SwingUtilities.isEventDispatchThread() : "Running in Swing event dispatch thread";
 
-		synchronized(tableResultListeners) {
-			Iterator<TableResultListener> I = tableResultListeners.iterator();
-			while(I.hasNext()) {
-				TableResultListener tableResultListener = I.next();
-				try {
-					tableResultListener.tableResultUpdated(tableResult);
-				} catch(RemoteException err) {
-					I.remove();
-					logger.log(Level.SEVERE, null, err);
-				}
-			}
-		}
+		tableResultListeners.fire(listener -> listener.tableResultUpdated(tableResult));
+		deltaSubscriptions.fire(DeltaSubscription::deliver);
 	}
 }
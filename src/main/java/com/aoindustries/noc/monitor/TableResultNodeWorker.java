@@ -33,9 +33,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -44,8 +45,6 @@ import javax.swing.SwingUtilities;
 /**
  * The workers for table results node.
  *
- * TODO: Add persistence of the last report
- *
  * @author  AO Industries, Inc.
  */
 abstract public class TableResultNodeWorker<QR, TD> implements Runnable {
@@ -58,6 +57,11 @@ abstract public class TableResultNodeWorker<QR, TD> implements Runnable {
 	private final Object timerTaskLock = new Object();
 	private Future<?> timerTask;
 
+	/**
+	 * The probe currently in progress, if any
+	 */
+	private CompletableFuture<QR> probe;
+
 	volatile private TableResult lastResult;
 	volatile private AlertLevel alertLevel = null;
 	volatile private Function<Locale, String> alertMessage = null;
@@ -66,8 +70,21 @@ abstract public class TableResultNodeWorker<QR, TD> implements Runnable {
 
 	final protected File persistenceFile;
 
+	/**
+	 * Adapts {@link #getSleepDelay(boolean, AlertLevel)} to recent results.
+	 */
+	final private PollingPolicy pollingPolicy;
+
 	protected TableResultNodeWorker(File persistenceFile) {
 		this.persistenceFile = persistenceFile;
+		this.pollingPolicy = PollingPolicy.forWorker(this, persistenceFile);
+		// Report the last known state until the first run
+		WorkerStateIndex.State state = WorkerStateIndex.getInstance().get(persistenceFile);
+		if(state != null) {
+			lastResult = state.getResult(TableResult.class);
+			alertLevel = state.getAlertLevel();
+			alertMessage = state.getAlertMessage();
+		}
 	}
 
 	final TableResult getLastResult() {
@@ -83,36 +100,32 @@ abstract public class TableResultNodeWorker<QR, TD> implements Runnable {
 	}
 
 	/**
-	 * The default startup delay is within five minutes.
+	 * The cost of the first run, which determines the window first runs are spread over.
+	 * Defaults to {@link StartupPlanner.CostClass#LIGHT}.
 	 */
-	protected int getNextStartupDelay() {
-		return RootNodeImpl.getNextStartupDelayFiveMinutes();
+	protected StartupPlanner.CostClass getStartupCostClass() {
+		return StartupPlanner.CostClass.LIGHT;
 	}
 
 	private void start() {
 		synchronized(timerTaskLock) {
 			assert timerTask==null : "thread already started";
-			timerTask = RootNodeImpl.schedule(this, getNextStartupDelay());
+			timerTask = RootNodeImpl.schedule(this, StartupPlanner.getInstance().getStartupDelay(getStartupCostClass(), persistenceFile));
 		}
 	}
 
 	private void stop() {
+		Future<?> stoppedTask;
+		CompletableFuture<QR> stoppedProbe;
 		synchronized(timerTaskLock) {
-			if(timerTask!=null) {
-				timerTask.cancel(true);
-				timerTask = null;
-			}
-		}
-	}
-
-	private QR getQueryResultWithTimeout() throws Exception {
-		Future<QR> future = RootNodeImpl.executors.getUnbounded().submit(() -> getQueryResult());
-		try {
-			return future.get(getTimeout(), getTimeoutUnit());
-		} catch(InterruptedException | TimeoutException err) {
-			cancel(future);
-			throw err;
+			stoppedTask = timerTask;
+			timerTask = null;
+			stoppedProbe = probe;
+			probe = null;
 		}
+		// Cancelled outside the lock, since cancelling a probe runs its completion
+		if(stoppedTask!=null) stoppedTask.cancel(true);
+		if(stoppedProbe!=null) stoppedProbe.cancel(true);
 	}
 
 	/**
@@ -132,18 +145,54 @@ abstract public class TableResultNodeWorker<QR, TD> implements Runnable {
 		return true;
 	}
 
+	/**
+	 * Starts the probe, in its bulkhead unless asynchronous.  The result is handled by
+	 * {@link #completed(long, long, java.lang.Object, java.lang.Throwable)}
+	 * once the query result is available or the probe has timed-out.
+	 *
+	 * @see  #getQueryResultAsync()
+	 */
 	@Override
 	@SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
 	final public void run() {
 		assert !SwingUtilities.isEventDispatchThread() : "Running in Swing event dispatch thread";
 
+		long startMillis;
+		long startNanos;
+		CompletableFuture<QR> future;
+		synchronized(timerTaskLock) {
+			if(timerTask==null) return;
+			startMillis = System.currentTimeMillis();
+			startNanos = System.nanoTime();
+			try {
+				future = getQueryResultAsync();
+			} catch(ThreadDeath td) {
+				throw td;
+			} catch(Throwable t) {
+				future = CompletableFuture.failedFuture(t);
+			}
+			if(future==null) {
+				future = ProbeFuture.submit(getBulkhead(), this::getQueryResult, getTimeout(), getTimeoutUnit(), this::cancel);
+			}
+			probe = future;
+		}
+		CompletableFuture<QR> started = future;
+		started.whenComplete((queryResult, throwable) -> {
+			synchronized(timerTaskLock) {
+				// Cancelled by stop
+				if(probe!=started) return;
+			}
+			// Unwrap exception from dependent stages
+			if(throwable instanceof CompletionException && throwable.getCause()!=null) throwable = throwable.getCause();
+			completed(startMillis, startNanos, queryResult, throwable);
+		});
+	}
+
+	@SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+	private void completed(long startMillis, long startNanos, QR queryResult, Throwable throwable) {
 		boolean lastSuccessful = false;
-		synchronized(timerTaskLock) {if(timerTask==null) return;}
 		AlertLevel maxAlertLevel = alertLevel;
 		try {
-			long startMillis = System.currentTimeMillis();
-			long startNanos = System.nanoTime();
-
 			AlertLevel curAlertLevel = alertLevel;
 			if(curAlertLevel == null) curAlertLevel = AlertLevel.NONE;
 
@@ -154,7 +203,7 @@ abstract public class TableResultNodeWorker<QR, TD> implements Runnable {
 			List<AlertLevel> alertLevels;
 			boolean isError;
 			try {
-				QR queryResult = getQueryResultWithTimeout();
+				if(throwable!=null) throw throwable;
 				SerializableFunction<Locale, ? extends List<? extends TD>> successfulTableData = getTableData(queryResult);
 				columns = getColumns();
 				rows = successfulTableData.apply(Locale.getDefault()).size() / columns; // TODO: Is possible to delay getting number of rows until locale known?
@@ -217,8 +266,10 @@ abstract public class TableResultNodeWorker<QR, TD> implements Runnable {
 			if(oldAlertLevel == null) oldAlertLevel = AlertLevel.UNKNOWN;
 			alertLevel = newAlertLevel;
 			alertMessage = alertLevelAndMessage.getAlertMessage();
+			WorkerStateIndex.getInstance().update(persistenceFile, newAlertLevel, alertMessage, result);
 			tableResultUpdated(result);
 			if(oldAlertLevel!=newAlertLevel) {
+				StartupPlanner.getInstance().alertLevelChanged(persistenceFile, newAlertLevel);
 				synchronized(tableResultNodeImpls) {
 					for(TableResultNodeImpl tableResultNodeImpl : tableResultNodeImpls) {
 						tableResultNodeImpl.nodeAlertLevelChanged(
@@ -238,16 +289,29 @@ abstract public class TableResultNodeWorker<QR, TD> implements Runnable {
 		} finally {
 			// Reschedule next timer task if still running
 			synchronized(timerTaskLock) {
+				probe = null;
 				if(timerTask!=null) {
 					timerTask = RootNodeImpl.schedule(
 						this,
-						getSleepDelay(lastSuccessful, maxAlertLevel)
+						pollingPolicy.getDelay(
+							getSleepDelay(lastSuccessful, maxAlertLevel),
+							lastSuccessful,
+							maxAlertLevel
+						)
 					);
 				}
 			}
 		}
 	}
 
+	/**
+	 * The bulkhead that runs <code>getQueryResult</code>.
+	 * Defaults to {@link Bulkhead#DAEMON}.
+	 */
+	protected Bulkhead getBulkhead() {
+		return Bulkhead.DAEMON;
+	}
+
 	/**
 	 * Gets the timeout value.  Defaults to <code>5</code>.
 	 */
@@ -306,6 +370,7 @@ abstract public class TableResultNodeWorker<QR, TD> implements Runnable {
 	/**
 	 * The default sleep delay is five minutes when successful or
 	 * one minute when unsuccessful.
+	 * This is the base delay, which is adapted to recent results by {@link PollingPolicy}.
 	 *
 	 * @param  alertLevel  When {@code null}, treated as {@link AlertLevel#UNKNOWN}
 	 */
@@ -334,6 +399,21 @@ abstract public class TableResultNodeWorker<QR, TD> implements Runnable {
 	 */
 	protected abstract QR getQueryResult() throws Exception;
 
+	/**
+	 * Starts a query that completes without blocking a thread of the bulkhead.
+	 * When provided, the returned future must complete on its own, including its
+	 * own timeout, and <code>getQueryResult</code> is not called.  The future is
+	 * cancelled when the worker is stopped.
+	 * This default implementation returns {@code null} to use <code>getQueryResult</code>.
+	 *
+	 * @return  the future query result or {@code null} to use {@link #getQueryResult()}
+	 *
+	 * @see  TableMultiResultNodeWorker#getSampleAsync()
+	 */
+	protected CompletableFuture<QR> getQueryResultAsync() throws Exception {
+		return null;
+	}
+
 	/**
 	 * Gets the table data for the query result.  This must be processed quickly.
 	 */
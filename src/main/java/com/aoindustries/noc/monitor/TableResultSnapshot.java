@@ -0,0 +1,57 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import com.aoindustries.noc.monitor.common.TableResult;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A {@link TableResult} resolved for one locale, the unit that {@link TableResultDelta deltas}
+ * are computed between.
+ *
+ * @author  AO Industries, Inc.
+ */
+final class TableResultSnapshot {
+
+	final long sequence;
+	final TableResult result;
+	final int columns;
+	final int rows;
+	final List<String> columnHeaders;
+	final List<Object> tableData;
+	final List<AlertLevel> alertLevels;
+
+	TableResultSnapshot(long sequence, TableResult result, Locale locale) {
+		this.sequence = sequence;
+		this.result = result;
+		this.columns = result.getColumns();
+		this.rows = result.getRows();
+		this.columnHeaders = Collections.unmodifiableList(new ArrayList<>(result.getColumnHeaders(locale)));
+		this.tableData = Collections.unmodifiableList(new ArrayList<>(result.getTableData(locale)));
+		this.alertLevels = Collections.unmodifiableList(new ArrayList<>(result.getAlertLevels()));
+	}
+}
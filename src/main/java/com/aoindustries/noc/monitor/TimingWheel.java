@@ -0,0 +1,422 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A hashed timing wheel that holds all of the delayed worker tasks.
+ * <p>
+ * Each task is placed in the bucket of the tick it expires in.  Scheduling
+ * and cancellation are O(1) linked-list operations on that bucket.  A single
+ * background thread advances one tick at a time, takes every task due in the
+ * tick under a single lock acquisition, and hands the whole batch to the
+ * dispatch executor.
+ * </p>
+ * <p>
+ * This replaces one delayed task per worker in the executor with a fixed
+ * array of buckets, and replaces per-task timer precision with a single
+ * wakeup per tick.  The monitoring delays are measured in minutes, so a
+ * tick of a fraction of a second is plenty of precision.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public class TimingWheel {
+
+	private static final Logger logger = Logger.getLogger(TimingWheel.class.getName());
+
+	/**
+	 * Tick lag beyond this is logged as a warning.
+	 */
+	private static final long WARN_TICK_LAG_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+	/**
+	 * Tick lag warnings are logged at most once per interval.
+	 */
+	private static final long WARN_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+	private enum State {
+		PENDING,
+		DISPATCHING,
+		DISPATCHED,
+		CANCELLED
+	}
+
+	/**
+	 * The handle for one scheduled task.  Cancelling a pending task removes it
+	 * from its bucket; cancelling a dispatched task cancels it in the dispatch
+	 * executor.
+	 */
+	private class Timeout implements Future<Object> {
+
+		private final Runnable task;
+		private final long deadlineTick;
+
+		// All synchronized on lock
+		private int bucketIndex;
+		private Timeout prev;
+		private Timeout next;
+		private State state = State.PENDING;
+		private boolean interruptRequested;
+		private Future<?> dispatched;
+
+		private Timeout(Runnable task, long deadlineTick) {
+			this.task = task;
+			this.deadlineTick = deadlineTick;
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			Future<?> myDispatched;
+			synchronized(lock) {
+				switch(state) {
+					case PENDING :
+						unlink(this);
+						state = State.CANCELLED;
+						lock.notifyAll();
+						return true;
+					case DISPATCHING :
+						// Expired but not yet submitted, the tick thread will skip or cancel it
+						state = State.CANCELLED;
+						interruptRequested = mayInterruptIfRunning;
+						lock.notifyAll();
+						return true;
+					case CANCELLED :
+						return false;
+					case DISPATCHED :
+						myDispatched = dispatched;
+						break;
+					default :
+						throw new AssertionError("Unexpected state: " + state);
+				}
+			}
+			return myDispatched != null && myDispatched.cancel(mayInterruptIfRunning);
+		}
+
+		@Override
+		public boolean isCancelled() {
+			Future<?> myDispatched;
+			synchronized(lock) {
+				if(state == State.CANCELLED) return true;
+				myDispatched = dispatched;
+			}
+			return myDispatched != null && myDispatched.isCancelled();
+		}
+
+		@Override
+		public boolean isDone() {
+			Future<?> myDispatched;
+			synchronized(lock) {
+				if(state == State.CANCELLED) return true;
+				myDispatched = dispatched;
+			}
+			return myDispatched != null && myDispatched.isDone();
+		}
+
+		@Override
+		public Object get() throws InterruptedException, ExecutionException {
+			Future<?> myDispatched;
+			synchronized(lock) {
+				while(state == State.PENDING || state == State.DISPATCHING) lock.wait();
+				if(state == State.CANCELLED) throw new CancellationException();
+				myDispatched = dispatched;
+			}
+			if(myDispatched == null) throw new ExecutionException(new RejectedExecutionException());
+			return myDispatched.get();
+		}
+
+		@Override
+		public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			long deadline = System.nanoTime() + unit.toNanos(timeout);
+			Future<?> myDispatched;
+			synchronized(lock) {
+				while(state == State.PENDING || state == State.DISPATCHING) {
+					long remaining = deadline - System.nanoTime();
+					if(remaining <= 0) throw new TimeoutException();
+					TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+				}
+				if(state == State.CANCELLED) throw new CancellationException();
+				myDispatched = dispatched;
+			}
+			if(myDispatched == null) throw new ExecutionException(new RejectedExecutionException());
+			return myDispatched.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private final ExecutorService dispatcher;
+	private final long tickNanos;
+	private final int mask;
+	private final long startNanos;
+
+	private final Object lock = new Object();
+	// All synchronized on lock
+	private final Timeout[] buckets;
+	private long currentTick;
+	private int pendingCount;
+
+	// Metrics
+	private volatile long lastTickLagNanos;
+	private volatile long maxTickLagNanos;
+	private volatile int lastBatchSize;
+	private volatile int maxBatchSize;
+	private volatile long dispatchedCount;
+	private volatile long rejectedCount;
+
+	/**
+	 * @param  dispatcher  The executor that runs each expired task
+	 * @param  tickDuration  The duration of one tick
+	 * @param  ticksPerWheel  The number of buckets, rounded up to the next power of two
+	 */
+	public TimingWheel(ExecutorService dispatcher, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+		if(tickDuration <= 0) throw new IllegalArgumentException("tickDuration <= 0: " + tickDuration);
+		if(ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)) throw new IllegalArgumentException("ticksPerWheel out of range: " + ticksPerWheel);
+		this.dispatcher = dispatcher;
+		this.tickNanos = unit.toNanos(tickDuration);
+		int size = Integer.highestOneBit(ticksPerWheel);
+		if(size < ticksPerWheel) size <<= 1;
+		this.buckets = new Timeout[size];
+		this.mask = size - 1;
+		this.startNanos = System.nanoTime();
+		Thread thread = new Thread(this::tickLoop, TimingWheel.class.getName());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Schedules a task to be dispatched after the given delay in milliseconds.
+	 * The task is dispatched at the end of the tick containing its deadline,
+	 * so may run up to one tick late, but never early.
+	 *
+	 * @return  a future that may be used to cancel the task, whether still
+	 *          pending or already dispatched
+	 */
+	public Future<?> schedule(Runnable task, long delay) {
+		if(delay < 0) delay = 0;
+		long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay) - startNanos;
+		// The tick is processed at its end, find the first tick ending at or after the deadline
+		long deadlineTick = (deadlineNanos + tickNanos - 1) / tickNanos - 1;
+		synchronized(lock) {
+			Timeout timeout = new Timeout(task, Math.max(deadlineTick, currentTick));
+			link(timeout);
+			return timeout;
+		}
+	}
+
+	private void link(Timeout timeout) {
+		assert Thread.holdsLock(lock);
+		int index = (int)(timeout.deadlineTick & mask);
+		Timeout head = buckets[index];
+		timeout.bucketIndex = index;
+		timeout.prev = null;
+		timeout.next = head;
+		if(head != null) head.prev = timeout;
+		buckets[index] = timeout;
+		pendingCount++;
+	}
+
+	private void unlink(Timeout timeout) {
+		assert Thread.holdsLock(lock);
+		if(timeout.prev == null) buckets[timeout.bucketIndex] = timeout.next;
+		else timeout.prev.next = timeout.next;
+		if(timeout.next != null) timeout.next.prev = timeout.prev;
+		timeout.prev = null;
+		timeout.next = null;
+		pendingCount--;
+	}
+
+	@SuppressWarnings({"UseSpecificCatch", "TooBroadCatch", "SleepWhileInLoop"})
+	private void tickLoop() {
+		List<Timeout> expired = new ArrayList<>();
+		long lastWarnNanos = System.nanoTime() - WARN_INTERVAL_NANOS;
+		while(true) {
+			try {
+				long tick;
+				synchronized(lock) {
+					tick = currentTick;
+				}
+				// Wait for the end of the tick
+				long tickEnd = startNanos + (tick + 1) * tickNanos;
+				long sleepNanos;
+				while((sleepNanos = tickEnd - System.nanoTime()) > 0) {
+					TimeUnit.NANOSECONDS.sleep(sleepNanos);
+				}
+				long lag = System.nanoTime() - tickEnd;
+				// Expire the whole bucket in a single pass
+				synchronized(lock) {
+					assert tick == currentTick;
+					Timeout timeout = buckets[(int)(tick & mask)];
+					while(timeout != null) {
+						Timeout next = timeout.next;
+						if(timeout.deadlineTick <= tick) {
+							unlink(timeout);
+							timeout.state = State.DISPATCHING;
+							expired.add(timeout);
+						}
+						timeout = next;
+					}
+					currentTick = tick + 1;
+				}
+				// Dispatch the batch
+				int batchSize = 0;
+				for(Timeout timeout : expired) {
+					synchronized(lock) {
+						if(timeout.state == State.CANCELLED) continue;
+					}
+					Future<?> future;
+					try {
+						future = dispatcher.submit(timeout.task);
+					} catch(RejectedExecutionException e) {
+						logger.log(Level.SEVERE, null, e);
+						rejectedCount++;
+						future = null;
+					}
+					boolean cancelledWhileSubmitting;
+					boolean interrupt;
+					synchronized(lock) {
+						timeout.dispatched = future;
+						cancelledWhileSubmitting = timeout.state == State.CANCELLED;
+						if(!cancelledWhileSubmitting) timeout.state = State.DISPATCHED;
+						interrupt = timeout.interruptRequested;
+						lock.notifyAll();
+					}
+					if(cancelledWhileSubmitting) {
+						if(future != null) future.cancel(interrupt);
+					} else if(future != null) {
+						batchSize++;
+					}
+				}
+				expired.clear();
+				// Update metrics, only written by this thread
+				dispatchedCount += batchSize;
+				lastBatchSize = batchSize;
+				if(batchSize > maxBatchSize) maxBatchSize = batchSize;
+				lastTickLagNanos = lag;
+				if(lag > maxTickLagNanos) maxTickLagNanos = lag;
+				if(lag >= WARN_TICK_LAG_NANOS) {
+					long now = System.nanoTime();
+					if(now - lastWarnNanos >= WARN_INTERVAL_NANOS) {
+						lastWarnNanos = now;
+						if(logger.isLoggable(Level.WARNING)) {
+							logger.log(Level.WARNING, "Tick lag: {0} ms", TimeUnit.NANOSECONDS.toMillis(lag));
+						}
+					}
+				}
+			} catch(ThreadDeath td) {
+				throw td;
+			} catch(InterruptedException e) {
+				// Keep ticking, the wheel is never disposed
+				logger.log(Level.WARNING, null, e);
+			} catch(Throwable t) {
+				logger.log(Level.SEVERE, null, t);
+				abandon(expired);
+			}
+		}
+	}
+
+	/**
+	 * Ends the expired tasks not yet submitted after an unexpected failure, as if
+	 * rejected, so their {@link Timeout#get()} does not wait forever.
+	 */
+	private void abandon(List<Timeout> expired) {
+		synchronized(lock) {
+			for(Timeout timeout : expired) {
+				if(timeout.state == State.DISPATCHING) {
+					timeout.state = State.DISPATCHED;
+					rejectedCount++;
+				}
+			}
+			lock.notifyAll();
+		}
+		expired.clear();
+	}
+
+	/**
+	 * Gets the duration of one tick in nanoseconds.
+	 */
+	public long getTickNanos() {
+		return tickNanos;
+	}
+
+	/**
+	 * Gets the number of tasks waiting in the wheel.
+	 */
+	public int getPendingCount() {
+		synchronized(lock) {
+			return pendingCount;
+		}
+	}
+
+	/**
+	 * Gets how late the most recent tick was processed, in nanoseconds.
+	 */
+	public long getLastTickLagNanos() {
+		return lastTickLagNanos;
+	}
+
+	/**
+	 * Gets the greatest tick lag seen, in nanoseconds.
+	 */
+	public long getMaxTickLagNanos() {
+		return maxTickLagNanos;
+	}
+
+	/**
+	 * Gets the number of tasks dispatched by the most recent tick, not including
+	 * those cancelled or rejected.
+	 */
+	public int getLastBatchSize() {
+		return lastBatchSize;
+	}
+
+	/**
+	 * Gets the greatest number of tasks dispatched by a single tick.
+	 */
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	/**
+	 * Gets the total number of tasks dispatched, not including those cancelled or rejected.
+	 */
+	public long getDispatchedCount() {
+		return dispatchedCount;
+	}
+
+	/**
+	 * Gets the total number of tasks rejected by the dispatch executor.
+	 */
+	public long getRejectedCount() {
+		return rejectedCount;
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Runs independent steps of tree construction in parallel, such as starting
+ * each host or each verify pass of one host.  A step may itself run nested steps
+ * in parallel, so a tree is built as a pipeline: the steps a node depends on are
+ * run before its nested steps, and each node's nested steps start as soon as its
+ * own dependencies complete, independent of its siblings.
+ * <p>
+ * Steps run in a dedicated {@link ForkJoinPool}, which adds threads while a step
+ * waits on its nested steps, so nesting cannot exhaust the pool.  The parallelism
+ * may be configured with the system property
+ * <code>com.aoindustries.noc.monitor.TreeBuilder.parallelism</code>.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class TreeBuilder {
+
+	private static final String PROPERTY_PREFIX = TreeBuilder.class.getName() + ".";
+
+	/**
+	 * Tree construction is mostly waiting on the AOServ master, so the default is not
+	 * based on the number of processors.
+	 */
+	private static final int PARALLELISM = Integer.getInteger(PROPERTY_PREFIX + "parallelism", 32);
+
+	private static final ForkJoinPool pool = new ForkJoinPool(
+		PARALLELISM,
+		p -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+			thread.setName(TreeBuilder.class.getName() + '-' + thread.getPoolIndex());
+			thread.setDaemon(true);
+			return thread;
+		},
+		null,
+		false
+	);
+
+	/**
+	 * One step of tree construction.
+	 */
+	@FunctionalInterface
+	public static interface Step {
+		void run() throws IOException, SQLException;
+	}
+
+	private TreeBuilder() {}
+
+	/**
+	 * Runs the steps in parallel, waiting for all to complete.  All steps are run even
+	 * when one fails.  The first failure is thrown, with any others suppressed.
+	 */
+	@SuppressWarnings("ThrowableResultIgnored")
+	public static void parallel(Step ... steps) throws IOException, SQLException {
+		if(steps.length == 1) {
+			steps[0].run();
+			return;
+		}
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[steps.length];
+		for(int i = 0; i < steps.length; i++) {
+			Step step = steps[i];
+			futures[i] = CompletableFuture.runAsync(
+				() -> {
+					try {
+						step.run();
+					} catch(IOException | SQLException e) {
+						throw new CompletionException(e);
+					}
+				},
+				pool
+			);
+		}
+		Throwable failure = null;
+		for(CompletableFuture<?> future : futures) {
+			try {
+				future.join();
+			} catch(CompletionException e) {
+				Throwable cause = e.getCause() == null ? e : e.getCause();
+				if(failure == null) failure = cause;
+				else failure.addSuppressed(cause);
+			}
+		}
+		if(failure != null) {
+			if(failure instanceof IOException) throw (IOException)failure;
+			if(failure instanceof SQLException) throw (SQLException)failure;
+			if(failure instanceof RuntimeException) throw (RuntimeException)failure;
+			if(failure instanceof Error) throw (Error)failure;
+			throw new CompletionException(failure);
+		}
+	}
+}
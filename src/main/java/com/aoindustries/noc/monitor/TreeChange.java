@@ -0,0 +1,81 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import com.aoindustries.noc.monitor.common.AlertChange;
+import java.io.Serializable;
+
+/**
+ * One entry of the {@link VersionedTreeNode versioned tree} change log.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class TreeChange implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public enum Type {
+		/**
+		 * One or more nodes were added.  Consecutive additions share one entry.
+		 */
+		NODE_ADDED,
+
+		/**
+		 * One or more nodes were removed.  Consecutive removals share one entry.
+		 */
+		NODE_REMOVED,
+
+		/**
+		 * The alert level of a node changed.
+		 */
+		ALERT_CHANGED
+	}
+
+	private final long version;
+	private final Type type;
+	private final AlertChange alertChange;
+
+	TreeChange(long version, Type type, AlertChange alertChange) {
+		this.version = version;
+		this.type = type;
+		this.alertChange = alertChange;
+	}
+
+	/**
+	 * Gets the version of the tree after this change.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * @return  the alert change or {@code null} for a structural change
+	 */
+	public AlertChange getAlertChange() {
+		return alertChange;
+	}
+}
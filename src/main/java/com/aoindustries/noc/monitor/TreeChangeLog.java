@@ -0,0 +1,103 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import com.aoindustries.noc.monitor.common.AlertChange;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The most recent changes to the tree of one {@link RootNodeImpl}, numbered by version.
+ * <p>
+ * The oldest changes are trimmed once more than {@link #CAPACITY} are kept.
+ * Structural changes do not identify the node, so consecutive structural
+ * changes of the same type are collapsed into one entry at the newest version.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class TreeChangeLog {
+
+	/**
+	 * The maximum number of changes kept.
+	 */
+	private static final int CAPACITY = Math.max(1, Integer.getInteger(TreeChangeLog.class.getName() + ".capacity", 10000));
+
+	private final long epoch = RootNodeImpl.random.nextLong();
+
+	// All below synchronized on this
+	private final Deque<TreeChange> changes = new ArrayDeque<>();
+	private long version;
+
+	/**
+	 * The newest version no longer available.
+	 */
+	private long trimmedVersion;
+
+	long getEpoch() {
+		return epoch;
+	}
+
+	synchronized long getVersion() {
+		return version;
+	}
+
+	synchronized void structureChanged(TreeChange.Type type) {
+		TreeChange last = changes.peekLast();
+		if(last != null && last.getType() == type) changes.removeLast();
+		add(new TreeChange(++version, type, null));
+	}
+
+	synchronized void alertChanged(AlertChange alertChange) {
+		add(new TreeChange(++version, TreeChange.Type.ALERT_CHANGED, alertChange));
+	}
+
+	private void add(TreeChange change) {
+		assert Thread.holdsLock(this);
+		changes.addLast(change);
+		if(changes.size() > CAPACITY) trimmedVersion = changes.removeFirst().getVersion();
+	}
+
+	/**
+	 * Gets the changes since the given version, oldest first.
+	 *
+	 * @return  the changes or {@code null} when no longer available
+	 */
+	synchronized List<TreeChange> getChangesSince(long sinceVersion) {
+		if(sinceVersion < trimmedVersion || sinceVersion > version) return null;
+		if(sinceVersion == version) return Collections.emptyList();
+		List<TreeChange> since = new ArrayList<>();
+		Iterator<TreeChange> iter = changes.descendingIterator();
+		while(iter.hasNext()) {
+			TreeChange change = iter.next();
+			if(change.getVersion() <= sinceVersion) break;
+			since.add(change);
+		}
+		Collections.reverse(since);
+		return since;
+	}
+}
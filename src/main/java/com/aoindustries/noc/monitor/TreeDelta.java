@@ -0,0 +1,84 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import com.aoindustries.noc.monitor.common.NodeSnapshot;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * The changes to the tree since a version, or a full snapshot when the changes
+ * are no longer available.
+ *
+ * @see  VersionedTreeNode#getTreeChangesSince(long, long)
+ *
+ * @author  AO Industries, Inc.
+ */
+public class TreeDelta implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long epoch;
+	private final long version;
+	private final List<TreeChange> changes;
+	private final NodeSnapshot snapshot;
+
+	TreeDelta(long epoch, long version, List<TreeChange> changes, NodeSnapshot snapshot) {
+		this.epoch = epoch;
+		this.version = version;
+		this.changes = changes;
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * Identifies the change log.  Versions from a different epoch, such as before
+	 * a restart of the monitor, are not comparable.
+	 */
+	public long getEpoch() {
+		return epoch;
+	}
+
+	/**
+	 * Gets the version to request changes since next time.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return  the changes, oldest first, or {@code null} when a full snapshot is provided instead
+	 */
+	public List<TreeChange> getChanges() {
+		return changes;
+	}
+
+	/**
+	 * Gets the full snapshot.  It is taken after the version was read, so it may
+	 * already reflect some of the changes that follow; applying them again is harmless.
+	 *
+	 * @return  the snapshot or {@code null} when only the changes are provided
+	 */
+	public NodeSnapshot getSnapshot() {
+		return snapshot;
+	}
+}
@@ -0,0 +1,244 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import com.aoindustries.noc.monitor.common.AlertCategory;
+import com.aoindustries.noc.monitor.common.AlertChange;
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import com.aoindustries.noc.monitor.common.TreeListener;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivers the events of a {@link RootNodeImpl} to one {@link TreeListener}.
+ * <p>
+ * Events are queued without locking and delivered by a single task in the
+ * {@link Bulkhead#RMI_CALLBACK} bulkhead, which is only scheduled while there are
+ * events pending.  Any number of node added or node removed events are coalesced
+ * into one call each.  Alert changes are batched into one call per delivery, with
+ * successive changes of the same node merged into one.  Deliveries are at least
+ * {@link #MAX_LATENCY} apart, so the first event after a quiet period is sent
+ * immediately while a burst is batched.
+ * </p>
+ * <p>
+ * A slow listener never blocks the producers.  When more than {@link #MAX_QUEUED}
+ * alert changes are pending, the oldest are dropped.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class TreeEventPipeline implements Runnable {
+
+	private static final Logger logger = Logger.getLogger(TreeEventPipeline.class.getName());
+
+	private static final String PROPERTY_PREFIX = TreeEventPipeline.class.getName() + ".";
+
+	/**
+	 * The minimum time between deliveries, in milliseconds.
+	 */
+	private static final long MAX_LATENCY = Long.getLong(PROPERTY_PREFIX + "maxLatency", 250);
+
+	/**
+	 * The maximum number of alert changes pending per listener.
+	 */
+	private static final int MAX_QUEUED = Integer.getInteger(PROPERTY_PREFIX + "maxQueued", 10000);
+
+	/**
+	 * An alert level change, shared by the pipelines of all listeners.
+	 */
+	static final class Change {
+
+		private final NodeImpl node;
+		private final String fullPath;
+		private final AlertLevel oldAlertLevel;
+		private final AlertLevel newAlertLevel;
+		private final String alertMessage;
+		private final AlertCategory oldAlertCategory;
+		private final AlertCategory newAlertCategory;
+
+		Change(NodeImpl node, String fullPath, AlertLevel oldAlertLevel, AlertLevel newAlertLevel, String alertMessage, AlertCategory oldAlertCategory, AlertCategory newAlertCategory) {
+			this.node = node;
+			this.fullPath = fullPath;
+			this.oldAlertLevel = oldAlertLevel;
+			this.newAlertLevel = newAlertLevel;
+			this.alertMessage = alertMessage;
+			this.oldAlertCategory = oldAlertCategory;
+			this.newAlertCategory = newAlertCategory;
+		}
+
+		/**
+		 * Merges with a later change of the same node.
+		 */
+		private Change merge(Change later) {
+			return new Change(
+				node,
+				later.fullPath,
+				oldAlertLevel,
+				later.newAlertLevel,
+				later.alertMessage,
+				oldAlertCategory,
+				later.newAlertCategory
+			);
+		}
+
+		AlertChange toAlertChange() {
+			return new AlertChange(
+				node,
+				fullPath,
+				oldAlertLevel,
+				newAlertLevel,
+				alertMessage,
+				oldAlertCategory,
+				newAlertCategory
+			);
+		}
+	}
+
+	private final RootNodeImpl rootNode;
+	private final TreeListener treeListener;
+
+	private final AtomicBoolean nodeAdded = new AtomicBoolean();
+	private final AtomicBoolean nodeRemoved = new AtomicBoolean();
+	private final Queue<Change> changes = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger queued = new AtomicInteger();
+	private final AtomicInteger dropped = new AtomicInteger();
+
+	/**
+	 * Set while a delivery is scheduled or running.
+	 */
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+
+	private volatile long lastDelivery = System.nanoTime() - MAX_LATENCY * 1000000;
+
+	private volatile boolean closed;
+
+	TreeEventPipeline(RootNodeImpl rootNode, TreeListener treeListener) {
+		this.rootNode = rootNode;
+		this.treeListener = treeListener;
+	}
+
+	TreeListener getTreeListener() {
+		return treeListener;
+	}
+
+	void nodeAdded() {
+		if(!closed) {
+			nodeAdded.set(true);
+			schedule();
+		}
+	}
+
+	void nodeRemoved() {
+		if(!closed) {
+			nodeRemoved.set(true);
+			schedule();
+		}
+	}
+
+	void nodeAlertLevelChanged(Change change) {
+		if(!closed) {
+			changes.add(change);
+			if(queued.incrementAndGet() > MAX_QUEUED && changes.poll() != null) {
+				queued.decrementAndGet();
+				dropped.incrementAndGet();
+			}
+			schedule();
+		}
+	}
+
+	/**
+	 * Stops delivery and discards any pending events.
+	 */
+	void close() {
+		closed = true;
+		changes.clear();
+	}
+
+	private boolean isPending() {
+		return nodeAdded.get() || nodeRemoved.get() || !changes.isEmpty();
+	}
+
+	private void schedule() {
+		if(scheduled.compareAndSet(false, true)) {
+			long delay = MAX_LATENCY - (System.nanoTime() - lastDelivery) / 1000000;
+			if(delay > 0) RootNodeImpl.schedule(this::submit, delay);
+			else submit();
+		}
+	}
+
+	private void submit() {
+		try {
+			Bulkhead.RMI_CALLBACK.submit(this);
+		} catch(RejectedExecutionException e) {
+			logger.log(Level.WARNING, null, e);
+			RootNodeImpl.schedule(this::submit, MAX_LATENCY);
+		}
+	}
+
+	@Override
+	@SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+	public void run() {
+		try {
+			if(closed) return;
+			boolean added = nodeAdded.getAndSet(false);
+			boolean removed = nodeRemoved.getAndSet(false);
+			Map<NodeImpl, Change> merged = new LinkedHashMap<>();
+			Change change;
+			while((change = changes.poll()) != null) {
+				queued.decrementAndGet();
+				merged.merge(change.node, change, Change::merge);
+			}
+			List<AlertChange> alertChanges = new ArrayList<>(merged.size());
+			for(Change c : merged.values()) {
+				// Skip changes that have been reverted
+				if(c.oldAlertLevel != c.newAlertLevel || c.oldAlertCategory != c.newAlertCategory) alertChanges.add(c.toAlertChange());
+			}
+			int droppedCount = dropped.getAndSet(0);
+			if(droppedCount > 0 && logger.isLoggable(Level.WARNING)) logger.log(Level.WARNING, "Dropped " + droppedCount + " alert changes for slow listener: " + treeListener);
+			if(added) treeListener.nodeAdded();
+			if(removed) treeListener.nodeRemoved();
+			if(!alertChanges.isEmpty()) treeListener.nodeAlertChanged(alertChanges);
+		} catch(RemoteException err) {
+			rootNode.removeTreeListener(treeListener);
+			logger.log(Level.SEVERE, null, err);
+		} catch(ThreadDeath td) {
+			throw td;
+		} catch(Throwable t) {
+			logger.log(Level.SEVERE, null, t);
+		} finally {
+			lastDelivery = System.nanoTime();
+			scheduled.set(false);
+			if(!closed && isPending()) schedule();
+		}
+	}
+}
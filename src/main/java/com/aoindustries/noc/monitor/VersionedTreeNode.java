@@ -0,0 +1,53 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * Incremental synchronization of the whole tree, so a console reconnecting after
+ * a brief interruption only fetches what it missed.
+ * <p>
+ * Every structural or alert change bumps the tree version.  A client requests the
+ * changes since its last version and receives a full snapshot only when it has
+ * none yet or the changes have been trimmed from the log.
+ * </p>
+ * <p>
+ * Implemented by {@link RootNodeImpl} only, so a console casts the
+ * {@link com.aoindustries.noc.monitor.common.RootNode} it connects to.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public interface VersionedTreeNode extends Remote {
+
+	/**
+	 * Gets the changes since the given version.
+	 *
+	 * @param  epoch    the {@link TreeDelta#getEpoch() epoch} of the last delta received, ignored when none
+	 * @param  version  the {@link TreeDelta#getVersion() version} of the last delta received or
+	 *                  {@code -1} for a full snapshot
+	 */
+	TreeDelta getTreeChangesSince(long epoch, long version) throws RemoteException;
+}
@@ -0,0 +1,102 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Opt-in support for running the blocking probes on virtual threads.
+ * <p>
+ * Enabled with the system property <code>com.aoindustries.noc.monitor.virtualThreads=true</code>
+ * when running on a Java version that provides virtual threads.  Virtual threads
+ * are looked-up reflectively so this project continues to build and run on
+ * Java 11, where this mode is simply unavailable.
+ * </p>
+ * <p>
+ * When enabled, the {@link TimingWheel} dispatches worker tasks to virtual threads
+ * and each {@link Bulkhead} runs its tasks on virtual threads, limited by the same
+ * thread and queue counts.  The worker thread waiting on its probe's timeout is
+ * then a parked virtual thread instead of a second platform thread.
+ * </p>
+ * <p>
+ * Probes that block in native code, such as {@link java.net.InetAddress#isReachable(int)},
+ * pin their carrier thread for the duration of the call.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class VirtualThreads {
+
+	private static final Logger logger = Logger.getLogger(VirtualThreads.class.getName());
+
+	/**
+	 * The system property that enables virtual threads.
+	 */
+	static final String PROPERTY = "com.aoindustries.noc.monitor.virtualThreads";
+
+	private static final Method newVirtualThreadPerTaskExecutor;
+	static {
+		Method method = null;
+		if(Boolean.getBoolean(PROPERTY)) {
+			try {
+				method = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+				logger.info("Running probes on virtual threads");
+			} catch(NoSuchMethodException e) {
+				logger.log(Level.WARNING, PROPERTY + " requested, but virtual threads are not available in Java " + System.getProperty("java.version"), e);
+			}
+		}
+		newVirtualThreadPerTaskExecutor = method;
+	}
+
+	/**
+	 * Is the virtual thread mode enabled and available?
+	 */
+	static boolean isEnabled() {
+		return newVirtualThreadPerTaskExecutor != null;
+	}
+
+	/**
+	 * Creates a new executor that starts a new virtual thread for each task.
+	 *
+	 * @throws  IllegalStateException  when not {@linkplain #isEnabled() enabled}
+	 */
+	static ExecutorService newVirtualThreadPerTaskExecutor() throws IllegalStateException {
+		if(newVirtualThreadPerTaskExecutor == null) throw new IllegalStateException("Virtual threads not enabled");
+		try {
+			return (ExecutorService)newVirtualThreadPerTaskExecutor.invoke(null);
+		} catch(IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		} catch(InvocationTargetException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof RuntimeException) throw (RuntimeException)cause;
+			if(cause instanceof Error) throw (Error)cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	private VirtualThreads() {}
+}
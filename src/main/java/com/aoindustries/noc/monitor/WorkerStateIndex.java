@@ -0,0 +1,330 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The last known alert level, alert message, and result of every worker, saved to
+ * the single file <code>worker-state</code> in the persistence directory on each
+ * {@link HistoryLog} checkpoint.
+ * <p>
+ * The index is read once, on first use, so workers may restore their state
+ * synchronously at construction and report it immediately after a restart instead
+ * of {@link AlertLevel#UNKNOWN} until their first run.  Restored alert messages are
+ * marked as being from before the restart.
+ * </p>
+ * <p>
+ * A restored result is only shown until the worker's first run, so the state of a
+ * worker is recorded when its alert level changes, and otherwise at most once per
+ * {@link #RESULT_INTERVAL}.  Only the recorded changes are written on each checkpoint.
+ * Workers that are not restored by the time the tree is built no longer exist, and
+ * are removed.
+ * </p>
+ * <p>
+ * Results are kept by reference and only serialized when saved.  A result that can
+ * no longer be deserialized, such as after an upgrade, is skipped and only its
+ * alert level and message are restored.  Results are deserialized through
+ * {@link #RESULT_FILTER}, so the file cannot instantiate arbitrary classes.
+ * </p>
+ * <p>
+ * Alert messages are saved in the locale of the {@link RootNodeImpl root node}
+ * that built the tree.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class WorkerStateIndex implements Flushable {
+
+	private static final Logger logger = Logger.getLogger(WorkerStateIndex.class.getName());
+
+	private static final String PROPERTY_PREFIX = WorkerStateIndex.class.getName() + ".";
+
+	/**
+	 * The minimum time between recording the state of a worker at the same alert level.
+	 */
+	private static final long RESULT_INTERVAL = Long.getLong(PROPERTY_PREFIX + "resultInterval", 60L * 60000);
+
+	/**
+	 * The classes a saved result may contain: the results themselves, the collections
+	 * and serializable lambdas of their table data, and the exceptions they report.
+	 * Anything else is rejected, and the result is skipped.
+	 */
+	private static final ObjectInputFilter RESULT_FILTER = ObjectInputFilter.Config.createFilter(
+		System.getProperty(
+			PROPERTY_PREFIX + "resultFilter",
+			"maxdepth=32;maxrefs=65536;"
+				+ "com.aoindustries.**;com.aoapps.**;"
+				+ "java.lang.*;java.lang.invoke.SerializedLambda;java.util.*;java.time.*;java.io.*;java.net.*;java.sql.*;"
+				+ "!*"
+		)
+	);
+
+	private static final String FILENAME = "worker-state";
+
+	/**
+	 * "AOWS"
+	 */
+	private static final int MAGIC = 0x414f5753;
+
+	private static final int VERSION = 2;
+
+	private static WorkerStateIndex instance;
+
+	/**
+	 * Gets the index, loading the persisted state on first use.
+	 */
+	static WorkerStateIndex getInstance() {
+		synchronized(WorkerStateIndex.class) {
+			if(instance == null) {
+				instance = new WorkerStateIndex(Paths.get(RootNodeImpl.PERSISTENCE_DIRECTORY));
+				PersistedMap.saveOnCheckpoint(instance);
+			}
+			return instance;
+		}
+	}
+
+	/**
+	 * The last known state of one worker.
+	 */
+	static final class State {
+
+		private final AlertLevel alertLevel;
+
+		/**
+		 * Resolved when saved, since the message functions are not serializable.
+		 */
+		private final Function<Locale, String> alertMessage;
+
+		/**
+		 * The result, or its serialized form when loaded.
+		 */
+		private final Object result;
+
+		/**
+		 * The time recorded or {@code -1} when loaded.
+		 */
+		private final long time;
+
+		private State(AlertLevel alertLevel, Function<Locale, String> alertMessage, Object result, long time) {
+			this.alertLevel = alertLevel;
+			this.alertMessage = alertMessage;
+			this.result = result;
+			this.time = time;
+		}
+
+		AlertLevel getAlertLevel() {
+			return alertLevel;
+		}
+
+		/**
+		 * Gets the alert message, marked as being from before the restart.
+		 */
+		Function<Locale, String> getAlertMessage() {
+			Function<Locale, String> message = alertMessage;
+			return locale -> {
+				String str = message == null ? null : message.apply(locale);
+				return
+					str == null || str.isEmpty()
+					? PACKAGE_RESOURCES.getMessage(locale, "WorkerStateIndex.staleAlertMessage.noMessage")
+					: PACKAGE_RESOURCES.getMessage(locale, "WorkerStateIndex.staleAlertMessage", str);
+			};
+		}
+
+		/**
+		 * Gets the result, or {@code null} when none or unable to deserialize.
+		 */
+		<R> R getResult(Class<R> clazz) {
+			Object r = result;
+			if(r instanceof byte[]) {
+				try(ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream((byte[])r))) {
+					in.setObjectInputFilter(RESULT_FILTER);
+					r = in.readObject();
+				} catch(IOException | ClassNotFoundException | RuntimeException e) {
+					if(logger.isLoggable(Level.FINE)) logger.log(Level.FINE, "Unable to restore result", e);
+					return null;
+				}
+			}
+			return clazz.isInstance(r) ? clazz.cast(r) : null;
+		}
+	}
+
+	private final PersistedMap.Codec<State> codec = new PersistedMap.Codec<State>() {
+		@Override
+		public void write(DataOutputStream out, State state) throws IOException {
+			out.writeByte(state.alertLevel.ordinal());
+			Locale l = locale;
+			String message = state.alertMessage == null ? null : state.alertMessage.apply(l == null ? Locale.getDefault() : l);
+			out.writeBoolean(message != null);
+			if(message != null) PersistedMap.writeString(out, message);
+			byte[] result = null;
+			if(state.result instanceof byte[]) {
+				result = (byte[])state.result;
+			} else if(state.result instanceof Serializable) {
+				ByteArrayOutputStream resultBuffer = new ByteArrayOutputStream();
+				try(ObjectOutputStream resultOut = new ObjectOutputStream(resultBuffer)) {
+					resultOut.writeObject(state.result);
+					result = resultBuffer.toByteArray();
+				} catch(IOException e) {
+					if(logger.isLoggable(Level.FINE)) logger.log(Level.FINE, "Unable to save result", e);
+				}
+			}
+			if(result == null) {
+				out.writeInt(-1);
+			} else {
+				out.writeInt(result.length);
+				out.write(result);
+			}
+		}
+
+		@Override
+		public State read(DataInputStream in) throws IOException {
+			AlertLevel alertLevel = AlertLevel.fromOrdinal(in.readByte());
+			String message = in.readBoolean() ? PersistedMap.readString(in) : null;
+			int length = in.readInt();
+			byte[] result;
+			if(length == -1) {
+				result = null;
+			} else {
+				result = new byte[length];
+				in.readFully(result);
+			}
+			return new State(alertLevel, message == null ? null : locale -> message, result, -1);
+		}
+	};
+
+	private final Path persistenceDirectory;
+
+	/**
+	 * The state by worker path relative to the persistence directory.
+	 */
+	private final PersistedMap<State> states;
+
+	/**
+	 * The workers restored or recorded since loaded, until the tree is built.
+	 */
+	private volatile Set<String> seen = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * The locale alert messages are saved in, set when the tree is built.
+	 * Until then, the default locale is used.
+	 */
+	private volatile Locale locale;
+
+	WorkerStateIndex(Path persistenceDirectory) {
+		this.persistenceDirectory = persistenceDirectory;
+		this.states = new PersistedMap<>(persistenceDirectory, FILENAME, MAGIC, VERSION, codec);
+	}
+
+	private String getKey(File persistenceFile) {
+		String key = PersistedMap.getKey(persistenceDirectory, persistenceFile);
+		Set<String> s = seen;
+		if(key != null && s != null) s.add(key);
+		return key;
+	}
+
+	/**
+	 * Gets the last known state of a worker.
+	 *
+	 * @param  persistenceFile  Identifies the worker, may be {@code null}
+	 *
+	 * @return  The state or {@code null} when unknown
+	 */
+	State get(File persistenceFile) {
+		String key = getKey(persistenceFile);
+		return key == null ? null : states.get(key);
+	}
+
+	/**
+	 * Records the current state of a worker, to be saved on the next checkpoint.
+	 * Not recorded when at the same alert level as recorded within the last
+	 * {@link #RESULT_INTERVAL}.
+	 *
+	 * @param  persistenceFile  Identifies the worker, may be {@code null}
+	 * @param  result  Must be {@link Serializable} to be saved, may be {@code null}
+	 */
+	void update(File persistenceFile, AlertLevel alertLevel, Function<Locale, String> alertMessage, Object result) {
+		String key = getKey(persistenceFile);
+		if(key != null) {
+			long now = System.currentTimeMillis();
+			State old = states.get(key);
+			if(
+				old == null
+				|| old.alertLevel != alertLevel
+				|| old.time == -1
+				|| Math.abs(now - old.time) >= RESULT_INTERVAL
+			) {
+				states.put(key, new State(alertLevel, alertMessage, result, now));
+			}
+		}
+	}
+
+	/**
+	 * Removes the workers not restored while the tree was built, which no longer exist.
+	 *
+	 * @param  locale  the locale of the root node, in which alert messages are saved
+	 */
+	void treeBuilt(Locale locale) {
+		this.locale = locale;
+		Set<String> s = seen;
+		seen = null;
+		if(s != null) {
+			int before = states.size();
+			states.removeIf((key, state) -> !s.contains(key));
+			if(logger.isLoggable(Level.FINE)) logger.log(Level.FINE, "Removed " + (before - states.size()) + " workers");
+		}
+	}
+
+	/**
+	 * Saves the changed states.
+	 */
+	@Override
+	public void flush() throws IOException {
+		states.flush();
+	}
+
+	@Override
+	public String toString() {
+		return states.toString();
+	}
+}
@@ -24,6 +24,7 @@ package com.aoindustries.noc.monitor.backup;
 
 import com.aoapps.hodgepodge.table.Table;
 import com.aoapps.hodgepodge.table.TableListener;
+import com.aoapps.lang.EnumUtils;
 import com.aoapps.lang.exception.WrappedException;
 import com.aoindustries.aoserv.client.backup.BackupPartition;
 import com.aoindustries.aoserv.client.backup.FileReplication;
@@ -32,7 +33,7 @@ import com.aoindustries.aoserv.client.infrastructure.ServerFarm;
 import com.aoindustries.aoserv.client.linux.Server;
 import com.aoindustries.aoserv.client.net.Host;
 import com.aoindustries.noc.monitor.AlertLevelAndMessage;
-import com.aoindustries.noc.monitor.AlertLevelUtils;
+import com.aoindustries.noc.monitor.ListenerRegistry;
 import com.aoindustries.noc.monitor.NodeImpl;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.common.AlertLevel;
@@ -80,7 +81,7 @@ public class BackupsNode extends NodeImpl implements TableResultNode, TableResul
 	private AlertLevel alertLevel;
 	private TableResult lastResult;
 
-	final private List<TableResultListener> tableResultListeners = new ArrayList<>();
+	final private ListenerRegistry<TableResultListener> tableResultListeners = new ListenerRegistry<>();
 
 	public BackupsNode(HostNode hostNode, int port, RMIClientSocketFactory csf, RMIServerSocketFactory ssf) throws RemoteException {
 		super(port, csf, ssf);
@@ -111,12 +112,14 @@ public class BackupsNode extends NodeImpl implements TableResultNode, TableResul
 	public AlertLevel getAlertLevel() {
 		AlertLevel level;
 		synchronized(backupNodes) {
-			level = AlertLevelUtils.getMaxAlertLevel(
-				alertLevel==null ? AlertLevel.UNKNOWN : alertLevel,
-				backupNodes
-			);
+			level = alertLevel;
 		}
-		return constrainAlertLevel(level);
+		return constrainAlertLevel(
+			EnumUtils.max(
+				level==null ? AlertLevel.UNKNOWN : level,
+				getChildrenAlertLevel()
+			)
+		);
 	}
 
 	/**
@@ -158,7 +161,7 @@ public class BackupsNode extends NodeImpl implements TableResultNode, TableResul
 			for(BackupNode backupNode : backupNodes) {
 				backupNode.removeTableResultListener(this);
 				backupNode.stop();
-				hostNode.hostsNode.rootNode.nodeRemoved();
+				hostNode.hostsNode.rootNode.nodeRemoved(this);
 			}
 			backupNodes.clear();
 		}
@@ -262,7 +265,7 @@ public class BackupsNode extends NodeImpl implements TableResultNode, TableResul
 					backupNode.removeTableResultListener(this);
 					backupNode.stop();
 					backupNodeIter.remove();
-					hostNode.hostsNode.rootNode.nodeRemoved();
+					hostNode.hostsNode.rootNode.nodeRemoved(this);
 				}
 			}
 			// Add new ones
@@ -273,7 +276,7 @@ public class BackupsNode extends NodeImpl implements TableResultNode, TableResul
 					BackupNode backupNode = new BackupNode(this, failoverFileReplication, port, csf, ssf);
 					backupNodes.add(c, backupNode);
 					backupNode.start();
-					hostNode.hostsNode.rootNode.nodeAdded();
+					hostNode.hostsNode.rootNode.nodeAdded(this);
 					backupNode.addTableResultListener(this);
 				}
 			}
@@ -371,7 +374,7 @@ public class BackupsNode extends NodeImpl implements TableResultNode, TableResul
 	File getPersistenceDirectory() throws IOException {
 		File dir = new File(hostNode.getPersistenceDirectory(), "failover_file_replications");
 		if(!dir.exists()) {
-			if(!dir.mkdir()) {
+			if(!dir.mkdir() && !dir.isDirectory()) {
 				throw new IOException(
 					PACKAGE_RESOURCES.getMessage(
 						hostNode.hostsNode.rootNode.locale,
@@ -386,43 +389,23 @@ public class BackupsNode extends NodeImpl implements TableResultNode, TableResul
 
 	@Override
 	final public void addTableResultListener(TableResultListener tableResultListener) {
-		synchronized(tableResultListeners) {
-			tableResultListeners.add(tableResultListener);
-		}
+		tableResultListeners.add(tableResultListener);
 	}
 
 	@Override
 	final public void removeTableResultListener(TableResultListener tableResultListener) {
-		synchronized(tableResultListeners) {
-			for(int c=tableResultListeners.size()-1;c>=0;c--) {
-				if(tableResultListeners.get(c).equals(tableResultListener)) {
-					tableResultListeners.remove(c);
-					// Remove only once, in case add and remove come in out of order with quick GUI changes
-					return;
-				}
-			}
+		if(!tableResultListeners.remove(tableResultListener)) {
+			logger.log(Level.WARNING, null, new AssertionError("Listener not found: " + tableResultListener));
 		}
-		logger.log(Level.WARNING, null, new AssertionError("Listener not found: " + tableResultListener));
 	}
 
 	/**
-	 * Notifies all of the listeners.
+	 * Notifies all of the listeners.  Only queues the event, never blocking on a remote call.
 	 */
 	private void notifyTableResultUpdated(TableResult tableResult) {
 		assert !SwingUtilities.isEventDispatchThread() : "Running in Swing event dispatch thread";
 
-		synchronized(tableResultListeners) {
-			Iterator<TableResultListener> I = tableResultListeners.iterator();
-			while(I.hasNext()) {
-				TableResultListener tableResultListener = I.next();
-				try {
-					tableResultListener.tableResultUpdated(tableResult);
-				} catch(RemoteException err) {
-					I.remove();
-					logger.log(Level.SEVERE, null, err);
-				}
-			}
-		}
+		tableResultListeners.fire(listener -> listener.tableResultUpdated(tableResult));
 	}
 
 	@Override
@@ -0,0 +1,550 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor.dns;
+
+import com.aoindustries.noc.monitor.Bulkhead;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.ResolverConfig;
+
+/**
+ * Resolves any number of DNS queries from a single thread, multiplexed over a
+ * small number of non-blocking datagram channels.  Thousands of queries may be
+ * in flight at once, each with its own deadline.
+ * <ul>
+ * <li>A query is resent, with a new random ID, to the next server when no answer
+ *     arrives within the retry interval.  The interval doubles on each attempt,
+ *     up to the maximum number of attempts or the query's deadline.</li>
+ * <li>Queries are grouped into zones, such as one blacklist, and each zone is limited
+ *     to a number of queries sent per second.  Queries over the limit wait in the
+ *     engine, still subject to their deadlines.</li>
+ * <li>An answer is only accepted from the server the query was last sent to, with
+ *     the same ID and question.</li>
+ * </ul>
+ * <p>
+ * Truncated answers are returned as-is, since the queries made by the monitoring
+ * fit in a single datagram.
+ * </p>
+ * <p>
+ * The number of channels, the retry interval in milliseconds, the maximum attempts,
+ * and the queries per second per zone may be set with the system properties
+ * <code>com.aoindustries.noc.monitor.dns.AsyncResolver.channels</code>,
+ * <code>com.aoindustries.noc.monitor.dns.AsyncResolver.retryInterval</code>,
+ * <code>com.aoindustries.noc.monitor.dns.AsyncResolver.attempts</code>, and
+ * <code>com.aoindustries.noc.monitor.dns.AsyncResolver.zoneRate</code>.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class AsyncResolver implements Closeable {
+
+	private static final Logger logger = Logger.getLogger(AsyncResolver.class.getName());
+
+	private static final String PROPERTY_PREFIX = AsyncResolver.class.getName() + ".";
+
+	private static final int CHANNELS = Integer.getInteger(PROPERTY_PREFIX + "channels", 4);
+
+	private static final long RETRY_INTERVAL = Long.getLong(PROPERTY_PREFIX + "retryInterval", 2000);
+
+	private static final int ATTEMPTS = Integer.getInteger(PROPERTY_PREFIX + "attempts", 3);
+
+	private static final int ZONE_RATE = Integer.getInteger(PROPERTY_PREFIX + "zoneRate", 50);
+
+	/**
+	 * The largest DNS message over UDP.
+	 */
+	private static final int MAX_DATAGRAM = 65535;
+
+	private static AsyncResolver instance;
+
+	/**
+	 * Gets the shared resolver, using the system's nameservers, starting it on first use.
+	 * Answers are completed in {@link Bulkhead#NETWORK} so that the engine thread never
+	 * runs result handling.
+	 */
+	public static AsyncResolver getInstance() throws IOException {
+		synchronized(AsyncResolver.class) {
+			if(instance == null) {
+				List<InetSocketAddress> servers = ResolverConfig.getCurrentConfig().servers();
+				if(servers.isEmpty()) throw new IOException("No nameservers configured");
+				instance = new AsyncResolver(
+					servers,
+					CHANNELS,
+					TimeUnit.MILLISECONDS.toNanos(RETRY_INTERVAL),
+					ATTEMPTS,
+					ZONE_RATE,
+					Bulkhead.NETWORK::submit
+				);
+			}
+			return instance;
+		}
+	}
+
+	/**
+	 * A token bucket limiting the queries sent for one zone.  Only accessed by the engine thread.
+	 */
+	private static final class Zone {
+
+		private final String name;
+		private final Queue<Query> waiting = new ArrayDeque<>();
+		private int rate;
+		private double tokens;
+		private long refilledNanos;
+		private long wakeupNanos;
+
+		private Zone(String name, int rate, long now) {
+			this.name = name;
+			this.rate = rate;
+			this.tokens = rate;
+			this.refilledNanos = now;
+		}
+	}
+
+	/**
+	 * A retry or deadline of a query.  Only the most recent timer of a query is
+	 * acted on, older timers are skipped on expiration.
+	 */
+	private static final class Timer {
+
+		private final Query query;
+		private final long nanos;
+
+		private Timer(Query query, long nanos) {
+			this.query = query;
+			this.nanos = nanos;
+		}
+	}
+
+	private static final class Query {
+
+		private final Name name;
+		private final int type;
+		private final String zone;
+		private final int zoneRate;
+		private final long deadlineNanos;
+		private final CompletableFuture<Message> future = new CompletableFuture<>();
+
+		// Only accessed by the engine thread
+		private boolean done;
+		private int attempt;
+		private int key = -1;
+		private InetSocketAddress server;
+		private long timerNanos;
+
+		private Query(Name name, int type, String zone, int zoneRate, long deadlineNanos) {
+			this.name = name;
+			this.type = type;
+			this.zone = zone;
+			this.zoneRate = zoneRate;
+			this.deadlineNanos = deadlineNanos;
+		}
+	}
+
+	private final List<InetSocketAddress> servers;
+	private final long retryIntervalNanos;
+	private final int attempts;
+	private final int zoneRate;
+	private final Executor completionExecutor;
+	private final Selector selector;
+	private final DatagramChannel[] channels;
+	private final Thread thread;
+	private final Queue<Query> submitted = new ConcurrentLinkedQueue<>();
+	private volatile boolean closed;
+
+	// Only accessed by the engine thread
+	/**
+	 * The queries awaiting an answer, by channel index and ID.
+	 */
+	private final Map<Integer, Query> outstanding = new HashMap<>();
+	private final PriorityQueue<Timer> timers = new PriorityQueue<>(
+		Comparator.comparingLong((Timer timer) -> timer.nanos)
+	);
+	private final Map<String, Zone> zones = new HashMap<>();
+	private final PriorityQueue<Zone> zoneWakeups = new PriorityQueue<>(
+		Comparator.comparingLong((Zone zone) -> zone.wakeupNanos)
+	);
+	private final ByteBuffer receiveBuffer = ByteBuffer.allocate(MAX_DATAGRAM);
+	private int nextServer;
+
+	/**
+	 * @param  servers  The nameservers, tried in rotation
+	 * @param  retryIntervalNanos  The time to wait for an answer before the first retry
+	 * @param  attempts  The maximum number of times each query is sent
+	 * @param  zoneRate  The maximum queries sent per second in each zone, unless set per query
+	 * @param  completionExecutor  Completes the futures returned by {@link #query(org.xbill.DNS.Name, int, java.lang.String, long, java.util.concurrent.TimeUnit)}.
+	 *                             When rejected, the future is completed by the engine thread.
+	 */
+	AsyncResolver(
+		List<InetSocketAddress> servers,
+		int numChannels,
+		long retryIntervalNanos,
+		int attempts,
+		int zoneRate,
+		Executor completionExecutor
+	) throws IOException {
+		if(servers.isEmpty()) throw new IllegalArgumentException("No servers");
+		if(numChannels < 1) throw new IllegalArgumentException("numChannels < 1: " + numChannels);
+		if(attempts < 1) throw new IllegalArgumentException("attempts < 1: " + attempts);
+		if(zoneRate < 1) throw new IllegalArgumentException("zoneRate < 1: " + zoneRate);
+		this.servers = new ArrayList<>(servers);
+		this.retryIntervalNanos = retryIntervalNanos;
+		this.attempts = attempts;
+		this.zoneRate = zoneRate;
+		this.completionExecutor = completionExecutor;
+		selector = Selector.open();
+		channels = new DatagramChannel[numChannels];
+		try {
+			for(int i = 0; i < numChannels; i++) {
+				DatagramChannel channel = DatagramChannel.open();
+				channels[i] = channel;
+				channel.configureBlocking(false);
+				channel.bind(null);
+				channel.register(selector, SelectionKey.OP_READ, i);
+			}
+		} catch(IOException e) {
+			closeChannels();
+			throw e;
+		}
+		thread = new Thread(this::run, AsyncResolver.class.getName());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Queries the nameservers, limited to the default queries per second in the zone.
+	 * Never blocks.
+	 *
+	 * @param  name  Must be absolute
+	 * @param  zone  The rate-limited group this query is part of
+	 *
+	 * @return  the future answer, with any response code, completed exceptionally with
+	 *          {@link TimeoutException} when no answer within the timeout
+	 */
+	public CompletableFuture<Message> query(Name name, int type, String zone, long timeout, TimeUnit unit) {
+		return query(name, type, zone, 0, timeout, unit);
+	}
+
+	/**
+	 * Queries the nameservers.  Never blocks.
+	 *
+	 * @param  name  Must be absolute
+	 * @param  zone  The rate-limited group this query is part of
+	 * @param  zoneRate  The maximum queries sent per second in the zone, or {@code 0} for the default.
+	 *                   The most recent query sets the rate of its zone.
+	 *
+	 * @return  the future answer, with any response code, completed exceptionally with
+	 *          {@link TimeoutException} when no answer within the timeout
+	 */
+	public CompletableFuture<Message> query(Name name, int type, String zone, int zoneRate, long timeout, TimeUnit unit) {
+		if(!name.isAbsolute()) throw new IllegalArgumentException("Name is not absolute: " + name);
+		if(zoneRate < 0) throw new IllegalArgumentException("zoneRate < 0: " + zoneRate);
+		Query query = new Query(name, type, zone, zoneRate == 0 ? this.zoneRate : zoneRate, System.nanoTime() + unit.toNanos(timeout));
+		submitted.add(query);
+		if(closed) {
+			failSubmitted();
+		} else {
+			selector.wakeup();
+		}
+		return query.future;
+	}
+
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		selector.wakeup();
+		try {
+			thread.join();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		}
+	}
+
+	@SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+	private void run() {
+		try {
+			while(!closed) {
+				try {
+					long now = System.nanoTime();
+					long waitNanos = Long.MAX_VALUE;
+					Timer firstTimer = timers.peek();
+					if(firstTimer != null) waitNanos = firstTimer.nanos - now;
+					Zone firstZone = zoneWakeups.peek();
+					if(firstZone != null) waitNanos = Math.min(waitNanos, firstZone.wakeupNanos - now);
+					if(waitNanos == Long.MAX_VALUE) selector.select();
+					else if(waitNanos > 0) selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+					else selector.selectNow();
+					Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+					while(keys.hasNext()) {
+						SelectionKey key = keys.next();
+						keys.remove();
+						if(key.isValid() && key.isReadable()) receive((DatagramChannel)key.channel(), (Integer)key.attachment());
+					}
+					Query query;
+					while((query = submitted.poll()) != null) admit(query);
+					releaseZones();
+					expire();
+				} catch(ThreadDeath td) {
+					throw td;
+				} catch(Throwable t) {
+					logger.log(Level.SEVERE, null, t);
+				}
+			}
+		} finally {
+			closeChannels();
+			for(Query query : outstanding.values()) complete(query, null, new ClosedChannelException());
+			outstanding.clear();
+			for(Zone zone : zones.values()) {
+				for(Query query : zone.waiting) complete(query, null, new ClosedChannelException());
+			}
+			zones.clear();
+			zoneWakeups.clear();
+			timers.clear();
+			failSubmitted();
+		}
+	}
+
+	private void failSubmitted() {
+		Query query;
+		while((query = submitted.poll()) != null) complete(query, null, new ClosedChannelException());
+	}
+
+	private void closeChannels() {
+		for(DatagramChannel channel : channels) {
+			if(channel != null) {
+				try {
+					channel.close();
+				} catch(IOException e) {
+					logger.log(Level.WARNING, null, e);
+				}
+			}
+		}
+		try {
+			selector.close();
+		} catch(IOException e) {
+			logger.log(Level.WARNING, null, e);
+		}
+	}
+
+	/**
+	 * Refills the tokens of a zone.
+	 */
+	private void refill(Zone zone, long now) {
+		zone.tokens = Math.min(zone.rate, zone.tokens + (now - zone.refilledNanos) * zone.rate / 1e9);
+		zone.refilledNanos = now;
+	}
+
+	/**
+	 * Sends a new query when its zone has a token, otherwise queues it in the zone.
+	 */
+	private void admit(Query query) {
+		long now = System.nanoTime();
+		Zone zone = zones.get(query.zone);
+		if(zone == null) {
+			zone = new Zone(query.zone, query.zoneRate, now);
+			zones.put(query.zone, zone);
+		} else if(zone.rate != query.zoneRate) {
+			refill(zone, now);
+			zone.rate = query.zoneRate;
+			zone.tokens = Math.min(zone.rate, zone.tokens);
+		}
+		// Deadline applies while waiting
+		setTimer(query, query.deadlineNanos);
+		if(zone.waiting.isEmpty()) {
+			refill(zone, now);
+			if(zone.tokens >= 1) {
+				zone.tokens--;
+				send(query, now);
+				return;
+			}
+			scheduleZone(zone, now);
+		}
+		zone.waiting.add(query);
+	}
+
+	private void scheduleZone(Zone zone, long now) {
+		zone.wakeupNanos = now + (long)Math.ceil((1 - zone.tokens) * 1e9 / zone.rate);
+		zoneWakeups.add(zone);
+	}
+
+	/**
+	 * Sends the queries waiting in any zone that now has tokens.
+	 */
+	private void releaseZones() {
+		long now = System.nanoTime();
+		Zone zone;
+		while((zone = zoneWakeups.peek()) != null && zone.wakeupNanos - now <= 0) {
+			zoneWakeups.remove();
+			refill(zone, now);
+			Query query;
+			while(zone.tokens >= 1 && (query = zone.waiting.poll()) != null) {
+				// Skip those expired while waiting
+				if(query.done) continue;
+				zone.tokens--;
+				send(query, now);
+			}
+			if(!zone.waiting.isEmpty()) scheduleZone(zone, now);
+			else if(zone.tokens >= zone.rate) zones.remove(zone.name);
+		}
+	}
+
+	/**
+	 * Sends or resends a query to the next server with a new ID.
+	 */
+	private void send(Query query, long now) {
+		if(query.key != -1) outstanding.remove(query.key, query);
+		InetSocketAddress server = servers.get(Math.floorMod(nextServer++, servers.size()));
+		int channelIndex = ThreadLocalRandom.current().nextInt(channels.length);
+		int id;
+		int key;
+		do {
+			id = ThreadLocalRandom.current().nextInt(0x10000);
+			key = (channelIndex << 16) | id;
+		} while(outstanding.containsKey(key));
+		Message message = Message.newQuery(Record.newRecord(query.name, query.type, DClass.IN));
+		message.getHeader().setID(id);
+		try {
+			if(channels[channelIndex].send(ByteBuffer.wrap(message.toWire()), server) == 0) {
+				throw new IOException("Send buffer full");
+			}
+		} catch(IOException e) {
+			query.key = -1;
+			complete(query, null, e);
+			return;
+		}
+		query.key = key;
+		query.server = server;
+		query.attempt++;
+		outstanding.put(key, query);
+		// Retry interval doubles on each attempt, never past the deadline
+		long retryNanos = now + (retryIntervalNanos << Math.min(query.attempt - 1, 16));
+		setTimer(query, (query.attempt < attempts && retryNanos - query.deadlineNanos < 0) ? retryNanos : query.deadlineNanos);
+	}
+
+	private void setTimer(Query query, long nanos) {
+		if(nanos != query.timerNanos) {
+			query.timerNanos = nanos;
+			timers.add(new Timer(query, nanos));
+		}
+	}
+
+	private void receive(DatagramChannel channel, int channelIndex) throws IOException {
+		SocketAddress from;
+		while(true) {
+			receiveBuffer.clear();
+			from = channel.receive(receiveBuffer);
+			if(from == null) break;
+			receiveBuffer.flip();
+			if(receiveBuffer.remaining() < 2) continue;
+			int id = receiveBuffer.getShort(0) & 0xffff;
+			int key = (channelIndex << 16) | id;
+			Query query = outstanding.get(key);
+			if(query == null || !query.server.equals(from)) continue;
+			byte[] bytes = new byte[receiveBuffer.remaining()];
+			receiveBuffer.get(bytes);
+			Message answer;
+			try {
+				answer = new Message(bytes);
+			} catch(IOException e) {
+				if(logger.isLoggable(Level.FINE)) logger.log(Level.FINE, "Malformed answer from " + from, e);
+				continue;
+			}
+			Record question = answer.getQuestion();
+			if(
+				question != null
+				&& question.getName().equals(query.name)
+				&& question.getType() == query.type
+			) {
+				outstanding.remove(key);
+				// Left in timers, skipped on expiration
+				query.key = -1;
+				complete(query, answer, null);
+			}
+		}
+	}
+
+	private void expire() {
+		long now = System.nanoTime();
+		Timer timer;
+		while((timer = timers.peek()) != null && timer.nanos - now <= 0) {
+			timers.remove();
+			Query query = timer.query;
+			if(query.done || timer.nanos != query.timerNanos) continue;
+			if(query.deadlineNanos - now <= 0) {
+				if(query.key != -1) {
+					outstanding.remove(query.key, query);
+					query.key = -1;
+				}
+				complete(query, null, new TimeoutException(query.name + ": timed out after " + query.attempt + " attempts"));
+			} else {
+				// Retry
+				send(query, now);
+			}
+		}
+	}
+
+	/**
+	 * Completes the query off the engine thread.
+	 */
+	private void complete(Query query, Message answer, Throwable throwable) {
+		query.done = true;
+		Runnable completion = () -> {
+			if(throwable != null) query.future.completeExceptionally(throwable);
+			else query.future.complete(answer);
+		};
+		try {
+			completionExecutor.execute(completion);
+		} catch(RejectedExecutionException e) {
+			completion.run();
+		}
+	}
+}
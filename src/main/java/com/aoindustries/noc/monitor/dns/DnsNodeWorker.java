@@ -29,14 +29,16 @@ import com.aoindustries.aoserv.client.dns.RecordType;
 import com.aoindustries.aoserv.client.net.IpAddress;
 import com.aoindustries.aoserv.client.net.monitoring.IpAddressMonitoring;
 import com.aoindustries.noc.monitor.AlertLevelAndMessage;
+import com.aoindustries.noc.monitor.Bulkhead;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
-import com.aoindustries.noc.monitor.RootNodeImpl;
+import com.aoindustries.noc.monitor.StartupPlanner;
 import com.aoindustries.noc.monitor.TableResultNodeWorker;
 import com.aoindustries.noc.monitor.common.AlertLevel;
 import com.aoindustries.noc.monitor.common.TableResult;
 import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -45,11 +47,16 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.xbill.DNS.ARecord;
+import org.xbill.DNS.Cache;
+import org.xbill.DNS.DClass;
 import org.xbill.DNS.Lookup;
 import org.xbill.DNS.Name;
 import org.xbill.DNS.PTRRecord;
 import org.xbill.DNS.Record;
+import org.xbill.DNS.Resolver;
 import org.xbill.DNS.ReverseMap;
 import org.xbill.DNS.Type;
 
@@ -60,6 +67,30 @@ import org.xbill.DNS.Type;
  */
 class DnsNodeWorker extends TableResultNodeWorker<List<DnsNodeWorker.DnsQueryResult>, Object> {
 
+	private static final Logger logger = Logger.getLogger(DnsNodeWorker.class.getName());
+
+	/**
+	 * The timeout of the default resolver.
+	 */
+	private static final Duration RESOLVER_TIMEOUT = Duration.ofSeconds(30);
+
+	/**
+	 * The default cache and resolver are used by the {@link Lookup} of these workers.
+	 */
+	static {
+		Cache inCache = Lookup.getDefaultCache(DClass.IN);
+		inCache.setMaxEntries(-1);
+		inCache.setMaxCache(300);
+		inCache.setMaxNCache(300);
+		Resolver resolver = Lookup.getDefaultResolver();
+		resolver.setTimeout(RESOLVER_TIMEOUT);
+		if(logger.isLoggable(Level.FINE)) {
+			logger.log(Level.FINE, "maxCache={0}", inCache.getMaxCache());
+			logger.log(Level.FINE, "maxEntries={0}", inCache.getMaxEntries());
+			logger.log(Level.FINE, "maxNCache={0}", inCache.getMaxNCache());
+		}
+	}
+
 	static class DnsQueryResult {
 		final String query;
 		final long latency;
@@ -270,6 +301,14 @@ class DnsNodeWorker extends TableResultNodeWorker<List<DnsNodeWorker.DnsQueryRes
 		return new AlertLevelAndMessage(highestAlertLevel, highestAlertMessage);
 	}
 
+	/**
+	 * DNS queries are made directly over the network.
+	 */
+	@Override
+	protected Bulkhead getBulkhead() {
+		return Bulkhead.NETWORK;
+	}
+
 	/**
 	 * The sleep delay is 15 minutes when unsuccessful or one hour when successful.
 	 */
@@ -282,7 +321,7 @@ class DnsNodeWorker extends TableResultNodeWorker<List<DnsNodeWorker.DnsQueryRes
 	 * The startup delay is within fifteen minutes.
 	 */
 	@Override
-	protected int getNextStartupDelay() {
-		return RootNodeImpl.getNextStartupDelayFifteenMinutes();
+	protected StartupPlanner.CostClass getStartupCostClass() {
+		return StartupPlanner.CostClass.HEAVY;
 	}
 }
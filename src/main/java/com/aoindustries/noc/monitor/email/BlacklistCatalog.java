@@ -0,0 +1,282 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor.email;
+
+import com.aoapps.net.DomainName;
+import com.aoindustries.noc.monitor.RootNodeImpl;
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The DNS blacklists queried for every monitored IP address, shared by all workers.
+ * <p>
+ * The catalog is bundled as the resource <code>blacklists.txt</code>, and may be
+ * replaced without a redeploy by a file of the same format, by default
+ * <code>blacklists.txt</code> in the persistence directory.  The file is checked
+ * for changes at most once per reload interval, and is used while its version is
+ * at least the version of the bundled catalog.  A file that does not parse is
+ * logged and the previous catalog kept.
+ * </p>
+ * <p>
+ * A catalog is immutable, so a reload never affects a run already in progress.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class BlacklistCatalog {
+
+	private static final Logger logger = Logger.getLogger(BlacklistCatalog.class.getName());
+
+	private static final String PROPERTY_PREFIX = BlacklistCatalog.class.getName() + ".";
+
+	/**
+	 * The file that replaces the bundled catalog.
+	 */
+	private static final String FILE = System.getProperty(PROPERTY_PREFIX + "file");
+
+	/**
+	 * The time between checks for a changed file.
+	 */
+	private static final long RELOAD_INTERVAL = Long.getLong(PROPERTY_PREFIX + "reloadInterval", 5L * 60000);
+
+	private static final String RESOURCE = "blacklists.txt";
+
+	private static final String FILENAME = "blacklists.txt";
+
+	/**
+	 * One blacklist of the catalog.
+	 */
+	static final class Entry {
+
+		final String basename;
+		final AlertLevel maxAlertLevel;
+		final Set<String> none;
+		final int rate;
+		final boolean enabled;
+
+		Entry(String basename, AlertLevel maxAlertLevel, Set<String> none, int rate, boolean enabled) {
+			this.basename = basename;
+			this.maxAlertLevel = maxAlertLevel;
+			this.none = none;
+			this.rate = rate;
+			this.enabled = enabled;
+		}
+
+		/**
+		 * Gets the alert level of an A record result.
+		 */
+		AlertLevel getAlertLevel(String ip) {
+			return none.contains(ip) ? AlertLevel.NONE : maxAlertLevel;
+		}
+	}
+
+	/**
+	 * Parses a catalog.
+	 *
+	 * @param  source  The source of the catalog, for error messages
+	 *
+	 * @throws  IOException  when the catalog is malformed
+	 */
+	static BlacklistCatalog parse(Reader reader, String source) throws IOException {
+		BufferedReader in = new BufferedReader(reader);
+		int version = -1;
+		List<Entry> entries = new ArrayList<>();
+		Set<String> basenames = new HashSet<>();
+		String line;
+		int lineNum = 0;
+		while((line = in.readLine()) != null) {
+			lineNum++;
+			int comment = line.indexOf('#');
+			if(comment != -1) line = line.substring(0, comment);
+			line = line.trim();
+			if(line.isEmpty()) continue;
+			String[] fields = line.split("\\s+");
+			if(version == -1) {
+				if(fields.length != 2 || !"version".equals(fields[0])) throw new IOException(source + ":" + lineNum + ": Version expected: " + line);
+				try {
+					version = Integer.parseInt(fields[1]);
+				} catch(NumberFormatException e) {
+					throw new IOException(source + ":" + lineNum + ": Invalid version: " + fields[1], e);
+				}
+				if(version < 0) throw new IOException(source + ":" + lineNum + ": Invalid version: " + version);
+				continue;
+			}
+			String basename = fields[0];
+			if(!basenames.add(basename.toLowerCase(Locale.ROOT))) throw new IOException(source + ":" + lineNum + ": Duplicate blacklist: " + basename);
+			AlertLevel maxAlertLevel = AlertLevel.LOW;
+			Set<String> none = Collections.emptySet();
+			int rate = 0;
+			boolean enabled = true;
+			for(int i = 1; i < fields.length; i++) {
+				String option = fields[i];
+				int eq = option.indexOf('=');
+				if(eq == -1) throw new IOException(source + ":" + lineNum + ": Option expected: " + option);
+				String name = option.substring(0, eq);
+				String value = option.substring(eq + 1);
+				try {
+					switch(name) {
+						case "maxAlertLevel":
+							maxAlertLevel = AlertLevel.valueOf(value);
+							break;
+						case "none":
+							none = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(value.split(","))));
+							break;
+						case "rate":
+							rate = Integer.parseInt(value);
+							if(rate < 1) throw new IllegalArgumentException("rate < 1: " + rate);
+							break;
+						case "enabled":
+							if("true".equals(value)) enabled = true;
+							else if("false".equals(value)) enabled = false;
+							else throw new IllegalArgumentException("Boolean expected: " + value);
+							break;
+						default:
+							throw new IOException(source + ":" + lineNum + ": Unknown option: " + name);
+					}
+				} catch(IllegalArgumentException e) {
+					throw new IOException(source + ":" + lineNum + ": Invalid option: " + option, e);
+				}
+			}
+			entries.add(new Entry(basename, maxAlertLevel, none, rate, enabled));
+		}
+		if(version == -1) throw new IOException(source + ": Version not found");
+		return new BlacklistCatalog(version, entries);
+	}
+
+	private static BlacklistCatalog bundled;
+	private static BlacklistCatalog override;
+	private static long overrideModified;
+	private static BlacklistCatalog current;
+	private static long checkedNanos;
+
+	/**
+	 * Gets the current catalog, reloading the file when changed and due to be checked.
+	 *
+	 * @throws  IOException  when the bundled catalog cannot be loaded
+	 */
+	static BlacklistCatalog getInstance() throws IOException {
+		synchronized(BlacklistCatalog.class) {
+			long now = System.nanoTime();
+			if(current == null || (now - checkedNanos) >= TimeUnit.MILLISECONDS.toNanos(RELOAD_INTERVAL)) {
+				checkedNanos = now;
+				if(bundled == null) {
+					InputStream in = BlacklistCatalog.class.getResourceAsStream(RESOURCE);
+					if(in == null) throw new FileNotFoundException(RESOURCE);
+					try(Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+						bundled = parse(reader, RESOURCE);
+					}
+				}
+				File file = FILE != null ? new File(FILE) : new File(RootNodeImpl.PERSISTENCE_DIRECTORY, FILENAME);
+				long modified = file.lastModified();
+				if(modified != overrideModified) {
+					overrideModified = modified;
+					if(modified == 0) {
+						override = null;
+					} else {
+						try(Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+							override = parse(reader, file.getPath());
+						} catch(IOException e) {
+							logger.log(Level.WARNING, "Keeping the previous blacklist catalog", e);
+						}
+					}
+				}
+				BlacklistCatalog selected = select(bundled, override);
+				if(selected != current) {
+					current = selected;
+					if(logger.isLoggable(Level.INFO)) {
+						logger.log(
+							Level.INFO,
+							"Using blacklist catalog version " + selected.version
+							+ " from " + (selected == bundled ? RESOURCE : file.getPath())
+							+ " with " + selected.enabledEntries.size() + " of " + selected.entries.size() + " blacklists enabled"
+						);
+					}
+				}
+			}
+			return current;
+		}
+	}
+
+	/**
+	 * Selects the override unless its version is older than the bundled catalog,
+	 * which happens when a release includes newer blacklists.
+	 *
+	 * @param  override  The override or {@code null} when none
+	 */
+	static BlacklistCatalog select(BlacklistCatalog bundled, BlacklistCatalog override) {
+		if(override != null && override.version >= bundled.version) return override;
+		return bundled;
+	}
+
+	private final int version;
+	private final List<Entry> entries;
+	private final List<Entry> enabledEntries;
+
+	private BlacklistCatalog(int version, List<Entry> entries) {
+		this.version = version;
+		entries.sort((e1, e2) -> DomainName.compareLabels(e1.basename, e2.basename));
+		List<Entry> enabled = new ArrayList<>(entries.size());
+		for(Entry entry : entries) {
+			if(entry.enabled) enabled.add(entry);
+		}
+		this.entries = Collections.unmodifiableList(entries);
+		this.enabledEntries = Collections.unmodifiableList(enabled);
+	}
+
+	int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Gets all blacklists, including those disabled, ordered by basename.
+	 */
+	List<Entry> getEntries() {
+		return entries;
+	}
+
+	/**
+	 * Gets the blacklists to query, ordered by basename.
+	 */
+	List<Entry> getEnabledEntries() {
+		return enabledEntries;
+	}
+}
@@ -0,0 +1,251 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor.email;
+
+import com.aoapps.net.DomainName;
+import com.aoindustries.noc.monitor.email.BlacklistsNodeWorker.BlacklistQueryResult;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Plans the DNS blacklist queries of all {@link BlacklistsNodeWorker workers}
+ * together, instead of each worker querying every blacklist on its own.
+ * <ul>
+ * <li>A query already waiting or in flight is not submitted again, whichever worker
+ *     asks for it.  Each query is an (IP address, blacklist) pair.</li>
+ * <li>Queries are dispatched in rounds.  Each round is all the queries submitted
+ *     since the previous round, ordered by blacklist so the queries of one zone are
+ *     sent together while the recursive resolver has the zone's nameservers cached.</li>
+ * <li>At most {@link #MAX_IN_FLIGHT} queries are in flight at once.  Each completed
+ *     query releases its slot to the next, so a blacklist that never answers holds
+ *     only the slots of its own queries until they time out.</li>
+ * </ul>
+ * <p>
+ * Results are kept in the {@link BlacklistResultStore} by query, from which each
+ * worker assembles its table.  A result is stored even when the worker that asked
+ * for it has stopped waiting, so no progress is lost.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class BlacklistQueryPlanner {
+
+	private static final Logger logger = Logger.getLogger(BlacklistQueryPlanner.class.getName());
+
+	private static final String PROPERTY_PREFIX = BlacklistQueryPlanner.class.getName() + ".";
+
+	/**
+	 * The maximum number of queries in flight.
+	 */
+	private static final int MAX_IN_FLIGHT = Integer.getInteger(PROPERTY_PREFIX + "maxInFlight", 256);
+
+	private static BlacklistQueryPlanner instance;
+
+	/**
+	 * Gets the planner, starting it on first use.
+	 */
+	static BlacklistQueryPlanner getInstance() {
+		synchronized(BlacklistQueryPlanner.class) {
+			if(instance == null) instance = new BlacklistQueryPlanner(BlacklistResultStore.getInstance(), MAX_IN_FLIGHT);
+			return instance;
+		}
+	}
+
+	private static final class Planned {
+
+		private final String zone;
+		private final String query;
+		private final Supplier<CompletableFuture<BlacklistQueryResult>> lookup;
+		private final CompletableFuture<BlacklistQueryResult> future = new CompletableFuture<>();
+
+		private Planned(String zone, String query, Supplier<CompletableFuture<BlacklistQueryResult>> lookup) {
+			this.zone = zone;
+			this.query = query;
+			this.lookup = lookup;
+		}
+	}
+
+	private static final Comparator<Planned> ORDER = (p1, p2) -> {
+		int diff = DomainName.compareLabels(p1.zone, p2.zone);
+		if(diff != 0) return diff;
+		return p1.query.compareTo(p2.query);
+	};
+
+	private final BlacklistResultStore store;
+	private final int maxInFlight;
+
+	// All below synchronized on lock
+	private final Object lock = new Object();
+
+	/**
+	 * The queries waiting or in flight, by query.
+	 */
+	private final Map<String, Planned> pending = new HashMap<>();
+
+	/**
+	 * The queries submitted since the current round started.
+	 */
+	private final List<Planned> submitted = new ArrayList<>();
+
+	private int inFlight;
+	private long deduplicatedCount;
+	private long dispatchedCount;
+
+	BlacklistQueryPlanner(BlacklistResultStore store, int maxInFlight) {
+		if(maxInFlight < 1) throw new IllegalArgumentException("maxInFlight < 1: " + maxInFlight);
+		this.store = store;
+		this.maxInFlight = maxInFlight;
+		Thread thread = new Thread(this::run, BlacklistQueryPlanner.class.getName());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Submits a query, unless already waiting or in flight.
+	 *
+	 * @param  zone  The blacklist being queried
+	 * @param  query  The full name being queried, identifies the query and its stored result
+	 * @param  lookup  Performs the query, only called for the first submission
+	 *
+	 * @return  The future result, which may be cancelled without affecting other
+	 *          workers waiting on the same query
+	 */
+	CompletableFuture<BlacklistQueryResult> submit(String zone, String query, Supplier<CompletableFuture<BlacklistQueryResult>> lookup) {
+		synchronized(lock) {
+			Planned planned = pending.get(query);
+			if(planned == null) {
+				planned = new Planned(zone, query, lookup);
+				pending.put(query, planned);
+				submitted.add(planned);
+				lock.notify();
+			} else {
+				deduplicatedCount++;
+			}
+			return planned.future.copy();
+		}
+	}
+
+	/**
+	 * Gets the number of queries waiting or in flight.
+	 */
+	int getPendingCount() {
+		synchronized(lock) {
+			return pending.size();
+		}
+	}
+
+	/**
+	 * Gets the number of queries in flight.
+	 */
+	int getInFlightCount() {
+		synchronized(lock) {
+			return inFlight;
+		}
+	}
+
+	/**
+	 * Gets the number of submissions answered by a query already waiting or in flight.
+	 */
+	long getDeduplicatedCount() {
+		synchronized(lock) {
+			return deduplicatedCount;
+		}
+	}
+
+	/**
+	 * Gets the number of queries dispatched.
+	 */
+	long getDispatchedCount() {
+		synchronized(lock) {
+			return dispatchedCount;
+		}
+	}
+
+	@SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+	private void run() {
+		Queue<Planned> round = new ArrayDeque<>();
+		while(true) {
+			try {
+				Planned next;
+				synchronized(lock) {
+					while((round.isEmpty() && submitted.isEmpty()) || inFlight >= maxInFlight) lock.wait();
+					if(round.isEmpty()) {
+						submitted.sort(ORDER);
+						round.addAll(submitted);
+						submitted.clear();
+						if(logger.isLoggable(Level.FINE)) logger.log(Level.FINE, "Starting round of {0} queries", round.size());
+					}
+					next = round.remove();
+					inFlight++;
+					dispatchedCount++;
+				}
+				dispatch(next);
+			} catch(ThreadDeath td) {
+				throw td;
+			} catch(InterruptedException e) {
+				logger.log(Level.WARNING, null, e);
+				// Restore the interrupted status
+				Thread.currentThread().interrupt();
+				return;
+			} catch(Throwable t) {
+				logger.log(Level.SEVERE, null, t);
+			}
+		}
+	}
+
+	/**
+	 * Performs one query, storing its result before completing the workers waiting on it,
+	 * then releases its slot.
+	 */
+	@SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+	private void dispatch(Planned planned) {
+		CompletableFuture<BlacklistQueryResult> future;
+		try {
+			future = planned.lookup.get();
+		} catch(ThreadDeath td) {
+			throw td;
+		} catch(Throwable t) {
+			future = new CompletableFuture<>();
+			future.completeExceptionally(t);
+		}
+		future.whenComplete((result, t) -> {
+			if(result != null) store.put(planned.query, result);
+			synchronized(lock) {
+				pending.remove(planned.query, planned);
+				inFlight--;
+				lock.notify();
+			}
+			if(t != null) planned.future.completeExceptionally(t);
+			else planned.future.complete(result);
+		});
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor.email;
+
+import com.aoindustries.noc.monitor.PersistedMap;
+import static com.aoindustries.noc.monitor.PersistedMap.readString;
+import static com.aoindustries.noc.monitor.PersistedMap.writeString;
+import com.aoindustries.noc.monitor.RootNodeImpl;
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import com.aoindustries.noc.monitor.email.BlacklistsNodeWorker.BlacklistQueryResult;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The blacklist query results of all workers, saved to the single file
+ * <code>blacklist-results</code> in the persistence directory on each checkpoint.
+ * <p>
+ * The store is loaded on first use, so a restart only queries the blacklists that
+ * are actually due.  Each result expires when due to be queried again, and expired
+ * results are neither saved nor loaded.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class BlacklistResultStore implements Flushable {
+
+	private static final Logger logger = Logger.getLogger(BlacklistResultStore.class.getName());
+
+	private static final String FILENAME = "blacklist-results";
+
+	/**
+	 * "AOBL"
+	 */
+	private static final int MAGIC = 0x414f424c;
+
+	private static final int VERSION = 2;
+
+	private static BlacklistResultStore instance;
+
+	/**
+	 * Gets the store, loading the persisted results on first use.
+	 */
+	static BlacklistResultStore getInstance() {
+		synchronized(BlacklistResultStore.class) {
+			if(instance == null) {
+				instance = new BlacklistResultStore(Paths.get(RootNodeImpl.PERSISTENCE_DIRECTORY));
+				PersistedMap.saveOnCheckpoint(instance);
+			}
+			return instance;
+		}
+	}
+
+	private static final class Entry {
+
+		private final BlacklistQueryResult result;
+		private final long expiry;
+
+		private Entry(BlacklistQueryResult result, long expiry) {
+			this.result = result;
+			this.expiry = expiry;
+		}
+	}
+
+	private static final PersistedMap.Codec<Entry> codec = new PersistedMap.Codec<Entry>() {
+		@Override
+		public void write(DataOutputStream out, Entry entry) throws IOException {
+			BlacklistQueryResult result = entry.result;
+			writeString(out, result.basename);
+			out.writeLong(result.queryTime);
+			out.writeLong(result.latency);
+			writeString(out, result.query);
+			writeString(out, result.result);
+			out.writeByte(result.alertLevel.ordinal());
+			out.writeLong(entry.expiry);
+		}
+
+		@Override
+		public Entry read(DataInputStream in) throws IOException {
+			String basename = readString(in);
+			long queryTime = in.readLong();
+			long latency = in.readLong();
+			String query = readString(in);
+			String result = readString(in);
+			AlertLevel alertLevel = AlertLevel.fromOrdinal(in.readByte());
+			long expiry = in.readLong();
+			return new Entry(new BlacklistQueryResult(basename, queryTime, latency, query, result, alertLevel), expiry);
+		}
+	};
+
+	/**
+	 * The results by key.
+	 */
+	private final PersistedMap<Entry> entries;
+
+	BlacklistResultStore(Path persistenceDirectory) {
+		entries = new PersistedMap<>(
+			persistenceDirectory,
+			FILENAME,
+			MAGIC,
+			VERSION,
+			codec,
+			entry -> entry.expiry > System.currentTimeMillis()
+		);
+		if(logger.isLoggable(Level.INFO)) logger.log(Level.INFO, "Loaded " + entries.size() + " blacklist results");
+	}
+
+	/**
+	 * Gets the most recent result.
+	 *
+	 * @return  The result or {@code null} when never queried or expired before a restart
+	 */
+	BlacklistQueryResult get(String key) {
+		Entry entry = entries.get(key);
+		return entry == null ? null : entry.result;
+	}
+
+	/**
+	 * Stores a result, to be saved on the next checkpoint until it expires.
+	 */
+	void put(String key, BlacklistQueryResult result) {
+		entries.put(key, new Entry(result, result.queryTime + BlacklistsNodeWorker.getRetry(result.alertLevel)));
+	}
+
+	/**
+	 * Gets the number of results stored.
+	 */
+	int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Saves the changed results and removes the expired.
+	 */
+	@Override
+	public void flush() throws IOException {
+		entries.flush();
+	}
+
+	@Override
+	public String toString() {
+		return entries.toString();
+	}
+}
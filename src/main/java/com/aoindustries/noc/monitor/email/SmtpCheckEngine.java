@@ -0,0 +1,383 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor.email;
+
+import com.aoindustries.noc.monitor.RootNodeImpl;
+import com.aoindustries.noc.monitor.dns.AsyncResolver;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.xbill.DNS.ARecord;
+import org.xbill.DNS.MXRecord;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.Type;
+
+/**
+ * Runs the SMTP blacklist checks of all {@link BlacklistsNodeWorker workers}.  The
+ * SMTP conversation itself is performed by the AOServ daemon of the monitored server,
+ * since it must be made from the IP address being checked.  This engine schedules
+ * those checks:
+ * <ul>
+ * <li>The MX and A records of each destination domain are resolved once through the
+ *     shared {@link AsyncResolver}, then reused by every IP address for {@link #TARGET_TTL}.</li>
+ * <li>At most {@link #DESTINATION_CONCURRENCY} checks run against each destination
+ *     domain at once.  Further checks wait in the engine without holding a thread.</li>
+ * <li>The checks run in a dedicated pool of {@link #THREADS} threads, apart from any
+ *     other lookups.</li>
+ * <li>Timeouts are enforced on the returned future, which completes with a timeout
+ *     whether still resolving, waiting, or checking.</li>
+ * </ul>
+ * <p>
+ * The latency of each phase (resolve, wait, and check) is recorded on each {@link Probe}.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class SmtpCheckEngine {
+
+	private static final Logger logger = Logger.getLogger(SmtpCheckEngine.class.getName());
+
+	private static final String PROPERTY_PREFIX = SmtpCheckEngine.class.getName() + ".";
+
+	/**
+	 * The number of threads making daemon calls.
+	 */
+	private static final int THREADS = Integer.getInteger(PROPERTY_PREFIX + "threads", 16);
+
+	/**
+	 * The maximum concurrent checks against each destination domain.
+	 */
+	private static final int DESTINATION_CONCURRENCY = Integer.getInteger(PROPERTY_PREFIX + "destinationConcurrency", 4);
+
+	/**
+	 * The time the resolved addresses of a destination domain are reused, in milliseconds.
+	 */
+	private static final long TARGET_TTL = Long.getLong(PROPERTY_PREFIX + "targetTtl", 5L * 60000);
+
+	/**
+	 * The timeout of each MX and A query, in milliseconds.
+	 */
+	private static final long RESOLVER_TIMEOUT = Long.getLong(PROPERTY_PREFIX + "resolverTimeout", 30000);
+
+	private static SmtpCheckEngine instance;
+
+	/**
+	 * Gets the engine, starting it on first use.
+	 */
+	static SmtpCheckEngine getInstance() {
+		synchronized(SmtpCheckEngine.class) {
+			if(instance == null) {
+				instance = new SmtpCheckEngine(
+					SmtpCheckEngine::resolveMx,
+					Executors.newFixedThreadPool(
+						THREADS,
+						(Runnable r) -> {
+							Thread thread = new Thread(r, SmtpCheckEngine.class.getName());
+							thread.setDaemon(true);
+							return thread;
+						}
+					),
+					DESTINATION_CONCURRENCY,
+					TimeUnit.MILLISECONDS.toNanos(TARGET_TTL)
+				);
+			}
+			return instance;
+		}
+	}
+
+	/**
+	 * Performs the SMTP conversation with one of the destination's mail servers.
+	 */
+	@FunctionalInterface
+	static interface Check {
+		/**
+		 * @return  The status line of the server's greeting
+		 */
+		String check(InetAddress target) throws IOException, SQLException;
+	}
+
+	/**
+	 * The result of one check, with the latency of each phase.
+	 */
+	static final class Probe {
+
+		final InetAddress target;
+		final String statusLine;
+		final long resolveNanos;
+		final long waitNanos;
+		final long checkNanos;
+
+		private Probe(InetAddress target, String statusLine, long resolveNanos, long waitNanos, long checkNanos) {
+			this.target = target;
+			this.statusLine = statusLine;
+			this.resolveNanos = resolveNanos;
+			this.waitNanos = waitNanos;
+			this.checkNanos = checkNanos;
+		}
+	}
+
+	private static final class Targets {
+
+		private final CompletableFuture<List<InetAddress>> future;
+		private final long expiresNanos;
+
+		private Targets(CompletableFuture<List<InetAddress>> future, long expiresNanos) {
+			this.future = future;
+			this.expiresNanos = expiresNanos;
+		}
+	}
+
+	private static final class Waiter {
+
+		private final CompletableFuture<Probe> result;
+		private final Runnable task;
+
+		private Waiter(CompletableFuture<Probe> result, Runnable task) {
+			this.result = result;
+			this.task = task;
+		}
+	}
+
+	private static final class Destination {
+
+		private int active;
+		private final Queue<Waiter> waiting = new ArrayDeque<>();
+	}
+
+	private final Function<String, CompletableFuture<List<InetAddress>>> resolver;
+	private final Executor executor;
+	private final int destinationConcurrency;
+	private final long targetTtlNanos;
+
+	/**
+	 * The resolved addresses, or those being resolved, by destination domain.
+	 */
+	private final Map<String, Targets> targetsCache = new ConcurrentHashMap<>();
+	private final AtomicLong resolutionCount = new AtomicLong();
+
+	// All below synchronized on destinations
+	private final Map<String, Destination> destinations = new HashMap<>();
+
+	/**
+	 * @param  resolver  Resolves the addresses of the mail servers of a domain
+	 */
+	SmtpCheckEngine(
+		Function<String, CompletableFuture<List<InetAddress>>> resolver,
+		Executor executor,
+		int destinationConcurrency,
+		long targetTtlNanos
+	) {
+		if(destinationConcurrency < 1) throw new IllegalArgumentException("destinationConcurrency < 1: " + destinationConcurrency);
+		this.resolver = resolver;
+		this.executor = executor;
+		this.destinationConcurrency = destinationConcurrency;
+		this.targetTtlNanos = targetTtlNanos;
+	}
+
+	/**
+	 * Gets the number of times destination addresses have been resolved, as opposed
+	 * to reused.
+	 */
+	long getResolutionCount() {
+		return resolutionCount.get();
+	}
+
+	/**
+	 * Checks against a random mail server of a destination domain.  Never blocks.
+	 *
+	 * @param  domain  The destination domain, such as <code>att.net</code>
+	 *
+	 * @return  The future result, completed exceptionally with {@link java.util.concurrent.TimeoutException}
+	 *          when not completed within the timeout
+	 */
+	CompletableFuture<Probe> check(String domain, Check check, long timeout, TimeUnit unit) {
+		long startNanos = System.nanoTime();
+		CompletableFuture<Probe> result = new CompletableFuture<>();
+		getTargets(domain).whenComplete((targets, t) -> {
+			if(t != null) {
+				if(t instanceof CompletionException && t.getCause() != null) t = t.getCause();
+				result.completeExceptionally(t);
+				return;
+			}
+			long resolveNanos = System.nanoTime() - startNanos;
+			InetAddress target = targets.get(RootNodeImpl.random.nextInt(targets.size()));
+			acquire(domain, result, () -> {
+				try {
+					executor.execute(() -> {
+						try {
+							if(result.isDone()) return;
+							long checkStartNanos = System.nanoTime();
+							String statusLine = check.check(target);
+							long endNanos = System.nanoTime();
+							Probe probe = new Probe(target, statusLine, resolveNanos, checkStartNanos - startNanos - resolveNanos, endNanos - checkStartNanos);
+							if(logger.isLoggable(Level.FINE)) {
+								logger.log(
+									Level.FINE,
+									"{0} via {1}: resolve {2} ms, wait {3} ms, check {4} ms",
+									new Object[] {
+										domain,
+										target.getHostAddress(),
+										TimeUnit.NANOSECONDS.toMillis(probe.resolveNanos),
+										TimeUnit.NANOSECONDS.toMillis(probe.waitNanos),
+										TimeUnit.NANOSECONDS.toMillis(probe.checkNanos)
+									}
+								);
+							}
+							result.complete(probe);
+						} catch(IOException | SQLException | RuntimeException e) {
+							result.completeExceptionally(e);
+						} finally {
+							release(domain);
+						}
+					});
+				} catch(RejectedExecutionException e) {
+					release(domain);
+					result.completeExceptionally(e);
+				}
+			});
+		});
+		return result.orTimeout(timeout, unit);
+	}
+
+	/**
+	 * Gets the addresses of a destination, resolving only when not already resolved
+	 * or being resolved.  Failures are not reused.
+	 */
+	private CompletableFuture<List<InetAddress>> getTargets(String domain) {
+		return targetsCache.compute(domain, (d, old) -> {
+			long now = System.nanoTime();
+			if(
+				old != null
+				&& !old.future.isCompletedExceptionally()
+				&& (!old.future.isDone() || old.expiresNanos - now > 0)
+			) return old;
+			resolutionCount.incrementAndGet();
+			CompletableFuture<List<InetAddress>> future;
+			try {
+				future = resolver.apply(d);
+			} catch(RuntimeException e) {
+				future = new CompletableFuture<>();
+				future.completeExceptionally(e);
+			}
+			return new Targets(future, now + targetTtlNanos);
+		}).future;
+	}
+
+	/**
+	 * Runs the task once a slot for the destination is available, skipped when the
+	 * result is completed first, such as by timeout.
+	 */
+	private void acquire(String domain, CompletableFuture<Probe> result, Runnable task) {
+		synchronized(destinations) {
+			Destination destination = destinations.computeIfAbsent(domain, d -> new Destination());
+			if(destination.active >= destinationConcurrency) {
+				destination.waiting.add(new Waiter(result, task));
+				return;
+			}
+			destination.active++;
+		}
+		task.run();
+	}
+
+	/**
+	 * Passes the slot to the next waiting task, if any.
+	 */
+	private void release(String domain) {
+		Waiter next;
+		synchronized(destinations) {
+			Destination destination = destinations.get(domain);
+			do {
+				next = destination.waiting.poll();
+			} while(next != null && next.result.isDone());
+			if(next == null) {
+				destination.active--;
+				if(destination.active == 0) destinations.remove(domain);
+			}
+		}
+		if(next != null) next.task.run();
+	}
+
+	/**
+	 * Resolves the addresses of all mail servers of a domain.
+	 */
+	private static CompletableFuture<List<InetAddress>> resolveMx(String domain) {
+		AsyncResolver resolver;
+		Name name;
+		try {
+			resolver = AsyncResolver.getInstance();
+			name = Name.fromString(domain + '.');
+		} catch(IOException e) {
+			CompletableFuture<List<InetAddress>> failed = new CompletableFuture<>();
+			failed.completeExceptionally(e);
+			return failed;
+		}
+		return resolver.query(name, Type.MX, domain, RESOLVER_TIMEOUT, TimeUnit.MILLISECONDS).thenCompose((Message mxAnswer) -> {
+			if(mxAnswer.getRcode() != Rcode.NOERROR) throw new CompletionException(new IOException(domain + ": MX lookup failed: " + Rcode.string(mxAnswer.getRcode())));
+			List<CompletableFuture<Message>> aQueries = new ArrayList<>();
+			for(Record record : mxAnswer.getSection(Section.ANSWER)) {
+				if(record instanceof MXRecord) {
+					// A mail server that fails to resolve is left out
+					aQueries.add(
+						resolver.query(((MXRecord)record).getTarget(), Type.A, domain, RESOLVER_TIMEOUT, TimeUnit.MILLISECONDS)
+						.handle((aAnswer, t) -> t == null ? aAnswer : null)
+					);
+				}
+			}
+			if(aQueries.isEmpty()) throw new CompletionException(new IOException(domain + ": No MX records found"));
+			return CompletableFuture.allOf(aQueries.toArray(new CompletableFuture<?>[aQueries.size()])).thenApply(v -> {
+				List<InetAddress> addresses = new ArrayList<>();
+				for(CompletableFuture<Message> aQuery : aQueries) {
+					Message aAnswer = aQuery.join();
+					if(aAnswer != null) {
+						for(Record record : aAnswer.getSection(Section.ANSWER)) {
+							if(record instanceof ARecord) addresses.add(((ARecord)record).getAddress());
+						}
+					}
+				}
+				if(addresses.isEmpty()) throw new CompletionException(new IOException(domain + ": No A records found"));
+				return addresses;
+			});
+		});
+	}
+}
@@ -23,7 +23,6 @@
 package com.aoindustries.noc.monitor.infrastructure;
 
 import com.aoindustries.aoserv.client.linux.Server;
-import com.aoindustries.noc.monitor.AlertLevelUtils;
 import com.aoindustries.noc.monitor.NodeImpl;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.common.AlertLevel;
@@ -81,11 +80,7 @@ public class HardDrivesNode extends NodeImpl {
 	 */
 	@Override
 	public AlertLevel getAlertLevel() {
-		return constrainAlertLevel(
-			AlertLevelUtils.getMaxAlertLevel(
-				this._hardDriveTemperatureNode
-			)
-		);
+		return constrainAlertLevel(getChildrenAlertLevel());
 	}
 
 	/**
@@ -108,7 +103,7 @@ public class HardDrivesNode extends NodeImpl {
 			if(_hardDriveTemperatureNode==null) {
 				_hardDriveTemperatureNode = new HardDrivesTemperatureNode(this, port, csf, ssf);
 				_hardDriveTemperatureNode.start();
-				hostNode.hostsNode.rootNode.nodeAdded();
+				hostNode.hostsNode.rootNode.nodeAdded(this);
 			}
 		}
 	}
@@ -119,7 +114,7 @@ public class HardDrivesNode extends NodeImpl {
 			if(_hardDriveTemperatureNode!=null) {
 				_hardDriveTemperatureNode.stop();
 				_hardDriveTemperatureNode = null;
-				hostNode.hostsNode.rootNode.nodeRemoved();
+				hostNode.hostsNode.rootNode.nodeRemoved(this);
 			}
 		}
 	}
@@ -127,7 +122,7 @@ public class HardDrivesNode extends NodeImpl {
 	File getPersistenceDirectory() throws IOException {
 		File dir = new File(hostNode.getPersistenceDirectory(), "hard_drives");
 		if(!dir.exists()) {
-			if(!dir.mkdir()) {
+			if(!dir.mkdir() && !dir.isDirectory()) {
 				throw new IOException(
 					PACKAGE_RESOURCES.getMessage(
 						hostNode.hostsNode.rootNode.locale,
@@ -197,4 +197,21 @@ class LoadAverageNodeWorker extends TableMultiResultNodeWorker<List<Number>, Loa
 			(Float)sample.get(9)
 		);
 	}
+
+	@Override
+	protected List<String> getRollupColumns() {
+		return Arrays.asList("oneMinute", "fiveMinute", "tenMinute", "runningProcesses", "totalProcesses");
+	}
+
+	@Override
+	protected double[] getRollupValues(LoadAverageResult result) {
+		if(result.getError() != null) return null;
+		return new double[] {
+			result.getOneMinute(),
+			result.getFiveMinute(),
+			result.getTenMinute(),
+			result.getRunningProcesses(),
+			result.getTotalProcesses()
+		};
+	}
 }
@@ -172,4 +172,22 @@ class MemoryNodeWorker extends TableMultiResultNodeWorker<List<ApproximateDispla
 			sample.get(5).getSize()
 		);
 	}
+
+	@Override
+	protected List<String> getRollupColumns() {
+		return Arrays.asList("memTotal", "memFree", "buffers", "cached", "swapTotal", "swapFree");
+	}
+
+	@Override
+	protected double[] getRollupValues(MemoryResult result) {
+		if(result.getError() != null) return null;
+		return new double[] {
+			result.getMemTotal(),
+			result.getMemFree(),
+			result.getBuffers(),
+			result.getCached(),
+			result.getSwapTotal(),
+			result.getSwapFree()
+		};
+	}
 }
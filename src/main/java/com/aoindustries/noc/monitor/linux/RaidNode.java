@@ -24,7 +24,6 @@ package com.aoindustries.noc.monitor.linux;
 
 import com.aoindustries.aoserv.client.distribution.OperatingSystemVersion;
 import com.aoindustries.aoserv.client.linux.Server;
-import com.aoindustries.noc.monitor.AlertLevelUtils;
 import com.aoindustries.noc.monitor.NodeImpl;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.common.AlertLevel;
@@ -93,14 +92,7 @@ public class RaidNode extends NodeImpl {
 	 */
 	@Override
 	public AlertLevel getAlertLevel() {
-		return constrainAlertLevel(
-			AlertLevelUtils.getMaxAlertLevel(
-				this._threeWareRaidNode,
-				this._mdStatNode,
-				this._mdMismatchNode,
-				this._drbdNode
-			)
-		);
+		return constrainAlertLevel(getChildrenAlertLevel());
 	}
 
 	/**
@@ -130,19 +122,19 @@ public class RaidNode extends NodeImpl {
 				if(_threeWareRaidNode==null) {
 					_threeWareRaidNode = new ThreeWareRaidNode(this, port, csf, ssf);
 					_threeWareRaidNode.start();
-					hostNode.hostsNode.rootNode.nodeAdded();
+					hostNode.hostsNode.rootNode.nodeAdded(this);
 				}
 			}
 			// Any machine may have MD RAID (at least until all services run in Xen outers)
 			if(_mdStatNode==null) {
 				_mdStatNode = new MdStatNode(this, port, csf, ssf);
 				_mdStatNode.start();
-				hostNode.hostsNode.rootNode.nodeAdded();
+				hostNode.hostsNode.rootNode.nodeAdded(this);
 			}
 			if(_mdMismatchNode==null) {
 				_mdMismatchNode = new MdMismatchNode(this, port, csf, ssf);
 				_mdMismatchNode.start();
-				hostNode.hostsNode.rootNode.nodeAdded();
+				hostNode.hostsNode.rootNode.nodeAdded(this);
 			}
 			// We only run DRBD in xen outers
 			if(
@@ -153,7 +145,7 @@ public class RaidNode extends NodeImpl {
 				if(_drbdNode==null) {
 					_drbdNode = new DrbdNode(this, port, csf, ssf);
 					_drbdNode.start();
-					hostNode.hostsNode.rootNode.nodeAdded();
+					hostNode.hostsNode.rootNode.nodeAdded(this);
 				}
 			}
 		}
@@ -165,22 +157,22 @@ public class RaidNode extends NodeImpl {
 			if(_threeWareRaidNode!=null) {
 				_threeWareRaidNode.stop();
 				_threeWareRaidNode = null;
-				hostNode.hostsNode.rootNode.nodeRemoved();
+				hostNode.hostsNode.rootNode.nodeRemoved(this);
 			}
 			if(_mdStatNode!=null) {
 				_mdStatNode.stop();
 				_mdStatNode = null;
-				hostNode.hostsNode.rootNode.nodeRemoved();
+				hostNode.hostsNode.rootNode.nodeRemoved(this);
 			}
 			if(_mdMismatchNode!=null) {
 				_mdMismatchNode.stop();
 				_mdMismatchNode = null;
-				hostNode.hostsNode.rootNode.nodeRemoved();
+				hostNode.hostsNode.rootNode.nodeRemoved(this);
 			}
 			if(_drbdNode!=null) {
 				_drbdNode.stop();
 				_drbdNode = null;
-				hostNode.hostsNode.rootNode.nodeRemoved();
+				hostNode.hostsNode.rootNode.nodeRemoved(this);
 			}
 		}
 	}
@@ -188,7 +180,7 @@ public class RaidNode extends NodeImpl {
 	public File getPersistenceDirectory() throws IOException {
 		File dir = new File(hostNode.getPersistenceDirectory(), "raid");
 		if(!dir.exists()) {
-			if(!dir.mkdir()) {
+			if(!dir.mkdir() && !dir.isDirectory()) {
 				throw new IOException(
 					PACKAGE_RESOURCES.getMessage(
 						hostNode.hostsNode.rootNode.locale,
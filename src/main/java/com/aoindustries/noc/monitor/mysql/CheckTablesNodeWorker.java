@@ -30,6 +30,7 @@ import com.aoindustries.aoserv.client.mysql.Database;
 import com.aoindustries.aoserv.client.mysql.Server;
 import com.aoindustries.aoserv.client.mysql.Table_Name;
 import com.aoindustries.noc.monitor.AlertLevelAndMessage;
+import com.aoindustries.noc.monitor.Bulkhead;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.TableResultNodeWorker;
 import com.aoindustries.noc.monitor.common.AlertLevel;
@@ -174,6 +175,14 @@ class CheckTablesNodeWorker extends TableResultNodeWorker<List<Object>, Object>
 		return locale -> tableData;
 	}
 
+	/**
+	 * Runs in the MySQL bulkhead.
+	 */
+	@Override
+	protected Bulkhead getBulkhead() {
+		return Bulkhead.MYSQL;
+	}
+
 	/**
 	 * If is a slowServer (many tables), only checks once every 12 hours.
 	 * Otherwise checks once every five minutes.
@@ -22,9 +22,9 @@
  */
 package com.aoindustries.noc.monitor.mysql;
 
+import com.aoapps.lang.EnumUtils;
 import com.aoindustries.aoserv.client.backup.MysqlReplication;
 import com.aoindustries.aoserv.client.mysql.Database;
-import com.aoindustries.noc.monitor.AlertLevelUtils;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.TableResultNodeImpl;
 import com.aoindustries.noc.monitor.common.AlertLevel;
@@ -98,9 +98,9 @@ public class DatabaseNode extends TableResultNodeImpl {
 	@Override
 	public AlertLevel getAlertLevel() {
 		return constrainAlertLevel(
-			AlertLevelUtils.getMaxAlertLevel(
+			EnumUtils.max(
 				super.getAlertLevel(),
-				this.mysqlCheckTablesNode
+				getChildrenAlertLevel()
 			)
 		);
 	}
@@ -113,7 +113,7 @@ public class DatabaseNode extends TableResultNodeImpl {
 	File getPersistenceDirectory() throws IOException {
 		File dir = new File(mysqlDatabasesNode.getPersistenceDirectory(), _label.toString());
 		if(!dir.exists()) {
-			if(!dir.mkdir()) {
+			if(!dir.mkdir() && !dir.isDirectory()) {
 				throw new IOException(
 					PACKAGE_RESOURCES.getMessage(
 						mysqlDatabasesNode.mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.locale,
@@ -134,7 +134,7 @@ public class DatabaseNode extends TableResultNodeImpl {
 			if(mysqlCheckTablesNode==null) {
 				mysqlCheckTablesNode = new CheckTablesNode(this, port, csf, ssf);
 				mysqlCheckTablesNode.start();
-				mysqlDatabasesNode.mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.nodeAdded();
+				mysqlDatabasesNode.mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.nodeAdded(this);
 			}
 			super.start();
 		}
@@ -148,7 +148,7 @@ public class DatabaseNode extends TableResultNodeImpl {
 			if(mysqlCheckTablesNode!=null) {
 				mysqlCheckTablesNode.stop();
 				mysqlCheckTablesNode = null;
-				mysqlDatabasesNode.mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.nodeRemoved();
+				mysqlDatabasesNode.mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.nodeRemoved(this);
 			}
 		}
 	}
@@ -26,6 +26,7 @@ import com.aoapps.lang.function.SerializableFunction;
 import com.aoindustries.aoserv.client.backup.MysqlReplication;
 import com.aoindustries.aoserv.client.mysql.Database;
 import com.aoindustries.noc.monitor.AlertLevelAndMessage;
+import com.aoindustries.noc.monitor.Bulkhead;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.TableResultNodeWorker;
 import com.aoindustries.noc.monitor.common.AlertLevel;
@@ -172,6 +173,14 @@ class DatabaseNodeWorker extends TableResultNodeWorker<List<Database.TableStatus
 		}
 	}
 
+	/**
+	 * Runs in the MySQL bulkhead.
+	 */
+	@Override
+	protected Bulkhead getBulkhead() {
+		return Bulkhead.MYSQL;
+	}
+
 	/**
 	 * If is a slowServer (many tables), only updates once every 12 hours.
 	 * Otherwise updates once every five minutes.
@@ -26,7 +26,6 @@ import com.aoapps.hodgepodge.table.Table;
 import com.aoapps.hodgepodge.table.TableListener;
 import com.aoapps.lang.exception.WrappedException;
 import com.aoindustries.aoserv.client.mysql.Database;
-import com.aoindustries.noc.monitor.AlertLevelUtils;
 import com.aoindustries.noc.monitor.NodeImpl;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.common.AlertLevel;
@@ -89,13 +88,7 @@ public class DatabasesNode extends NodeImpl {
 	 */
 	@Override
 	public AlertLevel getAlertLevel() {
-		AlertLevel level;
-		synchronized(mysqlDatabaseNodes) {
-			level = AlertLevelUtils.getMaxAlertLevel(
-				mysqlDatabaseNodes
-			);
-		}
-		return constrainAlertLevel(level);
+		return constrainAlertLevel(getChildrenAlertLevel());
 	}
 
 	/**
@@ -114,6 +107,8 @@ public class DatabasesNode extends NodeImpl {
 	private final TableListener tableListener = (Table<?> table) -> {
 		try {
 			verifyMySQLDatabases();
+			// The maximum alert levels come from the same tables
+			maxAlertLevelChanged();
 		} catch(IOException | SQLException err) {
 			throw new WrappedException(err);
 		}
@@ -134,7 +129,7 @@ public class DatabasesNode extends NodeImpl {
 			mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.conn.getMysql().getDatabase().removeTableListener(tableListener);
 			for(DatabaseNode mysqlDatabaseNode : mysqlDatabaseNodes) {
 				mysqlDatabaseNode.stop();
-				mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.nodeRemoved();
+				mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.nodeRemoved(this);
 			}
 			mysqlDatabaseNodes.clear();
 		}
@@ -158,7 +153,7 @@ public class DatabasesNode extends NodeImpl {
 					if(!mysqlDatabases.contains(mysqlDatabase)) {
 						mysqlDatabaseNode.stop();
 						mysqlDatabaseNodeIter.remove();
-						mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.nodeRemoved();
+						mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.nodeRemoved(this);
 					}
 				}
 				// Add new ones
@@ -169,7 +164,7 @@ public class DatabasesNode extends NodeImpl {
 						DatabaseNode mysqlDatabaseNode = new DatabaseNode(this, mysqlDatabase, mysqlSlaveNode!=null ? mysqlSlaveNode.getFailoverMySQLReplication() : null, port, csf, ssf);
 						mysqlDatabaseNodes.add(c, mysqlDatabaseNode);
 						mysqlDatabaseNode.start();
-						mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.nodeAdded();
+						mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.nodeAdded(this);
 					}
 				}
 			}
@@ -179,7 +174,7 @@ public class DatabasesNode extends NodeImpl {
 	File getPersistenceDirectory() throws IOException {
 		File dir = new File((mysqlSlaveNode!=null ? mysqlSlaveNode.getPersistenceDirectory() : mysqlServerNode.getPersistenceDirectory()), "mysql_databases");
 		if(!dir.exists()) {
-			if(!dir.mkdir()) {
+			if(!dir.mkdir() && !dir.isDirectory()) {
 				throw new IOException(
 					PACKAGE_RESOURCES.getMessage(
 						mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.locale,
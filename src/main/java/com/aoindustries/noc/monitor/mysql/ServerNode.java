@@ -26,7 +26,6 @@ import com.aoapps.hodgepodge.table.Table;
 import com.aoapps.hodgepodge.table.TableListener;
 import com.aoapps.lang.exception.WrappedException;
 import com.aoindustries.aoserv.client.mysql.Server;
-import com.aoindustries.noc.monitor.AlertLevelUtils;
 import com.aoindustries.noc.monitor.NodeImpl;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.RootNodeImpl;
@@ -93,12 +92,7 @@ public class ServerNode extends NodeImpl {
 	 */
 	@Override
 	public AlertLevel getAlertLevel() {
-		return constrainAlertLevel(
-			AlertLevelUtils.getMaxAlertLevel(
-				this._mysqlSlavesNode,
-				this._mysqlDatabasesNode
-			)
-		);
+		return constrainAlertLevel(getChildrenAlertLevel());
 	}
 
 	/**
@@ -136,7 +130,7 @@ public class ServerNode extends NodeImpl {
 				if(_mysqlDatabasesNode==null) {
 					_mysqlDatabasesNode = new DatabasesNode(this, port, csf, ssf);
 					_mysqlDatabasesNode.start();
-					rootNode.nodeAdded();
+					rootNode.nodeAdded(this);
 				}
 			}
 		}
@@ -152,13 +146,13 @@ public class ServerNode extends NodeImpl {
 			if(_mysqlSlavesNode!=null) {
 				_mysqlSlavesNode.stop();
 				_mysqlSlavesNode = null;
-				rootNode.nodeRemoved();
+				rootNode.nodeRemoved(this);
 			}
 
 			if(_mysqlDatabasesNode!=null) {
 				_mysqlDatabasesNode.stop();
 				_mysqlDatabasesNode = null;
-				rootNode.nodeRemoved();
+				rootNode.nodeRemoved(this);
 			}
 		}
 	}
@@ -178,13 +172,13 @@ public class ServerNode extends NodeImpl {
 					if(_mysqlSlavesNode==null) {
 						_mysqlSlavesNode = new SlavesNode(this, port, csf, ssf);
 						_mysqlSlavesNode.start();
-						_mysqlServersNode.hostNode.hostsNode.rootNode.nodeAdded();
+						_mysqlServersNode.hostNode.hostsNode.rootNode.nodeAdded(this);
 					}
 				} else {
 					if(_mysqlSlavesNode!=null) {
 						_mysqlSlavesNode.stop();
 						_mysqlSlavesNode = null;
-						_mysqlServersNode.hostNode.hostsNode.rootNode.nodeRemoved();
+						_mysqlServersNode.hostNode.hostsNode.rootNode.nodeRemoved(this);
 					}
 				}
 			}
@@ -194,7 +188,7 @@ public class ServerNode extends NodeImpl {
 	File getPersistenceDirectory() throws IOException {
 		File dir = new File(_mysqlServersNode.getPersistenceDirectory(), _label.toString());
 		if(!dir.exists()) {
-			if(!dir.mkdir()) {
+			if(!dir.mkdir() && !dir.isDirectory()) {
 				throw new IOException(
 					PACKAGE_RESOURCES.getMessage(
 						_mysqlServersNode.hostNode.hostsNode.rootNode.locale,
@@ -26,7 +26,6 @@ import com.aoapps.hodgepodge.table.Table;
 import com.aoapps.hodgepodge.table.TableListener;
 import com.aoapps.lang.exception.WrappedException;
 import com.aoindustries.aoserv.client.linux.Server;
-import com.aoindustries.noc.monitor.AlertLevelUtils;
 import com.aoindustries.noc.monitor.NodeImpl;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.common.AlertLevel;
@@ -88,11 +87,7 @@ public class ServersNode extends NodeImpl {
 	 */
 	@Override
 	public AlertLevel getAlertLevel() {
-		AlertLevel level;
-		synchronized(mysqlServerNodes) {
-			level = AlertLevelUtils.getMaxAlertLevel(mysqlServerNodes);
-		}
-		return constrainAlertLevel(level);
+		return constrainAlertLevel(getChildrenAlertLevel());
 	}
 
 	/**
@@ -131,7 +126,7 @@ public class ServersNode extends NodeImpl {
 			hostNode.hostsNode.rootNode.conn.getMysql().getServer().removeTableListener(tableListener);
 			for(ServerNode mysqlServerNode : mysqlServerNodes) {
 				mysqlServerNode.stop();
-				hostNode.hostsNode.rootNode.nodeRemoved();
+				hostNode.hostsNode.rootNode.nodeRemoved(this);
 			}
 			mysqlServerNodes.clear();
 		}
@@ -155,7 +150,7 @@ public class ServersNode extends NodeImpl {
 					if(!mysqlServers.contains(mysqlServer)) {
 						mysqlServerNode.stop();
 						mysqlServerNodeIter.remove();
-						hostNode.hostsNode.rootNode.nodeRemoved();
+						hostNode.hostsNode.rootNode.nodeRemoved(this);
 					}
 				}
 				// Add new ones
@@ -166,7 +161,7 @@ public class ServersNode extends NodeImpl {
 						ServerNode mysqlServerNode = new ServerNode(this, mysqlServer, port, csf, ssf);
 						mysqlServerNodes.add(c, mysqlServerNode);
 						mysqlServerNode.start();
-						hostNode.hostsNode.rootNode.nodeAdded();
+						hostNode.hostsNode.rootNode.nodeAdded(this);
 					}
 				}
 			}
@@ -176,7 +171,7 @@ public class ServersNode extends NodeImpl {
 	File getPersistenceDirectory() throws IOException {
 		File dir = new File(hostNode.getPersistenceDirectory(), "mysql_servers");
 		if(!dir.exists()) {
-			if(!dir.mkdir()) {
+			if(!dir.mkdir() && !dir.isDirectory()) {
 				throw new IOException(
 					PACKAGE_RESOURCES.getMessage(
 						hostNode.hostsNode.rootNode.locale,
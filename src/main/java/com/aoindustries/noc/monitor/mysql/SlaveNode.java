@@ -112,12 +112,7 @@ public class SlaveNode extends NodeImpl {
 	 */
 	@Override
 	public AlertLevel getAlertLevel() {
-		return constrainAlertLevel(
-			AlertLevelUtils.getMaxAlertLevel(
-				this._mysqlSlaveStatusNode,
-				this._mysqlDatabasesNode
-			)
-		);
+		return constrainAlertLevel(getChildrenAlertLevel());
 	}
 
 	/**
@@ -141,12 +136,12 @@ public class SlaveNode extends NodeImpl {
 			if(_mysqlSlaveStatusNode==null) {
 				_mysqlSlaveStatusNode = new SlaveStatusNode(this, port, csf, ssf);
 				_mysqlSlaveStatusNode.start();
-				rootNode.nodeAdded();
+				rootNode.nodeAdded(this);
 			}
 			if(_mysqlDatabasesNode==null) {
 				_mysqlDatabasesNode = new DatabasesNode(this, port, csf, ssf);
 				_mysqlDatabasesNode.start();
-				rootNode.nodeAdded();
+				rootNode.nodeAdded(this);
 			}
 		}
 	}
@@ -158,13 +153,13 @@ public class SlaveNode extends NodeImpl {
 			if(_mysqlSlaveStatusNode!=null) {
 				_mysqlSlaveStatusNode.stop();
 				_mysqlSlaveStatusNode = null;
-				rootNode.nodeRemoved();
+				rootNode.nodeRemoved(this);
 			}
 
 			if(_mysqlDatabasesNode!=null) {
 				_mysqlDatabasesNode.stop();
 				_mysqlDatabasesNode = null;
-				rootNode.nodeRemoved();
+				rootNode.nodeRemoved(this);
 			}
 		}
 	}
@@ -172,7 +167,7 @@ public class SlaveNode extends NodeImpl {
 	File getPersistenceDirectory() throws IOException {
 		File dir = new File(mysqlSlavesNode.getPersistenceDirectory(), Integer.toString(_mysqlReplication.getPkey()));
 		if(!dir.exists()) {
-			if(!dir.mkdir()) {
+			if(!dir.mkdir() && !dir.isDirectory()) {
 				throw new IOException(
 					PACKAGE_RESOURCES.getMessage(
 						mysqlSlavesNode.mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.locale,
@@ -26,6 +26,7 @@ import com.aoapps.lang.sql.LocalizedSQLException;
 import com.aoindustries.aoserv.client.backup.MysqlReplication;
 import com.aoindustries.aoserv.client.mysql.Server;
 import com.aoindustries.noc.monitor.AlertLevelAndMessage;
+import com.aoindustries.noc.monitor.Bulkhead;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.TableMultiResultNodeWorker;
 import com.aoindustries.noc.monitor.common.AlertLevel;
@@ -69,6 +70,14 @@ class SlaveStatusNodeWorker extends TableMultiResultNodeWorker<List<String>, MyS
 		this._mysqlReplication = currentFailoverMySQLReplication = mysqlReplication;
 	}
 
+	/**
+	 * Runs in the MySQL bulkhead.
+	 */
+	@Override
+	protected Bulkhead getBulkhead() {
+		return Bulkhead.MYSQL;
+	}
+
 	@Override
 	protected int getHistorySize() {
 		return 2000;
@@ -214,6 +223,14 @@ class SlaveStatusNodeWorker extends TableMultiResultNodeWorker<List<String>, MyS
 		}
 	}
 
+	/**
+	 * Never backs off, so replication stopping is detected within the base delay.
+	 */
+	@Override
+	protected boolean isBackoffAllowed() {
+		return false;
+	}
+
 	@Override
 	protected MySQLReplicationResult newErrorResult(long time, long latency, AlertLevel alertLevel, String error) {
 		return new MySQLReplicationResult(time, latency, alertLevel, error);
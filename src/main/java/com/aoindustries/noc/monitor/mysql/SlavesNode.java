@@ -26,7 +26,6 @@ import com.aoapps.hodgepodge.table.Table;
 import com.aoapps.hodgepodge.table.TableListener;
 import com.aoapps.lang.exception.WrappedException;
 import com.aoindustries.aoserv.client.backup.MysqlReplication;
-import com.aoindustries.noc.monitor.AlertLevelUtils;
 import com.aoindustries.noc.monitor.NodeImpl;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.common.AlertLevel;
@@ -82,11 +81,7 @@ public class SlavesNode extends NodeImpl {
 	 */
 	@Override
 	public AlertLevel getAlertLevel() {
-		AlertLevel level;
-		synchronized(mysqlSlaveNodes) {
-			level = AlertLevelUtils.getMaxAlertLevel(mysqlSlaveNodes);
-		}
-		return constrainAlertLevel(level);
+		return constrainAlertLevel(getChildrenAlertLevel());
 	}
 
 	/**
@@ -105,6 +100,8 @@ public class SlavesNode extends NodeImpl {
 	private final TableListener tableListener = (Table<?> table) -> {
 		try {
 			verifyMySQLSlaves();
+			// The maximum alert levels come from the same tables
+			maxAlertLevelChanged();
 		} catch(IOException | SQLException err) {
 			throw new WrappedException(err);
 		}
@@ -129,7 +126,7 @@ public class SlavesNode extends NodeImpl {
 			mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.conn.getNet().getHost().removeTableListener(tableListener);
 			for(SlaveNode mysqlSlaveNode : mysqlSlaveNodes) {
 				mysqlSlaveNode.stop();
-				mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.nodeRemoved();
+				mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.nodeRemoved(this);
 			}
 			mysqlSlaveNodes.clear();
 		}
@@ -155,7 +152,7 @@ public class SlavesNode extends NodeImpl {
 					if(!mysqlReplications.contains(mysqlReplication)) {
 						mysqlSlaveNode.stop();
 						mysqlSlaveNodeIter.remove();
-						mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.nodeRemoved();
+						mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.nodeRemoved(this);
 					}
 				}
 				// Add new ones
@@ -166,7 +163,7 @@ public class SlavesNode extends NodeImpl {
 						SlaveNode mysqlSlaveNode = new SlaveNode(this, mysqlReplication, port, csf, ssf);
 						mysqlSlaveNodes.add(c, mysqlSlaveNode);
 						mysqlSlaveNode.start();
-						mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.nodeAdded();
+						mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.nodeAdded(this);
 					}
 				}
 			}
@@ -176,7 +173,7 @@ public class SlavesNode extends NodeImpl {
 	File getPersistenceDirectory() throws IOException {
 		File dir = new File(mysqlServerNode.getPersistenceDirectory(), "mysql_slaves");
 		if(!dir.exists()) {
-			if(!dir.mkdir()) {
+			if(!dir.mkdir() && !dir.isDirectory()) {
 				throw new IOException(
 					PACKAGE_RESOURCES.getMessage(
 						mysqlServerNode._mysqlServersNode.hostNode.hostsNode.rootNode.locale,
@@ -30,6 +30,7 @@ import com.aoindustries.aoserv.client.linux.Server;
 import com.aoindustries.aoserv.client.net.Bind;
 import com.aoindustries.aoserv.client.net.Host;
 import com.aoindustries.noc.monitor.AlertLevelAndMessage;
+import com.aoindustries.noc.monitor.Bulkhead;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.TableMultiResultNodeWorker;
 import com.aoindustries.noc.monitor.common.AlertLevel;
@@ -86,6 +87,14 @@ class BindNodeWorker extends TableMultiResultNodeWorker<String, NetBindResult> {
 		this.netMonitorSetting = netMonitorSetting;
 	}
 
+	/**
+	 * Port checks are made directly over the network.
+	 */
+	@Override
+	protected Bulkhead getBulkhead() {
+		return Bulkhead.NETWORK;
+	}
+
 	@Override
 	protected int getHistorySize() {
 		return 2000;
@@ -140,6 +149,14 @@ class BindNodeWorker extends TableMultiResultNodeWorker<String, NetBindResult> {
 		);
 	}
 
+	/**
+	 * Never backs off, so a service going down is detected within the base delay.
+	 */
+	@Override
+	protected boolean isBackoffAllowed() {
+		return false;
+	}
+
 	@Override
 	protected NetBindResult newErrorResult(long time, long latency, AlertLevel alertLevel, String error) {
 		return new NetBindResult(time, latency, alertLevel, error, null);
@@ -32,7 +32,6 @@ import com.aoindustries.aoserv.client.net.Bind;
 import com.aoindustries.aoserv.client.net.Device;
 import com.aoindustries.aoserv.client.net.Host;
 import com.aoindustries.aoserv.client.net.IpAddress;
-import com.aoindustries.noc.monitor.AlertLevelUtils;
 import com.aoindustries.noc.monitor.NodeImpl;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.RootNodeImpl;
@@ -92,11 +91,7 @@ public class BindsNode extends NodeImpl {
 	 */
 	@Override
 	public AlertLevel getAlertLevel() {
-		AlertLevel level;
-		synchronized(netBindNodes) {
-			level = AlertLevelUtils.getMaxAlertLevel(netBindNodes);
-		}
-		return constrainAlertLevel(level);
+		return constrainAlertLevel(getChildrenAlertLevel());
 	}
 
 	/**
@@ -154,7 +149,7 @@ public class BindsNode extends NodeImpl {
 			conn.getNet().getDevice().removeTableListener(tableListener);
 			for(BindNode netBindNode : netBindNodes) {
 				netBindNode.stop();
-				rootNode.nodeRemoved();
+				rootNode.nodeRemoved(this);
 			}
 			netBindNodes.clear();
 		}
@@ -310,7 +305,7 @@ public class BindsNode extends NodeImpl {
 					if(!netMonitorSettings.contains(netMonitorSetting)) {
 						netBindNode.stop();
 						netBindNodeIter.remove();
-						rootNode.nodeRemoved();
+						rootNode.nodeRemoved(this);
 					}
 				}
 				// Add new ones
@@ -321,7 +316,7 @@ public class BindsNode extends NodeImpl {
 						BindNode netBindNode = new BindNode(this, netMonitorSetting, port, csf, ssf);
 						netBindNodes.add(c, netBindNode);
 						netBindNode.start();
-						rootNode.nodeAdded();
+						rootNode.nodeAdded(this);
 					}
 				}
 			}
@@ -331,7 +326,7 @@ public class BindsNode extends NodeImpl {
 	File getPersistenceDirectory() throws IOException {
 		File dir = new File(ipAddressNode.getPersistenceDirectory(), "net_binds");
 		if(!dir.exists()) {
-			if(!dir.mkdir()) {
+			if(!dir.mkdir() && !dir.isDirectory()) {
 				throw new IOException(
 					PACKAGE_RESOURCES.getMessage(
 						ipAddressNode.ipAddressesNode.rootNode.locale,
@@ -33,6 +33,7 @@ import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -264,4 +265,20 @@ class DeviceBitRateNodeWorker extends TableMultiResultNodeWorker<List<Object>, N
 			(Long)sample.get(7)
 		);
 	}
+
+	@Override
+	protected List<String> getRollupColumns() {
+		return Arrays.asList("txBitsPerSecond", "rxBitsPerSecond", "txPacketsPerSecond", "rxPacketsPerSecond");
+	}
+
+	@Override
+	protected double[] getRollupValues(NetDeviceBitRateResult result) {
+		if(result.getError() != null) return null;
+		return new double[] {
+			result.getTxBitsPerSecond(),
+			result.getRxBitsPerSecond(),
+			result.getTxPacketsPerSecond(),
+			result.getRxPacketsPerSecond()
+		};
+	}
 }
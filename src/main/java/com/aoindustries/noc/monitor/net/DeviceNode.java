@@ -29,7 +29,6 @@ import com.aoindustries.aoserv.client.AOServConnector;
 import com.aoindustries.aoserv.client.linux.Server;
 import com.aoindustries.aoserv.client.net.Device;
 import com.aoindustries.aoserv.client.net.DeviceId;
-import com.aoindustries.noc.monitor.AlertLevelUtils;
 import com.aoindustries.noc.monitor.NodeImpl;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.RootNodeImpl;
@@ -101,13 +100,7 @@ public class DeviceNode extends NodeImpl {
 	 */
 	@Override
 	public AlertLevel getAlertLevel() {
-		return constrainAlertLevel(
-			AlertLevelUtils.getMaxAlertLevel(
-				this._netDeviceBitRateNode,
-				this._netDeviceBondingNode,
-				this._ipAddressesNode
-			)
-		);
+		return constrainAlertLevel(getChildrenAlertLevel());
 	}
 
 	/**
@@ -152,17 +145,17 @@ public class DeviceNode extends NodeImpl {
 			if(_ipAddressesNode!=null) {
 				_ipAddressesNode.stop();
 				_ipAddressesNode = null;
-				rootNode.nodeRemoved();
+				rootNode.nodeRemoved(this);
 			}
 			if(_netDeviceBondingNode!=null) {
 				_netDeviceBondingNode.stop();
 				_netDeviceBondingNode = null;
-				rootNode.nodeRemoved();
+				rootNode.nodeRemoved(this);
 			}
 			if(_netDeviceBitRateNode!=null) {
 				_netDeviceBitRateNode.stop();
 				_netDeviceBitRateNode = null;
-				rootNode.nodeRemoved();
+				rootNode.nodeRemoved(this);
 			}
 		}
 	}
@@ -194,13 +187,13 @@ public class DeviceNode extends NodeImpl {
 					if(_netDeviceBitRateNode==null) {
 						_netDeviceBitRateNode = new DeviceBitRateNode(this, port, csf, ssf);
 						_netDeviceBitRateNode.start();
-						rootNode.nodeAdded();
+						rootNode.nodeAdded(this);
 					}
 				} else {
 					if(_netDeviceBitRateNode!=null) {
 						_netDeviceBitRateNode.stop();
 						_netDeviceBitRateNode = null;
-						rootNode.nodeRemoved();
+						rootNode.nodeRemoved(this);
 					}
 				}
 				// bonding
@@ -215,13 +208,13 @@ public class DeviceNode extends NodeImpl {
 					if(_netDeviceBondingNode==null) {
 						_netDeviceBondingNode = new DeviceBondingNode(this, port, csf, ssf);
 						_netDeviceBondingNode.start();
-						rootNode.nodeAdded();
+						rootNode.nodeAdded(this);
 					}
 				} else {
 					if(_netDeviceBondingNode!=null) {
 						_netDeviceBondingNode.stop();
 						_netDeviceBondingNode = null;
-						rootNode.nodeRemoved();
+						rootNode.nodeRemoved(this);
 					}
 				}
 				// IP Addresses
@@ -229,13 +222,13 @@ public class DeviceNode extends NodeImpl {
 					if(_ipAddressesNode==null) {
 						_ipAddressesNode = new IpAddressesNode(this, port, csf, ssf);
 						_ipAddressesNode.start();
-						rootNode.nodeAdded();
+						rootNode.nodeAdded(this);
 					}
 				} else {
 					if(_ipAddressesNode!=null) {
 						_ipAddressesNode.stop();
 						_ipAddressesNode = null;
-						rootNode.nodeRemoved();
+						rootNode.nodeRemoved(this);
 					}
 				}
 			}
@@ -245,7 +238,7 @@ public class DeviceNode extends NodeImpl {
 	File getPersistenceDirectory() throws IOException {
 		File dir = new File(_networkDevicesNode.getPersistenceDirectory(), _label);
 		if(!dir.exists()) {
-			if(!dir.mkdir()) {
+			if(!dir.mkdir() && !dir.isDirectory()) {
 				throw new IOException(
 					PACKAGE_RESOURCES.getMessage(
 						_networkDevicesNode.hostNode.hostsNode.rootNode.locale,
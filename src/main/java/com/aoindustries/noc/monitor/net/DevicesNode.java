@@ -27,7 +27,6 @@ import com.aoapps.hodgepodge.table.TableListener;
 import com.aoapps.lang.exception.WrappedException;
 import com.aoindustries.aoserv.client.net.Device;
 import com.aoindustries.aoserv.client.net.Host;
-import com.aoindustries.noc.monitor.AlertLevelUtils;
 import com.aoindustries.noc.monitor.NodeImpl;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.common.AlertLevel;
@@ -88,11 +87,7 @@ public class DevicesNode extends NodeImpl {
 	 */
 	@Override
 	public AlertLevel getAlertLevel() {
-		AlertLevel level;
-		synchronized(netDeviceNodes) {
-			level = AlertLevelUtils.getMaxAlertLevel(netDeviceNodes);
-		}
-		return constrainAlertLevel(level);
+		return constrainAlertLevel(getChildrenAlertLevel());
 	}
 
 	/**
@@ -131,7 +126,7 @@ public class DevicesNode extends NodeImpl {
 			hostNode.hostsNode.rootNode.conn.getNet().getDevice().removeTableListener(tableListener);
 			for(DeviceNode netDeviceNode : netDeviceNodes) {
 				netDeviceNode.stop();
-				hostNode.hostsNode.rootNode.nodeRemoved();
+				hostNode.hostsNode.rootNode.nodeRemoved(this);
 			}
 			netDeviceNodes.clear();
 		}
@@ -163,7 +158,7 @@ public class DevicesNode extends NodeImpl {
 					if(!netDevices.contains(device)) {
 						netDeviceNode.stop();
 						netDeviceNodeIter.remove();
-						hostNode.hostsNode.rootNode.nodeRemoved();
+						hostNode.hostsNode.rootNode.nodeRemoved(this);
 					}
 				}
 				// Add new ones
@@ -174,7 +169,7 @@ public class DevicesNode extends NodeImpl {
 						DeviceNode netDeviceNode = new DeviceNode(this, device, port, csf, ssf);
 						netDeviceNodes.add(c, netDeviceNode);
 						netDeviceNode.start();
-						hostNode.hostsNode.rootNode.nodeAdded();
+						hostNode.hostsNode.rootNode.nodeAdded(this);
 					}
 				}
 			}
@@ -184,7 +179,7 @@ public class DevicesNode extends NodeImpl {
 	File getPersistenceDirectory() throws IOException {
 		File dir = new File(hostNode.getPersistenceDirectory(), "net_devices");
 		if(!dir.exists()) {
-			if(!dir.mkdir()) {
+			if(!dir.mkdir() && !dir.isDirectory()) {
 				throw new IOException(
 					PACKAGE_RESOURCES.getMessage(
 						hostNode.hostsNode.rootNode.locale,
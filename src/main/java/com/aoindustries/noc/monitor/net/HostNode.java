@@ -30,9 +30,9 @@ import com.aoindustries.aoserv.client.infrastructure.PhysicalServer;
 import com.aoindustries.aoserv.client.linux.Server;
 import com.aoindustries.aoserv.client.net.Host;
 import com.aoindustries.aoserv.client.web.HttpdServer;
-import com.aoindustries.noc.monitor.AlertLevelUtils;
 import com.aoindustries.noc.monitor.NodeImpl;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
+import com.aoindustries.noc.monitor.TreeBuilder;
 import com.aoindustries.noc.monitor.backup.BackupsNode;
 import com.aoindustries.noc.monitor.common.AlertLevel;
 import com.aoindustries.noc.monitor.infrastructure.HardDrivesNode;
@@ -51,7 +51,11 @@ import java.rmi.RemoteException;
 import java.rmi.server.RMIClientSocketFactory;
 import java.rmi.server.RMIServerSocketFactory;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
 import javax.swing.SwingUtilities;
 
 /**
@@ -129,22 +133,7 @@ public class HostNode extends NodeImpl {
 	 */
 	@Override
 	public AlertLevel getAlertLevel() {
-		return constrainAlertLevel(
-			AlertLevelUtils.getMaxAlertLevel(
-				this._backupsNode,
-				this._netDevicesNode,
-				this._httpdServersNode,
-				this._mysqlServersNode,
-				this._hardDrivesNode,
-				this._raidNode,
-				this._sslCertificatesNode,
-				this._upsNode,
-				this._filesystemsNode,
-				this._loadAverageNode,
-				this._memoryNode,
-				this._timeNode
-			)
-		);
+		return constrainAlertLevel(getChildrenAlertLevel());
 	}
 
 	/**
@@ -162,17 +151,7 @@ public class HostNode extends NodeImpl {
 
 	private final TableListener tableListener = (Table<?> table) -> {
 		try {
-			verifyNetDevices();
-			verifyHttpdServers();
-			verifyMySQLServers();
-			verifyHardDrives();
-			verifyRaid();
-			verifySslCertificates();
-			verifyUps();
-			verifyFilesystems();
-			verifyLoadAverage();
-			verifyMemory();
-			verifyTime();
+			verifyAll();
 		} catch(IOException | SQLException err) {
 			throw new WrappedException(err);
 		}
@@ -182,6 +161,7 @@ public class HostNode extends NodeImpl {
 	 * Starts this node after it is added to the parent.
 	 */
 	public void start() throws IOException, SQLException {
+		BackupsNode newBackupsNode = null;
 		synchronized(this) {
 			if(started) throw new IllegalStateException();
 			started = true;
@@ -193,22 +173,83 @@ public class HostNode extends NodeImpl {
 			hostsNode.rootNode.conn.getNet().getHost().addTableListener(tableListener, 100);
 			hostsNode.rootNode.conn.getPki().getCertificate().addTableListener(tableListener, 100);
 			if(_backupsNode==null) {
-				_backupsNode = new BackupsNode(this, port, csf, ssf);
-				_backupsNode.start();
-				hostsNode.rootNode.nodeAdded();
+				newBackupsNode = _backupsNode = starting(new BackupsNode(this, port, csf, ssf));
 			}
 		}
-		verifyNetDevices();
-		verifyHttpdServers();
-		verifyMySQLServers();
-		verifyHardDrives();
-		verifyRaid();
-		verifySslCertificates();
-		verifyUps();
-		verifyFilesystems();
-		verifyLoadAverage();
-		verifyMemory();
-		verifyTime();
+		if(newBackupsNode != null) startChild(newBackupsNode, newBackupsNode::start, () -> _backupsNode, newBackupsNode::stop);
+		verifyAll();
+	}
+
+	/**
+	 * The children set in their field but not yet started by {@link #startChild(com.aoindustries.noc.monitor.NodeImpl, com.aoindustries.noc.monitor.TreeBuilder.Step, java.util.function.Supplier, java.lang.Runnable)}.
+	 * Synchronized on this node.
+	 */
+	private final Set<NodeImpl> starting = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	/**
+	 * Marks a new child as starting, while synchronized on this node, before it is set in its field.
+	 */
+	private <N extends NodeImpl> N starting(N child) {
+		assert Thread.holdsLock(this);
+		starting.add(child);
+		return child;
+	}
+
+	/**
+	 * Removes a child, while synchronized on this node, before its field is cleared.
+	 * A child still starting has not been added, so is left for {@link #startChild(com.aoindustries.noc.monitor.NodeImpl, com.aoindustries.noc.monitor.TreeBuilder.Step, java.util.function.Supplier, java.lang.Runnable)}
+	 * to stop once started.
+	 */
+	private void removeChild(NodeImpl child, Runnable stop) {
+		assert Thread.holdsLock(this);
+		if(!starting.contains(child)) {
+			stop.run();
+			hostsNode.rootNode.nodeRemoved(this);
+		}
+	}
+
+	/**
+	 * Starts a child that was added while synchronized on this node.  The child is
+	 * started without holding the lock, so the other passes proceed meanwhile.  A
+	 * child removed while starting is stopped once started, and is never added.
+	 * A child that fails to start is still added, since it remains in its field
+	 * until removed.
+	 *
+	 * @param  current  Gets the child currently in the field, called while synchronized on this node
+	 */
+	private void startChild(NodeImpl child, TreeBuilder.Step start, Supplier<NodeImpl> current, Runnable stop) throws IOException, SQLException {
+		try {
+			start.run();
+		} finally {
+			boolean removed;
+			synchronized(this) {
+				starting.remove(child);
+				removed = current.get() != child;
+				if(!removed) hostsNode.rootNode.nodeAdded(this);
+			}
+			if(removed) stop.run();
+		}
+	}
+
+	/**
+	 * Runs all the verify passes in parallel.  The passes are independent, each only
+	 * synchronizing on this node while adding or removing its own child, then
+	 * starting any new child outside the lock.
+	 */
+	private void verifyAll() throws IOException, SQLException {
+		TreeBuilder.parallel(
+			this::verifyNetDevices,
+			this::verifyHttpdServers,
+			this::verifyMySQLServers,
+			this::verifyHardDrives,
+			this::verifyRaid,
+			this::verifySslCertificates,
+			this::verifyUps,
+			this::verifyFilesystems,
+			this::verifyLoadAverage,
+			this::verifyMemory,
+			this::verifyTime
+		);
 	}
 
 	/**
@@ -225,79 +266,67 @@ public class HostNode extends NodeImpl {
 			hostsNode.rootNode.conn.getNet().getHost().removeTableListener(tableListener);
 			hostsNode.rootNode.conn.getPki().getCertificate().removeTableListener(tableListener);
 			if(_timeNode!=null) {
-				_timeNode.stop();
+				removeChild(_timeNode, _timeNode::stop);
 				_timeNode = null;
-				hostsNode.rootNode.nodeRemoved();
 			}
 			if(_memoryNode!=null) {
-				_memoryNode.stop();
+				removeChild(_memoryNode, _memoryNode::stop);
 				_memoryNode = null;
-				hostsNode.rootNode.nodeRemoved();
 			}
 			if(_loadAverageNode!=null) {
-				_loadAverageNode.stop();
+				removeChild(_loadAverageNode, _loadAverageNode::stop);
 				_loadAverageNode = null;
-				hostsNode.rootNode.nodeRemoved();
 			}
 			if(_filesystemsNode!=null) {
-				_filesystemsNode.stop();
+				removeChild(_filesystemsNode, _filesystemsNode::stop);
 				_filesystemsNode = null;
-				hostsNode.rootNode.nodeRemoved();
 			}
 			if(_upsNode!=null) {
-				_upsNode.stop();
+				removeChild(_upsNode, _upsNode::stop);
 				_upsNode = null;
-				hostsNode.rootNode.nodeRemoved();
 			}
 			if(_sslCertificatesNode!=null) {
-				_sslCertificatesNode.stop();
+				removeChild(_sslCertificatesNode, _sslCertificatesNode::stop);
 				_sslCertificatesNode = null;
-				hostsNode.rootNode.nodeRemoved();
 			}
 			if(_raidNode!=null) {
-				_raidNode.stop();
+				removeChild(_raidNode, _raidNode::stop);
 				_raidNode = null;
-				hostsNode.rootNode.nodeRemoved();
 			}
 			if(_hardDrivesNode!=null) {
-				_hardDrivesNode.stop();
+				removeChild(_hardDrivesNode, _hardDrivesNode::stop);
 				_hardDrivesNode = null;
-				hostsNode.rootNode.nodeRemoved();
 			}
 			if(_mysqlServersNode!=null) {
-				_mysqlServersNode.stop();
+				removeChild(_mysqlServersNode, _mysqlServersNode::stop);
 				_mysqlServersNode = null;
-				hostsNode.rootNode.nodeRemoved();
 			}
 			if(_httpdServersNode!=null) {
-				_httpdServersNode.stop();
+				removeChild(_httpdServersNode, _httpdServersNode::stop);
 				_httpdServersNode = null;
-				hostsNode.rootNode.nodeRemoved();
 			}
 			if(_netDevicesNode!=null) {
-				_netDevicesNode.stop();
+				removeChild(_netDevicesNode, _netDevicesNode::stop);
 				_netDevicesNode = null;
-				hostsNode.rootNode.nodeRemoved();
 			}
 			if(_backupsNode!=null) {
-				_backupsNode.stop();
+				removeChild(_backupsNode, _backupsNode::stop);
 				_backupsNode = null;
-				hostsNode.rootNode.nodeRemoved();
 			}
 		}
 	}
 
 	private void verifyNetDevices() throws IOException, SQLException {
 		assert !SwingUtilities.isEventDispatchThread() : "Running in Swing event dispatch thread";
+		DevicesNode newNode = null;
 		synchronized(this) {
 			if(started) {
 				if(_netDevicesNode==null) {
-					_netDevicesNode = new DevicesNode(this, _host, port, csf, ssf);
-					_netDevicesNode.start();
-					hostsNode.rootNode.nodeAdded();
+					newNode = _netDevicesNode = starting(new DevicesNode(this, _host, port, csf, ssf));
 				}
 			}
 		}
+		if(newNode != null) startChild(newNode, newNode::start, () -> _netDevicesNode, newNode::stop);
 	}
 
 	private void verifyHttpdServers() throws IOException, SQLException {
@@ -309,25 +338,24 @@ public class HostNode extends NodeImpl {
 
 		Server linuxServer = _host.getLinuxServer();
 		List<HttpdServer> httpdServers = linuxServer==null ? null : linuxServer.getHttpdServers();
+		HttpdServersNode newNode = null;
 		synchronized(this) {
 			if(started) {
 				if(httpdServers!=null && !httpdServers.isEmpty()) {
 					// Has HTTPD server
 					if(_httpdServersNode == null) {
-						_httpdServersNode = new HttpdServersNode(this, linuxServer, port, csf, ssf);
-						_httpdServersNode.start();
-						hostsNode.rootNode.nodeAdded();
+						newNode = _httpdServersNode = starting(new HttpdServersNode(this, linuxServer, port, csf, ssf));
 					}
 				} else {
 					// No HTTPD server
 					if(_httpdServersNode != null) {
-						_httpdServersNode.stop();
+						removeChild(_httpdServersNode, _httpdServersNode::stop);
 						_httpdServersNode = null;
-						hostsNode.rootNode.nodeRemoved();
 					}
 				}
 			}
 		}
+		if(newNode != null) startChild(newNode, newNode::start, () -> _httpdServersNode, newNode::stop);
 	}
 
 	private void verifyMySQLServers() throws IOException, SQLException {
@@ -339,25 +367,24 @@ public class HostNode extends NodeImpl {
 
 		Server linuxServer = _host.getLinuxServer();
 		List<com.aoindustries.aoserv.client.mysql.Server> mysqlServers = linuxServer==null ? null : linuxServer.getMySQLServers();
+		ServersNode newNode = null;
 		synchronized(this) {
 			if(started) {
 				if(mysqlServers!=null && !mysqlServers.isEmpty()) {
 					// Has MySQL server
 					if(_mysqlServersNode==null) {
-						_mysqlServersNode = new ServersNode(this, linuxServer, port, csf, ssf);
-						_mysqlServersNode.start();
-						hostsNode.rootNode.nodeAdded();
+						newNode = _mysqlServersNode = starting(new ServersNode(this, linuxServer, port, csf, ssf));
 					}
 				} else {
 					// No MySQL server
 					if(_mysqlServersNode!=null) {
-						_mysqlServersNode.stop();
+						removeChild(_mysqlServersNode, _mysqlServersNode::stop);
 						_mysqlServersNode = null;
-						hostsNode.rootNode.nodeRemoved();
 					}
 				}
 			}
 		}
+		if(newNode != null) startChild(newNode, newNode::start, () -> _mysqlServersNode, newNode::stop);
 	}
 
 	private void verifyHardDrives() throws IOException, SQLException {
@@ -370,6 +397,7 @@ public class HostNode extends NodeImpl {
 		Server linuxServer = _host.getLinuxServer();
 		OperatingSystemVersion osvObj = _host.getOperatingSystemVersion();
 		int osv = osvObj==null ? -1 : osvObj.getPkey();
+		HardDrivesNode newNode = null;
 		synchronized(this) {
 			if(started) {
 				if(
@@ -382,20 +410,18 @@ public class HostNode extends NodeImpl {
 				) {
 					// Has hddtemp monitoring
 					if(_hardDrivesNode==null) {
-						_hardDrivesNode = new HardDrivesNode(this, linuxServer, port, csf, ssf);
-						_hardDrivesNode.start();
-						hostsNode.rootNode.nodeAdded();
+						newNode = _hardDrivesNode = starting(new HardDrivesNode(this, linuxServer, port, csf, ssf));
 					}
 				} else {
 					// No hddtemp monitoring
 					if(_hardDrivesNode!=null) {
-						_hardDrivesNode.stop();
+						removeChild(_hardDrivesNode, _hardDrivesNode::stop);
 						_hardDrivesNode = null;
-						hostsNode.rootNode.nodeRemoved();
 					}
 				}
 			}
 		}
+		if(newNode != null) startChild(newNode, newNode::start, () -> _hardDrivesNode, newNode::stop);
 	}
 
 	private void verifyRaid() throws IOException, SQLException {
@@ -406,25 +432,24 @@ public class HostNode extends NodeImpl {
 		}
 
 		Server linuxServer = _host.getLinuxServer();
+		RaidNode newNode = null;
 		synchronized(this) {
 			if(started) {
 				if(linuxServer==null) {
 					// No raid monitoring
 					if(_raidNode!=null) {
-						_raidNode.stop();
+						removeChild(_raidNode, _raidNode::stop);
 						_raidNode = null;
-						hostsNode.rootNode.nodeRemoved();
 					}
 				} else {
 					// Has raid monitoring
 					if(_raidNode==null) {
-						_raidNode = new RaidNode(this, linuxServer, port, csf, ssf);
-						_raidNode.start();
-						hostsNode.rootNode.nodeAdded();
+						newNode = _raidNode = starting(new RaidNode(this, linuxServer, port, csf, ssf));
 					}
 				}
 			}
 		}
+		if(newNode != null) startChild(newNode, newNode::start, () -> _raidNode, newNode::stop);
 	}
 
 	private void verifySslCertificates() throws IOException, SQLException {
@@ -436,25 +461,24 @@ public class HostNode extends NodeImpl {
 
 		Server linuxServer = _host.getLinuxServer();
 		int numCerts = linuxServer == null ? 0 : linuxServer.getSslCertificates().size();
+		CertificatesNode newNode = null;
 		synchronized(this) {
 			if(started) {
 				if(numCerts == 0) {
 					// No SSL certificate monitoring or no certificates to monitor
 					if(_sslCertificatesNode != null) {
-						_sslCertificatesNode.stop();
+						removeChild(_sslCertificatesNode, _sslCertificatesNode::stop);
 						_sslCertificatesNode = null;
-						hostsNode.rootNode.nodeRemoved();
 					}
 				} else {
 					// Has monitored SSL certificates
 					if(_sslCertificatesNode == null) {
-						_sslCertificatesNode = new CertificatesNode(this, linuxServer, port, csf, ssf);
-						_sslCertificatesNode.start();
-						hostsNode.rootNode.nodeAdded();
+						newNode = _sslCertificatesNode = starting(new CertificatesNode(this, linuxServer, port, csf, ssf));
 					}
 				}
 			}
 		}
+		if(newNode != null) startChild(newNode, newNode::start, () -> _sslCertificatesNode, newNode::stop);
 	}
 
 	private void verifyUps() throws IOException, SQLException {
@@ -466,6 +490,7 @@ public class HostNode extends NodeImpl {
 
 		Server linuxServer = _host.getLinuxServer();
 		PhysicalServer physicalServer = _host.getPhysicalServer();
+		UpsNode newNode = null;
 		synchronized(this) {
 			if(started) {
 				if(
@@ -475,20 +500,18 @@ public class HostNode extends NodeImpl {
 				) {
 					// No UPS monitoring
 					if(_upsNode!=null) {
-						_upsNode.stop();
+						removeChild(_upsNode, _upsNode::stop);
 						_upsNode = null;
-						hostsNode.rootNode.nodeRemoved();
 					}
 				} else {
 					// Has UPS monitoring
 					if(_upsNode==null) {
-						_upsNode = new UpsNode(this, linuxServer, port, csf, ssf);
-						_upsNode.start();
-						hostsNode.rootNode.nodeAdded();
+						newNode = _upsNode = starting(new UpsNode(this, linuxServer, port, csf, ssf));
 					}
 				}
 			}
 		}
+		if(newNode != null) startChild(newNode, newNode::start, () -> _upsNode, newNode::stop);
 	}
 
 	private void verifyFilesystems() throws IOException, SQLException {
@@ -499,25 +522,24 @@ public class HostNode extends NodeImpl {
 		}
 
 		Server linuxServer = _host.getLinuxServer();
+		FilesystemsNode newNode = null;
 		synchronized(this) {
 			if(started) {
 				if(linuxServer==null) {
 					// No filesystem monitoring
 					if(_filesystemsNode!=null) {
-						_filesystemsNode.stop();
+						removeChild(_filesystemsNode, _filesystemsNode::stop);
 						_filesystemsNode = null;
-						hostsNode.rootNode.nodeRemoved();
 					}
 				} else {
 					// Has filesystem monitoring
 					if(_filesystemsNode==null) {
-						_filesystemsNode = new FilesystemsNode(this, linuxServer, port, csf, ssf);
-						_filesystemsNode.start();
-						hostsNode.rootNode.nodeAdded();
+						newNode = _filesystemsNode = starting(new FilesystemsNode(this, linuxServer, port, csf, ssf));
 					}
 				}
 			}
 		}
+		if(newNode != null) startChild(newNode, newNode::start, () -> _filesystemsNode, newNode::stop);
 	}
 
 	private void verifyLoadAverage() throws IOException, SQLException {
@@ -528,25 +550,24 @@ public class HostNode extends NodeImpl {
 		}
 
 		Server linuxServer = _host.getLinuxServer();
+		LoadAverageNode newNode = null;
 		synchronized(this) {
 			if(started) {
 				if(linuxServer==null) {
 					// No load monitoring
 					if(_loadAverageNode!=null) {
-						_loadAverageNode.stop();
+						removeChild(_loadAverageNode, _loadAverageNode::stop);
 						_loadAverageNode = null;
-						hostsNode.rootNode.nodeRemoved();
 					}
 				} else {
 					// Has load monitoring
 					if(_loadAverageNode==null) {
-						_loadAverageNode = new LoadAverageNode(this, linuxServer, port, csf, ssf);
-						_loadAverageNode.start();
-						hostsNode.rootNode.nodeAdded();
+						newNode = _loadAverageNode = starting(new LoadAverageNode(this, linuxServer, port, csf, ssf));
 					}
 				}
 			}
 		}
+		if(newNode != null) startChild(newNode, newNode::start, () -> _loadAverageNode, newNode::stop);
 	}
 
 	private void verifyMemory() throws IOException, SQLException {
@@ -557,25 +578,24 @@ public class HostNode extends NodeImpl {
 		}
 
 		Server linuxServer = _host.getLinuxServer();
+		MemoryNode newNode = null;
 		synchronized(this) {
 			if(started) {
 				if(linuxServer==null) {
 					// No memory monitoring
 					if(_memoryNode!=null) {
-						_memoryNode.stop();
+						removeChild(_memoryNode, _memoryNode::stop);
 						_memoryNode = null;
-						hostsNode.rootNode.nodeRemoved();
 					}
 				} else {
 					// Has memory monitoring
 					if(_memoryNode==null) {
-						_memoryNode = new MemoryNode(this, linuxServer, port, csf, ssf);
-						_memoryNode.start();
-						hostsNode.rootNode.nodeAdded();
+						newNode = _memoryNode = starting(new MemoryNode(this, linuxServer, port, csf, ssf));
 					}
 				}
 			}
 		}
+		if(newNode != null) startChild(newNode, newNode::start, () -> _memoryNode, newNode::stop);
 	}
 
 	private void verifyTime() throws IOException, SQLException {
@@ -586,31 +606,31 @@ public class HostNode extends NodeImpl {
 		}
 
 		Server linuxServer = _host.getLinuxServer();
+		TimeNode newNode = null;
 		synchronized(this) {
 			if(started) {
 				if(linuxServer == null) {
 					// No time monitoring
 					if(_timeNode!=null) {
-						_timeNode.stop();
+						removeChild(_timeNode, _timeNode::stop);
 						_timeNode = null;
-						hostsNode.rootNode.nodeRemoved();
 					}
 				} else {
 					// Has time monitoring
 					if(_timeNode==null) {
-						_timeNode = new TimeNode(this, linuxServer, port, csf, ssf);
-						_timeNode.start();
-						hostsNode.rootNode.nodeAdded();
+						newNode = _timeNode = starting(new TimeNode(this, linuxServer, port, csf, ssf));
 					}
 				}
 			}
 		}
+		if(newNode != null) startChild(newNode, newNode::start, () -> _timeNode, newNode::stop);
 	}
 
 	public File getPersistenceDirectory() throws IOException {
 		File packDir = new File(hostsNode.getPersistenceDirectory(), Integer.toString(_pack));
 		if(!packDir.exists()) {
-			if(!packDir.mkdir()) {
+			// Shared by all hosts in the pack, which may be starting concurrently
+			if(!packDir.mkdir() && !packDir.isDirectory()) {
 				throw new IOException(
 					PACKAGE_RESOURCES.getMessage(hostsNode.rootNode.locale,
 						"error.mkdirFailed",
@@ -621,7 +641,7 @@ public class HostNode extends NodeImpl {
 		}
 		File serverDir = new File(packDir, _name);
 		if(!serverDir.exists()) {
-			if(!serverDir.mkdir()) {
+			if(!serverDir.mkdir() && !serverDir.isDirectory()) {
 				throw new IOException(
 					PACKAGE_RESOURCES.getMessage(hostsNode.rootNode.locale,
 						"error.mkdirFailed",
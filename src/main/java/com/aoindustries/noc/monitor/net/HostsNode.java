@@ -26,10 +26,10 @@ import com.aoapps.hodgepodge.table.Table;
 import com.aoapps.hodgepodge.table.TableListener;
 import com.aoapps.lang.exception.WrappedException;
 import com.aoindustries.aoserv.client.net.Host;
-import com.aoindustries.noc.monitor.AlertLevelUtils;
 import com.aoindustries.noc.monitor.NodeImpl;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.RootNodeImpl;
+import com.aoindustries.noc.monitor.TreeBuilder;
 import com.aoindustries.noc.monitor.common.AlertLevel;
 import java.io.File;
 import java.io.IOException;
@@ -83,11 +83,7 @@ abstract public class HostsNode extends NodeImpl {
 	 */
 	@Override
 	final public AlertLevel getAlertLevel() {
-		AlertLevel level;
-		synchronized(hostNodes) {
-			level = AlertLevelUtils.getMaxAlertLevel(hostNodes);
-		}
-		return constrainAlertLevel(level);
+		return constrainAlertLevel(getChildrenAlertLevel());
 	}
 
 	/**
@@ -121,7 +117,7 @@ abstract public class HostsNode extends NodeImpl {
 			rootNode.conn.getNet().getHost().removeTableListener(tableListener);
 			for(HostNode hostNode : hostNodes) {
 				hostNode.stop();
-				rootNode.nodeRemoved();
+				rootNode.nodeRemoved(this);
 			}
 			hostNodes.clear();
 		}
@@ -140,6 +136,7 @@ abstract public class HostsNode extends NodeImpl {
 		for(Host host : allHosts) {
 			if(host.isMonitoringEnabled() && includeHost(host)) hosts.add(host);
 		}
+		List<TreeBuilder.Step> starts = new ArrayList<>();
 		synchronized(hostNodes) {
 			if(started) {
 				// Remove old ones
@@ -150,7 +147,7 @@ abstract public class HostsNode extends NodeImpl {
 					if(!hosts.contains(host)) {
 						hostNode.stop();
 						hostNodeIter.remove();
-						rootNode.nodeRemoved();
+						rootNode.nodeRemoved(this);
 					}
 				}
 				// Add new ones
@@ -160,12 +157,22 @@ abstract public class HostsNode extends NodeImpl {
 						// Insert into proper index
 						HostNode hostNode = new HostNode(this, host, port, csf, ssf);
 						hostNodes.add(c, hostNode);
-						hostNode.start();
-						rootNode.nodeAdded();
+						starts.add(() -> {
+							hostNode.start();
+							boolean removed;
+							synchronized(hostNodes) {
+								removed = !hostNodes.contains(hostNode);
+							}
+							if(removed) hostNode.stop();
+							else rootNode.nodeAdded(this);
+						});
 					}
 				}
 			}
 		}
+		// Start the new hosts in parallel, without holding the lock, since the host
+		// starts run on other threads and may call back into this node
+		TreeBuilder.parallel(starts.toArray(new TreeBuilder.Step[starts.size()]));
 	}
 
 	/**
@@ -174,7 +181,7 @@ abstract public class HostsNode extends NodeImpl {
 	final File getPersistenceDirectory() throws IOException {
 		File dir = new File(rootNode.getPersistenceDirectory(), "servers");
 		if(!dir.exists()) {
-			if(!dir.mkdir()) {
+			if(!dir.mkdir() && !dir.isDirectory()) {
 				throw new IOException(
 					PACKAGE_RESOURCES.getMessage(
 						rootNode.locale,
@@ -29,7 +29,6 @@ import com.aoapps.net.InetAddress;
 import com.aoindustries.aoserv.client.AOServConnector;
 import com.aoindustries.aoserv.client.net.IpAddress;
 import com.aoindustries.aoserv.client.net.monitoring.IpAddressMonitoring;
-import com.aoindustries.noc.monitor.AlertLevelUtils;
 import com.aoindustries.noc.monitor.NodeImpl;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.RootNodeImpl;
@@ -126,14 +125,7 @@ public class IpAddressNode extends NodeImpl {
 	 */
 	@Override
 	public AlertLevel getAlertLevel() {
-		return constrainAlertLevel(
-			AlertLevelUtils.getMaxAlertLevel(
-				this.pingNode,
-				this.netBindsNode,
-				this.dnsNode,
-				this.blacklistsNode
-			)
-		);
+		return constrainAlertLevel(getChildrenAlertLevel());
 	}
 
 	/**
@@ -186,22 +178,22 @@ public class IpAddressNode extends NodeImpl {
 			if(blacklistsNode != null) {
 				blacklistsNode.stop();
 				blacklistsNode = null;
-				rootNode.nodeRemoved();
+				rootNode.nodeRemoved(this);
 			}
 			if(dnsNode != null) {
 				dnsNode.stop();
 				dnsNode = null;
-				rootNode.nodeRemoved();
+				rootNode.nodeRemoved(this);
 			}
 			if(netBindsNode != null) {
 				netBindsNode.stop();
 				netBindsNode = null;
-				rootNode.nodeRemoved();
+				rootNode.nodeRemoved(this);
 			}
 			if(pingNode != null) {
 				pingNode.stop();
 				pingNode = null;
-				rootNode.nodeRemoved();
+				rootNode.nodeRemoved(this);
 			}
 		}
 	}
@@ -231,26 +223,26 @@ public class IpAddressNode extends NodeImpl {
 					if(pingNode == null) {
 						pingNode = new PingNode(this, port, csf, ssf);
 						pingNode.start();
-						rootNode.nodeAdded();
+						rootNode.nodeAdded(this);
 					}
 				} else {
 					if(pingNode != null) {
 						pingNode.stop();
 						pingNode = null;
-						rootNode.nodeRemoved();
+						rootNode.nodeRemoved(this);
 					}
 				}
 				if(hasNetBinds) {
 					if(netBindsNode == null) {
 						netBindsNode = new BindsNode(this, port, csf, ssf);
 						netBindsNode.start();
-						rootNode.nodeAdded();
+						rootNode.nodeAdded(this);
 					}
 				} else {
 					if(netBindsNode != null) {
 						netBindsNode.stop();
 						netBindsNode = null;
-						rootNode.nodeRemoved();
+						rootNode.nodeRemoved(this);
 					}
 				}
 				if(
@@ -264,13 +256,13 @@ public class IpAddressNode extends NodeImpl {
 					if(dnsNode == null) {
 						dnsNode = new DnsNode(this, port, csf, ssf);
 						dnsNode.start();
-						rootNode.nodeAdded();
+						rootNode.nodeAdded(this);
 					}
 				} else {
 					if(dnsNode != null) {
 						dnsNode.stop();
 						dnsNode = null;
-						rootNode.nodeRemoved();
+						rootNode.nodeRemoved(this);
 					}
 				}
 				if(
@@ -282,13 +274,13 @@ public class IpAddressNode extends NodeImpl {
 					if(blacklistsNode == null) {
 						blacklistsNode = new BlacklistsNode(this, port, csf, ssf);
 						blacklistsNode.start();
-						rootNode.nodeAdded();
+						rootNode.nodeAdded(this);
 					}
 				} else {
 					if(blacklistsNode != null) {
 						blacklistsNode.stop();
 						blacklistsNode = null;
-						rootNode.nodeRemoved();
+						rootNode.nodeRemoved(this);
 					}
 				}
 			}
@@ -298,7 +290,7 @@ public class IpAddressNode extends NodeImpl {
 	public File getPersistenceDirectory() throws IOException {
 		File dir = new File(ipAddressesNode.getPersistenceDirectory(), ipAddress.getInetAddress().toString());
 		if(!dir.exists()) {
-			if(!dir.mkdir()) {
+			if(!dir.mkdir() && !dir.isDirectory()) {
 				throw new IOException(
 					PACKAGE_RESOURCES.getMessage(
 						ipAddressesNode.rootNode.locale,
@@ -28,7 +28,6 @@ import com.aoapps.lang.exception.WrappedException;
 import com.aoindustries.aoserv.client.net.Device;
 import com.aoindustries.aoserv.client.net.IpAddress;
 import com.aoindustries.aoserv.client.net.monitoring.IpAddressMonitoring;
-import com.aoindustries.noc.monitor.AlertLevelUtils;
 import com.aoindustries.noc.monitor.NodeImpl;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.RootNodeImpl;
@@ -100,13 +99,7 @@ public class IpAddressesNode extends NodeImpl {
 	 */
 	@Override
 	public AlertLevel getAlertLevel() {
-		AlertLevel level;
-		synchronized(ipAddressNodes) {
-			level = AlertLevelUtils.getMaxAlertLevel(
-				ipAddressNodes
-			);
-		}
-		return constrainAlertLevel(level);
+		return constrainAlertLevel(getChildrenAlertLevel());
 	}
 
 	/**
@@ -145,7 +138,7 @@ public class IpAddressesNode extends NodeImpl {
 			rootNode.conn.getNet().getIpAddress().removeTableListener(tableListener);
 			for(IpAddressNode ipAddressNode : ipAddressNodes) {
 				ipAddressNode.stop();
-				rootNode.nodeRemoved();
+				rootNode.nodeRemoved(this);
 			}
 			ipAddressNodes.clear();
 		}
@@ -210,7 +203,7 @@ public class IpAddressesNode extends NodeImpl {
 					) {
 						ipAddressNode.stop();
 						ipAddressNodeIter.remove();
-						rootNode.nodeRemoved();
+						rootNode.nodeRemoved(this);
 					}
 				}
 				// Add new ones
@@ -221,7 +214,7 @@ public class IpAddressesNode extends NodeImpl {
 						IpAddressNode ipAddressNode = new IpAddressNode(this, ipAddress, port, csf, ssf);
 						ipAddressNodes.add(c, ipAddressNode);
 						ipAddressNode.start();
-						rootNode.nodeAdded();
+						rootNode.nodeAdded(this);
 					}
 				}
 			}
@@ -236,7 +229,7 @@ public class IpAddressesNode extends NodeImpl {
 			"ip_addresses"
 		);
 		if(!dir.exists()) {
-			if(!dir.mkdir()) {
+			if(!dir.mkdir() && !dir.isDirectory()) {
 				throw new IOException(
 					PACKAGE_RESOURCES.getMessage(
 						rootNode.locale,
@@ -0,0 +1,54 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor.net;
+
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import com.aoindustries.noc.monitor.common.PingResult;
+
+/**
+ * A ping result for a burst of pings, with its latency being the average
+ * round-trip time.  The statistics are persisted by {@link PingResultSerializer}
+ * but not sent to clients: this is replaced by a plain {@link PingResult}
+ * when serialized.
+ *
+ * @author  AO Industries, Inc.
+ */
+final class PingBurstResult extends PingResult {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient PingStatistics statistics;
+
+	PingBurstResult(long time, long latency, AlertLevel alertLevel, PingStatistics statistics) {
+		super(time, latency, alertLevel);
+		this.statistics = statistics;
+	}
+
+	PingStatistics getStatistics() {
+		return statistics;
+	}
+
+	private Object writeReplace() {
+		return new PingResult(getTime(), getLatency(), getAlertLevel());
+	}
+}
@@ -0,0 +1,474 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor.net;
+
+import com.aoindustries.noc.monitor.Bulkhead;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pings any number of targets from a single thread, multiplexed over a small
+ * number of non-blocking datagram channels.
+ * <p>
+ * Java does not provide access to raw ICMP sockets, so each probe is a small
+ * UDP datagram sent to the echo service of the target (port 7 by default).
+ * The datagram contains a per-engine session, a sequence number, and the send
+ * time, and the reply is matched on all three along with the source address.
+ * Round-trip time, jitter, and loss are recorded per target, and forgotten
+ * once a target has not been pinged for <code>com.aoindustries.noc.monitor.net.PingEngine.statsExpiration</code>
+ * milliseconds (ten minutes by default).
+ * </p>
+ * <p>
+ * Hosts do not normally run the echo service, so {@link PingNodeWorker} falls
+ * back to {@link java.net.InetAddress#isReachable(int)} for each target that has
+ * not answered UDP echo, and tries UDP echo again periodically.  The engine is
+ * on by default, and may be disabled with the system property
+ * <code>com.aoindustries.noc.monitor.net.PingEngine.enabled=false</code> to ping
+ * every target by <code>isReachable</code>.  The port and number of
+ * channels may be set with <code>com.aoindustries.noc.monitor.net.PingEngine.port</code>
+ * and <code>com.aoindustries.noc.monitor.net.PingEngine.channels</code>.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class PingEngine implements Closeable {
+
+	private static final Logger logger = Logger.getLogger(PingEngine.class.getName());
+
+	private static final String PROPERTY_PREFIX = PingEngine.class.getName() + ".";
+
+	private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty(PROPERTY_PREFIX + "enabled", "true"));
+
+	private static final int PORT = Integer.getInteger(PROPERTY_PREFIX + "port", 7);
+
+	private static final int CHANNELS = Integer.getInteger(PROPERTY_PREFIX + "channels", 2);
+
+	private static final long STATS_EXPIRATION = Long.getLong(PROPERTY_PREFIX + "statsExpiration", 10L * 60 * 1000);
+
+	/**
+	 * Identifies the datagrams sent by this class: "AOPG".
+	 */
+	private static final int MAGIC = 0x414f5047;
+
+	/**
+	 * magic, session, sequence, and send time.
+	 */
+	private static final int PACKET_SIZE = 4 + 4 + 4 + 8;
+
+	/**
+	 * The jitter is smoothed with a gain of 1/16, as in RFC 3550.
+	 */
+	private static final int JITTER_GAIN = 16;
+
+	static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	static int getPort() {
+		return PORT;
+	}
+
+	private static PingEngine instance;
+
+	/**
+	 * Gets the shared engine, starting it on first use.  Replies are completed
+	 * in {@link Bulkhead#NETWORK} so that the
+	 * engine thread never runs result handling.
+	 */
+	static PingEngine getInstance() throws IOException {
+		synchronized(PingEngine.class) {
+			if(instance==null) {
+				logger.log(Level.INFO, "UDP echo ping enabled on port {0}: hosts not answering UDP echo are pinged by isReachable", PORT);
+				instance = new PingEngine(CHANNELS, Bulkhead.NETWORK::submit, STATS_EXPIRATION, TimeUnit.MILLISECONDS);
+			}
+			return instance;
+		}
+	}
+
+	/**
+	 * A successful ping.
+	 */
+	static final class Reply {
+
+		private final long roundTripNanos;
+		private final long jitterNanos;
+
+		private Reply(long roundTripNanos, long jitterNanos) {
+			this.roundTripNanos = roundTripNanos;
+			this.jitterNanos = jitterNanos;
+		}
+
+		long getRoundTripNanos() {
+			return roundTripNanos;
+		}
+
+		/**
+		 * The smoothed jitter of the target, including this reply.
+		 */
+		long getJitterNanos() {
+			return jitterNanos;
+		}
+	}
+
+	/**
+	 * The statistics for one target.  Only updated by the engine thread.
+	 */
+	static final class Stats {
+
+		private volatile long sent;
+		private volatile long received;
+		private volatile long lost;
+		private volatile long lastRoundTripNanos = -1;
+		private volatile long jitterNanos;
+		private long lastSentNanos;
+
+		private Stats() {
+		}
+
+		long getSent() {
+			return sent;
+		}
+
+		long getReceived() {
+			return received;
+		}
+
+		/**
+		 * The number of probes that timed-out or could not be sent.
+		 */
+		long getLost() {
+			return lost;
+		}
+
+		/**
+		 * The most recent round-trip time or <code>-1</code> when none received.
+		 */
+		long getLastRoundTripNanos() {
+			return lastRoundTripNanos;
+		}
+
+		long getJitterNanos() {
+			return jitterNanos;
+		}
+
+		private long received(long roundTripNanos) {
+			long last = lastRoundTripNanos;
+			long jitter = jitterNanos;
+			if(last != -1) {
+				jitter += (Math.abs(roundTripNanos - last) - jitter) / JITTER_GAIN;
+				jitterNanos = jitter;
+			}
+			lastRoundTripNanos = roundTripNanos;
+			received++;
+			return jitter;
+		}
+	}
+
+	private static final class Probe {
+
+		private final InetSocketAddress target;
+		private final long timeoutNanos;
+		private final CompletableFuture<Reply> future = new CompletableFuture<>();
+
+		// Only accessed by the engine thread
+		private Stats stats;
+		private int seq;
+		private long sentNanos;
+		private long deadlineNanos;
+
+		private Probe(InetSocketAddress target, long timeoutNanos) {
+			this.target = target;
+			this.timeoutNanos = timeoutNanos;
+		}
+	}
+
+	private final Executor completionExecutor;
+	private final long statsExpirationNanos;
+	private final int session = ThreadLocalRandom.current().nextInt();
+	private final Selector selector;
+	private final DatagramChannel[] channels;
+	private final Thread thread;
+	private final Queue<Probe> submitted = new ConcurrentLinkedQueue<>();
+	private final ConcurrentMap<InetSocketAddress, Stats> stats = new ConcurrentHashMap<>();
+	private volatile boolean closed;
+
+	// Only accessed by the engine thread
+	private final Map<Integer, Probe> outstanding = new HashMap<>();
+	private final PriorityQueue<Probe> deadlines = new PriorityQueue<>(
+		Comparator.comparingLong((Probe probe) -> probe.deadlineNanos)
+	);
+	private final ByteBuffer sendBuffer = ByteBuffer.allocate(PACKET_SIZE);
+	private final ByteBuffer receiveBuffer = ByteBuffer.allocate(512);
+	private int nextSeq;
+	private long nextPruneNanos;
+
+	/**
+	 * @param  completionExecutor  Completes the futures returned by {@link #ping(java.net.InetSocketAddress, long, java.util.concurrent.TimeUnit)}.
+	 *                             When rejected, the future is completed by the engine thread.
+	 * @param  statsExpiration     The statistics of a target are removed once not pinged for this long.
+	 */
+	PingEngine(int numChannels, Executor completionExecutor, long statsExpiration, TimeUnit unit) throws IOException {
+		if(numChannels < 1) throw new IllegalArgumentException("numChannels < 1: " + numChannels);
+		if(statsExpiration < 1) throw new IllegalArgumentException("statsExpiration < 1: " + statsExpiration);
+		this.completionExecutor = completionExecutor;
+		this.statsExpirationNanos = unit.toNanos(statsExpiration);
+		nextPruneNanos = System.nanoTime() + statsExpirationNanos;
+		selector = Selector.open();
+		channels = new DatagramChannel[numChannels];
+		try {
+			for(int i = 0; i < numChannels; i++) {
+				DatagramChannel channel = DatagramChannel.open();
+				channels[i] = channel;
+				channel.configureBlocking(false);
+				channel.bind(null);
+				channel.register(selector, SelectionKey.OP_READ);
+			}
+		} catch(IOException e) {
+			closeChannels();
+			throw e;
+		}
+		thread = new Thread(this::run, PingEngine.class.getName());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	PingEngine(int numChannels, Executor completionExecutor) throws IOException {
+		this(numChannels, completionExecutor, STATS_EXPIRATION, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Sends a single probe.  Never blocks.
+	 *
+	 * @return  the future reply, completed exceptionally with {@link TimeoutException} when no reply within the timeout
+	 */
+	CompletableFuture<Reply> ping(InetSocketAddress target, long timeout, TimeUnit unit) {
+		Probe probe = new Probe(target, unit.toNanos(timeout));
+		submitted.add(probe);
+		if(closed) {
+			failSubmitted();
+		} else {
+			selector.wakeup();
+		}
+		return probe.future;
+	}
+
+	/**
+	 * Gets the statistics for the given target or {@code null} when not pinged recently.
+	 */
+	Stats getStats(InetSocketAddress target) {
+		return stats.get(target);
+	}
+
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		selector.wakeup();
+		try {
+			thread.join();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		}
+	}
+
+	@SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+	private void run() {
+		try {
+			while(!closed) {
+				try {
+					Probe first = deadlines.peek();
+					if(first == null) {
+						selector.select();
+					} else {
+						long waitNanos = first.deadlineNanos - System.nanoTime();
+						if(waitNanos > 0) selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+						else selector.selectNow();
+					}
+					Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+					while(keys.hasNext()) {
+						SelectionKey key = keys.next();
+						keys.remove();
+						if(key.isValid() && key.isReadable()) receive((DatagramChannel)key.channel());
+					}
+					Probe probe;
+					while((probe = submitted.poll()) != null) send(probe);
+					expire();
+					prune();
+				} catch(ThreadDeath td) {
+					throw td;
+				} catch(Throwable t) {
+					logger.log(Level.SEVERE, null, t);
+				}
+			}
+		} finally {
+			closeChannels();
+			IOException closedException = new ClosedChannelException();
+			for(Probe probe : outstanding.values()) complete(probe, null, closedException);
+			outstanding.clear();
+			deadlines.clear();
+			failSubmitted();
+		}
+	}
+
+	private void failSubmitted() {
+		Probe probe;
+		while((probe = submitted.poll()) != null) complete(probe, null, new ClosedChannelException());
+	}
+
+	private void closeChannels() {
+		for(DatagramChannel channel : channels) {
+			if(channel != null) {
+				try {
+					channel.close();
+				} catch(IOException e) {
+					logger.log(Level.WARNING, null, e);
+				}
+			}
+		}
+		try {
+			selector.close();
+		} catch(IOException e) {
+			logger.log(Level.WARNING, null, e);
+		}
+	}
+
+	private void send(Probe probe) {
+		probe.stats = stats.computeIfAbsent(probe.target, target -> new Stats());
+		int seq;
+		do {
+			seq = nextSeq++;
+		} while(outstanding.containsKey(seq));
+		probe.seq = seq;
+		probe.stats.sent++;
+		long now = System.nanoTime();
+		probe.stats.lastSentNanos = now;
+		probe.sentNanos = now;
+		sendBuffer.clear();
+		sendBuffer.putInt(MAGIC).putInt(session).putInt(seq).putLong(now).flip();
+		try {
+			if(channels[Math.floorMod(seq, channels.length)].send(sendBuffer, probe.target) == 0) {
+				throw new IOException("Send buffer full");
+			}
+		} catch(IOException e) {
+			probe.stats.lost++;
+			complete(probe, null, e);
+			return;
+		}
+		probe.deadlineNanos = now + probe.timeoutNanos;
+		outstanding.put(seq, probe);
+		deadlines.add(probe);
+	}
+
+	private void receive(DatagramChannel channel) throws IOException {
+		SocketAddress from;
+		while(true) {
+			receiveBuffer.clear();
+			from = channel.receive(receiveBuffer);
+			if(from == null) break;
+			long now = System.nanoTime();
+			receiveBuffer.flip();
+			if(
+				receiveBuffer.remaining() == PACKET_SIZE
+				&& receiveBuffer.getInt() == MAGIC
+				&& receiveBuffer.getInt() == session
+			) {
+				int seq = receiveBuffer.getInt();
+				long sentNanos = receiveBuffer.getLong();
+				Probe probe = outstanding.get(seq);
+				if(
+					probe != null
+					&& probe.sentNanos == sentNanos
+					&& probe.target.equals(from)
+				) {
+					outstanding.remove(seq);
+					// Left in deadlines, skipped on expiration
+					long roundTripNanos = now - sentNanos;
+					long jitterNanos = probe.stats.received(roundTripNanos);
+					complete(probe, new Reply(roundTripNanos, jitterNanos), null);
+				}
+			}
+		}
+	}
+
+	private void expire() {
+		long now = System.nanoTime();
+		Probe probe;
+		while((probe = deadlines.peek()) != null && probe.deadlineNanos - now <= 0) {
+			deadlines.remove();
+			if(outstanding.remove(probe.seq, probe)) {
+				probe.stats.lost++;
+				complete(probe, null, new TimeoutException());
+			}
+		}
+	}
+
+	/**
+	 * Removes the statistics of targets no longer being pinged.  Any outstanding
+	 * probe keeps its own reference, so is still counted if later answered.
+	 */
+	private void prune() {
+		long now = System.nanoTime();
+		if(now - nextPruneNanos < 0) return;
+		nextPruneNanos = now + statsExpirationNanos;
+		stats.values().removeIf(targetStats -> now - targetStats.lastSentNanos > statsExpirationNanos);
+	}
+
+	/**
+	 * Completes the probe off the engine thread.
+	 */
+	private void complete(Probe probe, Reply reply, Throwable throwable) {
+		Runnable completion = () -> {
+			if(throwable != null) probe.future.completeExceptionally(throwable);
+			else probe.future.complete(reply);
+		};
+		try {
+			completionExecutor.execute(completion);
+		} catch(RejectedExecutionException e) {
+			completion.run();
+		}
+	}
+}
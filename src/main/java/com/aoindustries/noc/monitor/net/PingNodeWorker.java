@@ -25,6 +25,7 @@ package com.aoindustries.noc.monitor.net;
 import com.aoapps.lang.concurrent.LocalizedTimeoutException;
 import com.aoindustries.aoserv.client.net.IpAddress;
 import com.aoindustries.noc.monitor.AlertLevelAndMessage;
+import com.aoindustries.noc.monitor.Bulkhead;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.TableMultiResultNodeWorker;
 import com.aoindustries.noc.monitor.common.AlertLevel;
@@ -32,8 +33,18 @@ import com.aoindustries.noc.monitor.common.PingResult;
 import java.io.File;
 import java.io.IOException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Each worker may be shared by any number of <code>PingNodeImpl</code>s.
@@ -45,11 +56,28 @@ import java.util.Map;
  */
 class PingNodeWorker extends TableMultiResultNodeWorker<Object, PingResult> {
 
+	private static final Logger logger = Logger.getLogger(PingNodeWorker.class.getName());
+
 	/**
 	 * The ping timeout.
 	 */
 	private static final int TIMEOUT = 10000;
 
+	/**
+	 * The number of pings sent at once by the {@link PingEngine}, from the system property
+	 * <code>com.aoindustries.noc.monitor.net.PingNodeWorker.burstSize</code>.
+	 * When more than one, the packet loss is measured by each burst instead of over the history.
+	 * Only used when the {@link PingEngine} is enabled.
+	 */
+	private static final int BURST_SIZE = Math.max(1, Integer.getInteger(PingNodeWorker.class.getName() + ".burstSize", 1));
+
+	/**
+	 * The time between trying UDP echo again for a target that has not yet answered it, from the system property
+	 * <code>com.aoindustries.noc.monitor.net.PingNodeWorker.echoRetryInterval</code>
+	 * (one hour by default).  In-between, the target is pinged by <code>isReachable</code>.
+	 */
+	private static final long ECHO_RETRY_INTERVAL = Long.getLong(PingNodeWorker.class.getName() + ".echoRetryInterval", 60L * 60 * 1000);
+
 	/**
 	 * One unique worker is made per persistence directory (and should match the IP address exactly)
 	 */
@@ -76,6 +104,16 @@ class PingNodeWorker extends TableMultiResultNodeWorker<Object, PingResult> {
 	 */
 	final private com.aoapps.net.InetAddress ipAddress;
 
+	/**
+	 * Set once the target has answered UDP echo, after which a timeout is a lost ping.
+	 */
+	private volatile boolean echoAnswered;
+
+	/**
+	 * The time before which UDP echo is not tried, after the target did not answer it.
+	 */
+	private volatile long echoRetryTime;
+
 	private PingNodeWorker(File persistenceDirectory, com.aoapps.net.InetAddress ipAddress) throws IOException {
 		super(new File(persistenceDirectory, "pings"), new PingResultSerializer());
 		this.ipAddress = ipAddress;
@@ -99,6 +137,119 @@ class PingNodeWorker extends TableMultiResultNodeWorker<Object, PingResult> {
 		return SAMPLE;
 	}
 
+	/**
+	 * When the {@link PingEngine} is enabled, pings are multiplexed over its
+	 * shared channels instead of a blocking call to <code>isReachable</code>.
+	 * The sample is then the {@link PingEngine.Reply}, or the {@link PingStatistics}
+	 * when sending bursts.
+	 * <p>
+	 * Most hosts do not run the echo service.  Until a target has answered UDP echo,
+	 * a timeout falls back to <code>isReachable</code>, and UDP echo is not tried again
+	 * for {@link #ECHO_RETRY_INTERVAL}.  Once answered, a timeout is a lost ping.
+	 * </p>
+	 */
+	@Override
+	protected CompletableFuture<Object> getSampleAsync() throws Exception {
+		if(!PingEngine.isEnabled() || (!echoAnswered && System.currentTimeMillis() < echoRetryTime)) return null;
+		InetSocketAddress target = new InetSocketAddress(
+			InetAddress.getByName(ipAddress.toString()),
+			PingEngine.getPort()
+		);
+		PingEngine engine;
+		try {
+			engine = PingEngine.getInstance();
+		} catch(IOException e) {
+			logger.log(Level.WARNING, "Unable to start ping engine, using isReachable", e);
+			return null;
+		}
+		CompletableFuture<Object> echo = BURST_SIZE > 1 ? getBurst(engine, target) : getEcho(engine, target);
+		return echo.handle(
+			(sample, throwable) -> {
+				if(throwable == null) {
+					echoAnswered = true;
+					return CompletableFuture.completedFuture(sample);
+				}
+				if(!echoAnswered) {
+					echoRetryTime = System.currentTimeMillis() + ECHO_RETRY_INTERVAL;
+					return getSampleReachable();
+				}
+				CompletableFuture<Object> failed = new CompletableFuture<>();
+				failed.completeExceptionally(throwable);
+				return failed;
+			}
+		).thenCompose(Function.identity());
+	}
+
+	private static CompletableFuture<Object> getEcho(PingEngine engine, InetSocketAddress target) {
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		engine.ping(target, TIMEOUT, TimeUnit.MILLISECONDS).whenComplete(
+			(reply, throwable) -> {
+				if(throwable != null) {
+					future.completeExceptionally(localizeTimeout(throwable));
+				} else {
+					future.complete(reply);
+				}
+			}
+		);
+		return future;
+	}
+
+	/**
+	 * Pings by {@link #getSample()} in {@link Bulkhead#NETWORK}, for a target that has not answered UDP echo.
+	 */
+	@SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+	private CompletableFuture<Object> getSampleReachable() {
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		try {
+			Bulkhead.NETWORK.submit(() -> {
+				try {
+					future.complete(getSample());
+				} catch(ThreadDeath td) {
+					throw td;
+				} catch(Throwable t) {
+					future.completeExceptionally(t);
+				}
+			});
+		} catch(RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * Sends {@link #BURST_SIZE} pings at once.  Fails only when no replies are received.
+	 */
+	@SuppressWarnings("unchecked")
+	private static CompletableFuture<Object> getBurst(PingEngine engine, InetSocketAddress target) {
+		CompletableFuture<PingEngine.Reply>[] pings = new CompletableFuture[BURST_SIZE];
+		for(int i = 0; i < BURST_SIZE; i++) {
+			pings[i] = engine.ping(target, TIMEOUT, TimeUnit.MILLISECONDS);
+		}
+		return CompletableFuture.allOf(pings).handle(
+			(ignored, allThrowable) -> {
+				long[] roundTripNanos = new long[BURST_SIZE];
+				int received = 0;
+				Throwable failure = null;
+				for(CompletableFuture<PingEngine.Reply> ping : pings) {
+					try {
+						roundTripNanos[received] = ping.join().getRoundTripNanos();
+						received++;
+					} catch(CompletionException e) {
+						// Prefer any failure other than timeout
+						if(failure == null || failure instanceof TimeoutException) failure = e.getCause();
+					}
+				}
+				if(received == 0) throw new CompletionException(localizeTimeout(failure));
+				return PingStatistics.of(BURST_SIZE, Arrays.copyOf(roundTripNanos, received));
+			}
+		);
+	}
+
+	private static Throwable localizeTimeout(Throwable throwable) {
+		if(throwable instanceof TimeoutException) return new LocalizedTimeoutException(PACKAGE_RESOURCES, "PingNodeWorker.error.timeout");
+		return throwable;
+	}
+
 	/**
 	 * Figures out the alert level.  It considers only the last 10 pings.  The number of timeouts follow:
 	 *
@@ -135,6 +286,22 @@ class PingNodeWorker extends TableMultiResultNodeWorker<Object, PingResult> {
 
 	@Override
 	protected AlertLevelAndMessage getAlertLevelAndMessage(Object sample, Iterable<? extends PingResult> previousResults) throws Exception {
+		if(sample instanceof PingStatistics) {
+			PingStatistics statistics = (PingStatistics)sample;
+			int packetLossPercent = statistics.getLossPercent();
+			return new AlertLevelAndMessage(
+				getAlertLevel(packetLossPercent),
+				locale -> PACKAGE_RESOURCES.getMessage(
+					locale,
+					"PingNodeWorker.alertMessage.burst",
+					packetLossPercent,
+					statistics.getMin() / 1000000.0,
+					statistics.getAvg() / 1000000.0,
+					statistics.getMax() / 1000000.0,
+					statistics.getStddev() / 1000000.0
+				)
+			);
+		}
 		int packetLossPercent = getPacketLossPercent(previousResults);
 		return new AlertLevelAndMessage(
 			getAlertLevel(packetLossPercent),
@@ -146,6 +313,14 @@ class PingNodeWorker extends TableMultiResultNodeWorker<Object, PingResult> {
 		);
 	}
 
+	/**
+	 * Pings are made directly over the network.
+	 */
+	@Override
+	protected Bulkhead getBulkhead() {
+		return Bulkhead.NETWORK;
+	}
+
 	/**
 	 * Since pings support timeout, no need to provide timeout through
 	 * Future objects and ExecutorService.
@@ -155,6 +330,15 @@ class PingNodeWorker extends TableMultiResultNodeWorker<Object, PingResult> {
 		return false;
 	}
 
+	/**
+	 * Each burst measures its packet loss directly, so the alert level is
+	 * not ramped-up over successive bursts.  Errors are still ramped-up.
+	 */
+	@Override
+	protected boolean isIncrementalRampUp(boolean isError) {
+		return isError || BURST_SIZE == 1 || !PingEngine.isEnabled();
+	}
+
 	/**
 	 * Sleeps one minute between checks.
 	 */
@@ -163,13 +347,30 @@ class PingNodeWorker extends TableMultiResultNodeWorker<Object, PingResult> {
 		return 60000;
 	}
 
+	/**
+	 * Never backs off, so outages and recoveries are detected within a minute.
+	 */
+	@Override
+	protected boolean isBackoffAllowed() {
+		return false;
+	}
+
 	@Override
 	protected PingResult newErrorResult(long time, long latency, AlertLevel alertLevel, String error) {
 		return new PingResult(time, latency, alertLevel, error);
 	}
 
+	/**
+	 * Uses the measured round-trip time as the latency when pinged by the {@link PingEngine},
+	 * or the average round-trip time of a burst.
+	 */
 	@Override
 	protected PingResult newSampleResult(long time, long latency, AlertLevel alertLevel, Object sample) {
+		if(sample instanceof PingStatistics) {
+			PingStatistics statistics = (PingStatistics)sample;
+			return new PingBurstResult(time, statistics.getAvg(), alertLevel, statistics);
+		}
+		if(sample instanceof PingEngine.Reply) latency = ((PingEngine.Reply)sample).getRoundTripNanos();
 		return new PingResult(time, latency, alertLevel);
 	}
 }
@@ -32,11 +32,13 @@ import java.io.IOException;
 import java.io.InputStream;
 
 /**
+ * Version 2 adds the optional {@link PingStatistics} of a {@link PingBurstResult}.
+ *
  * @author  AO Industries, Inc.
  */
 public class PingResultSerializer extends BufferedSerializer<PingResult> {
 
-	private static final int VERSION = 1;
+	private static final int VERSION = 2;
 
 	@Override
 	protected void serialize(PingResult value, ByteArrayOutputStream buffer) throws IOException {
@@ -46,6 +48,16 @@ public class PingResultSerializer extends BufferedSerializer<PingResult> {
 			out.writeLong(value.getLatency());
 			out.writeByte(value.getAlertLevel().ordinal());
 			out.writeNullUTF(value.getError());
+			PingStatistics statistics = (value instanceof PingBurstResult) ? ((PingBurstResult)value).getStatistics() : null;
+			out.writeBoolean(statistics != null);
+			if(statistics != null) {
+				out.writeCompressedInt(statistics.getProbes());
+				out.writeCompressedInt(statistics.getReceived());
+				out.writeLong(statistics.getMin());
+				out.writeLong(statistics.getAvg());
+				out.writeLong(statistics.getMax());
+				out.writeLong(statistics.getStddev());
+			}
 		}
 	}
 
@@ -53,12 +65,26 @@ public class PingResultSerializer extends BufferedSerializer<PingResult> {
 	public PingResult deserialize(InputStream rawIn) throws IOException {
 		try (StreamableInput in = new StreamableInput(rawIn)) {
 			int version = in.readCompressedInt();
-			if(version==1) {
+			if(version==1 || version==2) {
 				long time = in.readLong();
 				long latency = in.readLong();
 				AlertLevel alertLevel = AlertLevel.fromOrdinal(in.readByte());
 				String error = in.readNullUTF();
+				PingStatistics statistics;
+				if(version>=2 && in.readBoolean()) {
+					statistics = new PingStatistics(
+						in.readCompressedInt(),
+						in.readCompressedInt(),
+						in.readLong(),
+						in.readLong(),
+						in.readLong(),
+						in.readLong()
+					);
+				} else {
+					statistics = null;
+				}
 				if(error!=null) return new PingResult(time, latency, alertLevel, error);
+				if(statistics!=null) return new PingBurstResult(time, latency, alertLevel, statistics);
 				return new PingResult(time, latency, alertLevel);
 			} else throw new IOException("Unsupported object version: "+version);
 		}
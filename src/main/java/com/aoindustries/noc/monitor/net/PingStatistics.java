@@ -0,0 +1,115 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor.net;
+
+/**
+ * The round-trip statistics of one burst of pings.
+ * Times are in nanoseconds and are <code>-1</code> when no replies were received.
+ *
+ * @author  AO Industries, Inc.
+ */
+final class PingStatistics {
+
+	/**
+	 * Computes the statistics from the round-trip times of the replies received.
+	 *
+	 * @param  probes  the number of probes sent, must be at least <code>roundTripNanos.length</code>
+	 */
+	static PingStatistics of(int probes, long[] roundTripNanos) {
+		int received = roundTripNanos.length;
+		if(probes < 1 || received > probes) throw new IllegalArgumentException("probes=" + probes + ", received=" + received);
+		if(received == 0) return new PingStatistics(probes, 0, -1, -1, -1, -1);
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+		double sum = 0;
+		for(long rtt : roundTripNanos) {
+			if(rtt < min) min = rtt;
+			if(rtt > max) max = rtt;
+			sum += rtt;
+		}
+		double avg = sum / received;
+		double sumSquares = 0;
+		for(long rtt : roundTripNanos) {
+			double diff = rtt - avg;
+			sumSquares += diff * diff;
+		}
+		return new PingStatistics(
+			probes,
+			received,
+			min,
+			Math.round(avg),
+			max,
+			Math.round(Math.sqrt(sumSquares / received))
+		);
+	}
+
+	private final int probes;
+	private final int received;
+	private final long min;
+	private final long avg;
+	private final long max;
+	private final long stddev;
+
+	PingStatistics(int probes, int received, long min, long avg, long max, long stddev) {
+		this.probes = probes;
+		this.received = received;
+		this.min = min;
+		this.avg = avg;
+		this.max = max;
+		this.stddev = stddev;
+	}
+
+	int getProbes() {
+		return probes;
+	}
+
+	int getReceived() {
+		return received;
+	}
+
+	/**
+	 * Gets the exact packet loss of this burst.
+	 */
+	int getLossPercent() {
+		return (probes - received) * 100 / probes;
+	}
+
+	long getMin() {
+		return min;
+	}
+
+	long getAvg() {
+		return avg;
+	}
+
+	long getMax() {
+		return max;
+	}
+
+	/**
+	 * The population standard deviation, like the <code>mdev</code> of <code>ping</code>.
+	 */
+	long getStddev() {
+		return stddev;
+	}
+}
@@ -22,7 +22,6 @@
  */
 package com.aoindustries.noc.monitor.net;
 
-import com.aoindustries.noc.monitor.AlertLevelUtils;
 import com.aoindustries.noc.monitor.NodeImpl;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.RootNodeImpl;
@@ -78,11 +77,7 @@ public class UnallocatedNode extends NodeImpl {
 	 */
 	@Override
 	public AlertLevel getAlertLevel() {
-		return constrainAlertLevel(
-			AlertLevelUtils.getMaxAlertLevel(
-				this._ipAddressesNode
-			)
-		);
+		return constrainAlertLevel(getChildrenAlertLevel());
 	}
 
 	/**
@@ -110,7 +105,7 @@ public class UnallocatedNode extends NodeImpl {
 			if(_ipAddressesNode==null) {
 				_ipAddressesNode = new IpAddressesNode(this, port, csf, ssf);
 				_ipAddressesNode.start();
-				rootNode.nodeAdded();
+				rootNode.nodeAdded(this);
 			}
 		}
 	}
@@ -121,7 +116,7 @@ public class UnallocatedNode extends NodeImpl {
 			if(_ipAddressesNode!=null) {
 				_ipAddressesNode.stop();
 				_ipAddressesNode = null;
-				rootNode.nodeRemoved();
+				rootNode.nodeRemoved(this);
 			}
 		}
 	}
@@ -129,7 +124,7 @@ public class UnallocatedNode extends NodeImpl {
 	File getPersistenceDirectory() throws IOException {
 		File dir = new File(rootNode.getPersistenceDirectory(), "unallocated");
 		if(!dir.exists()) {
-			if(!dir.mkdir()) {
+			if(!dir.mkdir() && !dir.isDirectory()) {
 				throw new IOException(
 					PACKAGE_RESOURCES.getMessage(
 						rootNode.locale,
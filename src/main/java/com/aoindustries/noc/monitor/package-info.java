@@ -0,0 +1,37 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * The monitor implementation.
+ * <p>
+ * A few remote interfaces are also defined here, beside the nodes that implement
+ * them, instead of in the API: {@link com.aoindustries.noc.monitor.DeltaTableResultNode},
+ * {@link com.aoindustries.noc.monitor.PagedTableMultiResultNode},
+ * {@link com.aoindustries.noc.monitor.RollupTableMultiResultNode}, and
+ * {@link com.aoindustries.noc.monitor.VersionedTreeNode}.  The API interfaces
+ * are unchanged, so existing clients continue to work.  A client that has this
+ * module on its classpath may cast a node to these interfaces to use the
+ * additional calls.
+ * </p>
+ */
+package com.aoindustries.noc.monitor;
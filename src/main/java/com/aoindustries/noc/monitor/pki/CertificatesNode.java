@@ -27,7 +27,6 @@ import com.aoapps.hodgepodge.table.TableListener;
 import com.aoapps.lang.exception.WrappedException;
 import com.aoindustries.aoserv.client.linux.Server;
 import com.aoindustries.aoserv.client.pki.Certificate;
-import com.aoindustries.noc.monitor.AlertLevelUtils;
 import com.aoindustries.noc.monitor.NodeImpl;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.common.AlertLevel;
@@ -87,11 +86,7 @@ public class CertificatesNode extends NodeImpl {
 	 */
 	@Override
 	public AlertLevel getAlertLevel() {
-		AlertLevel level;
-		synchronized(sslCertificateNodes) {
-			level = AlertLevelUtils.getMaxAlertLevel(sslCertificateNodes);
-		}
-		return constrainAlertLevel(level);
+		return constrainAlertLevel(getChildrenAlertLevel());
 	}
 
 	/**
@@ -132,7 +127,7 @@ public class CertificatesNode extends NodeImpl {
 			hostNode.hostsNode.rootNode.conn.getPki().getCertificate().removeTableListener(tableListener);
 			for(CertificateNode sslCertificateNode : sslCertificateNodes) {
 				sslCertificateNode.stop();
-				hostNode.hostsNode.rootNode.nodeRemoved();
+				hostNode.hostsNode.rootNode.nodeRemoved(this);
 			}
 			sslCertificateNodes.clear();
 		}
@@ -169,7 +164,7 @@ public class CertificatesNode extends NodeImpl {
 					) {
 						sslCertificateNode.stop();
 						sslCertificateNodeIter.remove();
-						hostNode.hostsNode.rootNode.nodeRemoved();
+						hostNode.hostsNode.rootNode.nodeRemoved(this);
 					}
 				}
 				// Add new ones
@@ -180,14 +175,14 @@ public class CertificatesNode extends NodeImpl {
 						CertificateNode sslCertificateNode = new CertificateNode(this, sslCertificate, port, csf, ssf);
 						sslCertificateNodes.add(c, sslCertificateNode);
 						sslCertificateNode.start();
-						hostNode.hostsNode.rootNode.nodeAdded();
+						hostNode.hostsNode.rootNode.nodeAdded(this);
 					}
 				}
 				// Prune any extra nodes that can happen when they are reordered
 				while(sslCertificateNodes.size() > sslCertificates.size()) {
 					CertificateNode sslCertificateNode = sslCertificateNodes.remove(sslCertificateNodes.size() - 1);
 					sslCertificateNode.stop();
-					hostNode.hostsNode.rootNode.nodeRemoved();
+					hostNode.hostsNode.rootNode.nodeRemoved(this);
 				}
 			}
 		}
@@ -196,7 +191,7 @@ public class CertificatesNode extends NodeImpl {
 	File getPersistenceDirectory() throws IOException {
 		File dir = new File(hostNode.getPersistenceDirectory(), "ssl_certificates");
 		if(!dir.exists()) {
-			if(!dir.mkdir()) {
+			if(!dir.mkdir() && !dir.isDirectory()) {
 				throw new IOException(
 					PACKAGE_RESOURCES.getMessage(hostNode.hostsNode.rootNode.locale,
 						"error.mkdirFailed",
@@ -27,7 +27,6 @@ import com.aoapps.hodgepodge.table.TableListener;
 import com.aoapps.lang.exception.WrappedException;
 import com.aoindustries.aoserv.client.linux.Server;
 import com.aoindustries.aoserv.client.web.HttpdServer;
-import com.aoindustries.noc.monitor.AlertLevelUtils;
 import com.aoindustries.noc.monitor.NodeImpl;
 import static com.aoindustries.noc.monitor.Resources.PACKAGE_RESOURCES;
 import com.aoindustries.noc.monitor.common.AlertLevel;
@@ -94,11 +93,7 @@ public class HttpdServersNode extends NodeImpl {
 	 */
 	@Override
 	public AlertLevel getAlertLevel() {
-		AlertLevel level;
-		synchronized(httpdServerNodes) {
-			level = AlertLevelUtils.getMaxAlertLevel(httpdServerNodes);
-		}
-		return constrainAlertLevel(level);
+		return constrainAlertLevel(getChildrenAlertLevel());
 	}
 
 	/**
@@ -137,7 +132,7 @@ public class HttpdServersNode extends NodeImpl {
 			hostNode.hostsNode.rootNode.conn.getWeb().getHttpdServer().removeTableListener(tableListener);
 			for(HttpdServerNode httpdServerNode : httpdServerNodes) {
 				httpdServerNode.stop();
-				hostNode.hostsNode.rootNode.nodeRemoved();
+				hostNode.hostsNode.rootNode.nodeRemoved(this);
 			}
 			httpdServerNodes.clear();
 		}
@@ -178,7 +173,7 @@ public class HttpdServersNode extends NodeImpl {
 					if(!hasMatch) {
 						httpdServerNode.stop();
 						httpdServerNodeIter.remove();
-						hostNode.hostsNode.rootNode.nodeRemoved();
+						hostNode.hostsNode.rootNode.nodeRemoved(this);
 					}
 				}
 				// Add new ones
@@ -195,7 +190,7 @@ public class HttpdServersNode extends NodeImpl {
 							if(logger.isLoggable(Level.FINER)) logger.finer("Starting node for " + httpdServer.getName());
 							httpdServerNode.start();
 							if(logger.isLoggable(Level.FINE)) logger.fine("Notifying added for " + httpdServer.getName());
-							hostNode.hostsNode.rootNode.nodeAdded();
+							hostNode.hostsNode.rootNode.nodeAdded(this);
 						} catch(ThreadDeath td) {
 							throw td;
 						} catch(Throwable t) {
@@ -211,7 +206,7 @@ public class HttpdServersNode extends NodeImpl {
 	File getPersistenceDirectory() throws IOException {
 		File dir = new File(hostNode.getPersistenceDirectory(), "httpd_servers");
 		if(!dir.exists()) {
-			if(!dir.mkdir()) {
+			if(!dir.mkdir() && !dir.isDirectory()) {
 				throw new IOException(
 					PACKAGE_RESOURCES.getMessage(
 						hostNode.hostsNode.rootNode.locale,
@@ -0,0 +1,147 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import com.aoindustries.noc.monitor.common.PingResult;
+import com.aoindustries.noc.monitor.net.PingResultSerializer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * @author  AO Industries, Inc.
+ */
+public class HistoryLogTest extends TestCase {
+
+	public HistoryLogTest(String testName) {
+		super(testName);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(HistoryLogTest.class);
+		return suite;
+	}
+
+	private static final PingResultSerializer serializer = new PingResultSerializer();
+
+	private static PingResult newResult(long seq) {
+		return new PingResult(seq * 1000, seq, AlertLevel.NONE);
+	}
+
+	private static void append(HistoryLog log, File history, long seq) throws IOException {
+		PingResult result = newResult(seq);
+		ByteArrayOutputStream payload = new ByteArrayOutputStream();
+		serializer.serialize(result, payload);
+		log.append(history.getCanonicalPath(), seq, result.getTime(), result.getLatency(), (byte)result.getAlertLevel().ordinal(), ByteBuffer.wrap(payload.toByteArray()));
+	}
+
+	private static String[] listSegments(File directory) {
+		String[] list = directory.list((dir, name) -> name.endsWith(".log"));
+		Arrays.sort(list);
+		return list;
+	}
+
+	public void testReplay() throws Exception {
+		File directory = Files.createTempDirectory(null).toFile();
+		File file = new File(directory, "history");
+		ResultHistory<PingResult> history = ResultHistory.openFile(file, serializer, 10);
+		// Already in the history, skipped on replay
+		history.add(newResult(1));
+		history.add(newResult(2));
+		history.flush();
+		File logDirectory = new File(directory, "log");
+		HistoryLog log = new HistoryLog(logDirectory);
+		for(long seq = 1; seq <= 5; seq++) append(log, file, seq);
+		log.commit();
+		assertEquals(Arrays.asList("0000000000000001.log"), Arrays.asList(listSegments(logDirectory)));
+		new HistoryLog(logDirectory);
+		// Replayed segments are deleted
+		assertEquals(Arrays.asList("0000000000000002.log"), Arrays.asList(listSegments(logDirectory)));
+		ResultHistory<PingResult> replayed = ResultHistory.openFile(file, serializer, 10);
+		assertEquals(5, replayed.size());
+		for(int index = 0; index < 5; index++) {
+			PingResult result = replayed.get(index);
+			assertEquals(5 - index, result.getLatency());
+			assertEquals((5 - index) * 1000, result.getTime());
+		}
+	}
+
+	public void testCorruptRecordEndsSegment() throws Exception {
+		File directory = Files.createTempDirectory(null).toFile();
+		File file = new File(directory, "history");
+		ResultHistory.openFile(file, serializer, 10).flush();
+		File logDirectory = new File(directory, "log");
+		HistoryLog log = new HistoryLog(logDirectory);
+		for(long seq = 1; seq <= 3; seq++) append(log, file, seq);
+		log.commit();
+		// Flip the last byte of the last record
+		try (RandomAccessFile raf = new RandomAccessFile(new File(logDirectory, "0000000000000001.log"), "rw")) {
+			raf.seek(raf.length() - 1);
+			int last = raf.read();
+			raf.seek(raf.length() - 1);
+			raf.write(last ^ 0xff);
+		}
+		new HistoryLog(logDirectory);
+		ResultHistory<PingResult> replayed = ResultHistory.openFile(file, serializer, 10);
+		assertEquals(2, replayed.size());
+		assertEquals(2, replayed.get(0).getLatency());
+	}
+
+	public void testCheckpoint() throws Exception {
+		File directory = Files.createTempDirectory(null).toFile();
+		File file = new File(directory, "history");
+		ResultHistory.openFile(file, serializer, 10).flush();
+		File logDirectory = new File(directory, "log");
+		HistoryLog log = new HistoryLog(logDirectory);
+		AtomicInteger flushes = new AtomicInteger();
+		Flushable flushable = flushes::incrementAndGet;
+		log.register(flushable);
+		append(log, file, 1);
+		log.checkpoint();
+		assertEquals(1, flushes.get());
+		// The old segment is deleted once the histories are forced
+		assertEquals(Arrays.asList("0000000000000002.log"), Arrays.asList(listSegments(logDirectory)));
+		append(log, file, 2);
+		log.checkpoint();
+		assertEquals(2, flushes.get());
+		assertEquals(Arrays.asList("0000000000000003.log"), Arrays.asList(listSegments(logDirectory)));
+		// Only the record after the last checkpoint remains to be replayed
+		append(log, file, 3);
+		log.commit();
+		new HistoryLog(logDirectory);
+		ResultHistory<PingResult> replayed = ResultHistory.openFile(file, serializer, 10);
+		// Records 1 and 2 were never written to the history, so 3 follows a gap
+		assertEquals(1, replayed.size());
+		assertEquals(3, replayed.get(0).getLatency());
+	}
+}
@@ -0,0 +1,246 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import com.aoindustries.noc.monitor.common.AlertCategory;
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * @author  AO Industries, Inc.
+ */
+public class NodeImplTest extends TestCase {
+
+	public NodeImplTest(String testName) {
+		super(testName);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(NodeImplTest.class);
+		return suite;
+	}
+
+	private static class TestNode extends NodeImpl {
+
+		private static final long serialVersionUID = 1L;
+
+		private final TestNode parent;
+		private final boolean container;
+		private final List<TestNode> children = new ArrayList<>();
+		private volatile AlertLevel alertLevel = AlertLevel.NONE;
+		private volatile AlertLevel maxAlertLevel = AlertLevel.UNKNOWN;
+
+		private TestNode(TestNode parent, boolean container) throws RemoteException {
+			super(0, null, null);
+			this.parent = parent;
+			this.container = container;
+		}
+
+		@Override
+		public TestNode getParent() {
+			return parent;
+		}
+
+		@Override
+		public List<TestNode> getChildren() {
+			synchronized(children) {
+				return getSnapshot(children);
+			}
+		}
+
+		/**
+		 * Adds a child, notifying while holding the lock on the children as the nodes do.
+		 */
+		private void add(TestNode child) {
+			synchronized(children) {
+				children.add(child);
+				childrenChanged();
+			}
+		}
+
+		private void remove(TestNode child) {
+			synchronized(children) {
+				children.remove(child);
+				childrenChanged();
+			}
+		}
+
+		private void setAlertLevel(AlertLevel alertLevel) {
+			this.alertLevel = alertLevel;
+			alertLevelChanged(this);
+		}
+
+		@Override
+		protected AlertLevel getMaxAlertLevel() {
+			return maxAlertLevel;
+		}
+
+		@Override
+		public AlertLevel getAlertLevel() {
+			return constrainAlertLevel(container ? getChildrenAlertLevel() : alertLevel);
+		}
+
+		@Override
+		public String getAlertMessage() {
+			return null;
+		}
+
+		@Override
+		public AlertCategory getAlertCategory() {
+			return AlertCategory.MONITORING;
+		}
+
+		@Override
+		public boolean getAllowsChildren() {
+			return container;
+		}
+
+		@Override
+		public String getLabel() {
+			return "test";
+		}
+	}
+
+	/**
+	 * Gets the alert level by visiting every node.
+	 */
+	private static AlertLevel getExpected(TestNode node) {
+		AlertLevel level;
+		if(node.container) {
+			level = AlertLevel.NONE;
+			for(TestNode child : node.getChildren()) {
+				AlertLevel childLevel = getExpected(child);
+				if(childLevel.compareTo(level) > 0) level = childLevel;
+			}
+		} else {
+			level = node.alertLevel;
+		}
+		return node.constrainAlertLevel(level);
+	}
+
+	/**
+	 * Waits for the changes to be propagated.
+	 */
+	private static void awaitAlertLevel(TestNode node) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while(node.getAlertLevel() != getExpected(node)) {
+			assertTrue("Alert level not propagated", System.nanoTime() < deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	private static void unexport(TestNode node) throws RemoteException {
+		for(TestNode child : node.getChildren()) unexport(child);
+		UnicastRemoteObject.unexportObject(node, true);
+	}
+
+	public void testConcurrentChanges() throws Exception {
+		TestNode root = new TestNode(null, true);
+		List<TestNode> containers = new ArrayList<>();
+		for(int i = 0; i < 4; i++) {
+			TestNode container = new TestNode(root, true);
+			root.add(container);
+			containers.add(container);
+		}
+		AlertLevel[] levels = AlertLevel.values();
+		AtomicBoolean done = new AtomicBoolean();
+		ExecutorService executor = Executors.newCachedThreadPool();
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for(TestNode container : containers) {
+				futures.add(executor.submit(() -> {
+					Random random = new Random(container.hashCode());
+					List<TestNode> leaves = new ArrayList<>();
+					for(int i = 0; i < 200; i++) {
+						if(leaves.isEmpty() || random.nextBoolean()) {
+							TestNode leaf = new TestNode(container, false);
+							leaf.setAlertLevel(levels[random.nextInt(levels.length)]);
+							container.add(leaf);
+							leaves.add(leaf);
+						} else if(random.nextBoolean()) {
+							leaves.get(random.nextInt(leaves.size())).setAlertLevel(levels[random.nextInt(levels.length)]);
+						} else {
+							TestNode leaf = leaves.remove(random.nextInt(leaves.size()));
+							container.remove(leaf);
+							UnicastRemoteObject.unexportObject(leaf, true);
+						}
+					}
+					return null;
+				}));
+			}
+			for(int i = 0; i < 2; i++) {
+				futures.add(executor.submit(() -> {
+					while(!done.get()) {
+						root.getAlertLevel();
+						for(TestNode container : containers) container.getAlertLevel();
+					}
+					return null;
+				}));
+			}
+			for(int i = 0; i < containers.size(); i++) futures.get(i).get(30, TimeUnit.SECONDS);
+			done.set(true);
+			for(Future<?> future : futures) future.get(30, TimeUnit.SECONDS);
+			awaitAlertLevel(root);
+			for(TestNode container : containers) assertSame(getExpected(container), container.getAlertLevel());
+		} finally {
+			done.set(true);
+			executor.shutdown();
+			unexport(root);
+		}
+	}
+
+	public void testMaxAlertLevelChanged() throws Exception {
+		TestNode root = new TestNode(null, true);
+		try {
+			TestNode container = new TestNode(root, true);
+			root.add(container);
+			TestNode leaf = new TestNode(container, false);
+			container.add(leaf);
+			leaf.setAlertLevel(AlertLevel.CRITICAL);
+			awaitAlertLevel(root);
+			assertSame(AlertLevel.CRITICAL, root.getAlertLevel());
+			container.maxAlertLevel = AlertLevel.LOW;
+			container.maxAlertLevelChanged();
+			awaitAlertLevel(root);
+			assertSame(AlertLevel.LOW, root.getAlertLevel());
+			container.maxAlertLevel = AlertLevel.UNKNOWN;
+			container.maxAlertLevelChanged();
+			awaitAlertLevel(root);
+			assertSame(AlertLevel.CRITICAL, root.getAlertLevel());
+		} finally {
+			unexport(root);
+		}
+	}
+}
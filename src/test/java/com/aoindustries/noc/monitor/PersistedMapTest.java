@@ -0,0 +1,127 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * @author  AO Industries, Inc.
+ */
+public class PersistedMapTest extends TestCase {
+
+	public PersistedMapTest(String testName) {
+		super(testName);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(PersistedMapTest.class);
+		return suite;
+	}
+
+	private static final PersistedMap.Codec<Long> codec = new PersistedMap.Codec<Long>() {
+		@Override
+		public void write(DataOutputStream out, Long value) throws IOException {
+			out.writeLong(value);
+		}
+
+		@Override
+		public Long read(DataInputStream in) throws IOException {
+			return in.readLong();
+		}
+	};
+
+	private static PersistedMap<Long> open(Path directory) {
+		return new PersistedMap<>(directory, "test", 0x54455354, 1, codec, value -> value >= 0);
+	}
+
+	public void testAppendsOnlyChanges() throws Exception {
+		Path directory = Files.createTempDirectory(null);
+		Path file = directory.resolve("test");
+		PersistedMap<Long> map = open(directory);
+		for(long i = 0; i < 10; i++) map.put("key" + i, i);
+		map.flush();
+		long size = Files.size(file);
+		// Unchanged, nothing written
+		map.flush();
+		assertEquals(size, Files.size(file));
+		map.put("key1", 100L);
+		map.remove("key2");
+		// Not retained
+		map.put("key3", -1L);
+		map.flush();
+		assertTrue(Files.size(file) > size);
+		PersistedMap<Long> restored = open(directory);
+		assertEquals(8, restored.size());
+		assertEquals(Long.valueOf(100), restored.get("key1"));
+		assertNull(restored.get("key2"));
+		assertNull(restored.get("key3"));
+		assertEquals(Long.valueOf(9), restored.get("key9"));
+	}
+
+	public void testCompacts() throws Exception {
+		Path directory = Files.createTempDirectory(null);
+		Path file = directory.resolve("test");
+		PersistedMap<Long> map = open(directory);
+		map.put("key", 0L);
+		map.flush();
+		long size = Files.size(file);
+		for(long i = 1; i <= 1000; i++) {
+			map.put("key", i);
+			map.flush();
+		}
+		assertTrue(Files.size(file) < 100 * size);
+		assertEquals(Long.valueOf(1000), open(directory).get("key"));
+	}
+
+	public void testDiscardsTruncatedRecord() throws Exception {
+		Path directory = Files.createTempDirectory(null);
+		Path file = directory.resolve("test");
+		PersistedMap<Long> map = open(directory);
+		map.put("key1", 1L);
+		map.flush();
+		map.put("key2", 2L);
+		map.flush();
+		// Crash while appending key2
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.truncate(Files.size(file) - 3);
+		}
+		PersistedMap<Long> restored = open(directory);
+		assertEquals(1, restored.size());
+		assertEquals(Long.valueOf(1), restored.get("key1"));
+		// Rewritten without the partial record
+		restored.put("key3", 3L);
+		restored.flush();
+		PersistedMap<Long> again = open(directory);
+		assertEquals(2, again.size());
+		assertEquals(Long.valueOf(3), again.get("key3"));
+	}
+}
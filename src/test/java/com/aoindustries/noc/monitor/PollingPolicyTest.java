@@ -0,0 +1,124 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import java.util.HashSet;
+import java.util.Set;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * @author  AO Industries, Inc.
+ */
+public class PollingPolicyTest extends TestCase {
+
+	private static final long BASE_DELAY = 60000;
+
+	public PollingPolicyTest(String testName) {
+		super(testName);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(PollingPolicyTest.class);
+		return suite;
+	}
+
+	/**
+	 * The default budget without jitter.
+	 */
+	private static PollingPolicy newPolicy() {
+		System.setProperty(PollingPolicy.class.getName() + ".nojitter.jitterPercent", "0");
+		return new PollingPolicy(PollingPolicy.getBudget("nojitter"), 0);
+	}
+
+	public void testGetSubsystem() {
+		assertEquals("monitor", PollingPolicy.getSubsystem(PollingPolicy.class));
+		assertEquals("common", PollingPolicy.getSubsystem(AlertLevel.class));
+	}
+
+	public void testBackoffSteps() {
+		PollingPolicy policy = newPolicy();
+		// Doubles after each three stable runs, up to four times the base
+		long[] expected = {
+			BASE_DELAY, BASE_DELAY, 2 * BASE_DELAY,
+			2 * BASE_DELAY, 2 * BASE_DELAY, 4 * BASE_DELAY,
+			4 * BASE_DELAY, 4 * BASE_DELAY, 4 * BASE_DELAY
+		};
+		for(long delay : expected) {
+			assertEquals(delay, policy.getDelay(BASE_DELAY, true, AlertLevel.NONE));
+		}
+		// An unsuccessful run resets to the base
+		assertEquals(BASE_DELAY, policy.getDelay(BASE_DELAY, false, AlertLevel.NONE));
+		assertEquals(BASE_DELAY, policy.getDelay(BASE_DELAY, true, AlertLevel.NONE));
+	}
+
+	public void testBackoffNotAllowed() {
+		PollingPolicy policy = newPolicy();
+		for(int i = 0; i < 10; i++) {
+			assertEquals(BASE_DELAY, policy.getDelay(BASE_DELAY, false, true, AlertLevel.NONE));
+		}
+	}
+
+	public void testTightenOnRising() {
+		PollingPolicy policy = newPolicy();
+		for(int i = 0; i < 6; i++) policy.getDelay(BASE_DELAY, true, AlertLevel.NONE);
+		// Rising resets the back off and divides the base
+		assertEquals(BASE_DELAY / 2, policy.getDelay(BASE_DELAY, true, AlertLevel.HIGH));
+		// Not rising nor flapping, not healthy
+		assertEquals(BASE_DELAY, policy.getDelay(BASE_DELAY, true, AlertLevel.HIGH));
+		// Not tightened below the minimum delay
+		assertEquals(15000, policy.getDelay(20000, true, AlertLevel.CRITICAL));
+		// Nor above a base delay already below the minimum
+		assertEquals(10000, policy.getDelay(10000, true, AlertLevel.UNKNOWN));
+	}
+
+	public void testTightenOnFlapping() {
+		PollingPolicy policy = newPolicy();
+		assertEquals(BASE_DELAY, policy.getDelay(BASE_DELAY, true, AlertLevel.NONE));
+		assertEquals(BASE_DELAY / 2, policy.getDelay(BASE_DELAY, true, AlertLevel.LOW));
+		// Falling is not rising, but is the second change
+		assertEquals(BASE_DELAY / 2, policy.getDelay(BASE_DELAY, true, AlertLevel.NONE));
+		// Still flapping while both changes are within the last eight runs
+		for(int i = 0; i < 6; i++) {
+			assertEquals(BASE_DELAY / 2, policy.getDelay(BASE_DELAY, true, AlertLevel.NONE));
+		}
+		// The first change has left the window
+		assertEquals(BASE_DELAY, policy.getDelay(BASE_DELAY, true, AlertLevel.NONE));
+	}
+
+	public void testJitterBounds() {
+		PollingPolicy.Budget budget = PollingPolicy.getBudget("jitter");
+		assertEquals(10, budget.jitterPercent);
+		Set<Long> delays = new HashSet<>();
+		for(int seed = 0; seed < 1000; seed++) {
+			long delay = new PollingPolicy(budget, seed).getDelay(BASE_DELAY, true, AlertLevel.HIGH);
+			assertTrue("Jitter out of bounds: " + delay, delay >= BASE_DELAY * 9 / 10 && delay <= BASE_DELAY * 11 / 10);
+			// The same worker always gets the same jitter
+			assertEquals(delay, new PollingPolicy(budget, seed).getDelay(BASE_DELAY, true, AlertLevel.HIGH));
+			delays.add(delay);
+		}
+		assertTrue("Jitter not spread: " + delays.size(), delays.size() > 100);
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the thread count and memory of the platform thread model against
+ * the {@linkplain VirtualThreads virtual thread} model for a large number of
+ * monitored endpoints.
+ * <p>
+ * Each endpoint is scheduled on a {@link TimingWheel} within the first
+ * <code>spread</code> milliseconds, like the startup delays, and then runs a
+ * worker task that waits on a blocking probe with a timeout, like
+ * <code>getSampleWithTimeout</code>.  The probe simulates blocking I/O by
+ * sleeping a random time, with a small fraction timing-out.
+ * </p>
+ * <p>
+ * Run each model in its own JVM so peak thread counts are not shared:
+ * </p>
+ * <pre>
+ * java ProbeThreadingBenchmark platform [endpoints] [spread]
+ * java ProbeThreadingBenchmark virtual [endpoints] [spread]
+ * </pre>
+ * <p>
+ * This is not run as part of the tests.  The virtual model requires Java 21
+ * or newer.
+ * </p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public class ProbeThreadingBenchmark {
+
+	private static final int DEFAULT_ENDPOINTS = 50000;
+	private static final long DEFAULT_SPREAD = 5000;
+	private static final long MAX_PROBE_MILLIS = 3000;
+	private static final long TIMEOUT_MILLIS = 2500;
+
+	@SuppressWarnings({"UseOfSystemOutOrSystemErr", "CallToPrintStackTrace"})
+	public static void main(String[] args) throws Exception {
+		if(args.length < 1) {
+			System.err.println("usage: " + ProbeThreadingBenchmark.class.getName() + " {platform|virtual} [endpoints] [spread]");
+			System.exit(1);
+			return;
+		}
+		String model = args[0];
+		int endpoints = args.length >= 2 ? Integer.parseInt(args[1]) : DEFAULT_ENDPOINTS;
+		long spread = args.length >= 3 ? Long.parseLong(args[2]) : DEFAULT_SPREAD;
+
+		ExecutorService dispatcher;
+		ExecutorService probes;
+		switch(model) {
+			case "platform" :
+				// Matches the unbounded executor: a new thread whenever none idle
+				dispatcher = Executors.newCachedThreadPool();
+				probes = Executors.newCachedThreadPool();
+				break;
+			case "virtual" :
+				System.setProperty(VirtualThreads.PROPERTY, "true");
+				if(!VirtualThreads.isEnabled()) {
+					System.err.println("Virtual threads not available in Java " + System.getProperty("java.version"));
+					System.exit(1);
+					return;
+				}
+				dispatcher = VirtualThreads.newVirtualThreadPerTaskExecutor();
+				probes = VirtualThreads.newVirtualThreadPerTaskExecutor();
+				break;
+			default :
+				throw new IllegalArgumentException("Unexpected model: " + model);
+		}
+
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		System.gc();
+		long baseHeap = memory.getHeapMemoryUsage().getUsed();
+		long baseNonHeap = memory.getNonHeapMemoryUsage().getUsed();
+		threads.resetPeakThreadCount();
+
+		TimingWheel wheel = new TimingWheel(dispatcher, 10, TimeUnit.MILLISECONDS, 1024);
+		CountDownLatch done = new CountDownLatch(endpoints);
+		AtomicInteger timeouts = new AtomicInteger();
+		AtomicInteger failures = new AtomicInteger();
+		AtomicLong maxHeap = new AtomicLong();
+		long startNanos = System.nanoTime();
+		for(int i = 0; i < endpoints; i++) {
+			wheel.schedule(
+				() -> {
+					try {
+						Future<Object> future = probes.submit(() -> {
+							Thread.sleep(ThreadLocalRandom.current().nextLong(MAX_PROBE_MILLIS));
+							return Boolean.TRUE;
+						});
+						try {
+							future.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+						} catch(TimeoutException e) {
+							future.cancel(true);
+							timeouts.incrementAndGet();
+						}
+					} catch(Throwable t) {
+						// Includes OutOfMemoryError when unable to create more native threads
+						if(failures.getAndIncrement() == 0) t.printStackTrace();
+					} finally {
+						done.countDown();
+					}
+				},
+				spread * i / endpoints
+			);
+		}
+		// Sample heap and resident memory while running
+		long maxRss = -1;
+		while(!done.await(100, TimeUnit.MILLISECONDS)) {
+			long heap = memory.getHeapMemoryUsage().getUsed();
+			maxHeap.accumulateAndGet(heap, Math::max);
+			maxRss = Math.max(maxRss, getResidentSetSize());
+		}
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+		System.out.println("Model............: " + model + " (Java " + System.getProperty("java.version") + ")");
+		System.out.println("Endpoints........: " + endpoints + " over " + spread + " ms");
+		System.out.println("Elapsed..........: " + elapsedMillis + " ms");
+		System.out.println("Timeouts.........: " + timeouts.get());
+		System.out.println("Failures.........: " + failures.get());
+		System.out.println("Peak threads.....: " + threads.getPeakThreadCount());
+		System.out.println("Peak heap delta..: " + ((maxHeap.get() - baseHeap) >> 20) + " MiB");
+		System.out.println("Non-heap delta...: " + ((memory.getNonHeapMemoryUsage().getUsed() - baseNonHeap) >> 20) + " MiB");
+		System.out.println("Peak RSS.........: " + (maxRss == -1 ? "unavailable" : (maxRss >> 20) + " MiB"));
+		System.out.println("Wheel max lag....: " + TimeUnit.NANOSECONDS.toMillis(wheel.getMaxTickLagNanos()) + " ms");
+		System.exit(0);
+	}
+
+	/**
+	 * Gets the resident set size, which includes the native thread stacks, or <code>-1</code> when unavailable.
+	 */
+	private static long getResidentSetSize() {
+		try {
+			for(String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+				if(line.startsWith("VmRSS:")) {
+					String[] fields = line.substring("VmRSS:".length()).trim().split("\\s+");
+					return Long.parseLong(fields[0]) * 1024;
+				}
+			}
+		} catch(IOException | NumberFormatException e) {
+			// Not available
+		}
+		return -1;
+	}
+
+	private ProbeThreadingBenchmark() {}
+}
@@ -0,0 +1,193 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import com.aoapps.persistence.PersistentCollections;
+import com.aoapps.persistence.PersistentLinkedList;
+import com.aoapps.persistence.ProtectionLevel;
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import com.aoindustries.noc.monitor.common.PingResult;
+import com.aoindustries.noc.monitor.net.PingResultSerializer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * @author  AO Industries, Inc.
+ */
+public class ResultHistoryTest extends TestCase {
+
+	public ResultHistoryTest(String testName) {
+		super(testName);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(ResultHistoryTest.class);
+		return suite;
+	}
+
+	private static final PingResultSerializer serializer = new PingResultSerializer();
+
+	private static PingResult newResult(long seq) {
+		return new PingResult(seq * 1000, seq, AlertLevel.NONE);
+	}
+
+	private static File newFile() throws Exception {
+		return new File(Files.createTempDirectory(null).toFile(), "history");
+	}
+
+	public void testAddAndReopen() throws Exception {
+		File file = newFile();
+		ResultHistory<PingResult> history = ResultHistory.openFile(file, serializer, 3);
+		assertEquals(0, history.size());
+		for(long seq = 1; seq <= 3; seq++) assertNull(history.add(newResult(seq)));
+		// Full, so the oldest is removed
+		assertEquals(1, history.add(newResult(4)).getLatency());
+		assertEquals(3, history.size());
+		assertEquals(4, history.get(0).getLatency());
+		assertEquals(4000, history.getTime(0));
+		assertEquals(2, history.get(2).getLatency());
+		assertEquals(2, history.countNewerThan(2000));
+		history.flush();
+		ResultHistory<PingResult> reopened = ResultHistory.openFile(file, serializer, 3);
+		assertEquals(3, reopened.size());
+		assertEquals(4, reopened.get(0).getLatency());
+		assertEquals(2, reopened.get(2).getLatency());
+	}
+
+	/**
+	 * Finds the only occurrence of a result's payload in the file.
+	 */
+	private static long findPayload(File file, PingResult result) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		serializer.serialize(result, out);
+		byte[] payload = out.toByteArray();
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		long found = -1;
+		for(int pos = 0; pos <= bytes.length - payload.length; pos++) {
+			boolean matches = true;
+			for(int i = 0; i < payload.length; i++) {
+				if(bytes[pos + i] != payload[i]) {
+					matches = false;
+					break;
+				}
+			}
+			if(matches) {
+				assertEquals("Payload found more than once", -1, found);
+				found = pos;
+			}
+		}
+		assertTrue("Payload not found", found != -1);
+		return found;
+	}
+
+	public void testCrcRecovery() throws Exception {
+		File file = newFile();
+		ResultHistory<PingResult> history = ResultHistory.openFile(file, serializer, 10);
+		for(long seq = 1; seq <= 5; seq++) history.add(newResult(seq));
+		history.flush();
+		// Corrupt the payload of the third result, as if partially written
+		long pos = findPayload(file, newResult(3)) + 2;
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.seek(pos);
+			int b = raf.read();
+			raf.seek(pos);
+			raf.write(b ^ 0xff);
+		}
+		// Only the newest run of valid results is kept
+		ResultHistory<PingResult> recovered = ResultHistory.openFile(file, serializer, 10);
+		assertEquals(2, recovered.size());
+		assertEquals(5, recovered.get(0).getLatency());
+		assertEquals(4, recovered.get(1).getLatency());
+		// Continues from the newest
+		recovered.add(newResult(6));
+		assertEquals(3, recovered.size());
+		assertEquals(6, recovered.get(0).getLatency());
+	}
+
+	public void testSlotGrowth() throws Exception {
+		File file = newFile();
+		ResultHistory<PingResult> history = ResultHistory.openFile(file, serializer, 10);
+		for(long seq = 1; seq <= 3; seq++) history.add(newResult(seq));
+		long length = file.length();
+		StringBuilder error = new StringBuilder();
+		while(error.length() < 1000) error.append("Error ");
+		history.add(new PingResult(4000, 4, AlertLevel.CRITICAL, error.toString()));
+		// Rebuilt with larger slots, keeping the results
+		assertTrue(file.length() > length);
+		assertEquals(4, history.size());
+		assertEquals(error.toString(), history.get(0).getError());
+		assertEquals(AlertLevel.CRITICAL, history.getAlertLevel(0));
+		for(int index = 1; index < 4; index++) assertEquals(4 - index, history.get(index).getLatency());
+		history.add(newResult(5));
+		history.flush();
+		ResultHistory<PingResult> reopened = ResultHistory.openFile(file, serializer, 10);
+		assertEquals(5, reopened.size());
+		assertEquals(5, reopened.get(0).getLatency());
+		assertEquals(error.toString(), reopened.get(1).getError());
+		assertFalse(new File(file.getPath() + ".new").exists());
+	}
+
+	public void testResize() throws Exception {
+		File file = newFile();
+		ResultHistory<PingResult> history = ResultHistory.openFile(file, serializer, 10);
+		for(long seq = 1; seq <= 8; seq++) history.add(newResult(seq));
+		history.flush();
+		// The newest results are kept
+		ResultHistory<PingResult> resized = ResultHistory.openFile(file, serializer, 5);
+		assertEquals(5, resized.getCapacity());
+		assertEquals(5, resized.size());
+		assertEquals(8, resized.get(0).getLatency());
+		assertEquals(4, resized.get(4).getLatency());
+	}
+
+	public void testMigrate() throws Exception {
+		File file = newFile();
+		PersistentLinkedList<PingResult> legacy = new PersistentLinkedList<>(
+			PersistentCollections.getPersistentBuffer(new RandomAccessFile(file, "rw"), ProtectionLevel.BARRIER, Long.MAX_VALUE),
+			serializer
+		);
+		try {
+			// Stored newest first
+			for(long seq = 1; seq <= 5; seq++) legacy.addFirst(newResult(seq));
+		} finally {
+			legacy.close();
+		}
+		ResultHistory<PingResult> migrated = ResultHistory.openFile(file, serializer, 3);
+		assertEquals(3, migrated.size());
+		assertEquals(5, migrated.get(0).getLatency());
+		assertEquals(3, migrated.get(2).getLatency());
+		migrated.add(newResult(6));
+		assertEquals(6, migrated.get(0).getLatency());
+		migrated.flush();
+		// Opens as a history from then on
+		ResultHistory<PingResult> reopened = ResultHistory.openFile(file, serializer, 3);
+		assertEquals(3, reopened.size());
+		assertEquals(6, reopened.get(0).getLatency());
+		assertEquals(4, reopened.get(2).getLatency());
+	}
+}
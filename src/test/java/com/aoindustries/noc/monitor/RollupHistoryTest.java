@@ -0,0 +1,147 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * @author  AO Industries, Inc.
+ */
+public class RollupHistoryTest extends TestCase {
+
+	public RollupHistoryTest(String testName) {
+		super(testName);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(RollupHistoryTest.class);
+		return suite;
+	}
+
+	private static final long MINUTE = 60L * 1000;
+
+	/**
+	 * The start of a day, so also the start of each tier's interval.
+	 */
+	private static final long START = RollupTier.DAY.getStartTime(System.currentTimeMillis());
+
+	private static File newFile() throws Exception {
+		return new File(Files.createTempDirectory(null).toFile(), "rollups");
+	}
+
+	public void testAccumulatesInterval() throws Exception {
+		RollupHistory rollups = RollupHistory.openFile(newFile(), 2);
+		assertEquals(Long.MIN_VALUE, rollups.getLastTime());
+		assertTrue(rollups.add(START, AlertLevel.NONE, new double[] {1, 10}));
+		assertTrue(rollups.add(START + MINUTE, AlertLevel.HIGH, new double[] {3, 30}));
+		assertTrue(rollups.add(START + 2 * MINUTE, AlertLevel.LOW, null));
+		assertEquals(START + 2 * MINUTE, rollups.getLastTime());
+		for(RollupTier tier : RollupTier.values()) {
+			assertEquals(1, rollups.size(tier));
+			Rollup rollup = rollups.get(tier, 0);
+			assertEquals(START, rollup.getStartTime());
+			assertEquals(3, rollup.getCount());
+			assertEquals(1, rollup.getErrorCount());
+			assertEquals(AlertLevel.HIGH, rollup.getMaxAlertLevel());
+			assertEquals(1.0, rollup.getMin(0));
+			assertEquals(3.0, rollup.getMax(0));
+			assertEquals(2.0, rollup.getAvg(0));
+			assertEquals(10.0, rollup.getMin(1));
+			assertEquals(30.0, rollup.getMax(1));
+			assertEquals(20.0, rollup.getAvg(1));
+		}
+	}
+
+	public void testIgnoresOlderResults() throws Exception {
+		RollupHistory rollups = RollupHistory.openFile(newFile(), 1);
+		assertTrue(rollups.add(START + MINUTE, AlertLevel.NONE, new double[] {1}));
+		assertFalse(rollups.add(START + MINUTE, AlertLevel.NONE, new double[] {2}));
+		assertFalse(rollups.add(START, AlertLevel.NONE, new double[] {3}));
+		Rollup rollup = rollups.get(RollupTier.DAY, 0);
+		assertEquals(1, rollup.getCount());
+		assertEquals(1.0, rollup.getMax(0));
+	}
+
+	public void testStartsNewIntervals() throws Exception {
+		RollupHistory rollups = RollupHistory.openFile(newFile(), 1);
+		long interval = RollupTier.FIFTEEN_MINUTES.getInterval();
+		for(int i = 0; i < 8; i++) {
+			assertTrue(rollups.add(START + i * interval, AlertLevel.NONE, new double[] {i}));
+		}
+		assertEquals(8, rollups.size(RollupTier.FIFTEEN_MINUTES));
+		assertEquals(2, rollups.size(RollupTier.HOUR));
+		assertEquals(1, rollups.size(RollupTier.DAY));
+		// Newest first
+		assertEquals(7.0, rollups.get(RollupTier.FIFTEEN_MINUTES, 0).getAvg(0));
+		assertEquals(0.0, rollups.get(RollupTier.FIFTEEN_MINUTES, 7).getAvg(0));
+		assertEquals(5.5, rollups.get(RollupTier.HOUR, 0).getAvg(0));
+		assertEquals(1.5, rollups.get(RollupTier.HOUR, 1).getAvg(0));
+		assertEquals(3.5, rollups.get(RollupTier.DAY, 0).getAvg(0));
+		List<Rollup> since = rollups.getSince(RollupTier.FIFTEEN_MINUTES, START + 5 * interval, 10);
+		assertEquals(3, since.size());
+		assertEquals(START + 7 * interval, since.get(0).getStartTime());
+		assertEquals(START + 5 * interval, since.get(2).getStartTime());
+		// Limited to the oldest of those since the time
+		since = rollups.getSince(RollupTier.FIFTEEN_MINUTES, START + 5 * interval, 2);
+		assertEquals(2, since.size());
+		assertEquals(START + 6 * interval, since.get(0).getStartTime());
+		assertEquals(START + 5 * interval, since.get(1).getStartTime());
+	}
+
+	public void testWrapsTier() throws Exception {
+		RollupHistory rollups = RollupHistory.openFile(newFile(), 1);
+		int capacity = RollupTier.FIFTEEN_MINUTES.getCapacity();
+		long interval = RollupTier.FIFTEEN_MINUTES.getInterval();
+		for(int i = 0; i < capacity + 3; i++) {
+			rollups.add(START + i * interval, AlertLevel.NONE, new double[] {i});
+		}
+		assertEquals(capacity, rollups.size(RollupTier.FIFTEEN_MINUTES));
+		assertEquals(START + (capacity + 2) * interval, rollups.get(RollupTier.FIFTEEN_MINUTES, 0).getStartTime());
+		assertEquals(START + 3 * interval, rollups.get(RollupTier.FIFTEEN_MINUTES, capacity - 1).getStartTime());
+	}
+
+	public void testReopen() throws Exception {
+		File file = newFile();
+		RollupHistory rollups = RollupHistory.openFile(file, 2);
+		rollups.add(START, AlertLevel.NONE, new double[] {1, 2});
+		rollups.flush();
+		RollupHistory reopened = RollupHistory.openFile(file, 2);
+		assertEquals(START, reopened.getLastTime());
+		assertEquals(1, reopened.size(RollupTier.HOUR));
+		assertEquals(2.0, reopened.get(RollupTier.HOUR, 0).getMax(1));
+		// Continues accumulating the same interval
+		reopened.add(START + MINUTE, AlertLevel.NONE, new double[] {3, 4});
+		assertEquals(2, reopened.get(RollupTier.HOUR, 0).getCount());
+		// A different layout is recreated empty
+		RollupHistory recreated = RollupHistory.openFile(file, 3);
+		assertEquals(3, recreated.getColumns());
+		assertEquals(Long.MIN_VALUE, recreated.getLastTime());
+		assertEquals(0, recreated.size(RollupTier.HOUR));
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * @author  AO Industries, Inc.
+ */
+public class StartupPlannerTest extends TestCase {
+
+	public StartupPlannerTest(String testName) {
+		super(testName);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(StartupPlannerTest.class);
+		return suite;
+	}
+
+	/**
+	 * The default window of {@link StartupPlanner.CostClass#LIGHT}.
+	 */
+	private static final long LIGHT_WINDOW = 5L * 60000;
+
+	/**
+	 * The default host interval.
+	 */
+	private static final long HOST_INTERVAL = 2000;
+
+	public void testGetHost() {
+		assertEquals("servers/pack/server", StartupPlanner.getHost("servers/pack/server/ping"));
+		assertEquals("unallocated/192.0.2.1", StartupPlanner.getHost("unallocated/192.0.2.1/ping"));
+		assertEquals("other", StartupPlanner.getHost("other"));
+	}
+
+	public void testSameHostSpaced() throws Exception {
+		Path directory = Files.createTempDirectory(null);
+		StartupPlanner planner = new StartupPlanner(directory);
+		List<Long> delays = new ArrayList<>();
+		for(int i = 0; i < 10; i++) {
+			delays.add(planner.getStartupDelay(StartupPlanner.CostClass.LIGHT, directory.resolve("servers/pack/server/worker" + i).toFile()));
+		}
+		Collections.sort(delays);
+		for(int i = 1; i < delays.size(); i++) {
+			// Allow for the time passed between calls
+			assertTrue(delays.get(i) - delays.get(i - 1) >= HOST_INTERVAL - 100);
+		}
+	}
+
+	public void testNoPersistenceFileNotSpaced() throws Exception {
+		StartupPlanner planner = new StartupPlanner(Files.createTempDirectory(null));
+		// Would take 1000 seconds if spaced as one host
+		for(int i = 0; i < 500; i++) {
+			long delay = planner.getStartupDelay(StartupPlanner.CostClass.LIGHT, null);
+			assertTrue(delay >= 0);
+			assertTrue(delay < LIGHT_WINDOW);
+		}
+	}
+}
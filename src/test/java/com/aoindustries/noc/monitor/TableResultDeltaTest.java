@@ -0,0 +1,162 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import com.aoindustries.noc.monitor.common.TableResult;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * @author  AO Industries, Inc.
+ */
+public class TableResultDeltaTest extends TestCase {
+
+	public TableResultDeltaTest(String testName) {
+		super(testName);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(TableResultDeltaTest.class);
+		return suite;
+	}
+
+	private static TableResultSnapshot newSnapshot(long sequence, List<String> columnHeaders, List<AlertLevel> alertLevels, Object ... tableData) {
+		List<Object> data = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(tableData)));
+		TableResult result = new TableResult(
+			sequence * 1000,
+			sequence,
+			false,
+			columnHeaders.size(),
+			data.size() / columnHeaders.size(),
+			locale -> columnHeaders,
+			locale -> data,
+			alertLevels
+		);
+		return new TableResultSnapshot(sequence, result, Locale.ROOT);
+	}
+
+	private static final List<String> HEADERS = Arrays.asList("Name", "Value");
+
+	private static List<AlertLevel> levels(AlertLevel ... levels) {
+		return Arrays.asList(levels);
+	}
+
+	/**
+	 * Applies a delta as a client would, checking it follows the version held.
+	 */
+	private static final class Client {
+
+		private long sequence = TableResultDelta.NO_BASE;
+		private List<?> tableData;
+		private List<AlertLevel> alertLevels;
+
+		/**
+		 * @return  {@code false} when an update was missed and a resync is needed
+		 */
+		private boolean apply(TableResultDelta delta) {
+			if(!delta.isFull() && delta.getBaseSequence() != sequence) return false;
+			tableData = delta.apply(tableData);
+			if(delta.getAlertLevels() != null) alertLevels = delta.getAlertLevels();
+			sequence = delta.getSequence();
+			return true;
+		}
+	}
+
+	public void testFirstIsFull() {
+		TableResultSnapshot snapshot = newSnapshot(1, HEADERS, levels(AlertLevel.NONE), "a", 1);
+		TableResultDelta delta = TableResultDelta.between(null, snapshot);
+		assertTrue(delta.isFull());
+		assertEquals(TableResultDelta.NO_BASE, delta.getBaseSequence());
+		assertEquals(1, delta.getSequence());
+		assertEquals(HEADERS, delta.getColumnHeaders());
+		assertEquals(Arrays.asList("a", 1), delta.apply(null));
+	}
+
+	public void testSequence() {
+		TableResultSnapshot s1 = newSnapshot(1, HEADERS, levels(AlertLevel.NONE, AlertLevel.NONE), "a", 1, "b", 2);
+		TableResultSnapshot s2 = newSnapshot(2, HEADERS, levels(AlertLevel.NONE, AlertLevel.NONE), "a", 1, "b", 3);
+		TableResultSnapshot s3 = newSnapshot(3, HEADERS, levels(AlertLevel.NONE, AlertLevel.HIGH, AlertLevel.LOW), "a", 1, "b", 4, "c", 5);
+		TableResultSnapshot s4 = newSnapshot(4, HEADERS, levels(AlertLevel.NONE), "a", 1);
+		Client client = new Client();
+		assertTrue(client.apply(TableResultDelta.between(null, s1)));
+		// One cell changed, alert levels unchanged
+		TableResultDelta d2 = TableResultDelta.between(s1, s2);
+		assertFalse(d2.isFull());
+		assertEquals(1, d2.getBaseSequence());
+		assertEquals(2, d2.getSequence());
+		assertNull(d2.getColumnHeaders());
+		assertNull(d2.getAlertLevels());
+		assertTrue(client.apply(d2));
+		assertEquals(s2.tableData, client.tableData);
+		// Row added
+		TableResultDelta d3 = TableResultDelta.between(s2, s3);
+		assertFalse(d3.isFull());
+		assertEquals(3, d3.getRows());
+		assertEquals(s3.alertLevels, d3.getAlertLevels());
+		assertTrue(client.apply(d3));
+		assertEquals(s3.tableData, client.tableData);
+		assertEquals(s3.alertLevels, client.alertLevels);
+		// Rows removed, nothing else changed
+		TableResultDelta d4 = TableResultDelta.between(s3, s4);
+		assertFalse(d4.isFull());
+		assertTrue(client.apply(d4));
+		assertEquals(s4.tableData, client.tableData);
+		assertEquals(4, client.sequence);
+	}
+
+	public void testFullWhenSmaller() {
+		TableResultSnapshot s1 = newSnapshot(1, HEADERS, levels(AlertLevel.NONE, AlertLevel.NONE), "a", 1, "b", 2);
+		// More than half the cells changed
+		TableResultSnapshot s2 = newSnapshot(2, HEADERS, levels(AlertLevel.NONE, AlertLevel.NONE), "x", 9, "y", 2);
+		assertTrue(TableResultDelta.between(s1, s2).isFull());
+		// Columns changed
+		TableResultSnapshot s3 = newSnapshot(3, Arrays.asList("Name", "Other"), levels(AlertLevel.NONE, AlertLevel.NONE), "a", 1, "b", 2);
+		TableResultDelta d3 = TableResultDelta.between(s1, s3);
+		assertTrue(d3.isFull());
+		assertEquals(Arrays.asList("Name", "Other"), d3.getColumnHeaders());
+	}
+
+	public void testResync() {
+		TableResultSnapshot s1 = newSnapshot(1, HEADERS, levels(AlertLevel.NONE, AlertLevel.NONE), "a", 1, "b", 2);
+		TableResultSnapshot s2 = newSnapshot(2, HEADERS, levels(AlertLevel.NONE, AlertLevel.NONE), "a", 1, "b", 3);
+		TableResultSnapshot s3 = newSnapshot(3, HEADERS, levels(AlertLevel.NONE, AlertLevel.NONE), "a", 1, "b", 4);
+		Client client = new Client();
+		assertTrue(client.apply(TableResultDelta.between(null, s1)));
+		// The delta to version 2 was missed
+		TableResultDelta d3 = TableResultDelta.between(s2, s3);
+		assertFalse(client.apply(d3));
+		assertEquals(1, client.sequence);
+		// A resync is a full delta, which applies to any version
+		assertTrue(client.apply(TableResultDelta.full(s3)));
+		assertEquals(3, client.sequence);
+		assertEquals(s3.tableData, client.tableData);
+		assertEquals(s3.alertLevels, client.alertLevels);
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * @author  AO Industries, Inc.
+ */
+public class TimingWheelTest extends TestCase {
+
+	public TimingWheelTest(String testName) {
+		super(testName);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(TimingWheelTest.class);
+		return suite;
+	}
+
+	private ExecutorService executor;
+
+	@Override
+	protected void setUp() {
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@Override
+	protected void tearDown() {
+		executor.shutdown();
+	}
+
+	public void testNeverEarly() throws Exception {
+		TimingWheel wheel = new TimingWheel(executor, 10, TimeUnit.MILLISECONDS, 64);
+		AtomicLong ranNanos = new AtomicLong();
+		long startNanos = System.nanoTime();
+		Future<?> future = wheel.schedule(() -> ranNanos.set(System.nanoTime()), 100);
+		future.get(10, TimeUnit.SECONDS);
+		assertTrue(future.isDone());
+		assertTrue("Ran early", ranNanos.get() - startNanos >= TimeUnit.MILLISECONDS.toNanos(100));
+		assertEquals(0, wheel.getPendingCount());
+		assertEquals(1, wheel.getDispatchedCount());
+	}
+
+	/**
+	 * A delay longer than one rotation stays in its bucket until its round.
+	 */
+	public void testMultipleRotations() throws Exception {
+		TimingWheel wheel = new TimingWheel(executor, 10, TimeUnit.MILLISECONDS, 8);
+		AtomicLong ranNanos = new AtomicLong();
+		long startNanos = System.nanoTime();
+		Future<?> future = wheel.schedule(() -> ranNanos.set(System.nanoTime()), 250);
+		future.get(10, TimeUnit.SECONDS);
+		assertTrue("Ran early", ranNanos.get() - startNanos >= TimeUnit.MILLISECONDS.toNanos(250));
+	}
+
+	public void testCancelPending() throws Exception {
+		TimingWheel wheel = new TimingWheel(executor, 10, TimeUnit.MILLISECONDS, 64);
+		Future<?> future = wheel.schedule(() -> fail("Cancelled task ran"), 10000);
+		assertEquals(1, wheel.getPendingCount());
+		assertTrue(future.cancel(false));
+		assertTrue(future.isCancelled());
+		assertTrue(future.isDone());
+		assertFalse(future.cancel(false));
+		assertEquals(0, wheel.getPendingCount());
+		try {
+			future.get(1, TimeUnit.SECONDS);
+			fail("CancellationException expected");
+		} catch(CancellationException e) {
+			// Expected
+		}
+	}
+
+	public void testBatch() throws Exception {
+		TimingWheel wheel = new TimingWheel(executor, 10, TimeUnit.MILLISECONDS, 64);
+		int count = 100;
+		CountDownLatch ran = new CountDownLatch(count);
+		for(int i = 0; i < count; i++) wheel.schedule(ran::countDown, 50);
+		assertTrue(ran.await(10, TimeUnit.SECONDS));
+		assertEquals(count, wheel.getDispatchedCount());
+		assertTrue(wheel.getMaxBatchSize() > 1);
+		assertEquals(0, wheel.getRejectedCount());
+	}
+
+	public void testRejected() throws Exception {
+		ExecutorService shutdown = Executors.newSingleThreadExecutor();
+		shutdown.shutdown();
+		TimingWheel wheel = new TimingWheel(shutdown, 10, TimeUnit.MILLISECONDS, 64);
+		Future<?> future = wheel.schedule(() -> fail("Rejected task ran"), 0);
+		try {
+			future.get(10, TimeUnit.SECONDS);
+			fail("ExecutionException expected");
+		} catch(ExecutionException e) {
+			assertTrue(e.getCause() instanceof RejectedExecutionException);
+		}
+		assertEquals(1, wheel.getRejectedCount());
+		assertEquals(0, wheel.getDispatchedCount());
+	}
+}
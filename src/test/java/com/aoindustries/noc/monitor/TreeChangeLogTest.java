@@ -0,0 +1,121 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import com.aoindustries.noc.monitor.common.AlertCategory;
+import com.aoindustries.noc.monitor.common.AlertChange;
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import java.util.List;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * @author  AO Industries, Inc.
+ */
+public class TreeChangeLogTest extends TestCase {
+
+	public TreeChangeLogTest(String testName) {
+		super(testName);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(TreeChangeLogTest.class);
+		return suite;
+	}
+
+	/**
+	 * The default capacity.
+	 */
+	private static final int CAPACITY = 10000;
+
+	private static AlertChange newAlertChange(AlertLevel newAlertLevel) {
+		return new AlertChange(null, "/test", AlertLevel.NONE, newAlertLevel, null, AlertCategory.MONITORING, AlertCategory.MONITORING);
+	}
+
+	public void testEpoch() {
+		TreeChangeLog log1 = new TreeChangeLog();
+		TreeChangeLog log2 = new TreeChangeLog();
+		assertEquals(log1.getEpoch(), log1.getEpoch());
+		// A restarted server starts a new epoch, so versions from before are not reused
+		assertFalse(log1.getEpoch() == log2.getEpoch());
+		assertEquals(0, log1.getVersion());
+		assertEquals(0, log1.getChangesSince(0).size());
+	}
+
+	public void testChangesSince() {
+		TreeChangeLog log = new TreeChangeLog();
+		AlertChange alertChange = newAlertChange(AlertLevel.LOW);
+		log.alertChanged(alertChange);
+		log.structureChanged(TreeChange.Type.NODE_ADDED);
+		log.alertChanged(newAlertChange(AlertLevel.HIGH));
+		assertEquals(3, log.getVersion());
+		List<TreeChange> changes = log.getChangesSince(0);
+		assertEquals(3, changes.size());
+		assertEquals(1, changes.get(0).getVersion());
+		assertSame(alertChange, changes.get(0).getAlertChange());
+		assertSame(TreeChange.Type.NODE_ADDED, changes.get(1).getType());
+		assertNull(changes.get(1).getAlertChange());
+		changes = log.getChangesSince(2);
+		assertEquals(1, changes.size());
+		assertEquals(3, changes.get(0).getVersion());
+		assertTrue(log.getChangesSince(3).isEmpty());
+		// From the future, such as another epoch
+		assertNull(log.getChangesSince(4));
+	}
+
+	public void testCollapsesStructuralChanges() {
+		TreeChangeLog log = new TreeChangeLog();
+		log.structureChanged(TreeChange.Type.NODE_ADDED);
+		log.structureChanged(TreeChange.Type.NODE_ADDED);
+		log.structureChanged(TreeChange.Type.NODE_ADDED);
+		log.structureChanged(TreeChange.Type.NODE_REMOVED);
+		log.structureChanged(TreeChange.Type.NODE_REMOVED);
+		assertEquals(5, log.getVersion());
+		List<TreeChange> changes = log.getChangesSince(0);
+		assertEquals(2, changes.size());
+		assertEquals(3, changes.get(0).getVersion());
+		assertSame(TreeChange.Type.NODE_ADDED, changes.get(0).getType());
+		assertEquals(5, changes.get(1).getVersion());
+		assertSame(TreeChange.Type.NODE_REMOVED, changes.get(1).getType());
+		// A version collapsed into a later entry gets that entry
+		changes = log.getChangesSince(4);
+		assertEquals(1, changes.size());
+		assertEquals(5, changes.get(0).getVersion());
+	}
+
+	public void testOverflow() {
+		TreeChangeLog log = new TreeChangeLog();
+		AlertChange alertChange = newAlertChange(AlertLevel.LOW);
+		for(int i = 0; i < CAPACITY + 5; i++) log.alertChanged(alertChange);
+		assertEquals(CAPACITY + 5, log.getVersion());
+		// Versions 1 through 5 have been trimmed
+		assertNull(log.getChangesSince(0));
+		assertNull(log.getChangesSince(4));
+		List<TreeChange> changes = log.getChangesSince(5);
+		assertEquals(CAPACITY, changes.size());
+		assertEquals(6, changes.get(0).getVersion());
+		assertEquals(CAPACITY + 5, changes.get(CAPACITY - 1).getVersion());
+		assertEquals(1, log.getChangesSince(CAPACITY + 4).size());
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor;
+
+import com.aoindustries.noc.monitor.common.AlertCategory;
+import com.aoindustries.noc.monitor.common.AlertChange;
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import com.aoindustries.noc.monitor.common.TreeListener;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * @author  AO Industries, Inc.
+ */
+public class TreeEventPipelineTest extends TestCase {
+
+	public TreeEventPipelineTest(String testName) {
+		super(testName);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(TreeEventPipelineTest.class);
+		return suite;
+	}
+
+	private static class TestNode extends NodeImpl {
+
+		private static final long serialVersionUID = 1L;
+
+		private TestNode() throws RemoteException {
+			super(0, null, null);
+		}
+
+		@Override
+		public TestNode getParent() {
+			return null;
+		}
+
+		@Override
+		public List<TestNode> getChildren() {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public AlertLevel getAlertLevel() {
+			return AlertLevel.NONE;
+		}
+
+		@Override
+		public String getAlertMessage() {
+			return null;
+		}
+
+		@Override
+		public AlertCategory getAlertCategory() {
+			return AlertCategory.MONITORING;
+		}
+
+		@Override
+		public boolean getAllowsChildren() {
+			return false;
+		}
+
+		@Override
+		public String getLabel() {
+			return "test";
+		}
+	}
+
+	/**
+	 * Records each call, blocking the first until released.
+	 */
+	private static class TestListener implements TreeListener {
+
+		private final CountDownLatch entered = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+		private final List<Object> calls = new ArrayList<>();
+
+		private void called(Object call) {
+			boolean first;
+			synchronized(calls) {
+				first = calls.isEmpty();
+				calls.add(call);
+				calls.notifyAll();
+			}
+			if(first) {
+				entered.countDown();
+				try {
+					release.await();
+				} catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+
+		@Override
+		public void nodeAdded() {
+			called("nodeAdded");
+		}
+
+		@Override
+		public void nodeRemoved() {
+			called("nodeRemoved");
+		}
+
+		@Override
+		public void nodeAlertChanged(List<AlertChange> changes) {
+			called(changes);
+		}
+
+		private List<Object> awaitCalls(int count) throws InterruptedException {
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			synchronized(calls) {
+				while(calls.size() < count) {
+					long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+					assertTrue("Not delivered", remaining > 0);
+					calls.wait(remaining);
+				}
+				return new ArrayList<>(calls);
+			}
+		}
+	}
+
+	private static TreeEventPipeline.Change newChange(NodeImpl node, AlertLevel oldAlertLevel, AlertLevel newAlertLevel, String alertMessage) {
+		return new TreeEventPipeline.Change(node, "/test", oldAlertLevel, newAlertLevel, alertMessage, AlertCategory.MONITORING, AlertCategory.MONITORING);
+	}
+
+	@SuppressWarnings("unchecked")
+	public void testCoalesces() throws Exception {
+		TestNode node1 = new TestNode();
+		TestNode node2 = new TestNode();
+		TestNode node3 = new TestNode();
+		try {
+			TestListener listener = new TestListener();
+			TreeEventPipeline pipeline = new TreeEventPipeline(null, listener);
+			// The first event is delivered immediately, the rest pile up behind it
+			pipeline.nodeAdded();
+			assertTrue(listener.entered.await(10, TimeUnit.SECONDS));
+			for(int i = 0; i < 3; i++) pipeline.nodeAdded();
+			for(int i = 0; i < 2; i++) pipeline.nodeRemoved();
+			pipeline.nodeAlertLevelChanged(newChange(node1, AlertLevel.NONE, AlertLevel.LOW, "low"));
+			pipeline.nodeAlertLevelChanged(newChange(node2, AlertLevel.NONE, AlertLevel.HIGH, "high"));
+			pipeline.nodeAlertLevelChanged(newChange(node1, AlertLevel.LOW, AlertLevel.CRITICAL, "critical"));
+			pipeline.nodeAlertLevelChanged(newChange(node3, AlertLevel.NONE, AlertLevel.MEDIUM, "medium"));
+			// Reverted, so not delivered
+			pipeline.nodeAlertLevelChanged(newChange(node2, AlertLevel.HIGH, AlertLevel.NONE, null));
+			listener.release.countDown();
+			List<Object> calls = listener.awaitCalls(4);
+			assertEquals("nodeAdded", calls.get(0));
+			assertEquals("nodeAdded", calls.get(1));
+			assertEquals("nodeRemoved", calls.get(2));
+			List<AlertChange> changes = (List<AlertChange>)calls.get(3);
+			assertEquals(2, changes.size());
+			AlertChange change1 = changes.get(0);
+			assertSame(node1, change1.getNode());
+			assertSame(AlertLevel.NONE, change1.getOldAlertLevel());
+			assertSame(AlertLevel.CRITICAL, change1.getNewAlertLevel());
+			assertEquals("critical", change1.getAlertMessage());
+			AlertChange change3 = changes.get(1);
+			assertSame(node3, change3.getNode());
+			assertSame(AlertLevel.MEDIUM, change3.getNewAlertLevel());
+			// Nothing more is delivered
+			Thread.sleep(500);
+			assertEquals(4, listener.awaitCalls(4).size());
+		} finally {
+			UnicastRemoteObject.unexportObject(node1, true);
+			UnicastRemoteObject.unexportObject(node2, true);
+			UnicastRemoteObject.unexportObject(node3, true);
+		}
+	}
+
+	public void testClose() throws Exception {
+		TestNode node = new TestNode();
+		try {
+			TestListener listener = new TestListener();
+			TreeEventPipeline pipeline = new TreeEventPipeline(null, listener);
+			pipeline.nodeAdded();
+			assertTrue(listener.entered.await(10, TimeUnit.SECONDS));
+			pipeline.nodeRemoved();
+			pipeline.nodeAlertLevelChanged(newChange(node, AlertLevel.NONE, AlertLevel.LOW, "low"));
+			pipeline.close();
+			pipeline.nodeAdded();
+			listener.release.countDown();
+			Thread.sleep(500);
+			assertEquals(1, listener.awaitCalls(1).size());
+		} finally {
+			UnicastRemoteObject.unexportObject(node, true);
+		}
+	}
+}
@@ -0,0 +1,255 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor.dns;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import org.xbill.DNS.ARecord;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.Type;
+
+/**
+ * Tests the {@link AsyncResolver} against an in-process nameserver on the loopback interface.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class AsyncResolverTest extends TestCase {
+
+	public AsyncResolverTest(String testName) {
+		super(testName);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(AsyncResolverTest.class);
+		return suite;
+	}
+
+	private static final long RETRY_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+	/**
+	 * Answers A queries from a fixed set of names, with NXDOMAIN for all others.
+	 * The first <code>drop</code> queries are not answered.
+	 */
+	private static class NameserverStandIn implements AutoCloseable {
+
+		private final DatagramSocket socket;
+		private final Map<Name, InetAddress> addresses = new ConcurrentHashMap<>();
+		private final AtomicInteger received = new AtomicInteger();
+
+		private NameserverStandIn(int drop) throws SocketException {
+			socket = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+			Thread thread = new Thread(() -> {
+				byte[] buff = new byte[512];
+				try {
+					while(true) {
+						DatagramPacket packet = new DatagramPacket(buff, buff.length);
+						socket.receive(packet);
+						if(received.incrementAndGet() <= drop) continue;
+						Message query = new Message(Arrays.copyOf(packet.getData(), packet.getLength()));
+						Record question = query.getQuestion();
+						Message answer = new Message(query.getHeader().getID());
+						answer.getHeader().setFlag(Flags.QR);
+						answer.addRecord(question, Section.QUESTION);
+						InetAddress address = addresses.get(question.getName());
+						if(address == null) {
+							answer.getHeader().setRcode(Rcode.NXDOMAIN);
+						} else if(question.getType() == Type.A) {
+							answer.addRecord(new ARecord(question.getName(), DClass.IN, 60, address), Section.ANSWER);
+						}
+						byte[] wire = answer.toWire();
+						socket.send(new DatagramPacket(wire, wire.length, packet.getSocketAddress()));
+					}
+				} catch(IOException e) {
+					// Closed
+				}
+			});
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		private InetSocketAddress getAddress() {
+			return new InetSocketAddress(InetAddress.getLoopbackAddress(), socket.getLocalPort());
+		}
+
+		@Override
+		public void close() {
+			socket.close();
+		}
+	}
+
+	private static AsyncResolver newResolver(InetSocketAddress server, int attempts, int zoneRate) throws IOException {
+		return new AsyncResolver(Collections.singletonList(server), 2, RETRY_INTERVAL, attempts, zoneRate, Runnable::run);
+	}
+
+	public void testManyInFlight() throws Exception {
+		try (
+			NameserverStandIn nameserver = new NameserverStandIn(0);
+			AsyncResolver resolver = newResolver(nameserver.getAddress(), 3, 10000)
+		) {
+			int count = 1000;
+			for(int i = 0; i < count; i += 2) {
+				nameserver.addresses.put(
+					Name.fromString(i + ".test.example."),
+					InetAddress.getByAddress(new byte[] {127, 0, (byte)(i >> 8), (byte)i})
+				);
+			}
+			List<CompletableFuture<Message>> futures = new ArrayList<>(count);
+			for(int i = 0; i < count; i++) {
+				futures.add(resolver.query(Name.fromString(i + ".test.example."), Type.A, "test.example", 10, TimeUnit.SECONDS));
+			}
+			for(int i = 0; i < count; i++) {
+				Message answer = futures.get(i).get(20, TimeUnit.SECONDS);
+				if((i % 2) == 0) {
+					assertEquals(Rcode.NOERROR, answer.getRcode());
+					List<Record> records = answer.getSection(Section.ANSWER);
+					assertEquals(1, records.size());
+					assertEquals("127.0." + (i >> 8) + "." + (i & 255), ((ARecord)records.get(0)).getAddress().getHostAddress());
+				} else {
+					assertEquals(Rcode.NXDOMAIN, answer.getRcode());
+				}
+			}
+		}
+	}
+
+	public void testRetry() throws Exception {
+		try (
+			NameserverStandIn nameserver = new NameserverStandIn(2);
+			AsyncResolver resolver = newResolver(nameserver.getAddress(), 3, 100)
+		) {
+			Name name = Name.fromString("retry.test.example.");
+			nameserver.addresses.put(name, InetAddress.getLoopbackAddress());
+			Message answer = resolver.query(name, Type.A, "test.example", 10, TimeUnit.SECONDS).get(20, TimeUnit.SECONDS);
+			assertEquals(Rcode.NOERROR, answer.getRcode());
+			assertEquals(3, nameserver.received.get());
+		}
+	}
+
+	public void testTimeout() throws Exception {
+		try (
+			NameserverStandIn nameserver = new NameserverStandIn(Integer.MAX_VALUE);
+			AsyncResolver resolver = newResolver(nameserver.getAddress(), 2, 100)
+		) {
+			long startNanos = System.nanoTime();
+			try {
+				resolver.query(Name.fromString("silent.test.example."), Type.A, "test.example", 500, TimeUnit.MILLISECONDS).get(20, TimeUnit.SECONDS);
+				fail("Query without answer completed");
+			} catch(ExecutionException e) {
+				assertTrue(e.getCause() instanceof TimeoutException);
+			}
+			assertTrue(System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(500));
+			// No more than the maximum attempts
+			assertEquals(2, nameserver.received.get());
+		}
+	}
+
+	public void testZoneRate() throws Exception {
+		try (
+			NameserverStandIn nameserver = new NameserverStandIn(0);
+			AsyncResolver resolver = newResolver(nameserver.getAddress(), 1, 10)
+		) {
+			long startNanos = System.nanoTime();
+			List<CompletableFuture<Message>> limited = new ArrayList<>();
+			// Ten sent immediately, the other ten at ten per second
+			for(int i = 0; i < 20; i++) {
+				limited.add(resolver.query(Name.fromString(i + ".limited.example."), Type.A, "limited.example", 10, TimeUnit.SECONDS));
+			}
+			// Another zone is not delayed
+			resolver.query(Name.fromString("other.example."), Type.A, "other.example", 10, TimeUnit.SECONDS).get(20, TimeUnit.SECONDS);
+			assertTrue(System.nanoTime() - startNanos < TimeUnit.MILLISECONDS.toNanos(500));
+			for(CompletableFuture<Message> future : limited) {
+				assertEquals(Rcode.NXDOMAIN, future.get(20, TimeUnit.SECONDS).getRcode());
+			}
+			assertTrue(System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(900));
+		}
+	}
+
+	public void testIgnoresForeignAnswers() throws Exception {
+		try (
+			DatagramSocket target = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+			DatagramSocket other = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+			AsyncResolver resolver = newResolver(new InetSocketAddress(InetAddress.getLoopbackAddress(), target.getLocalPort()), 1, 100)
+		) {
+			CompletableFuture<Message> future = resolver.query(Name.fromString("spoof.test.example."), Type.A, "test.example", 300, TimeUnit.MILLISECONDS);
+			DatagramPacket packet = new DatagramPacket(new byte[512], 512);
+			target.receive(packet);
+			Message query = new Message(Arrays.copyOf(packet.getData(), packet.getLength()));
+			Message answer = new Message(query.getHeader().getID());
+			answer.getHeader().setFlag(Flags.QR);
+			answer.addRecord(query.getQuestion(), Section.QUESTION);
+			byte[] wire = answer.toWire();
+			// Answer from a different address, which must not complete the query
+			other.send(new DatagramPacket(wire, wire.length, packet.getSocketAddress()));
+			try {
+				future.get(10, TimeUnit.SECONDS);
+				fail("Answer from wrong address accepted");
+			} catch(ExecutionException e) {
+				assertTrue(e.getCause() instanceof TimeoutException);
+			}
+		}
+	}
+
+	public void testClose() throws Exception {
+		try (NameserverStandIn nameserver = new NameserverStandIn(Integer.MAX_VALUE)) {
+			AsyncResolver resolver = newResolver(nameserver.getAddress(), 3, 100);
+			CompletableFuture<Message> outstanding = resolver.query(Name.fromString("closed.test.example."), Type.A, "test.example", 1, TimeUnit.MINUTES);
+			resolver.close();
+			try {
+				outstanding.get(10, TimeUnit.SECONDS);
+				fail("Outstanding query not failed on close");
+			} catch(ExecutionException e) {
+				assertTrue(e.getCause() instanceof ClosedChannelException);
+			}
+			try {
+				resolver.query(Name.fromString("closed.test.example."), Type.A, "test.example", 1, TimeUnit.MINUTES).get(10, TimeUnit.SECONDS);
+				fail("Query after close not failed");
+			} catch(ExecutionException e) {
+				assertTrue(e.getCause() instanceof ClosedChannelException);
+			}
+		}
+	}
+}
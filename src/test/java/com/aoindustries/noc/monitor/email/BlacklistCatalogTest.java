@@ -0,0 +1,127 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor.email;
+
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * @author  AO Industries, Inc.
+ */
+public class BlacklistCatalogTest extends TestCase {
+
+	public BlacklistCatalogTest(String testName) {
+		super(testName);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(BlacklistCatalogTest.class);
+		return suite;
+	}
+
+	private static BlacklistCatalog parse(String catalog) throws IOException {
+		return BlacklistCatalog.parse(new StringReader(catalog), "test");
+	}
+
+	public void testBundledCatalog() throws IOException {
+		BlacklistCatalog catalog;
+		try(Reader in = new InputStreamReader(BlacklistCatalog.class.getResourceAsStream("blacklists.txt"), StandardCharsets.UTF_8)) {
+			catalog = BlacklistCatalog.parse(in, "blacklists.txt");
+		}
+		assertTrue(catalog.getEnabledEntries().size() > 300);
+		assertTrue(catalog.getEntries().size() > catalog.getEnabledEntries().size());
+		Set<String> basenames = new HashSet<>();
+		for(BlacklistCatalog.Entry entry : catalog.getEntries()) {
+			assertTrue(entry.basename, basenames.add(entry.basename));
+		}
+		for(BlacklistCatalog.Entry entry : catalog.getEnabledEntries()) {
+			if("list.quorum.to".equals(entry.basename)) {
+				assertEquals(AlertLevel.NONE, entry.getAlertLevel("127.0.0.0"));
+				assertEquals(AlertLevel.LOW, entry.getAlertLevel("127.0.0.2"));
+			}
+		}
+	}
+
+	public void testOptions() throws IOException {
+		BlacklistCatalog catalog = parse(
+			"# Comment\n"
+			+ "version\t3\n"
+			+ "\n"
+			+ "b.example\tmaxAlertLevel=NONE\trate=5\t# Informational\n"
+			+ "a.example\tnone=127.0.0.1,127.0.0.3\n"
+			+ "c.example\tenabled=false\n"
+		);
+		assertEquals(3, catalog.getVersion());
+		assertEquals(3, catalog.getEntries().size());
+		assertEquals(2, catalog.getEnabledEntries().size());
+		BlacklistCatalog.Entry a = catalog.getEntries().get(0);
+		assertEquals("a.example", a.basename);
+		assertEquals(AlertLevel.LOW, a.maxAlertLevel);
+		assertEquals(new HashSet<>(Arrays.asList("127.0.0.1", "127.0.0.3")), a.none);
+		assertEquals(0, a.rate);
+		assertEquals(AlertLevel.NONE, a.getAlertLevel("127.0.0.3"));
+		assertEquals(AlertLevel.LOW, a.getAlertLevel("127.0.0.2"));
+		BlacklistCatalog.Entry b = catalog.getEntries().get(1);
+		assertEquals(AlertLevel.NONE, b.maxAlertLevel);
+		assertEquals(5, b.rate);
+		assertFalse(catalog.getEntries().get(2).enabled);
+	}
+
+	public void testMalformed() {
+		for(String malformed : new String[] {
+			"a.example\n",
+			"version\tone\n",
+			"version\t1\na.example\na.example\n",
+			"version\t1\na.example\tmaxAlertLevel=SEVERE\n",
+			"version\t1\na.example\trate=0\n",
+			"version\t1\na.example\tenabled=no\n",
+			"version\t1\na.example\tunknown=1\n"
+		}) {
+			try {
+				parse(malformed);
+				fail("Malformed catalog parsed: " + malformed);
+			} catch(IOException e) {
+				// Expected
+			}
+		}
+	}
+
+	public void testNewerVersionSelected() throws IOException {
+		BlacklistCatalog bundled = parse("version\t2\na.example\n");
+		assertSame(bundled, BlacklistCatalog.select(bundled, null));
+		BlacklistCatalog older = parse("version\t1\na.example\nb.example\n");
+		assertSame(bundled, BlacklistCatalog.select(bundled, older));
+		BlacklistCatalog same = parse("version\t2\na.example\nb.example\n");
+		assertSame(same, BlacklistCatalog.select(bundled, same));
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor.email;
+
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import com.aoindustries.noc.monitor.email.BlacklistsNodeWorker.BlacklistQueryResult;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * @author  AO Industries, Inc.
+ */
+public class BlacklistQueryPlannerTest extends TestCase {
+
+	public BlacklistQueryPlannerTest(String testName) {
+		super(testName);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(BlacklistQueryPlannerTest.class);
+		return suite;
+	}
+
+	private static BlacklistQueryResult newResult(String zone, String query) {
+		return new BlacklistQueryResult(zone, System.currentTimeMillis(), 0, query, "Host not found", AlertLevel.NONE);
+	}
+
+	public void testDeduplicatesPendingQueries() throws Exception {
+		BlacklistResultStore store = new BlacklistResultStore(Files.createTempDirectory(null));
+		BlacklistQueryPlanner planner = new BlacklistQueryPlanner(store, 10);
+		AtomicInteger lookups = new AtomicInteger();
+		CompletableFuture<BlacklistQueryResult> answer = new CompletableFuture<>();
+		String query = "1.0.0.127.bl.example.";
+		CompletableFuture<BlacklistQueryResult> first = planner.submit("bl.example", query, () -> {
+			lookups.incrementAndGet();
+			return answer;
+		});
+		CompletableFuture<BlacklistQueryResult> second = planner.submit("bl.example", query, () -> {
+			lookups.incrementAndGet();
+			return answer;
+		});
+		assertEquals(1, planner.getDeduplicatedCount());
+		// Cancelling one worker's future does not affect the other
+		first.cancel(false);
+		BlacklistQueryResult result = newResult("bl.example", query);
+		answer.complete(result);
+		assertSame(result, second.get(10, TimeUnit.SECONDS));
+		assertSame(result, store.get(query));
+		assertEquals(1, lookups.get());
+		assertEquals(0, planner.getPendingCount());
+	}
+
+	private static void awaitSize(Object lock, List<?> list, int size) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while(true) {
+			synchronized(lock) {
+				if(list.size() >= size) break;
+			}
+			assertTrue(System.nanoTime() < deadline);
+			Thread.sleep(10);
+		}
+		// Give the planner a chance to dispatch more than expected
+		Thread.sleep(100);
+	}
+
+	public void testWindowOrderedByZone() throws Exception {
+		BlacklistResultStore store = new BlacklistResultStore(Files.createTempDirectory(null));
+		BlacklistQueryPlanner planner = new BlacklistQueryPlanner(store, 2);
+		List<String> dispatched = new ArrayList<>();
+		List<CompletableFuture<BlacklistQueryResult>> answers = new ArrayList<>();
+		Object lock = new Object();
+		// Fill the window while the rest are submitted
+		CompletableFuture<BlacklistQueryResult> hold = new CompletableFuture<>();
+		CompletableFuture<BlacklistQueryResult> stuck = new CompletableFuture<>();
+		CountDownLatch holding = new CountDownLatch(2);
+		CompletableFuture<BlacklistQueryResult> held = planner.submit("held.example", "held.example.", () -> {
+			holding.countDown();
+			return hold;
+		});
+		CompletableFuture<BlacklistQueryResult> stuckFuture = planner.submit("stuck.example", "stuck.example.", () -> {
+			holding.countDown();
+			return stuck;
+		});
+		assertTrue(holding.await(10, TimeUnit.SECONDS));
+		assertEquals(2, planner.getInFlightCount());
+		List<CompletableFuture<BlacklistQueryResult>> futures = new ArrayList<>();
+		for(String zone : new String[] {"c.example", "a.example", "b.example", "a.example"}) {
+			String query = (futures.size() + 1) + ".0.0.127." + zone + '.';
+			futures.add(planner.submit(zone, query, () -> {
+				synchronized(lock) {
+					dispatched.add(zone);
+					CompletableFuture<BlacklistQueryResult> answer = new CompletableFuture<>();
+					answers.add(answer);
+					return answer;
+				}
+			}));
+		}
+		hold.complete(newResult("held.example", "held.example."));
+		held.get(10, TimeUnit.SECONDS);
+		// Each completion releases one slot while the stuck query keeps the other
+		for(int i = 1; i <= futures.size(); i++) {
+			awaitSize(lock, dispatched, i);
+			synchronized(lock) {
+				assertEquals(i, dispatched.size());
+				answers.get(i - 1).complete(newResult("zone", "query"));
+			}
+		}
+		synchronized(lock) {
+			assertEquals(Arrays.asList("a.example", "a.example", "b.example", "c.example"), dispatched);
+		}
+		for(CompletableFuture<BlacklistQueryResult> future : futures) future.get(10, TimeUnit.SECONDS);
+		assertFalse(stuckFuture.isDone());
+		assertEquals(6, planner.getDispatchedCount());
+		stuck.complete(newResult("stuck.example", "stuck.example."));
+		stuckFuture.get(10, TimeUnit.SECONDS);
+	}
+}
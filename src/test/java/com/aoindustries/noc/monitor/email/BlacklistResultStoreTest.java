@@ -0,0 +1,76 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor.email;
+
+import com.aoindustries.noc.monitor.common.AlertLevel;
+import com.aoindustries.noc.monitor.email.BlacklistsNodeWorker.BlacklistQueryResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * @author  AO Industries, Inc.
+ */
+public class BlacklistResultStoreTest extends TestCase {
+
+	public BlacklistResultStoreTest(String testName) {
+		super(testName);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(BlacklistResultStoreTest.class);
+		return suite;
+	}
+
+	public void testRestoresUnexpiredResults() throws Exception {
+		Path directory = Files.createTempDirectory(null);
+		long now = System.currentTimeMillis();
+		BlacklistResultStore store = new BlacklistResultStore(directory);
+		store.put("1.0.0.127.bl.example.", new BlacklistQueryResult("bl.example", now, 1000, "1.0.0.127.bl.example.", "Host not found", AlertLevel.NONE));
+		store.put("2.0.0.127.bl.example.", new BlacklistQueryResult("bl.example", now, 2000, "2.0.0.127.bl.example.", "127.0.0.2", AlertLevel.LOW));
+		// Due again, not saved
+		store.put("3.0.0.127.bl.example.", new BlacklistQueryResult("bl.example", now - BlacklistsNodeWorker.getRetry(AlertLevel.LOW), 3000, "3.0.0.127.bl.example.", "127.0.0.2", AlertLevel.LOW));
+		store.put("smtp:127.0.0.1:mail.example", new BlacklistQueryResult("mail.example", now, 4000, "192.0.2.1", "220 Ready", AlertLevel.NONE));
+		store.flush();
+
+		BlacklistResultStore restored = new BlacklistResultStore(directory);
+		assertEquals(3, restored.size());
+		BlacklistQueryResult result = restored.get("2.0.0.127.bl.example.");
+		assertEquals("bl.example", result.basename);
+		assertEquals(now, result.queryTime);
+		assertEquals(2000, result.latency);
+		assertEquals("2.0.0.127.bl.example.", result.query);
+		assertEquals("127.0.0.2", result.result);
+		assertEquals(AlertLevel.LOW, result.alertLevel);
+		assertNull(restored.get("3.0.0.127.bl.example."));
+		assertEquals("220 Ready", restored.get("smtp:127.0.0.1:mail.example").result);
+	}
+
+	public void testStartsEmptyWithoutFile() throws Exception {
+		BlacklistResultStore store = new BlacklistResultStore(Files.createTempDirectory(null));
+		assertEquals(0, store.size());
+		assertNull(store.get("1.0.0.127.bl.example."));
+	}
+}
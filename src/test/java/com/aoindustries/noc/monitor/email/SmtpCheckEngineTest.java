@@ -0,0 +1,220 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor.email;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the {@link SmtpCheckEngine} against a fake SMTP server on the loopback interface.
+ * The daemon call is stood in for by a direct connection that reads the greeting.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class SmtpCheckEngineTest extends TestCase {
+
+	public SmtpCheckEngineTest(String testName) {
+		super(testName);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(SmtpCheckEngineTest.class);
+		return suite;
+	}
+
+	/**
+	 * Greets each connection after a delay, tracking the most concurrent checks.
+	 */
+	private static class FakeSmtpServer implements AutoCloseable {
+
+		private final ServerSocket serverSocket;
+		private final AtomicInteger active = new AtomicInteger();
+		private final AtomicInteger maxActive = new AtomicInteger();
+
+		private FakeSmtpServer(String greeting, long delay) throws IOException {
+			serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+			Thread thread = new Thread(() -> {
+				try {
+					while(true) {
+						Socket socket = serverSocket.accept();
+						Thread connection = new Thread(() -> {
+							try(Socket s = socket) {
+								Thread.sleep(delay);
+								OutputStream out = s.getOutputStream();
+								out.write((greeting + "\r\n").getBytes(StandardCharsets.US_ASCII));
+								out.flush();
+								// Wait for QUIT
+								new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+							} catch(IOException | InterruptedException e) {
+								// Closed
+							}
+						});
+						connection.setDaemon(true);
+						connection.start();
+					}
+				} catch(IOException e) {
+					// Closed
+				}
+			});
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		/**
+		 * Connects to the fake server, whichever target was chosen, and returns the greeting.
+		 */
+		private String check(InetAddress target) throws IOException {
+			maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+			try(Socket socket = new Socket(target, serverSocket.getLocalPort())) {
+				BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+				String statusLine = in.readLine();
+				OutputStream out = socket.getOutputStream();
+				out.write("QUIT\r\n".getBytes(StandardCharsets.US_ASCII));
+				out.flush();
+				return statusLine;
+			} finally {
+				active.decrementAndGet();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			serverSocket.close();
+		}
+	}
+
+	private ExecutorService executor;
+	private AtomicInteger resolutions;
+
+	@Override
+	protected void setUp() {
+		executor = Executors.newCachedThreadPool();
+		resolutions = new AtomicInteger();
+	}
+
+	@Override
+	protected void tearDown() {
+		executor.shutdownNow();
+	}
+
+	private SmtpCheckEngine newEngine(int destinationConcurrency) {
+		return new SmtpCheckEngine(
+			domain -> {
+				resolutions.incrementAndGet();
+				return CompletableFuture.completedFuture(Collections.singletonList(InetAddress.getLoopbackAddress()));
+			},
+			executor,
+			destinationConcurrency,
+			TimeUnit.MINUTES.toNanos(5)
+		);
+	}
+
+	public void testGreetingAndPhases() throws Exception {
+		try(FakeSmtpServer server = new FakeSmtpServer("220 mx.example ESMTP", 50)) {
+			SmtpCheckEngine engine = newEngine(4);
+			SmtpCheckEngine.Probe probe = engine.check("mail.example", server::check, 10, TimeUnit.SECONDS).get(20, TimeUnit.SECONDS);
+			assertEquals("220 mx.example ESMTP", probe.statusLine);
+			assertEquals(InetAddress.getLoopbackAddress(), probe.target);
+			assertTrue(probe.resolveNanos >= 0);
+			assertTrue(probe.waitNanos >= 0);
+			assertTrue(probe.checkNanos >= TimeUnit.MILLISECONDS.toNanos(50));
+		}
+	}
+
+	public void testDestinationConcurrencyAndReuse() throws Exception {
+		try(FakeSmtpServer server = new FakeSmtpServer("554 blocked", 100)) {
+			SmtpCheckEngine engine = newEngine(2);
+			List<CompletableFuture<SmtpCheckEngine.Probe>> probes = new ArrayList<>();
+			for(int i = 0; i < 8; i++) {
+				probes.add(engine.check("mail.example", server::check, 10, TimeUnit.SECONDS));
+			}
+			for(CompletableFuture<SmtpCheckEngine.Probe> probe : probes) {
+				assertEquals("554 blocked", probe.get(20, TimeUnit.SECONDS).statusLine);
+			}
+			assertEquals(2, server.maxActive.get());
+			// Addresses resolved once for all checks
+			assertEquals(1, resolutions.get());
+			assertEquals(1, engine.getResolutionCount());
+		}
+	}
+
+	public void testTimeoutWhileWaiting() throws Exception {
+		try(FakeSmtpServer server = new FakeSmtpServer("220 slow", 1000)) {
+			SmtpCheckEngine engine = newEngine(1);
+			CompletableFuture<SmtpCheckEngine.Probe> first = engine.check("mail.example", server::check, 10, TimeUnit.SECONDS);
+			CompletableFuture<SmtpCheckEngine.Probe> second = engine.check("mail.example", server::check, 200, TimeUnit.MILLISECONDS);
+			try {
+				second.get(20, TimeUnit.SECONDS);
+				fail("Check waiting for a slot completed");
+			} catch(ExecutionException e) {
+				assertTrue(e.getCause() instanceof TimeoutException);
+			}
+			assertEquals("220 slow", first.get(20, TimeUnit.SECONDS).statusLine);
+			// Never more than one at once, the timed out check gave up its place
+			assertEquals(1, server.maxActive.get());
+			assertEquals("220 slow", engine.check("mail.example", server::check, 10, TimeUnit.SECONDS).get(20, TimeUnit.SECONDS).statusLine);
+		}
+	}
+
+	public void testResolutionFailure() throws Exception {
+		SmtpCheckEngine engine = new SmtpCheckEngine(
+			domain -> {
+				CompletableFuture<List<InetAddress>> failed = new CompletableFuture<>();
+				failed.completeExceptionally(new IOException(domain + ": No MX records found"));
+				return failed;
+			},
+			executor,
+			1,
+			TimeUnit.MINUTES.toNanos(5)
+		);
+		for(int i = 0; i < 2; i++) {
+			try {
+				engine.check("mail.example", target -> "220 unused", 10, TimeUnit.SECONDS).get(20, TimeUnit.SECONDS);
+				fail("Check without addresses completed");
+			} catch(ExecutionException e) {
+				assertTrue(e.getCause() instanceof IOException);
+			}
+		}
+		// Failures are not reused
+		assertEquals(2, engine.getResolutionCount());
+	}
+}
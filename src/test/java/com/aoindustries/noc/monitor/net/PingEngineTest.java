@@ -0,0 +1,198 @@
+/*
+ * noc-monitor-impl - Implementation of Network Operations Center Monitoring.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of noc-monitor-impl.
+ *
+ * noc-monitor-impl is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * noc-monitor-impl is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with noc-monitor-impl.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aoindustries.noc.monitor.net;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the {@link PingEngine} against an echo responder on the loopback interface.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class PingEngineTest extends TestCase {
+
+	public PingEngineTest(String testName) {
+		super(testName);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(PingEngineTest.class);
+		return suite;
+	}
+
+	/**
+	 * Echoes datagrams back to their sender, dropping every <code>dropEvery</code>'th when positive.
+	 */
+	private static class EchoResponder implements AutoCloseable {
+
+		private final DatagramSocket socket;
+
+		private EchoResponder(int dropEvery) throws SocketException {
+			socket = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+			Thread thread = new Thread(() -> {
+				byte[] buff = new byte[512];
+				int count = 0;
+				try {
+					while(true) {
+						DatagramPacket packet = new DatagramPacket(buff, buff.length);
+						socket.receive(packet);
+						count++;
+						if(dropEvery <= 0 || (count % dropEvery) != 0) socket.send(packet);
+					}
+				} catch(Exception e) {
+					// Closed
+				}
+			});
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		private InetSocketAddress getAddress() {
+			return new InetSocketAddress(InetAddress.getLoopbackAddress(), socket.getLocalPort());
+		}
+
+		@Override
+		public void close() {
+			socket.close();
+		}
+	}
+
+	public void testRoundTrip() throws Exception {
+		try (
+			EchoResponder responder = new EchoResponder(0);
+			PingEngine engine = new PingEngine(2, Runnable::run)
+		) {
+			List<CompletableFuture<PingEngine.Reply>> futures = new ArrayList<>();
+			for(int i = 0; i < 100; i++) {
+				futures.add(engine.ping(responder.getAddress(), 5, TimeUnit.SECONDS));
+			}
+			for(CompletableFuture<PingEngine.Reply> future : futures) {
+				PingEngine.Reply reply = future.get(10, TimeUnit.SECONDS);
+				assertTrue(reply.getRoundTripNanos() > 0);
+				assertTrue(reply.getJitterNanos() >= 0);
+			}
+			PingEngine.Stats stats = engine.getStats(responder.getAddress());
+			assertEquals(100, stats.getSent());
+			assertEquals(100, stats.getReceived());
+			assertEquals(0, stats.getLost());
+			assertTrue(stats.getLastRoundTripNanos() > 0);
+		}
+	}
+
+	public void testLoss() throws Exception {
+		try (
+			EchoResponder responder = new EchoResponder(4);
+			PingEngine engine = new PingEngine(1, Runnable::run)
+		) {
+			int timeouts = 0;
+			// One at a time so the responder drops exactly every fourth probe
+			for(int i = 0; i < 20; i++) {
+				try {
+					engine.ping(responder.getAddress(), 200, TimeUnit.MILLISECONDS).get(10, TimeUnit.SECONDS);
+				} catch(ExecutionException e) {
+					assertTrue(e.getCause() instanceof TimeoutException);
+					timeouts++;
+				}
+			}
+			assertEquals(5, timeouts);
+			PingEngine.Stats stats = engine.getStats(responder.getAddress());
+			assertEquals(20, stats.getSent());
+			assertEquals(15, stats.getReceived());
+			assertEquals(5, stats.getLost());
+		}
+	}
+
+	public void testIgnoresForeignDatagrams() throws Exception {
+		try (
+			DatagramSocket target = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+			DatagramSocket other = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+			PingEngine engine = new PingEngine(1, Runnable::run)
+		) {
+			InetSocketAddress targetAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), target.getLocalPort());
+			CompletableFuture<PingEngine.Reply> future = engine.ping(targetAddress, 300, TimeUnit.MILLISECONDS);
+			DatagramPacket packet = new DatagramPacket(new byte[512], 512);
+			target.receive(packet);
+			// Echo the probe from a different address, which must not complete the probe
+			other.send(packet);
+			try {
+				future.get(10, TimeUnit.SECONDS);
+				fail("Reply from wrong address accepted");
+			} catch(ExecutionException e) {
+				assertTrue(e.getCause() instanceof TimeoutException);
+			}
+		}
+	}
+
+	public void testStatsExpiration() throws Exception {
+		try (
+			EchoResponder idle = new EchoResponder(0);
+			EchoResponder active = new EchoResponder(0);
+			PingEngine engine = new PingEngine(1, Runnable::run, 200, TimeUnit.MILLISECONDS)
+		) {
+			engine.ping(idle.getAddress(), 5, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS);
+			assertNotNull(engine.getStats(idle.getAddress()));
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while(engine.getStats(idle.getAddress()) != null) {
+				assertTrue(System.nanoTime() < deadline);
+				engine.ping(active.getAddress(), 5, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS);
+				Thread.sleep(50);
+			}
+			assertNotNull(engine.getStats(active.getAddress()));
+		}
+	}
+
+	public void testClose() throws Exception {
+		try (DatagramSocket silent = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+			InetSocketAddress silentAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), silent.getLocalPort());
+			PingEngine engine = new PingEngine(1, Runnable::run);
+			CompletableFuture<PingEngine.Reply> outstanding = engine.ping(silentAddress, 1, TimeUnit.MINUTES);
+			engine.close();
+			try {
+				outstanding.get(10, TimeUnit.SECONDS);
+				fail("Outstanding probe not failed on close");
+			} catch(ExecutionException e) {
+				assertTrue(e.getCause() instanceof ClosedChannelException);
+			}
+			try {
+				engine.ping(silentAddress, 1, TimeUnit.MINUTES).get(10, TimeUnit.SECONDS);
+				fail("Probe after close not failed");
+			} catch(ExecutionException e) {
+				assertTrue(e.getCause() instanceof ClosedChannelException);
+			}
+		}
+	}
+}